@@ -0,0 +1,68 @@
+package benchmark;
+
+import helperReports.AppointmentSnapshot;
+import helperReports.HistoricalAnalytics;
+import helperReports.HistoricalReport;
+import model.AppointmentRow;
+import model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The analytics benchmark measures the historical reports over an appointment snapshot, on different numbers of
+ * threads, to show how they scale with the cores of the machine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyticsBenchmark {
+    /**
+     * The fixture class holds a snapshot of the generated appointments.
+     */
+    @State(Scope.Benchmark)
+    public static class Fixture {
+        @Param({"100000", "1000000"})
+        public int size;
+
+        @Param({"1", "2", "4"})
+        public int parallelism;
+
+        public AppointmentSnapshot snapshot;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            int customerCount = AppointmentFixtures.customerCount(size);
+            List<Customer> customers = AppointmentFixtures.customers(customerCount);
+            AppointmentSnapshot.Builder builder = new AppointmentSnapshot.Builder();
+            for (AppointmentRow i : AppointmentFixtures.appointments(size, customerCount, AppointmentFixtures.seed)) {
+                // The generated divisions are spread over three countries
+                int divisionId = customers.get(i.getCustomerId() - 1).getDivisionId();
+                builder.add(i.getStart(), i.getEnd(), i.getType(), i.getCustomerId(), i.getContactId(), divisionId, 1 + divisionId % 3);
+            }
+            snapshot = builder.build();
+        }
+    }
+
+    /**
+     * compute totals the contact weeks, region minutes and type months in one fork/join pass.
+     */
+    @Benchmark
+    public HistoricalReport compute(Fixture fixture) {
+        return HistoricalAnalytics.compute(fixture.snapshot, fixture.parallelism);
+    }
+}
@@ -0,0 +1,90 @@
+package benchmark;
+
+import model.AppointmentRow;
+import model.Customer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The appointment fixtures class generates synthetic appointments and customers for the benchmarks.
+ * The same size and seed always give the same data, so runs can be compared with each other.
+ * Appointments are spread over two years starting at base, on 15 minute boundaries within the office hours,
+ * and last 15 to 120 minutes. Each customer has on average 100 appointments.
+ */
+public abstract class AppointmentFixtures {
+    /**
+     * Seed used by the benchmarks.
+     */
+    public static final long seed = 20240101L;
+    /**
+     * First day of the generated appointments, a Sunday.
+     */
+    public static final LocalDate base = LocalDate.of(2024, 1, 7);
+    /**
+     * Number of days the appointments are spread over.
+     */
+    public static final int days = 730;
+    /**
+     * Number of users the appointments belong to.
+     */
+    public static final int users = 10;
+    /**
+     * Appointment types, as offered in the appointment form.
+     */
+    public static final String[] types = {"Planning Session", "De-Briefing", "Follow-up", "Consultation"};
+    /**
+     * Contacts as in the sample database.
+     */
+    private static final String[] contacts = {"Anika Costa", "Daniel Garcia", "Li Lee"};
+
+    /**
+     * The customerCount function returns the number of customers generated for a number of appointments.
+     *
+     * @param appointments number of appointments
+     * @return number of customers
+     */
+    public static int customerCount(int appointments) {
+        return Math.max(10, Math.min(appointments / 100, 5000));
+    }
+
+    /**
+     * The customers function generates customers with ids from 1 to count.
+     *
+     * @param count number of customers
+     * @return generated customers
+     */
+    public static List<Customer> customers(int count) {
+        List<Customer> customers = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            customers.add(new Customer(i, "Customer " + i, i + " Main Street", String.valueOf(10000 + i), "555-" + i, 1 + i % 60));
+        }
+        return customers;
+    }
+
+    /**
+     * The appointments function generates appointments with ids from 1 to count, in id order.
+     *
+     * @param count number of appointments
+     * @param customers number of customers the appointments belong to
+     * @param seed random seed
+     * @return generated appointments
+     */
+    public static List<AppointmentRow> appointments(int count, int customers, long seed) {
+        Random random = new Random(seed);
+        List<AppointmentRow> appointments = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            // Starts end two hours before the office closes at 22:00, so the longest appointment still fits
+            int slot = random.nextInt(48);
+            LocalDateTime start = base.plusDays(random.nextInt(days)).atTime(8, 0).plusMinutes(15L * slot);
+            LocalDateTime end = start.plusMinutes(15L * (1 + random.nextInt(8)));
+            int contact = random.nextInt(contacts.length);
+            appointments.add(new AppointmentRow(i, "Appointment " + i, "Description " + i, "Office " + (i % 5), types[random.nextInt(types.length)],
+                    start, end, 1 + random.nextInt(customers), 1 + random.nextInt(users), contact + 1, contacts[contact], "contact" + contact + "@example.com"));
+        }
+        return appointments;
+    }
+}
@@ -0,0 +1,76 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The compare results class compares two JMH result files written with -rf json, for example a new run against
+ * the published baseline, and prints the change of every benchmark found in both.
+ * Changes beyond the threshold are marked, slower as REGRESSION and faster as FASTER.
+ * It can be run with: java benchmark.CompareResults baseline.json new.json [threshold percent, default 10]
+ */
+public abstract class CompareResults {
+    /**
+     * Matches one result: the benchmark name, the optional size parameter and the primary score.
+     * JMH writes these in this order within each result object.
+     */
+    private static final Pattern result = Pattern.compile(
+            "\"benchmark\"\\s*:\\s*\"([^\"]+)\".*?(?:\"params\"\\s*:\\s*\\{\\s*\"size\"\\s*:\\s*\"(\\d+)\".*?)?\"primaryMetric\"\\s*:\\s*\\{\\s*\"score\"\\s*:\\s*([-0-9.Ee]+)",
+            Pattern.DOTALL);
+
+    /**
+     * The main function prints the comparison.
+     *
+     * @param args baseline file, new file and optionally the threshold in percent
+     * @throws IOException exception in case a file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: CompareResults baseline.json new.json [threshold percent]");
+            return;
+        }
+        Map<String, Double> baseline = read(Path.of(args[0]));
+        Map<String, Double> current = read(Path.of(args[1]));
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+        int regressions = 0;
+        System.out.printf("%-55s %14s %14s %9s%n", "Benchmark", "Baseline", "New", "Change");
+        for (Map.Entry<String, Double> i : baseline.entrySet()) {
+            Double score = current.get(i.getKey());
+            if (score == null) {
+                continue;
+            }
+            // Scores are average times, so a higher score is slower
+            double change = (score - i.getValue()) / i.getValue() * 100;
+            String mark = change > threshold ? "  REGRESSION" : change < -threshold ? "  FASTER" : "";
+            if (change > threshold) {
+                regressions++;
+            }
+            System.out.printf("%-55s %14.3f %14.3f %+8.1f%%%s%n", i.getKey(), i.getValue(), score, change, mark);
+        }
+        System.out.println(regressions + " regressions beyond " + threshold + "%");
+    }
+
+    /**
+     * The read function returns the score of every benchmark and size in a result file.
+     */
+    private static Map<String, Double> read(Path file) throws IOException {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        String json = Files.readString(file);
+        // Each result object starts with "jmhVersion", so the file is split there to keep matches within one result
+        for (String part : json.split("\"jmhVersion\"")) {
+            Matcher matcher = result.matcher(part);
+            if (matcher.find()) {
+                String name = matcher.group(1).replaceFirst("^benchmark\\.", "");
+                String key = matcher.group(2) == null ? name : name + " size=" + matcher.group(2);
+                scores.put(key, Double.parseDouble(matcher.group(3)));
+            }
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,116 @@
+package benchmark;
+
+import helperDB.CustomerMetric;
+import helperReports.AppointmentReports;
+import helperReports.TopCustomers;
+import helperReports.TypeMonthCounts;
+import model.Appointment;
+import model.AppointmentRow;
+import model.Customer;
+import model.CustomerTotal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The reports benchmark measures the reports of the reports page and the upcoming appointments check made at login,
+ * over appointments already read from the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportsBenchmark {
+    /**
+     * The fixture class holds the generated appointments and customers.
+     */
+    @State(Scope.Benchmark)
+    public static class Fixture {
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int size;
+
+        public List<AppointmentRow> appointments;
+        public List<Customer> customers;
+        /**
+         * A time in the middle of the generated range, used as the login time.
+         */
+        public LocalDateTime now;
+        /**
+         * Counts by type and month of the generated appointments, as the reports page keeps them.
+         */
+        public TypeMonthCounts typeMonthCounts;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            int customerCount = AppointmentFixtures.customerCount(size);
+            appointments = AppointmentFixtures.appointments(size, customerCount, AppointmentFixtures.seed);
+            customers = AppointmentFixtures.customers(customerCount);
+            now = AppointmentFixtures.base.plusDays(AppointmentFixtures.days / 2).atTime(10, 0);
+            typeMonthCounts = TypeMonthCounts.fromAppointments(appointments);
+        }
+    }
+
+    /**
+     * getCustomersOfMonth finds the three customers with the most appointment minutes in a month.
+     */
+    @Benchmark
+    public Customer[] getCustomersOfMonth(Fixture fixture) {
+        return AppointmentReports.topCustomersOfMonth(fixture.appointments, fixture.customers, Month.JUNE);
+    }
+
+    /**
+     * topCustomers finds the same three customers for June of one year in one pass, picking them with a heap.
+     */
+    @Benchmark
+    public List<CustomerTotal> topCustomers(Fixture fixture) {
+        LocalDateTime june = LocalDateTime.of(2024, Month.JUNE, 1, 0, 0);
+        return TopCustomers.top(fixture.appointments, CustomerMetric.MINUTES, june, june.plusMonths(1), 3);
+    }
+
+    /**
+     * search counts the appointments of one type in one month, as the search button does.
+     */
+    @Benchmark
+    public int search(Fixture fixture) {
+        return AppointmentReports.countOfTypeInMonth(fixture.appointments, AppointmentFixtures.types[0], Month.JUNE.getValue());
+    }
+
+    /**
+     * searchCounts looks up the same count in counts by type and month built beforehand, as the search button now does.
+     */
+    @Benchmark
+    public int searchCounts(Fixture fixture) {
+        return fixture.typeMonthCounts.count(AppointmentFixtures.types[0], Month.JUNE.getValue());
+    }
+
+    /**
+     * buildCounts counts every type in every month in one pass, the in-memory alternative to the GROUP BY query.
+     */
+    @Benchmark
+    public TypeMonthCounts buildCounts(Fixture fixture) {
+        return TypeMonthCounts.fromAppointments(fixture.appointments);
+    }
+
+    /**
+     * appNotify finds a user's appointments within the next 15 minutes, as the login notification does.
+     */
+    @Benchmark
+    public List<Appointment> appNotify(Fixture fixture) {
+        return AppointmentReports.upcomingAppointments(fixture.appointments, 1, fixture.now, fixture.now.plusMinutes(15));
+    }
+}
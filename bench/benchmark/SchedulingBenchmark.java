@@ -0,0 +1,191 @@
+package benchmark;
+
+import helperDB.ChangeSet;
+import helperDB.RowTracker;
+import helperSchedule.ConflictIndex;
+import helperTime.TimeTranslation;
+import model.Appointment;
+import model.AppointmentRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * The scheduling benchmark measures the appointment page: the overlap test run before saving an appointment,
+ * the week and month views and the business hours offered in the time combo boxes.
+ * The week and month views read only their date range from the database; here the same range condition and order
+ * as AppointmentController.setAppointments are applied to all appointments in memory, which is what the page did
+ * before the range moved into the query, and the result is loaded into a RowTracker like the table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulingBenchmark {
+    /**
+     * The fixture class holds the generated appointments and the index built from them.
+     */
+    @State(Scope.Benchmark)
+    public static class Fixture {
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int size;
+
+        public int customers;
+        public List<AppointmentRow> appointments;
+        public ConflictIndex conflictIndex;
+        /**
+         * A day in the middle of the generated range, used as "today" for the week and month views.
+         */
+        public LocalDate today;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            customers = AppointmentFixtures.customerCount(size);
+            appointments = AppointmentFixtures.appointments(size, customers, AppointmentFixtures.seed);
+            conflictIndex = new ConflictIndex();
+            for (AppointmentRow i : appointments) {
+                conflictIndex.appointmentSaved(i);
+            }
+            today = AppointmentFixtures.base.plusDays(AppointmentFixtures.days / 2);
+        }
+    }
+
+    /**
+     * The probe class cycles through a fixed set of appointments to check, so the checks do not all hit the same
+     * customer and time. They are generated once, since per-call setup would cost more than a check.
+     */
+    @State(Scope.Thread)
+    public static class Probe {
+        private static final int count = 1024;
+        private final int[] customerIds = new int[count];
+        private final LocalDateTime[] starts = new LocalDateTime[count];
+        private final LocalDateTime[] ends = new LocalDateTime[count];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(Fixture fixture) {
+            Random random = new Random(AppointmentFixtures.seed + 1);
+            for (int i = 0; i < count; i++) {
+                customerIds[i] = 1 + random.nextInt(fixture.customers);
+                starts[i] = AppointmentFixtures.base.plusDays(random.nextInt(AppointmentFixtures.days)).atTime(8, 0).plusMinutes(15L * random.nextInt(48));
+                ends[i] = starts[i].plusMinutes(15L * (1 + random.nextInt(8)));
+            }
+        }
+
+        /**
+         * The advance function moves to the next appointment to check and returns its position.
+         */
+        int advance() {
+            next = (next + 1) & (count - 1);
+            return next;
+        }
+    }
+
+    /**
+     * overlapTestIndexed runs the booking overlap test through the in-memory conflict index.
+     */
+    @Benchmark
+    public boolean overlapTestIndexed(Fixture fixture, Probe probe) {
+        int i = probe.advance();
+        return fixture.conflictIndex.hasConflict(probe.customerIds[i], probe.starts[i], probe.ends[i], -1);
+    }
+
+    /**
+     * overlapTestScan runs the original overlap test of the appointments page, which scanned all appointments,
+     * as the reference for the indexed and database versions.
+     */
+    @Benchmark
+    public boolean overlapTestScan(Fixture fixture, Probe probe) {
+        int probed = probe.advance();
+        int customerId = probe.customerIds[probed];
+        boolean isOverlapping = false;
+        LocalDateTime S1 = probe.starts[probed];
+        LocalDateTime E1 = probe.ends[probed];
+
+        for (Appointment i : fixture.appointments) {
+            LocalDateTime S2 = i.getStart();
+            LocalDateTime E2 = i.getEnd();
+
+            if (i.getCustomerId() != customerId) {
+                continue;
+            } else if ((S2.isAfter(S1) || S2.isEqual(S1)) && S2.isBefore(E1)) {
+                isOverlapping = true;
+            } else if (E2.isAfter(S1) && (E2.isBefore(E1) || E2.isEqual(E1))) {
+                isOverlapping = true;
+            } else if ((S2.isBefore(S1) || (S2.isEqual(S1))) && (E2.isAfter(E1) || E2.isEqual(E1))) {
+                isOverlapping = true;
+            }
+        }
+        return isOverlapping;
+    }
+
+    /**
+     * weekView filters and orders the appointments of the current week (Sunday to Saturday) like the week view.
+     */
+    @Benchmark
+    public List<AppointmentRow> weekView(Fixture fixture) {
+        int currentDayValue = fixture.today.getDayOfWeek().getValue();
+        LocalDate firstDate = fixture.today.minusDays(currentDayValue);
+        LocalDate lastDate = fixture.today.plusDays(7 - (currentDayValue + 1));
+        return view(fixture.appointments, firstDate.atStartOfDay(), lastDate.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * monthView filters and orders the appointments of the current month like the month view.
+     */
+    @Benchmark
+    public List<AppointmentRow> monthView(Fixture fixture) {
+        YearMonth currentMonth = YearMonth.from(fixture.today);
+        return view(fixture.appointments, currentMonth.atDay(1).atStartOfDay(), currentMonth.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    /**
+     * returnBusinessHours builds the times offered in the start and end combo boxes.
+     */
+    @Benchmark
+    public List<LocalTime> returnBusinessHours() {
+        return TimeTranslation.returnBusinessHours();
+    }
+
+    /**
+     * The view function applies the view's range condition and order and loads the rows into a row tracker.
+     */
+    private static List<AppointmentRow> view(List<AppointmentRow> appointments, LocalDateTime from, LocalDateTime to) {
+        Predicate<AppointmentRow> inView = row -> !row.getStart().isBefore(from) && row.getStart().isBefore(to);
+        Comparator<AppointmentRow> order = Comparator.comparing(Appointment::getStart);
+
+        List<AppointmentRow> rows = new ArrayList<>();
+        for (AppointmentRow i : appointments) {
+            if (inView.test(i)) {
+                rows.add(i);
+            }
+        }
+        rows.sort(order);
+
+        RowTracker<AppointmentRow> tracker = new RowTracker<>(Appointment::getAppId, row -> List.of(row.getTitle()));
+        tracker.reset(new ChangeSet<>(rows, new Timestamp(0)), inView, order);
+        return tracker.getRows();
+    }
+}
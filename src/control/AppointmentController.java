@@ -1,25 +1,30 @@
 package control;
 
 import helperDB.AppointmentsQuery;
-import helperDB.ContactsQuery;
+import helperDB.AsyncDB;
+import helperDB.ChangeSet;
 import helperDB.CustomersQuery;
-import helperDB.UsersQuery;
+import helperDB.LatestRequest;
+import helperDB.ReferenceCache;
+import helperDB.RowTracker;
+import helperDB.SqlSupplier;
+import helperMetrics.ControllerInitEvent;
+import helperSchedule.BookingService;
 import helperTime.TimeTranslation;
+import javafx.animation.Timeline;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 import model.Appointment;
+import model.AppointmentRow;
 import model.Contact;
 import model.Customer;
 import model.User;
@@ -27,15 +32,24 @@ import model.User;
 import java.io.IOException;
 import java.net.URL;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.*;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 /**
  * Appointment controller allows user to interact with an appointment interface.
  * This includes viewing appointments in a table view (either all, by month or by week) and
  * dding appointments or updating and deleting selected appointments.
  */
-public class AppointmentController implements Initializable {
+public class AppointmentController implements Initializable, Refreshable {
 
     /**
      * Add, update or delete appointment button.
@@ -44,47 +58,47 @@ public class AppointmentController implements Initializable {
     /**
      * Appointment table.
      */
-    public TableView<Appointment> AppointmentsTable;
+    public TableView<AppointmentRow> AppointmentsTable;
     /**
      * Appointment id column.
      */
-    public TableColumn<Appointment, Integer> AppointmentID;
+    public TableColumn<AppointmentRow, Integer> AppointmentID;
     /**
      * Appointment title column.
      */
-    public TableColumn<Appointment, String> Title;
+    public TableColumn<AppointmentRow, String> Title;
     /**
      * Appointment description column.
      */
-    public TableColumn<Appointment, String> Description;
+    public TableColumn<AppointmentRow, String> Description;
     /**
      * Appointment location column.
      */
-    public TableColumn<Appointment, String> Location;
+    public TableColumn<AppointmentRow, String> Location;
     /**
      * Appointment contact name column.
      */
-    public TableColumn<Appointment, Contact> ContactName;
+    public TableColumn<AppointmentRow, Contact> ContactName;
     /**
      * Appointment type column.
      */
-    public TableColumn<Appointment, String> AppType;
+    public TableColumn<AppointmentRow, String> AppType;
     /**
      * Appointment start time and date column.
      */
-    public TableColumn<Appointment, LocalDateTime> AppStart;
+    public TableColumn<AppointmentRow, LocalDateTime> AppStart;
     /**
      * Appointment end time and date column.
      */
-    public TableColumn<Appointment, LocalDateTime> AppEnd;
+    public TableColumn<AppointmentRow, LocalDateTime> AppEnd;
     /**
      * Appointment associated customer id column.
      */
-    public TableColumn<Appointment, Integer> CustomerID;
+    public TableColumn<AppointmentRow, Integer> CustomerID;
     /**
      * Appointment associated user id column.
      */
-    public TableColumn<Appointment, Integer> UserID;
+    public TableColumn<AppointmentRow, Integer> UserID;
     /**
      * Add tab to change to the add interface.
      */
@@ -159,20 +173,49 @@ public class AppointmentController implements Initializable {
     public RadioButton MonthRadio;
 
     /**
-     * Lambda expression created to Alert the user when appointments are overlapping.
-     * This alert is repeated within the code, so this method helps with repetition.
+     * Background request filling the appointments table. A newer request, such as switching from week to month, replaces an older one.
      */
-    public alertMessages alertOverlappingMessage = () -> {
-        // Alert message for overlapping customer appointments
-        Alert alert = new Alert(Alert.AlertType.ERROR);
-        alert.setTitle("Error");
-        alert.setContentText("Appointments are overlapping for the customer. Please choose alternative times.");
-        alert.showAndWait();
-    };
+    private final LatestRequest<ChangeSet<AppointmentRow>> appointmentsRequest = new LatestRequest<>();
+    /**
+     * Background request pulling appointments changed by other clients.
+     */
+    private final LatestRequest<ChangeSet<AppointmentRow>> changesRequest = new LatestRequest<>();
+    /**
+     * The appointments shown in the table, updated in place after writes and pulls.
+     */
+    private final RowTracker<AppointmentRow> appointmentRows = new RowTracker<>(Appointment::getAppId, row -> Arrays.asList(
+            row.getTitle(), row.getDescription(), row.getLocation(), row.getType(), row.getStart(), row.getEnd(),
+            row.getCustomerId(), row.getUserId(), row.getContactId(), row.getContactName(), row.getContactEmail()));
+    /**
+     * Timeline pulling changes made by other clients while the page is shown.
+     */
+    private Timeline refreshTimer;
+    /**
+     * Background request looking up the customer of the selected appointment.
+     */
+    private final LatestRequest<Customer> customerRequest = new LatestRequest<>();
+    /**
+     * Background request looking up the contact of the selected appointment.
+     */
+    private final LatestRequest<Contact> contactRequest = new LatestRequest<>();
+    /**
+     * Background request looking up the user of the selected appointment.
+     */
+    private final LatestRequest<User> userRequest = new LatestRequest<>();
+    /**
+     * Combo boxes whose value for the selected appointment is still being looked up in the background.
+     * The execute button stays disabled until it is empty, so Update never saves another appointment's values.
+     */
+    private final Set<ComboBox<?>> pendingLookups = new HashSet<>();
+    /**
+     * Whether an add, update or delete is still being written in the background. The execute button stays disabled
+     * meanwhile, so the same appointment is not written twice.
+     */
+    private boolean writePending;
 
     /**
      * Initialize function sets up the appointments page with relevant information.
-     * Specifically, it sets and fills out the appointments table and combo boxes.
+     * Specifically, it sets up the appointments table and combo boxes, which refresh fills out each time the page is shown.
      * In addition, it incorporates a listener for the user selecting different appointments in table.
      * This listener fills out all field boxes below the table.
      *
@@ -181,50 +224,51 @@ public class AppointmentController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        try {
-            // Setting all data within the appointments table
-            AppointmentsTable.setItems(AppointmentsQuery.selectApps());
-            AppointmentID.setCellValueFactory(new PropertyValueFactory<>("appId"));
-            Title.setCellValueFactory(new PropertyValueFactory<>("title"));
-            Description.setCellValueFactory(new PropertyValueFactory<>("description"));
-            Location.setCellValueFactory(new PropertyValueFactory<>("location"));
-            ContactName.setCellValueFactory(new PropertyValueFactory<>("contact"));
-            AppType.setCellValueFactory(new PropertyValueFactory<>("type"));
-            AppStart.setCellValueFactory(new PropertyValueFactory<>("start"));
-            AppEnd.setCellValueFactory(new PropertyValueFactory<>("end"));
-            CustomerID.setCellValueFactory(new PropertyValueFactory<>("customerId"));
-            UserID.setCellValueFactory(new PropertyValueFactory<>("userId"));
-
-            // Setting combo boxes
-            ObservableList<Contact> contactsList = ContactsQuery.selectContacts();
-            ObservableList<Customer> customersList = CustomersQuery.selectCustomers();
-            ObservableList<User> usersList = UsersQuery.selectUsers();
-            ContactCombo.setItems(contactsList);
-            CustomerIdCombo.setItems(customersList);
-            UserIdCombo.setItems(usersList);
-            AppStartCombo.setItems(TimeTranslation.returnBusinessHours());
-            AppEndCombo.setItems(TimeTranslation.returnBusinessHours());
-
-            // Listener for user clicking different appointments within the appointment table that fills out the
-            // text fields for the update and delete tabs
-            AppointmentsTable.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<Appointment>() {
-                @Override
-                public void changed(ObservableValue<? extends Appointment> observableValue, Appointment appointment, Appointment t1) {
-                    try {
-                        if ((Execute.getText().equals("Delete")) || (Execute.getText().equals("Update"))) {
-                            fillAppointments();
-                        } else {
-                            clearAppointments();
-                        }
-                    } catch (SQLException e) {
-                        throw new RuntimeException(e);
-                    }
+        ControllerInitEvent initEvent = ControllerInitEvent.start("appointment-form");
+        AppointmentID.setCellValueFactory(new PropertyValueFactory<>("appId"));
+        Title.setCellValueFactory(new PropertyValueFactory<>("title"));
+        Description.setCellValueFactory(new PropertyValueFactory<>("description"));
+        Location.setCellValueFactory(new PropertyValueFactory<>("location"));
+        ContactName.setCellValueFactory(new PropertyValueFactory<>("contact"));
+        AppType.setCellValueFactory(new PropertyValueFactory<>("type"));
+        AppStart.setCellValueFactory(new PropertyValueFactory<>("start"));
+        AppEnd.setCellValueFactory(new PropertyValueFactory<>("end"));
+        CustomerID.setCellValueFactory(new PropertyValueFactory<>("customerId"));
+        UserID.setCellValueFactory(new PropertyValueFactory<>("userId"));
+
+        AppStartCombo.setItems(TimeTranslation.returnBusinessHours());
+        AppEndCombo.setItems(TimeTranslation.returnBusinessHours());
+
+        // Listener for user clicking different appointments within the appointment table that fills out the
+        // text fields for the update and delete tabs
+        AppointmentsTable.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<AppointmentRow>() {
+            @Override
+            public void changed(ObservableValue<? extends AppointmentRow> observableValue, AppointmentRow appointment, AppointmentRow t1) {
+                if ((Execute.getText().equals("Delete")) || (Execute.getText().equals("Update"))) {
+                    fillAppointments();
+                } else {
+                    clearAppointments();
                 }
-            });
+            }
+        });
+        initEvent.commit();
+    }
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+    /**
+     * The refresh function fills out the appointments table and combo boxes each time the page is shown, clearing
+     * the form and pulling changes by other clients while the page stays shown.
+     */
+    @Override
+    public void refresh() {
+        clearAppointments();
+        // Setting all data within the appointments table, read together with each contact in one query in the background
+        setAppointments();
+        refreshTimer = RowTracker.startPolling(this::pullChanges);
+
+        // Setting combo boxes once their lists have been read in the background
+        AsyncDB.load(ReferenceCache::getContacts, ContactCombo::setItems, this::databaseError);
+        AsyncDB.load(CustomersQuery::selectCustomers, CustomerIdCombo::setItems, this::databaseError);
+        AsyncDB.load(ReferenceCache::getUsers, UserIdCombo::setItems, this::databaseError);
     }
 
     /**
@@ -234,13 +278,13 @@ public class AppointmentController implements Initializable {
      * When the "Update" button is pressed, it updates the currently selected appointment and updates the table.
      * When the "Delete" button is pressed, it deletes the currently selected appointment and displays a message with
      * the appointment id and type.
-     * A Lambda expression is incorporated to print out an error message when appointments are found to be overlapping
-     * This function is used multiple times, so helps with repetition within the code.
+     * When appointments are found to be overlapping, an error message lists the overlapping appointments.
+     * The writes run in the background, since booking waits for the customer's row lock, and the table and alerts
+     * are updated once they are done.
      *
      * @param actionEvent clicking the execute button (Add, Update or Delete)
-     * @throws SQLException exception in case sql commands return an error
      */
-    public void execute(ActionEvent actionEvent) throws SQLException {
+    public void execute(ActionEvent actionEvent) {
         // Add appointment button functionality
         if(Execute.getText().equals("Add")) {
             try {
@@ -262,20 +306,22 @@ public class AppointmentController implements Initializable {
                 LocalDateTime start = LocalDateTime.of(date, startTime);
                 LocalDateTime end = LocalDateTime.of(date, endTime);
 
-                // Making sure no appointments overlap for any customers before adding
-                if (!overlapTest(date, startTime, endTime)) {
-                    AppointmentsQuery.insertApp(title, description, location, type, start, end, customerId, userId, contactId);
+                // Adding the appointment only if no appointments overlap for the customer, checked and written together
+                write(() -> BookingService.book(title, description, location, type, start, end, customerId, userId, contactId), booking -> {
+                    if (booking.isBooked()) {
+                        int appId = booking.getAppId();
 
-                    // Clear all selections
-                    clearAppointments();
+                        // Clear all selections
+                        clearAppointments();
 
-                    // Refresh table
-                    setAppointments();
+                        // Adding the new appointment to the table without reading it again
+                        appointmentRows.saved(new AppointmentRow(appId, title, description, location, type, start, end, customerId, userId, contactId, contact.getName(), contact.getEmail()));
 
-                } else {
-                    // Lambda implemented: Alert for overlapping appointments
-                    alertOverlappingMessage.printOverlappingAlert();
-                }
+                    } else if (!booking.getConflicts().isEmpty()) {
+                        // Alert listing the overlapping appointments
+                        showConflicts(booking.getConflicts());
+                    }
+                });
             } catch (NullPointerException e) {
                 //
             }
@@ -290,19 +336,19 @@ public class AppointmentController implements Initializable {
                     String type = AppointmentsTable.getSelectionModel().getSelectedItem().getType();
 
                     // Deleting appointment
-                    AppointmentsQuery.deleteApp(appId);
-
-                    // Refresh table
-                    setAppointments();
-
-                    // Alert showing which customer was deleted
-                    Alert showInformation = new Alert(Alert.AlertType.INFORMATION);
-                    showInformation.setTitle("Appointment Information");
-                    showInformation.setContentText("Appointment Deleted: \n\nID: " + appId + "\nType: " + type);
-                    showInformation.showAndWait();
-
-                    // Clearing all text boxes
-                    clearAppointments();
+                    write(() -> AppointmentsQuery.deleteApp(appId), numChanged -> {
+                        // Removing the appointment from the table without reading it again
+                        appointmentRows.deleted(appId);
+
+                        // Alert showing which customer was deleted
+                        Alert showInformation = new Alert(Alert.AlertType.INFORMATION);
+                        showInformation.setTitle("Appointment Information");
+                        showInformation.setContentText("Appointment Deleted: \n\nID: " + appId + "\nType: " + type);
+                        showInformation.showAndWait();
+
+                        // Clearing all text boxes
+                        clearAppointments();
+                    });
                 } catch (NullPointerException e) {
                     //
                 }
@@ -311,7 +357,10 @@ public class AppointmentController implements Initializable {
         } else {
             // Making sure an appointment is selected
             if (AppIdText.getText() != "Auto-Generated") {
-                // Gathering filled out appointment fields
+                // Gathering filled out appointment fields, once the customer, contact and user are all chosen
+                if (CustomerIdCombo.getValue() == null || ContactCombo.getValue() == null || UserIdCombo.getValue() == null) {
+                    return;
+                }
                 int appId = Integer.parseInt(AppIdText.getText());
                 String title = AppTitleText.getText();
                 String description = AppDescriptionText.getText();
@@ -330,21 +379,53 @@ public class AppointmentController implements Initializable {
                 LocalDateTime start = LocalDateTime.of(date, startTime);
                 LocalDateTime end = LocalDateTime.of(date, endTime);
 
-                // Making sure there are no overlapping appointments for customers before updating
-                if (!overlapTest(date, startTime, endTime, AppointmentsQuery.selectApp(appId))) {
-                    AppointmentsQuery.updateApp(appId, title, description, location, type, start, end, customerId, userId, contactId);
+                // Updating the appointment only if there are no overlapping appointments for the customer, checked and written together
+                write(() -> BookingService.reschedule(appId, title, description, location, type, start, end, customerId, userId, contactId), booking -> {
+                    if (booking.isBooked()) {
 
-                    // Refresh table
-                    setAppointments();
+                        // Replacing the appointment in the table without reading it again
+                        AppointmentRow updated = new AppointmentRow(appId, title, description, location, type, start, end, customerId, userId, contactId, contact.getName(), contact.getEmail());
+                        keepSelection(() -> appointmentRows.saved(updated));
 
-                } else {
-                    // Lambda implemented: Error message about overlapping appointments for customers
-                    alertOverlappingMessage.printOverlappingAlert();
-                }
+                    } else if (!booking.getConflicts().isEmpty()) {
+                        // Error message listing the overlapping appointments for the customer
+                        showConflicts(booking.getConflicts());
+                    }
+                });
             }
         }
     }
 
+    /**
+     * The write function runs an add, update or delete in the background and passes its result to onWritten on the
+     * JavaFX application thread. The execute button is disabled until the write is done.
+     *
+     * @param write the database write
+     * @param onWritten receives the result of the write
+     * @param <T> type of the result
+     */
+    private <T> void write(SqlSupplier<T> write, Consumer<T> onWritten) {
+        writePending = true;
+        updateExecute();
+        AsyncDB.load(write, result -> {
+            writePending = false;
+            updateExecute();
+            onWritten.accept(result);
+        }, error -> {
+            writePending = false;
+            updateExecute();
+            databaseError(error);
+        });
+    }
+
+    /**
+     * The updateExecute function disables the execute button while a write or a lookup for the selected
+     * appointment is still running.
+     */
+    private void updateExecute() {
+        Execute.setDisable(writePending || !pendingLookups.isEmpty());
+    }
+
     /**
      * Cancel brings the user back to the main navigational page.
      *
@@ -352,12 +433,10 @@ public class AppointmentController implements Initializable {
      * @throws IOException exception in case of input/output error
      */
     public void cancel(ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("../view/main-form.fxml"));
+        refreshTimer.stop();
+        changesRequest.cancel();
         Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root, 400, 300);
-        stage.setTitle("Main Form");
-        stage.setScene(scene);
-        stage.show();
+        Views.show(stage, "main-form", "Main Form", 400, 300);
     }
 
     /**
@@ -422,9 +501,8 @@ public class AppointmentController implements Initializable {
      * The all radio button function changes the appointment table to show all appointments.
      *
      * @param actionEvent selecting the "All" radio button
-     * @throws SQLException exception in case sql commands return an error
      */
-    public void allRadioPressed(ActionEvent actionEvent) throws SQLException {
+    public void allRadioPressed(ActionEvent actionEvent) {
         setAppointments();
     }
 
@@ -433,9 +511,8 @@ public class AppointmentController implements Initializable {
      * The current week is from Sunday to Saturday.
      *
      * @param actionEvent selecting the "Week" radio button
-     * @throws SQLException exception in case sql commands return an error
      */
-    public void weekRadioPressed(ActionEvent actionEvent) throws SQLException {
+    public void weekRadioPressed(ActionEvent actionEvent) {
         setAppointments();
     }
 
@@ -443,9 +520,8 @@ public class AppointmentController implements Initializable {
      * The Month radio button changes the appointment table to show all appointments within the current month.
      *
      * @param actionEvent selecting the "Month" radio button
-     * @throws SQLException exception in case sql commands return an error
      */
-    public void monthRadioPressed(ActionEvent actionEvent) throws SQLException {
+    public void monthRadioPressed(ActionEvent actionEvent) {
         setAppointments();
     }
 
@@ -459,59 +535,97 @@ public class AppointmentController implements Initializable {
      * The current days input int value is 1 to 7 for Monday to Sunday and
      * The last day of the week output int value is 1 to 7 for Sunday to Saturday.
      * This method helps decrease the amount of times the equation is written out, decreasing programmer error.
-     *
-     * @throws SQLException exception in case sql commands return an error
+     * The week and month views only read the appointments within their date range from the database.
+     * The appointments are read in the background and the table shows a loading message meanwhile.
+     * Later writes and pulled changes are applied to the loaded rows in place, within the same view.
      */
-    public void setAppointments() throws SQLException {
+    public void setAppointments() {
+        SqlSupplier<ObservableList<AppointmentRow>> query;
+        Predicate<AppointmentRow> inView;
+        Comparator<AppointmentRow> order;
+
         // Functionality for the week radio button being selected
         if (WeekRadio.isSelected()) {
-            ObservableList<Appointment> appByWeek = FXCollections.observableArrayList();
             LocalDate currentDate = LocalDate.now();
             int currentDayValue = currentDate.getDayOfWeek().getValue(); // Integer value of week (1 to 7) (Monday is 1)
 
-            // Going through all appointments and checking if date is within the current week (Sunday to Saturday)
-            for(Appointment i : AppointmentsQuery.selectApps()) {
-                // Checking if the current week's Sunday is before or equal to the appointment date
-                Boolean firstDateBefore = currentDate.minusDays(currentDayValue).isBefore(i.getStart().toLocalDate());
-                Boolean firstDateEqual = currentDate.minusDays(currentDayValue).isEqual(i.getStart().toLocalDate());
-
-                // Lambda expression implemented
-                lastDayInt lastDay = n -> 7 - (n + 1);
+            // Lambda expression implemented
+            lastDayInt lastDay = n -> 7 - (n + 1);
 
-                // Checking if the current week's Saturday is after or equal to the appointment date
-                Boolean lastDateAfter = currentDate.plusDays(lastDay.calculateLastDay(currentDayValue)).isAfter(i.getStart().toLocalDate());
-                Boolean lastDateEqual = currentDate.plusDays(lastDay.calculateLastDay(currentDayValue)).isEqual(i.getStart().toLocalDate());
-
-                // If all above booleans are true, then the appointment is within the current week, and it is added to the new list
-                if ((firstDateBefore || firstDateEqual) && (lastDateAfter || lastDateEqual)) {
-                    appByWeek.add(i);
-                }
+            // The current week's Sunday and Saturday, both included
+            LocalDate firstDate = currentDate.minusDays(currentDayValue);
+            LocalDate lastDate = currentDate.plusDays(lastDay.calculateLastDay(currentDayValue));
 
-                // The appointment table is updated with new list
-                AppointmentsTable.setItems(appByWeek);
-            }
+            // Only appointments within the current week are read from the database
+            LocalDateTime from = firstDate.atStartOfDay();
+            LocalDateTime to = lastDate.plusDays(1).atStartOfDay();
+            query = () -> AppointmentsQuery.selectAppointmentRowsBetween(from, to);
+            inView = row -> !row.getStart().isBefore(from) && row.getStart().isBefore(to);
+            order = Comparator.comparing(Appointment::getStart);
 
         // Functionality for the month radio button being selected
         } else if (MonthRadio.isSelected()) {
-            ObservableList<Appointment> appByMonth = FXCollections.observableArrayList();
-            LocalDate dateNow = LocalDate.now();
-            LocalDate dateFirst = dateNow.withDayOfMonth(1); // Getting the first day of the month
-            LocalDate dateLast = YearMonth.now().atEndOfMonth(); // Getting the last day of the month
-
-            // Checking if any appointments are within the current month
-            for(Appointment i : AppointmentsQuery.selectApps()) {
-                if ((dateFirst.getDayOfMonth() <= i.getStart().getDayOfMonth()) && (dateLast.getDayOfMonth() >= i.getStart().getDayOfMonth()) && (dateFirst.getMonth() == i.getStart().getMonth())) {
-                    appByMonth.add(i);
-                }
-            }
+            YearMonth currentMonth = YearMonth.now();
+            LocalDate dateFirst = currentMonth.atDay(1); // Getting the first day of the month
+            LocalDate dateNextFirst = currentMonth.plusMonths(1).atDay(1); // Getting the first day of the next month
 
             // Setting the table with only appointments from current month
-            AppointmentsTable.setItems(appByMonth);
+            LocalDateTime from = dateFirst.atStartOfDay();
+            LocalDateTime to = dateNextFirst.atStartOfDay();
+            query = () -> AppointmentsQuery.selectAppointmentRowsBetween(from, to);
+            inView = row -> !row.getStart().isBefore(from) && row.getStart().isBefore(to);
+            order = Comparator.comparing(Appointment::getStart);
 
         // Functionality for the all radio button being selected
         } else {
             // Setting table to show all appointments
-            AppointmentsTable.setItems(AppointmentsQuery.selectApps());
+            query = AppointmentsQuery::selectAppointmentRows;
+            inView = row -> true;
+            order = null;
+        }
+
+        // Showing a loading message until the newest request returns, replacing any request still running.
+        // The watermark is read first, so the next pull also finds anything written while the rows were read
+        changesRequest.cancel();
+        AppointmentsTable.setItems(FXCollections.observableArrayList());
+        AppointmentsTable.setPlaceholder(new Label("Loading appointments..."));
+        appointmentsRequest.submit(() -> {
+            Timestamp watermark = AppointmentsQuery.selectAppsLastUpdate();
+            return new ChangeSet<>(query.get(), watermark);
+        }, loaded -> {
+            appointmentRows.reset(loaded, inView, order);
+            AppointmentsTable.setPlaceholder(new Label("No appointments"));
+            AppointmentsTable.setItems(appointmentRows.getRows());
+        }, this::databaseError);
+    }
+
+    /**
+     * The pullChanges function reads the appointments changed by other clients since the last load or pull and
+     * applies them to the table. It runs periodically while the page is shown.
+     */
+    public void pullChanges() {
+        Timestamp watermark = appointmentRows.getWatermark();
+        if (watermark == null || appointmentsRequest.isRunning()) {
+            return;
+        }
+        changesRequest.submit(() -> AppointmentsQuery.selectAppointmentRowsChangedSince(watermark),
+                changes -> keepSelection(() -> appointmentRows.apply(changes)), this::databaseError);
+    }
+
+    /**
+     * The keepSelection function applies a change to the table rows and selects the same appointment again
+     * if the change replaced the selected row.
+     *
+     * @param change change to the table rows
+     */
+    private void keepSelection(Runnable change) {
+        AppointmentRow selected = AppointmentsTable.getSelectionModel().getSelectedItem();
+        change.run();
+        if (selected != null && AppointmentsTable.getSelectionModel().getSelectedItem() == null) {
+            AppointmentRow current = appointmentRows.find(selected.getAppId());
+            if (current != null) {
+                AppointmentsTable.getSelectionModel().select(current);
+            }
         }
     }
 
@@ -520,6 +634,13 @@ public class AppointmentController implements Initializable {
      * combo boxes and date pickers for the appointments.
      */
     public void clearAppointments() {
+        // Dropping lookups for a selection that is being cleared
+        customerRequest.cancel();
+        contactRequest.cancel();
+        userRequest.cancel();
+        pendingLookups.clear();
+        updateExecute();
+
         try {
             AppIdText.clear();
         } catch (NullPointerException e) {
@@ -542,25 +663,73 @@ public class AppointmentController implements Initializable {
     /**
      * The fillAppointments function fills all input fields including text boxes,
      * combo boxes and date pickers for the selected appointment.
-     *
-     * @throws SQLException exception in case sql commands return an error
+     * The customer, contact and user combo boxes are set right away from the items they already hold. Any that is not
+     * among them yet is read in the background, and the execute button is disabled until it has arrived.
      */
-    public void fillAppointments() throws SQLException {
-        try {
-            AppIdText.setText(String.valueOf(AppointmentsTable.getSelectionModel().getSelectedItem().getAppId()));
-            AppTitleText.setText(String.valueOf((AppointmentsTable.getSelectionModel().getSelectedItem().getTitle())));
-            AppDescriptionText.setText(String.valueOf((AppointmentsTable.getSelectionModel().getSelectedItem().getDescription())));
-            CustomerIdCombo.setValue(CustomersQuery.selectCustomer(AppointmentsTable.getSelectionModel().getSelectedItem().getCustomerId()));
-            AppLocationText.setText(String.valueOf((AppointmentsTable.getSelectionModel().getSelectedItem().getLocation())));
-            ContactCombo.setValue(ContactsQuery.selectContact(AppointmentsTable.getSelectionModel().getSelectedItem().getContactId()));
-            AppTypeText.setText(String.valueOf(AppointmentsTable.getSelectionModel().getSelectedItem().getType()));
-            UserIdCombo.setValue(UsersQuery.selectUser(AppointmentsTable.getSelectionModel().getSelectedItem().getUserId()));
-            AppDatePicker.setValue(AppointmentsTable.getSelectionModel().getSelectedItem().getStart().toLocalDate());
-            AppStartCombo.setValue(AppointmentsTable.getSelectionModel().getSelectedItem().getStart().toLocalTime());
-            AppEndCombo.setValue(AppointmentsTable.getSelectionModel().getSelectedItem().getEnd().toLocalTime());
-        } catch (NullPointerException e) {
-            //
+    public void fillAppointments() {
+        AppointmentRow selected = AppointmentsTable.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            return;
+        }
+
+        AppIdText.setText(String.valueOf(selected.getAppId()));
+        AppTitleText.setText(String.valueOf(selected.getTitle()));
+        AppDescriptionText.setText(String.valueOf(selected.getDescription()));
+        AppLocationText.setText(String.valueOf(selected.getLocation()));
+        AppTypeText.setText(String.valueOf(selected.getType()));
+        AppDatePicker.setValue(selected.getStart().toLocalDate());
+        AppStartCombo.setValue(selected.getStart().toLocalTime());
+        AppEndCombo.setValue(selected.getEnd().toLocalTime());
+
+        // Selecting the customer, contact and user by id, replacing lookups for a previous selection
+        selectById(CustomerIdCombo, selected.getCustomerId(), Customer::getId, customerRequest, () -> CustomersQuery.selectCustomer(selected.getCustomerId()));
+        selectById(ContactCombo, selected.getContactId(), Contact::getId, contactRequest, () -> ReferenceCache.getContact(selected.getContactId()));
+        selectById(UserIdCombo, selected.getUserId(), User::getId, userRequest, () -> ReferenceCache.getUser(selected.getUserId()));
+        updateExecute();
+    }
+
+    /**
+     * The selectById function sets a combo box to the item with the given id. If the item is not in the combo box yet,
+     * because its list is still being read or the row was added by another client, the combo box is cleared and the
+     * item is read in the background instead.
+     *
+     * @param combo the combo box to set
+     * @param id id of the item to select
+     * @param idOf returns the id of an item
+     * @param request background request reading the item
+     * @param lookup the database call reading the item
+     * @param <T> type of the items
+     */
+    private <T> void selectById(ComboBox<T> combo, int id, ToIntFunction<T> idOf, LatestRequest<T> request, SqlSupplier<T> lookup) {
+        request.cancel();
+        pendingLookups.remove(combo);
+        for (T item : combo.getItems()) {
+            if (idOf.applyAsInt(item) == id) {
+                combo.setValue(item);
+                return;
+            }
         }
+
+        combo.setValue(null);
+        pendingLookups.add(combo);
+        request.submit(lookup, item -> {
+            combo.setValue(item);
+            pendingLookups.remove(combo);
+            updateExecute();
+        }, error -> {
+            pendingLookups.remove(combo);
+            updateExecute();
+            databaseError(error);
+        });
+    }
+
+    /**
+     * The databaseError function reports an error from a background database call on the JavaFX application thread.
+     *
+     * @param error the exception thrown by the database call
+     */
+    private void databaseError(Throwable error) {
+        throw new RuntimeException(error);
     }
 
     /**
@@ -583,76 +752,21 @@ public class AppointmentController implements Initializable {
     }
 
     /**
-     * The overlapTest function checks if there is an overlap with appointments.
-     * It returns true if the inputted appointment times coincide with any other existing appointments.
-     * This is an overloaded function.
+     * The showConflicts function alerts the user that appointments are overlapping and lists the id, date and times
+     * of each overlapping appointment.
      *
-     * @param date date (LocalDate) user is trying to use for adding or updating an appointment
-     * @param start start (LocalTime) time user is trying to use for adding or updating an appointment
-     * @param end end (LocalTime) time user is trying to use for adding or updating an appointment
-     * @return true or false - true if there is an overlap and false if there isn't
-     * @throws SQLException exception in case sql commands return an error
+     * @param conflicts the overlapping appointments
      */
-    public boolean overlapTest(LocalDate date, LocalTime start, LocalTime end) throws SQLException {
-        ObservableList<Appointment> allAppointments = AppointmentsQuery.selectApps();
-        boolean isOverlapping = false;
-        LocalDateTime S1 = LocalDateTime.of(date, start);
-        LocalDateTime E1 = LocalDateTime.of(date, end);
-
-        for (Appointment i : allAppointments) {
-            // Variables for each appointment's start and end
-            LocalDateTime S2 = i.getStart();
-            LocalDateTime E2 = i.getEnd();
-
-            if (i.getCustomerId() != CustomerIdCombo.getValue().getId()) {
-                continue; // Making sure to only check appointments for the chosen customer
-            } else if ((S2.isAfter(S1) || S2.isEqual(S1)) && S2.isBefore(E1)) {
-                isOverlapping = true; // Checking for overlaps with possible appointment starting after or at the same time
-            } else if (E2.isAfter(S1) && (E2.isBefore(E1) || E2.isEqual(E1))) {
-                isOverlapping = true; // Checking for overlaps with possible appointment enveloping entire appointment
-            } else if ((S2.isBefore(S1) || (S2.isEqual(S1))) && (E2.isAfter(E1) || E2.isEqual(E1))) {
-                isOverlapping = true; // Checking for overlaps with possible appointment starting before appointment
-            }
+    public void showConflicts(List<Appointment> conflicts) {
+        String message = "";
+        for (Appointment i : conflicts) {
+            message += "Appointment ID: " + i.getAppId() + "\nDate: " + i.getStart().toLocalDate() + "\nStart Time: " + i.getStart().toLocalTime() + "\nEnd Time: " + i.getEnd().toLocalTime() + "\n\n";
         }
 
-        return isOverlapping;
-    }
-
-    /**
-     * The overlapTest function checks if there is an overlap with appointments.
-     * It returns true if the inputted appointment times coincide with any other existing appointments.
-     * This is an overloaded function.
-     *
-     * @param date date (LocalDate) user is trying to use for adding or updating an appointment
-     * @param start start (LocalTime) time user is trying to use for adding or updating an appointment
-     * @param end end (LocalTime) time user is trying to use for adding or updating an appointment
-     * @param appointment the currently selected appointment
-     * @return true or false - true if there is an overlap and false if there isn't
-     * @throws SQLException exception in case sql commands return an error
-     */
-    public boolean overlapTest(LocalDate date, LocalTime start, LocalTime end, Appointment appointment) throws SQLException {
-        ObservableList<Appointment> allAppointments = AppointmentsQuery.selectApps();
-        boolean isOverlapping = false;
-        LocalDateTime S1 = LocalDateTime.of(date, start);
-        LocalDateTime E1 = LocalDateTime.of(date, end);
-
-        for (Appointment i : allAppointments) {
-            // Variables for each appointment's start and end
-            LocalDateTime S2 = i.getStart();
-            LocalDateTime E2 = i.getEnd();
-
-            if ((i.getCustomerId() != CustomerIdCombo.getValue().getId()) || (i.getAppId() == appointment.getAppId())) {
-                continue; // Making sure to only check appointments for the chosen customer
-            } else if ((S2.isAfter(S1) || S2.isEqual(S1)) && S2.isBefore(E1)) {
-                isOverlapping = true; // Checking for overlaps with possible appointment starting after or at the same time
-            } else if (E2.isAfter(S1) && (E2.isBefore(E1) || E2.isEqual(E1))) {
-                isOverlapping = true; // Checking for overlaps with possible appointment enveloping entire appointment
-            } else if ((S2.isBefore(S1) || (S2.isEqual(S1))) && (E2.isAfter(E1) || E2.isEqual(E1))) {
-                isOverlapping = true; // Checking for overlaps with possible appointment starting before appointment
-            }
-        }
-
-        return isOverlapping;
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setContentText("Appointments are overlapping for the customer. Please choose alternative times.\n\n" + message);
+        alert.showAndWait();
     }
 
     /**
@@ -667,16 +781,4 @@ public class AppointmentController implements Initializable {
          */
         int calculateLastDay(int n);
     }
-
-    /**
-     * Interface for printing an alert when appointments are overlapping. THis is used in multiple locations, so helps
-     * with repetition.
-     */
-    public interface  alertMessages {
-        /**
-         * Lambda expression created to Alert the user when appointments are overlapping.
-         * This alert is repeated within the code, so this method helps with repetition.
-         */
-        void printOverlappingAlert();
-    }
 }
@@ -1,17 +1,16 @@
 package control;
 
 import helperDB.*;
+import helperMetrics.ControllerInitEvent;
+import javafx.animation.Timeline;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
@@ -20,14 +19,17 @@ import model.*;
 import java.io.IOException;
 import java.net.URL;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.ResourceBundle;
+import java.util.function.Consumer;
 
 /**
  * Customer controller allows user to interact with a customer interface.
  * This includes viewing all customers in a table view and
  * adding customers or updating and deleting selected customers
  */
-public class CustomerController implements Initializable {
+public class CustomerController implements Initializable, Refreshable {
 
     /**
      * Add, update or delete appointment button.
@@ -36,39 +38,39 @@ public class CustomerController implements Initializable {
     /**
      * Customer table.
      */
-    public TableView<Customer> CustomerTable;
+    public TableView<CustomerRow> CustomerTable;
     /**
      * Customer id column.
      */
-    public TableColumn<Customer, Integer> CustomerID;
+    public TableColumn<CustomerRow, Integer> CustomerID;
     /**
      * Customer name column.
      */
-    public TableColumn<Customer, String> CustomerName;
+    public TableColumn<CustomerRow, String> CustomerName;
     /**
      * Customer address column.
      */
-    public TableColumn<Customer, String> Address;
+    public TableColumn<CustomerRow, String> Address;
     /**
      * Customer postal code column.
      */
-    public TableColumn<Customer, String> PostalCode;
+    public TableColumn<CustomerRow, String> PostalCode;
     /**
      * Customer phone number column.
      */
-    public TableColumn<Customer, String> Phone;
+    public TableColumn<CustomerRow, String> Phone;
     /**
      * Customer associated division id column.
      */
-    public TableColumn<Customer, Integer> DivisionID;
+    public TableColumn<CustomerRow, Integer> DivisionID;
     /**
      * Customer associated division name column.
      */
-    public TableColumn<Customer, String> Division;
+    public TableColumn<CustomerRow, String> Division;
     /**
      * Customer associated country column.
      */
-    public TableColumn<Customer, String> Country;
+    public TableColumn<CustomerRow, String> Country;
     /**
      * Customer id input field.
      */
@@ -97,85 +99,165 @@ public class CustomerController implements Initializable {
      * Customer associated division input combo box.
      */
     public ComboBox<model.Division> CustomerDivisionCombo;
+    /**
+     * Background request filling the customer table.
+     */
+    private final LatestRequest<ChangeSet<CustomerRow>> customersRequest = new LatestRequest<>();
+    /**
+     * Background request pulling customers changed by other clients.
+     */
+    private final LatestRequest<ChangeSet<CustomerRow>> changesRequest = new LatestRequest<>();
+    /**
+     * The customers shown in the table, updated in place after writes and pulls.
+     */
+    private final RowTracker<CustomerRow> customerRows = new RowTracker<>(Customer::getId, row -> Arrays.asList(
+            row.getName(), row.getAddress(), row.getPostalCode(), row.getPhone(), row.getDivisionId(),
+            row.getDivisionName(), row.getCountryId(), row.getCountryName()));
+    /**
+     * Timeline pulling changes made by other clients while the page is shown.
+     */
+    private Timeline refreshTimer;
+    /**
+     * Background request filling the division combo box for the chosen country.
+     */
+    private final LatestRequest<ObservableList<model.Division>> divisionsRequest = new LatestRequest<>();
 
     /**
      * The initialize sets up the customer form with relevant data.
-     * It sets and fills out the customer table and a combo boxes.
+     * It sets up the customer table, which refresh fills out each time the page is shown, and fills the country combo box.
      * It incorporates a listener for the user to change the country combo box,
      * which sets the division combo box based on that country.
      * It incorporates a listener for the user to select different customers in table,
      * which fills out all field boxes.
+     * The table and combo boxes are filled once their data has been read in the background.
      *
      * @param url initialize url
      * @param resourceBundle initialize resource bundle
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        try {
-            // Setting all data within the customers table
-            CustomerTable.setItems(CustomersQuery.selectCustomers());
-            CustomerID.setCellValueFactory(new PropertyValueFactory<>("id"));
-            CustomerName.setCellValueFactory(new PropertyValueFactory<>("name"));
-            Address.setCellValueFactory(new PropertyValueFactory<>("address"));
-            PostalCode.setCellValueFactory(new PropertyValueFactory<>("postalCode"));
-            Phone.setCellValueFactory(new PropertyValueFactory<>("phone"));
-            DivisionID.setCellValueFactory(new PropertyValueFactory<>("divisionId"));
-            Division.setCellValueFactory(new PropertyValueFactory<>("division"));
-            Country.setCellValueFactory(new PropertyValueFactory<>("country"));
-
-            // Setting country combo box
-            ObservableList<Country> usersList = CountriesQuery.selectCountries();
-            CustomerCountryCombo.setItems(usersList);
-
-            // Listener for user to change the country combo box, setting the division combo box based off the country
-            CustomerCountryCombo.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<Country>() {
-
-                @Override
-                public void changed(ObservableValue<? extends model.Country> observableValue, model.Country country, model.Country t1) {
-                    try {
-                        CustomerDivisionCombo.valueProperty().set(null);
-                        ObservableList<Division> currentDivisions = FXCollections.observableArrayList();
-                        int countryId = CustomerCountryCombo.getValue().getCountryId();
-
-                        for (Division i : DivisionsQuery.selectDivisions()) {
-                            if (countryId == i.getCountryId()) {
-                                currentDivisions.add(i);
-                            }
-                        }
-
-                        CustomerDivisionCombo.setItems(currentDivisions);
-
-                    } catch (SQLException e) {
-                        throw new RuntimeException(e);
-                    } catch (NullPointerException e) {
-                        //
-                    }
+        ControllerInitEvent initEvent = ControllerInitEvent.start("customers-form");
+        CustomerID.setCellValueFactory(new PropertyValueFactory<>("id"));
+        CustomerName.setCellValueFactory(new PropertyValueFactory<>("name"));
+        Address.setCellValueFactory(new PropertyValueFactory<>("address"));
+        PostalCode.setCellValueFactory(new PropertyValueFactory<>("postalCode"));
+        Phone.setCellValueFactory(new PropertyValueFactory<>("phone"));
+        DivisionID.setCellValueFactory(new PropertyValueFactory<>("divisionId"));
+        Division.setCellValueFactory(new PropertyValueFactory<>("division"));
+        Country.setCellValueFactory(new PropertyValueFactory<>("country"));
+
+        // Setting country combo box once the countries have been read in the background
+        AsyncDB.load(ReferenceCache::getCountries, CustomerCountryCombo::setItems, this::databaseError);
+
+        // Listener for user to change the country combo box, setting the division combo box based off the country
+        CustomerCountryCombo.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<Country>() {
+
+            @Override
+            public void changed(ObservableValue<? extends model.Country> observableValue, model.Country country, model.Country t1) {
+                CustomerDivisionCombo.valueProperty().set(null);
+                if (CustomerCountryCombo.getValue() == null) {
+                    divisionsRequest.cancel();
+                    return;
                 }
-            });
-
-            // Listener for user clicking different customers within the customer table that fills out the
-            // text fields for the update and delete tabs
-            CustomerTable.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<Customer>() {
-
-                @Override
-                public void changed(ObservableValue<? extends Customer> observableValue, Customer customer, Customer t1) {
-                    try {
-                        if ((Execute.getText().equals("Delete")) || (Execute.getText().equals("Update"))) {
-                            fillCustomers();
-                        } else {
-                            clearCustomers();
-                        }
-                    } catch (SQLException e) {
-                        throw new RuntimeException(e);
-                    }
+                int countryId = CustomerCountryCombo.getValue().getCountryId();
+
+                // Looking up the country's divisions in the reference cache, replacing the request for a previously chosen country
+                divisionsRequest.submit(() -> ReferenceCache.getDivisionsOfCountry(countryId), currentDivisions -> {
+                    // Keeping a division that was chosen while the divisions were loading
+                    model.Division chosen = CustomerDivisionCombo.getValue();
+                    CustomerDivisionCombo.setItems(currentDivisions);
+                    CustomerDivisionCombo.setValue(chosen);
+                }, CustomerController.this::databaseError);
+            }
+        });
+
+        // Listener for user clicking different customers within the customer table that fills out the
+        // text fields for the update and delete tabs
+        CustomerTable.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<CustomerRow>() {
+
+            @Override
+            public void changed(ObservableValue<? extends CustomerRow> observableValue, CustomerRow customer, CustomerRow t1) {
+                if ((Execute.getText().equals("Delete")) || (Execute.getText().equals("Update"))) {
+                    fillCustomers();
+                } else {
+                    clearCustomers();
                 }
-            });
+            }
+        });
+        initEvent.commit();
+    }
+
+    /**
+     * The refresh function fills out the customer table each time the page is shown, clearing the form and pulling
+     * changes by other clients while the page stays shown.
+     */
+    @Override
+    public void refresh() {
+        clearCustomers();
+        // Setting all data within the customers table, read together with each division and country in one query in the background
+        refreshCustomers();
+        refreshTimer = RowTracker.startPolling(this::pullChanges);
+    }
+
+    /**
+     * The refreshCustomers function reloads the customer table in the background.
+     * The table shows a loading message meanwhile, and a newer refresh replaces one still running.
+     * Later writes and pulled changes are applied to the loaded rows in place.
+     */
+    public void refreshCustomers() {
+        changesRequest.cancel();
+        CustomerTable.setItems(FXCollections.observableArrayList());
+        CustomerTable.setPlaceholder(new Label("Loading customers..."));
+        customersRequest.submit(() -> {
+            // The watermark is read first, so the next pull also finds anything written while the rows were read
+            Timestamp watermark = CustomersQuery.selectCustomersLastUpdate();
+            return new ChangeSet<>(CustomersQuery.selectCustomerRows(), watermark);
+        }, loaded -> {
+            customerRows.reset(loaded, row -> true, null);
+            CustomerTable.setPlaceholder(new Label("No customers"));
+            CustomerTable.setItems(customerRows.getRows());
+        }, this::databaseError);
+    }
+
+    /**
+     * The pullChanges function reads the customers changed by other clients since the last load or pull and
+     * applies them to the table. It runs periodically while the page is shown.
+     */
+    public void pullChanges() {
+        Timestamp watermark = customerRows.getWatermark();
+        if (watermark == null || customersRequest.isRunning()) {
+            return;
+        }
+        changesRequest.submit(() -> CustomersQuery.selectCustomerRowsChangedSince(watermark),
+                changes -> keepSelection(() -> customerRows.apply(changes)), this::databaseError);
+    }
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+    /**
+     * The keepSelection function applies a change to the table rows and selects the same customer again
+     * if the change replaced the selected row.
+     *
+     * @param change change to the table rows
+     */
+    private void keepSelection(Runnable change) {
+        CustomerRow selected = CustomerTable.getSelectionModel().getSelectedItem();
+        change.run();
+        if (selected != null && CustomerTable.getSelectionModel().getSelectedItem() == null) {
+            CustomerRow current = customerRows.find(selected.getId());
+            if (current != null) {
+                CustomerTable.getSelectionModel().select(current);
+            }
         }
     }
 
+    /**
+     * The databaseError function reports an error from a background database call on the JavaFX application thread.
+     *
+     * @param error the exception thrown by the database call
+     */
+    private void databaseError(Throwable error) {
+        throw new RuntimeException(error);
+    }
+
     /**
      * Execute allows the user to add, update or delete a customer.
      * The execute button changes its name depending on which tab is selected ("Add", "Update, or "Delete").
@@ -183,11 +265,11 @@ public class CustomerController implements Initializable {
      * When the "Update" button is pressed, it updates the currently selected customer and updates the table.
      * When the "Delete" button is pressed, it deletes the currently selected customer and displays a message with
      * the customer id and name.
+     * The writes run in the background, and the table and alerts are updated once they are done.
      *
      * @param actionEvent clicking the execute button (Add, Update or Delete)
-     * @throws SQLException exception in case sql commands return an error
      */
-    public void execute(ActionEvent actionEvent) throws SQLException {
+    public void execute(ActionEvent actionEvent) {
         // Add customer button functionality
         if(Execute.getText().equals("Add")) {
             // Gathering all filled out fields within the form
@@ -195,16 +277,18 @@ public class CustomerController implements Initializable {
             String address = CustomerAddressText.getText();
             String postalCode = CustomerPostalText.getText();
             String phone = CustomerPhoneText.getText();
-            int divisionId = CustomerDivisionCombo.getValue().getDivisionId();
+            model.Division division = CustomerDivisionCombo.getValue();
+            model.Country country = CustomerCountryCombo.getValue();
+            int divisionId = division.getDivisionId();
 
             // Adding customer to database
-            CustomersQuery.insertCustomer(name, address, postalCode, phone, divisionId);
-
-            // Clear all selections
-            clearCustomers();
+            write(() -> CustomersQuery.insertCustomerReturningId(name, address, postalCode, phone, divisionId), customerId -> {
+                // Clear all selections
+                clearCustomers();
 
-            // Refresh table
-            CustomerTable.setItems(CustomersQuery.selectCustomers());
+                // Adding the new customer to the table without reading it again
+                customerRows.saved(new CustomerRow(customerId, name, address, postalCode, phone, divisionId, division.getDivision(), country.getCountryId(), country.getCountry()));
+            });
 
         // Delete customer functionality
         } else if (Execute.getText().equals("Delete")) {
@@ -214,27 +298,20 @@ public class CustomerController implements Initializable {
                 int customerId = CustomerTable.getSelectionModel().getSelectedItem().getId();
                 String customerName = CustomerTable.getSelectionModel().getSelectedItem().getName();
 
-                // Deleting all associated appointments for the customer
-                for (Appointment i : AppointmentsQuery.selectApps()) {
-                    if (i.getCustomerId() == customerId) {
-                        AppointmentsQuery.deleteApp(i.getAppId());
-                    }
-                }
-
-                // Deleting customer from database
-                CustomersQuery.deleteCustomer(customerId);
+                // Deleting the customer and all associated appointments in one transaction
+                write(() -> CustomersQuery.deleteCustomerCascade(customerId), deleted -> {
+                    // Removing the customer from the table without reading it again
+                    customerRows.deleted(customerId);
 
-                // Refresh table
-                CustomerTable.setItems(CustomersQuery.selectCustomers());
+                    // Alert box showing which customer was deleted
+                    Alert showInformation = new Alert(Alert.AlertType.INFORMATION);
+                    showInformation.setTitle("Customer Information");
+                    showInformation.setContentText("Customer Deleted: \n\nID: " + customerId + "\nName: " + customerName + "\nAppointments Deleted: " + deleted.getAppointmentsDeleted());
+                    showInformation.showAndWait();
 
-                // Alert box showing which customer was deleted
-                Alert showInformation = new Alert(Alert.AlertType.INFORMATION);
-                showInformation.setTitle("Customer Information");
-                showInformation.setContentText("Customer Deleted: \n\nID: " + customerId + "\nName: " + customerName);
-                showInformation.showAndWait();
-
-                // Clearing all text boxes
-                clearCustomers();
+                    // Clearing all text boxes
+                    clearCustomers();
+                });
             }
         // Update customer functionality
         } else {
@@ -246,17 +323,40 @@ public class CustomerController implements Initializable {
                 String address = CustomerAddressText.getText();
                 String postalCode = CustomerPostalText.getText();
                 String phone = CustomerPhoneText.getText();
-                int divisionId = CustomerDivisionCombo.getValue().getDivisionId();
+                model.Division division = CustomerDivisionCombo.getValue();
+                model.Country country = CustomerCountryCombo.getValue();
+                int divisionId = division.getDivisionId();
 
                 // Updating customer in database
-                CustomersQuery.updateCustomer(customerId, name, address, postalCode, phone, divisionId);
-
-                // Refresh table
-                CustomerTable.setItems(CustomersQuery.selectCustomers());
+                write(() -> CustomersQuery.updateCustomer(customerId, name, address, postalCode, phone, divisionId), numChanged -> {
+                    // Replacing the customer in the table without reading it again
+                    CustomerRow updated = new CustomerRow(customerId, name, address, postalCode, phone, divisionId, division.getDivision(), country.getCountryId(), country.getCountry());
+                    keepSelection(() -> customerRows.saved(updated));
+                });
             }
         }
     }
 
+    /**
+     * The write function runs an add, update or delete in the background and passes its result to onWritten on the
+     * JavaFX application thread. The execute button stays disabled until the write is done, so the same customer is
+     * not written twice.
+     *
+     * @param write the database write
+     * @param onWritten receives the result of the write
+     * @param <T> type of the result
+     */
+    private <T> void write(SqlSupplier<T> write, Consumer<T> onWritten) {
+        Execute.setDisable(true);
+        AsyncDB.load(write, result -> {
+            Execute.setDisable(false);
+            onWritten.accept(result);
+        }, error -> {
+            Execute.setDisable(false);
+            databaseError(error);
+        });
+    }
+
     /**
      * Cancel brings the user back to the main navigational page.
      *
@@ -264,12 +364,10 @@ public class CustomerController implements Initializable {
      * @throws IOException exception in case of input/output error
      */
     public void cancel(ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("../view/main-form.fxml"));
+        refreshTimer.stop();
+        changesRequest.cancel();
         Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root, 400, 300);
-        stage.setTitle("Main Form");
-        stage.setScene(scene);
-        stage.show();
+        Views.show(stage, "main-form", "Main Form", 400, 300);
     }
 
     /**
@@ -337,23 +435,21 @@ public class CustomerController implements Initializable {
     /**
      * The fillCustomers function fills all input fields including text boxes,
      * combo boxes and date pickers for the selected customer.
-     *
-     * @throws SQLException exception in case sql commands return an error
      */
-    public void fillCustomers() throws SQLException {
-        try {
-            CustomerIdText.setText(String.valueOf(CustomerTable.getSelectionModel().getSelectedItem().getId()));
-            CustomerNameText.setText(String.valueOf(CustomerTable.getSelectionModel().getSelectedItem().getName()));
-            CustomerAddressText.setText(String.valueOf(CustomerTable.getSelectionModel().getSelectedItem().getAddress()));
-            CustomerPostalText.setText(String.valueOf(CustomerTable.getSelectionModel().getSelectedItem().getPostalCode()));
-            CustomerPhoneText.setText(String.valueOf(CustomerTable.getSelectionModel().getSelectedItem().getPhone()));
-            model.Division division = DivisionsQuery.selectDivision(CustomerTable.getSelectionModel().getSelectedItem().getDivisionId());
-            CustomerCountryCombo.setValue(CountriesQuery.selectCountry(division.getCountryId()));
-            CustomerDivisionCombo.setValue(division);
-
-        } catch (NullPointerException e) {
-            //
+    public void fillCustomers() {
+        CustomerRow selected = CustomerTable.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            return;
         }
+
+        CustomerIdText.setText(String.valueOf(selected.getId()));
+        CustomerNameText.setText(String.valueOf(selected.getName()));
+        CustomerAddressText.setText(String.valueOf(selected.getAddress()));
+        CustomerPostalText.setText(String.valueOf(selected.getPostalCode()));
+        CustomerPhoneText.setText(String.valueOf(selected.getPhone()));
+        // The division and country were read together with the customer, so no database call is needed
+        CustomerCountryCombo.setValue(selected.getCountry());
+        CustomerDivisionCombo.setValue(selected.getDivision());
     }
 
     /**
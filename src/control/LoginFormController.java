@@ -1,17 +1,17 @@
 package control;
 
 import helperDB.JDBC;
+import helperMetrics.ControllerInitEvent;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
-import javafx.scene.Parent;
 import javafx.scene.control.Label;
 
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.URL;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -22,7 +22,6 @@ import java.util.Locale;
 import java.util.ResourceBundle;
 import javafx.scene.control.*;
 
-import javafx.scene.Scene;
 import javafx.stage.Stage;
 import java.time.ZoneId;
 
@@ -83,6 +82,7 @@ public class LoginFormController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        ControllerInitEvent initEvent = ControllerInitEvent.start("login-form");
         // Displaying user's current ZoneId location
         CurrentLocation.setText(String.valueOf(systemZoneId));
 
@@ -91,6 +91,7 @@ public class LoginFormController implements Initializable {
         Password.setText(bundle.getString("Password"));
         Location.setText(bundle.getString("Location"));
         Submit.setText(bundle.getString("Submit"));
+        initEvent.commit();
     }
 
     /**
@@ -108,10 +109,20 @@ public class LoginFormController implements Initializable {
     public void submitLogin(ActionEvent actionEvent) throws IOException, SQLException, NullPointerException {
         // Selecting all users from the database who match inputted username and password
         String sqlCommand = "SELECT * FROM USERS WHERE User_Name = ? AND Password = ?";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        preparedCommand.setString(1, UsernameInput.getText());
-        preparedCommand.setString(2, PasswordInput.getText());
-        ResultSet resultSet = preparedCommand.executeQuery();
+        // The connection is given back before any dialogs are shown, so it is not held while the user reads them
+        boolean isMatch = false;
+        int userId = 0;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setString(1, UsernameInput.getText());
+            preparedCommand.setString(2, PasswordInput.getText());
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            if (resultSet.next()) {
+                isMatch = true;
+                userId = resultSet.getInt("User_ID");
+            }
+        }
 
         // Setting up the FileWriter and PrintWriter to be able to write to file login_activity.txt
         FileWriter fileLoginInfo = new FileWriter("login_activity.txt", true);
@@ -119,26 +130,17 @@ public class LoginFormController implements Initializable {
 
         // If there is a matching username and password, the user is logged in and a success is recorded in the
         // login_activity.txt file
-        if (resultSet.next()) {
-            // Setting up loader to send information from the login controller to the main form controller
-            FXMLLoader loader = new FXMLLoader();
-            loader.setLocation(getClass().getResource("../view/main-form.fxml"));
-            loader.load();
-
+        if (isMatch) {
             // Calling function defined within the main controller to notify the user of upcoming appointments within 15 minutes
             // Needed information is split between main controller and login form controller,
             //      leading to necessity of sending controller information
-            int userId = resultSet.getInt("User_ID");
-            MainController mainController = loader.getController();
+            // The main form was loaded in the background while the login form was shown, and is reused to go there
+            MainController mainController = Views.getController("main-form");
             mainController.appNotify(userId);
 
             // Going to the main form
-            Parent root = FXMLLoader.load(getClass().getResource("../view/main-form.fxml"));
             Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-            Scene scene = new Scene(root, 400, 300);
-            stage.setTitle("Main Form");
-            stage.setScene(scene);
-            stage.show();
+            Views.show(stage, "main-form", "Main Form", 400, 300);
 
             // Printing successful login to the login_activity.txt file
             printLoginInfo.println("User " + UsernameInput.getText() + " successfully logged in on " + LocalDate.now() + " at " + LocalTime.now().truncatedTo(ChronoUnit.SECONDS) + ".\n");
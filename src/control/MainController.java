@@ -1,18 +1,17 @@
 package control;
 
 import helperDB.AppointmentsQuery;
+import helperDB.AsyncDB;
+import helperReports.AppointmentReports;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.stage.Stage;
 import model.Appointment;
 
 import java.io.IOException;
-import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Main controller class allows user to navigate to all pages of the system.
@@ -28,12 +27,8 @@ public class MainController {
      * @throws IOException exception in case of input/output error
      */
     public void goToAppointments(ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("../view/appointment-form.fxml"));
         Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root, 950, 600);
-        stage.setTitle("Appointments Form");
-        stage.setScene(scene);
-        stage.show();
+        Views.show(stage, "appointment-form", "Appointments Form", 950, 600);
     }
 
     /**
@@ -43,12 +38,8 @@ public class MainController {
      * @throws IOException exception in case of input/output error
      */
     public void goToCustomers(ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("../view/customers-form.fxml"));
         Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root, 950, 600);
-        stage.setTitle("Customer Form");
-        stage.setScene(scene);
-        stage.show();
+        Views.show(stage, "customers-form", "Customer Form", 950, 600);
     }
 
     /**
@@ -58,12 +49,8 @@ public class MainController {
      * @throws IOException exception in case of input/output error
      */
     public void goToReports(ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("../view/reports-form.fxml"));
         Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root, 950, 600);
-        stage.setTitle("Reports Page");
-        stage.setScene(scene);
-        stage.show();
+        Views.show(stage, "reports-form", "Reports Page", 950, 600);
     }
 
     /**
@@ -79,35 +66,30 @@ public class MainController {
      * The appNotify function checks if there are any upcoming appointments.
      * It notifies the user of any upcoming appointments for that user within the next 15 minutes or
      * it notifies user if there are no upcoming appointments.
+     * Only the user's appointments overlapping the next 15 minutes are read, in the background.
      *
      * @param userId user id input of the user logging in
-     * @throws SQLException exception in case sql commands return an error
      */
-    public void appNotify(int userId) throws SQLException {
+    public void appNotify(int userId) {
         // Defining time from now to 15 minutes from now
         LocalDateTime S1 = LocalDateTime.now();
         LocalDateTime E1 = S1.plusMinutes(15);
-        String message = "";
 
-        // Going through all appointments
-        for (Appointment i : AppointmentsQuery.selectApps()) {
-            // Taking time for each appointment start and end
-            LocalDateTime S2 = i.getStart();
-            LocalDateTime E2 = i.getEnd();
+        AsyncDB.load(() -> AppointmentReports.upcomingAppointments(AppointmentsQuery.selectAppsByUserOverlapping(userId, S1, E1), userId, S1, E1),
+                this::showUpcoming, this::databaseError);
+    }
+
+    /**
+     * The showUpcoming function shows the user's upcoming appointments, or that there are none.
+     *
+     * @param upcoming the user's appointments within the next 15 minutes
+     */
+    private void showUpcoming(List<Appointment> upcoming) {
+        String message = "";
 
-            // Making sure to only check appointments for the current user
-            if (userId == i.getUserId()) {
-                if ((S2.isAfter(S1) || S2.isEqual(S1)) && S2.isBefore(E1)) {
-                    // Checking for overlaps with the next 15 minutes starting after or at the same time as the given appointment
-                    message += "Appointment ID: " + i.getAppId() + "\nDate: " + i.getStart().toLocalDate() + "\nStart Time: " + i.getStart().toLocalTime() + "\nEnd Time: " + i.getEnd().toLocalTime() + "\n\n";
-                } else if (E2.isAfter(S1) && (E2.isBefore(E1) || E2.isEqual(E1))) {
-                    // Checking for overlaps with the next 15 minutes enveloping entire given appointment
-                    message += "Appointment ID: " + i.getAppId() + "\nDate: " + i.getStart().toLocalDate() + "\nStart Time: " + i.getStart().toLocalTime() + "\nEnd Time: " + i.getEnd().toLocalTime() + "\n\n";
-                } else if ((S2.isBefore(S1) || (S2.isEqual(S1))) && (E2.isAfter(E1) || E2.isEqual(E1))) {
-                    // Checking for overlaps with the next 15 minutes starting before given appointment
-                    message += "Appointment ID: " + i.getAppId() + "\nDate: " + i.getStart().toLocalDate() + "\nStart Time: " + i.getStart().toLocalTime() + "\nEnd Time: " + i.getEnd().toLocalTime() + "\n\n";
-                }
-            }
+        // Going through all of the user's appointments overlapping the next 15 minutes
+        for (Appointment i : upcoming) {
+            message += "Appointment ID: " + i.getAppId() + "\nDate: " + i.getStart().toLocalDate() + "\nStart Time: " + i.getStart().toLocalTime() + "\nEnd Time: " + i.getEnd().toLocalTime() + "\n\n";
         }
 
         // If appointments are upcoming in the next 15 minutes, displays the appointments id, date, and times
@@ -124,4 +106,13 @@ public class MainController {
             showInformation.showAndWait();
         }
     }
+
+    /**
+     * The databaseError function reports an error from a background database call on the JavaFX application thread.
+     *
+     * @param error the exception thrown by the database call
+     */
+    private void databaseError(Throwable error) {
+        throw new RuntimeException(error);
+    }
 }
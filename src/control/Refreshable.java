@@ -0,0 +1,13 @@
+package control;
+
+/**
+ * The refreshable interface is implemented by controllers of screens kept by Views, so they can reload their data
+ * each time their screen is shown instead of being loaded again.
+ */
+public interface Refreshable {
+    /**
+     * The refresh function reloads the screen's data. It is called on the JavaFX application thread every time the
+     * screen is shown, including the first time.
+     */
+    void refresh();
+}
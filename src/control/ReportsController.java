@@ -1,18 +1,25 @@
 package control;
 
 import helperDB.AppointmentsQuery;
-import helperDB.ContactsQuery;
-import helperDB.CustomersQuery;
+import helperDB.AsyncDB;
+import helperDB.CustomerMetric;
+import helperDB.LatestRequest;
+import helperDB.ReferenceCache;
+import helperDB.SqlSupplier;
+import helperMetrics.ControllerInitEvent;
+import helperReports.ContactSchedules;
+import helperReports.ReportCache;
+import helperReports.ReportMaterializations;
+import helperReports.SchedulePage;
+import helperReports.TopCustomers;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
@@ -21,12 +28,11 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 import model.Appointment;
 import model.Contact;
-import model.Customer;
+import model.CustomerTotal;
 
 import java.io.IOException;
 import java.net.URL;
 import java.sql.SQLException;
-import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
@@ -36,10 +42,10 @@ import java.util.*;
  * Reports controller class allows viewing of three different reports.
  * The section labelled "Number of Appointments by Type and Month" report allows input for type and month, and displays
  * the associated appointments.
- * The section labelled "Contact Schedule" shows all appointments for the selected contact
+ * The section labelled "Contact Schedule" shows the appointments for the selected contact, a page at a time
  * The section labelled "Customers of the Month" shows the top three customers with the most hours of appointments scheduled.
  */
-public class ReportsController implements Initializable {
+public class ReportsController implements Initializable, Refreshable {
     /**
      * Label showing number of appointments given month and type.
      */
@@ -104,90 +110,213 @@ public class ReportsController implements Initializable {
      * Third place label.
      */
     public Label ThirdPlaceCustomer;
+    /**
+     * Previous page of the contact schedule button.
+     */
+    public Button PreviousPage;
+    /**
+     * Next page of the contact schedule button.
+     */
+    public Button NextPage;
+    /**
+     * Label showing which page of the contact schedule is shown.
+     */
+    public Label PageLabel;
+    /**
+     * Number of appointments on a page of the contact schedule.
+     */
+    private static final int pageSize = 50;
+    /**
+     * Page of the contact schedule shown in the appointments table.
+     */
+    private SchedulePage contactPage;
+    /**
+     * Background request filling the appointments table for the chosen contact.
+     */
+    private final LatestRequest<SchedulePage> contactRequest = new LatestRequest<>();
+    /**
+     * Background request counting appointments for the chosen type and month.
+     */
+    private final LatestRequest<Integer> searchRequest = new LatestRequest<>();
 
     /**
      * The initialize sets up the reports page with all relevant information.
-     * It fills combo boxes with options, sets the table of appointments and adds a listener for the contact combo box.
+     * It fills the month combo box, sets up the table of appointments and adds a listener for the contact combo box.
+     * The data of the page is filled in by refresh each time the page is shown.
      *
      * @param url initialize url
      * @param resourceBundle initialize resource bundle
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        ControllerInitEvent initEvent = ControllerInitEvent.start("reports-form");
+        // Appointments by type and month section
+        MonthsCombo.setItems(months);
 
-        try {
-            // Appointments by type and month section
-            MonthsCombo.setItems(months);
+        // Setting up appointment table
+        AppointmentId.setCellValueFactory(new PropertyValueFactory<>("appId"));
+        Title.setCellValueFactory(new PropertyValueFactory<>("title"));
+        Description.setCellValueFactory(new PropertyValueFactory<>("description"));
+        Type.setCellValueFactory(new PropertyValueFactory<>("type"));
+        StartDateTime.setCellValueFactory(new PropertyValueFactory<>("start"));
+        EndDateTime.setCellValueFactory(new PropertyValueFactory<>("end"));
+        CustomerId.setCellValueFactory(new PropertyValueFactory<>("customerId"));
 
-            // Creating a set of all types so there are no duplicates
-            Set<String> type = new HashSet<>();
-            for (Appointment i : AppointmentsQuery.selectApps()) {
-                type.add(i.getType());
-            }
-
-            // Filling combo box with all types
-            ObservableList<String> types = FXCollections.observableArrayList(type);
-            TypeCombo.setItems(types);
+        // Listener to see if the contact combo box was changed. If is was, the appointments table shows the page of
+        // that contact's schedule with the upcoming appointments, taken from the contact schedule index
+        ContactCombo.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<Contact>() {
+            @Override
+            public void changed(ObservableValue<? extends Contact> observableValue, Contact contact, Contact t1) {
+                if (ContactCombo.getValue() == null) {
+                    return;
+                }
+                int contactId = ContactCombo.getValue().getId();
 
-            // Contact schedule section
-            ContactCombo.setItems(ContactsQuery.selectContacts());
+                setContactAppointments(() -> ContactSchedules.upcomingPage(contactId, LocalDateTime.now(), pageSize));
+            }
+        });
+        initEvent.commit();
+    }
 
-            // Setting up appointment table
-            AppointmentsTable.setItems(AppointmentsQuery.selectApps());
-            AppointmentId.setCellValueFactory(new PropertyValueFactory<>("appId"));
-            Title.setCellValueFactory(new PropertyValueFactory<>("title"));
-            Description.setCellValueFactory(new PropertyValueFactory<>("description"));
-            Type.setCellValueFactory(new PropertyValueFactory<>("type"));
-            StartDateTime.setCellValueFactory(new PropertyValueFactory<>("start"));
-            EndDateTime.setCellValueFactory(new PropertyValueFactory<>("end"));
-            CustomerId.setCellValueFactory(new PropertyValueFactory<>("customerId"));
+    /**
+     * The refresh function fills the reports with the current appointments each time the page is shown.
+     * All data is read in the background and filled in once it arrives. The contact schedule index and the report
+     * materializations are first brought up to date with other clients' writes, and the reports then read only
+     * those, without reading the appointments.
+     */
+    @Override
+    public void refresh() {
+        AsyncDB.load(ReferenceCache::getContacts, ContactCombo::setItems, this::databaseError);
+        ContactCombo.setValue(null);
+        AppointmentsTable.setItems(FXCollections.observableArrayList());
+        AppointmentsTable.setPlaceholder(new Label("Loading appointments..."));
+        FirstPlaceCustomer.setText("Loading...");
+        SecondPlaceCustomer.setText("Loading...");
+        ThirdPlaceCustomer.setText("Loading...");
+        AsyncDB.load(this::pullChanges, this::showReports, this::databaseError);
+    }
 
-            // Listener to see if the contact combo box was changed. If is was, the appointments table shows all appointments
-            // for that contact
-            ContactCombo.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<Contact>() {
-                @Override
-                public void changed(ObservableValue<? extends Contact> observableValue, Contact contact, Contact t1) {
-                    try {
-                        ObservableList<Appointment> contactAppointments = FXCollections.observableArrayList();
-                        for (Appointment i : AppointmentsQuery.selectApps()) {
-                            if (i.getContactId() == ContactCombo.getValue().getId()) {
-                                contactAppointments.add(i);
-                            }
-                        }
+    /**
+     * The pullChanges function brings the contact schedule index and the report materializations up to date with
+     * appointments written by other clients, and lists how many appointments each contact has.
+     *
+     * @return the text shown until a contact is chosen, or null if the report materializations are switched off
+     * @throws SQLException exception in case sql commands return an error
+     */
+    private String pullChanges() throws SQLException {
+        ContactSchedules.pullChanges();
+        if (!ReportMaterializations.isEnabled()) {
+            return null;
+        }
+        ReportMaterializations materializations = ReportMaterializations.getInstance();
+        materializations.pullChanges();
+        StringBuilder contactCounts = new StringBuilder("Choose a contact to see their schedule");
+        for (Contact contact : ReferenceCache.getContacts()) {
+            contactCounts.append('\n').append(contact.getName()).append(": ")
+                    .append(materializations.getContactCount(contact.getId())).append(" appointments");
+        }
+        return contactCounts.toString();
+    }
 
-                        AppointmentsTable.setItems(contactAppointments);
+    /**
+     * The showReports function fills the three reports once the changes are pulled.
+     *
+     * @param contactCounts the text shown until a contact is chosen, or null if the report materializations are
+     *                      switched off
+     */
+    private void showReports(String contactCounts) {
+        // Filling combo box with all types, taken from the counts of the type and month report in the background
+        AsyncDB.load(() -> FXCollections.observableArrayList(ReportCache.getTypeMonthCounts().getTypes()), TypeCombo::setItems, this::databaseError);
 
-                    } catch (SQLException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
+        // Contact schedule section. Without the report materializations all appointments are shown on one page until
+        // a contact is chosen; with them, the table stays empty and shows how many appointments each contact has
+        if (contactCounts == null) {
+            setContactAppointments(() -> {
+                ObservableList<Appointment> appointments = AppointmentsQuery.selectApps();
+                return new SchedulePage(appointments, 0, Math.max(1, appointments.size()), appointments.size());
             });
+        } else if (ContactCombo.getValue() == null) {
+            AppointmentsTable.setPlaceholder(new Label(contactCounts));
+            PreviousPage.setDisable(true);
+            NextPage.setDisable(true);
+            PageLabel.setText("");
+        }
 
-            // Customers of Month section
-            // Using getCustomersOfMonth function to find top three customers
-            Customer[] topThreeCustomers = getCustomersOfMonth();
-
+        // Customers of Month section
+        // Using getCustomersOfMonth function in the background to find top three customers
+        AsyncDB.load(this::getCustomersOfMonth, topThreeCustomers -> {
             // If there are top customers, it shows them displayed on top customers report
             // If there are not enough customers or not enough appointments, it displays "None"
-            if (topThreeCustomers[0] != null) {
-                FirstPlaceCustomer.setText(String.valueOf(topThreeCustomers[0].getId()));
-            } else {
-                FirstPlaceCustomer.setText("None");
-            }
-            if (topThreeCustomers[1] != null) {
-                SecondPlaceCustomer.setText(String.valueOf(topThreeCustomers[1].getId()));
-            } else {
-                SecondPlaceCustomer.setText("None");
-            }
-            if (topThreeCustomers[2] != null) {
-                ThirdPlaceCustomer.setText(String.valueOf(topThreeCustomers[2].getId()));
-            } else {
-                ThirdPlaceCustomer.setText("None");
+            Label[] places = {FirstPlaceCustomer, SecondPlaceCustomer, ThirdPlaceCustomer};
+            for (int place = 0; place < places.length; place++) {
+                if (place < topThreeCustomers.size()) {
+                    places[place].setText(String.valueOf(topThreeCustomers.get(place).getCustomerId()));
+                } else {
+                    places[place].setText("None");
+                }
             }
+        }, this::databaseError);
+    }
+
+    /**
+     * The setContactAppointments function fills the appointments table with a page of appointments in the background.
+     * The table shows a loading message meanwhile, and choosing another contact or page replaces a request still running.
+     *
+     * @param query the call returning the page to show
+     */
+    private void setContactAppointments(SqlSupplier<SchedulePage> query) {
+        AppointmentsTable.setItems(FXCollections.observableArrayList());
+        AppointmentsTable.setPlaceholder(new Label("Loading appointments..."));
+        PreviousPage.setDisable(true);
+        NextPage.setDisable(true);
+        contactRequest.submit(query, page -> {
+            contactPage = page;
+            AppointmentsTable.setPlaceholder(new Label("No appointments"));
+            AppointmentsTable.setItems(FXCollections.observableArrayList(page.getAppointments()));
+            PreviousPage.setDisable(!page.hasPrevious());
+            NextPage.setDisable(!page.hasNext());
+            PageLabel.setText("Page " + (page.getPage() + 1) + " of " + page.getPageCount());
+        }, this::databaseError);
+    }
+
+    /**
+     * The previousPage button shows the earlier appointments of the chosen contact.
+     *
+     * @param actionEvent clicking the previous page button
+     */
+    public void previousPage(ActionEvent actionEvent) {
+        showPage(contactPage.getPage() - 1);
+    }
+
+    /**
+     * The nextPage button shows the later appointments of the chosen contact.
+     *
+     * @param actionEvent clicking the next page button
+     */
+    public void nextPage(ActionEvent actionEvent) {
+        showPage(contactPage.getPage() + 1);
+    }
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        };
+    /**
+     * The showPage function shows another page of the chosen contact's schedule.
+     *
+     * @param page number of the page, starting at 0
+     */
+    private void showPage(int page) {
+        if (ContactCombo.getValue() == null) {
+            return;
+        }
+        int contactId = ContactCombo.getValue().getId();
+        setContactAppointments(() -> ContactSchedules.page(contactId, page, pageSize));
+    }
+
+    /**
+     * The databaseError function reports an error from a background database call on the JavaFX application thread.
+     *
+     * @param error the exception thrown by the database call
+     */
+    private void databaseError(Throwable error) {
+        throw new RuntimeException(error);
     }
 
     /**
@@ -197,12 +326,8 @@ public class ReportsController implements Initializable {
      * @throws IOException exception in case of input/output error
      */
     public void cancel(ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("../view/main-form.fxml"));
         Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root, 400, 300);
-        stage.setTitle("Main Form");
-        stage.setScene(scene);
-        stage.show();
+        Views.show(stage, "main-form", "Main Form", 400, 300);
     }
 
     /**
@@ -210,81 +335,29 @@ public class ReportsController implements Initializable {
      * This takes in the input from the combo boxes for type and month, and displays the number of appointments.
      *
      * @param actionEvent clicking the search button
-     * @throws SQLException exception in case sql commands return an error
      */
-    public void Search(ActionEvent actionEvent) throws SQLException {
+    public void Search(ActionEvent actionEvent) {
         int selectedMonthInt = months.indexOf(MonthsCombo.getValue()) + 1; // Making the selected month a number from 1 to 12
         String selectedType = TypeCombo.getValue();
-        int count = 0;
 
-        for (Appointment i : AppointmentsQuery.selectApps()) {
-            if ((selectedMonthInt == i.getStart().getMonth().getValue()) && (i.getType().equalsIgnoreCase(selectedType))) {
-                count += 1;
-            }
-        }
-
-        NumberResult.setText(String.valueOf(count));
+        // Looking the count up in the report materializations, or in the cached counts read in the background
+        searchRequest.submit(() -> ReportCache.getTypeMonthCounts().count(selectedType, selectedMonthInt),
+                count -> NumberResult.setText(String.valueOf(count)), this::databaseError);
     }
 
     /**
-     * The getCustomersOfMonth function finds the highest three customers with most appointment hours scheduled.
+     * The getCustomersOfMonth function finds the highest three customers with most appointment minutes scheduled
+     * in the current month. The minutes are taken from the report materializations, or totalled by the database
+     * when they are switched off.
      *
-     * @return array of customers with the highest amount of time with appointments scheduled
+     * @return list of at most three customer totals, highest first
      * @throws SQLException exception in case sql commands return an error
      */
-    public Customer[] getCustomersOfMonth() throws SQLException {
-        LocalDate dateNow = LocalDate.now();
-        LocalDate dateFirst = dateNow.withDayOfMonth(1); // Getting the first day of the month
-        LocalDate dateLast = YearMonth.now().atEndOfMonth(); // Getting the last day of the month
-
-        ArrayList<Appointment> monthAppointments = new ArrayList<>();
-
-        // Checking if any appointments are within the current month
-        for(Appointment i : AppointmentsQuery.selectApps()) {
-            if ((dateFirst.getDayOfMonth() <= i.getStart().getDayOfMonth()) && (dateLast.getDayOfMonth() >= i.getStart().getDayOfMonth()) && (dateFirst.getMonth() == i.getStart().getMonth())) {
-                monthAppointments.add(i);
-            }
+    public List<CustomerTotal> getCustomersOfMonth() throws SQLException {
+        if (ReportMaterializations.isEnabled()) {
+            return ReportMaterializations.getInstance().topCustomers(YearMonth.now(), 3);
         }
-
-        // Creating a new hashmap and array to contain results
-        Map<Customer, Integer> monthTimes = new HashMap<>();
-        Customer[] topThreeCustomers = {null, null, null};
-
-        // Filling the monthTimes with all customers and total time scheduled in appointments
-        for (Customer i : CustomersQuery.selectCustomers()) {
-            int duration = 0;
-            for (Appointment j : monthAppointments) {
-                if (i.getId() == j.getCustomerId()) {
-                    duration += Duration.between(j.getStart(), j.getEnd()).getSeconds()/60; // Minutes taken per appointment
-                }
-            }
-
-            monthTimes.put(i, duration);
-        }
-
-        // If there exist appointments within given month and if there are enough customers, then the maximum appointment
-        // duration is found for first, second and third place. Otherwise, it is left as "null".
-        if (!monthAppointments.isEmpty()) {
-            try {
-                if (Collections.max(monthTimes.values()) != 0) {
-                    topThreeCustomers[0] = Collections.max(monthTimes.entrySet(), Map.Entry.comparingByValue()).getKey();
-                    monthTimes.remove(Collections.max(monthTimes.entrySet(), Map.Entry.comparingByValue()).getKey());
-                }
-
-                if (Collections.max(monthTimes.values()) != 0) {
-                    topThreeCustomers[1] = Collections.max(monthTimes.entrySet(), Map.Entry.comparingByValue()).getKey();
-                    monthTimes.remove(Collections.max(monthTimes.entrySet(), Map.Entry.comparingByValue()).getKey());
-                }
-
-                if (Collections.max(monthTimes.values()) != 0) {
-                    topThreeCustomers[2] = Collections.max(monthTimes.entrySet(), Map.Entry.comparingByValue()).getKey();
-                    monthTimes.remove(Collections.max(monthTimes.entrySet(), Map.Entry.comparingByValue()).getKey());
-                }
-            } catch (NoSuchElementException e) {
-                //
-            }
-        }
-
-        return topThreeCustomers;
+        LocalDateTime monthStart = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        return TopCustomers.top(CustomerMetric.MINUTES, monthStart, monthStart.plusMonths(1), 3);
     }
 }
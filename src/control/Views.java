@@ -0,0 +1,155 @@
+package control;
+
+import helperMetrics.ViewLoadEvent;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The views class loads the FXML screens of the program from the view folder, recording each load as a
+ * ViewLoadEvent while a flight recording is running.
+ * Screens shown with the show function are loaded once and kept with their scene and controller. They can be
+ * loaded ahead of time on a background thread with preload, so switching screens only refreshes their data.
+ */
+public abstract class Views {
+    /**
+     * Loaded screens by name, possibly still loading in the background.
+     */
+    private static final Map<String, CompletableFuture<FXMLLoader>> loaded = new ConcurrentHashMap<>();
+    /**
+     * Scenes of the screens shown so far. Only used on the JavaFX application thread.
+     */
+    private static final Map<String, Scene> scenes = new HashMap<>();
+    /**
+     * Thread loading the screens passed to preload.
+     */
+    private static ExecutorService preloader;
+
+    /**
+     * The load function loads a screen and its controller, without keeping them.
+     *
+     * @param screen name of the FXML file without its extension, for example main-form
+     * @return the loader, holding the loaded root and controller
+     * @throws IOException exception in case the FXML file cannot be read
+     */
+    public static FXMLLoader load(String screen) throws IOException {
+        ViewLoadEvent event = new ViewLoadEvent();
+        event.begin();
+        FXMLLoader loader = new FXMLLoader(Views.class.getResource("../view/" + screen + ".fxml"));
+        Parent root = loader.load();
+        event.end();
+        if (event.shouldCommit()) {
+            event.screen = screen;
+            event.nodes = countNodes(root);
+            event.commit();
+        }
+        return loader;
+    }
+
+    /**
+     * The preload function starts loading screens on a background thread, one after the other. Screens that are
+     * already loaded or loading are skipped. Nodes may be built off the JavaFX application thread as long as they
+     * are not part of a shown scene yet; the scenes themselves are created by show.
+     *
+     * @param screens names of the FXML files without their extension
+     */
+    public static synchronized void preload(String... screens) {
+        if (preloader == null) {
+            preloader = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "View preloader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        for (String screen : screens) {
+            loaded.computeIfAbsent(screen, name -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    return load(name);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, preloader));
+        }
+    }
+
+    /**
+     * The getController function returns the controller of a kept screen, loading the screen first if needed.
+     * It waits for a screen that is still loading in the background.
+     *
+     * @param screen name of the FXML file without its extension
+     * @param <T> type of the controller
+     * @return the screen's controller
+     * @throws IOException exception in case the FXML file cannot be read
+     */
+    public static <T> T getController(String screen) throws IOException {
+        return loaderOf(screen).getController();
+    }
+
+    /**
+     * The show function shows a kept screen on the stage, loading it first if needed. Its scene is created the first
+     * time it is shown and reused afterwards. Controllers implementing Refreshable reload their data every time.
+     *
+     * @param stage stage to show the screen on
+     * @param screen name of the FXML file without its extension
+     * @param title title of the stage
+     * @param width width of the scene the first time it is shown
+     * @param height height of the scene the first time it is shown
+     * @throws IOException exception in case the FXML file cannot be read
+     */
+    public static void show(Stage stage, String screen, String title, double width, double height) throws IOException {
+        FXMLLoader loader = loaderOf(screen);
+        Scene scene = scenes.get(screen);
+        if (scene == null) {
+            scene = new Scene(loader.getRoot(), width, height);
+            scenes.put(screen, scene);
+        }
+        if (loader.getController() instanceof Refreshable controller) {
+            controller.refresh();
+        }
+        stage.setTitle(title);
+        stage.setScene(scene);
+        stage.show();
+    }
+
+    /**
+     * The loaderOf function returns the loader of a kept screen. A screen whose background load failed is loaded
+     * again here, so the error reaches the caller.
+     */
+    private static FXMLLoader loaderOf(String screen) throws IOException {
+        CompletableFuture<FXMLLoader> loading = loaded.get(screen);
+        if (loading != null) {
+            try {
+                return loading.join();
+            } catch (CompletionException e) {
+                loaded.remove(screen, loading);
+            }
+        }
+        FXMLLoader loader = load(screen);
+        loaded.put(screen, CompletableFuture.completedFuture(loader));
+        return loader;
+    }
+
+    /**
+     * The countNodes function counts a node and all nodes below it.
+     */
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+}
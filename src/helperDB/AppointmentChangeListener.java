@@ -0,0 +1,30 @@
+package helperDB;
+
+import model.Appointment;
+
+/**
+ * The appointment change listener interface is notified by AppointmentsQuery after an appointment was written to the
+ * database, so in-memory indexes and caches can stay in sync without reloading the appointments table.
+ */
+public interface AppointmentChangeListener {
+    /**
+     * Called after an appointment was inserted or updated.
+     *
+     * @param appointment the appointment as it is now stored, including its id
+     */
+    void appointmentSaved(Appointment appointment);
+
+    /**
+     * Called after an appointment was deleted.
+     *
+     * @param appId id of the deleted appointment
+     */
+    void appointmentDeleted(int appId);
+
+    /**
+     * Called after all appointments of a customer were deleted at once.
+     *
+     * @param customerId id of the customer whose appointments were deleted
+     */
+    void customerAppointmentsDeleted(int customerId);
+}
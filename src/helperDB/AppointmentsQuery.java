@@ -4,17 +4,61 @@ import helperTime.TimeTranslation;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.Appointment;
+import model.AppointmentRow;
+import model.CustomerTotal;
+import model.TypeMonthCount;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The appointment query class contains all helper functions for accessing the SQL database for appointments.
  */
 public abstract class AppointmentsQuery {
+    /**
+     * Listeners notified after every successful insert, update and delete.
+     */
+    private static final List<AppointmentChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * addChangeListener registers a listener that is notified after appointments are written.
+     *
+     * @param listener the listener to add
+     */
+    public static void addChangeListener(AppointmentChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * removeChangeListener unregisters a listener added with addChangeListener.
+     *
+     * @param listener the listener to remove
+     */
+    public static void removeChangeListener(AppointmentChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * fireCustomerAppointmentsDeleted notifies the listeners that all appointments of the given customers were deleted.
+     * It is called by CustomersQuery after a cascading delete was committed.
+     *
+     * @param customerIds ids of the customers whose appointments were deleted
+     */
+    static void fireCustomerAppointmentsDeleted(List<Integer> customerIds) {
+        for (AppointmentChangeListener listener : listeners) {
+            for (int customerId : customerIds) {
+                listener.customerAppointmentsDeleted(customerId);
+            }
+        }
+    }
 
     /**
      * insertApp function adds an appointment to the SQL database.
@@ -32,61 +76,309 @@ public abstract class AppointmentsQuery {
      * @throws SQLException exception in case sql commands return an error
      */
     public static int insertApp(String title, String description, String location, String type, LocalDateTime start, LocalDateTime end, int customerId, int userId, int contactId) throws SQLException {
-        Timestamp UTCStart = Timestamp.valueOf(start);
-        Timestamp UTCEnd = Timestamp.valueOf(end);
-
+        return insertAppReturningId(title, description, location, type, start, end, customerId, userId, contactId) > 0 ? 1 : 0;
+    }
 
-        String sqlCommand = "INSERT INTO APPOINTMENTS (Title, Description, Location, Type, Start, End, Customer_ID, User_ID, Contact_ID) VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        preparedCommand.setString(1, title);
-        preparedCommand.setString(2, description);
-        preparedCommand.setString(3, location);
-        preparedCommand.setString(4, type);
-        preparedCommand.setTimestamp(5, UTCStart);
-        preparedCommand.setTimestamp(6, UTCEnd);
-        preparedCommand.setInt(7, customerId);
-        preparedCommand.setInt(8, userId);
-        preparedCommand.setInt(9, contactId);
+    /**
+     * insertAppReturningId function adds an appointment to the SQL database and returns the id the database gave it,
+     * so callers can show the new appointment without reading the table again.
+     *
+     * @param title title of appointment to be inserted
+     * @param description description of appointment to be inserted
+     * @param location location of appointment to be inserted
+     * @param type type of appointment to be inserted
+     * @param start start time of appointment to be inserted
+     * @param end end time of appointment to be inserted
+     * @param customerId customer id of appointment to be inserted
+     * @param userId user id associated with the appointment to be inserted
+     * @param contactId contact id associated with the appointment to be inserted
+     * @return generated appointment id, or -1 if nothing was inserted
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static int insertAppReturningId(String title, String description, String location, String type, LocalDateTime start, LocalDateTime end, int customerId, int userId, int contactId) throws SQLException {
+        Appointment app = new Appointment(-1, title, description, location, type, start, end, customerId, userId, contactId);
+        try (Connection connection = JDBC.getConnection()) {
+            int appId = insertRow(connection, app);
 
-        int numChanged = preparedCommand.executeUpdate();
-        return numChanged;
+            // Letting listeners know about the new appointment, with the id the database gave it
+            if (appId > 0) {
+                fireSaved(app, appId);
+            }
+            return appId;
+        }
     }
 
     public static int updateApp(int appId, String title, String description, String location, String type, LocalDateTime start, LocalDateTime end, int customerId, int userId, int contactId) throws SQLException {
-        Timestamp UTCStart = Timestamp.valueOf(start);
-        Timestamp UTCEnd = Timestamp.valueOf(end);
+        Appointment app = new Appointment(appId, title, description, location, type, start, end, customerId, userId, contactId);
+        try (Connection connection = JDBC.getConnection()) {
+            int numChanged = updateRow(connection, app);
 
-        String sqlCommand = "UPDATE APPOINTMENTS SET Title = ?, Description = ?, Location = ?, Type = ?, Start = ?, End = ?, Customer_ID = ?, User_ID = ?, Contact_ID = ? WHERE Appointment_ID = ?";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        preparedCommand.setString(1, title);
-        preparedCommand.setString(2, description);
-        preparedCommand.setString(3, location);
-        preparedCommand.setString(4, type);
-        preparedCommand.setTimestamp(5, UTCStart);
-        preparedCommand.setTimestamp(6, UTCEnd);
-        preparedCommand.setInt(7, customerId);
-        preparedCommand.setInt(8, userId);
-        preparedCommand.setInt(9, contactId);
-        preparedCommand.setInt(10, appId);
+            if (numChanged > 0) {
+                fireSaved(app, appId);
+            }
+            return numChanged;
+        }
+    }
 
-        int numChanged = preparedCommand.executeUpdate();
-        return numChanged;
+    /**
+     * bookApp function adds an appointment only if the customer has no appointment overlapping it.
+     * The customer's row is locked with SELECT ... FOR UPDATE in the same transaction as the overlap check and the
+     * insert, so two clients booking the same customer at the same time, even from different processes, take turns
+     * and the second one sees the first one's appointment. Bookings for other customers are not held up.
+     *
+     * @param title title of appointment to be inserted
+     * @param description description of appointment to be inserted
+     * @param location location of appointment to be inserted
+     * @param type type of appointment to be inserted
+     * @param start start time of appointment to be inserted
+     * @param end end time of appointment to be inserted
+     * @param customerId customer id of appointment to be inserted
+     * @param userId user id associated with the appointment to be inserted
+     * @param contactId contact id associated with the appointment to be inserted
+     * @return the generated appointment id, or the overlapping appointment if nothing was inserted
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static BookingResult bookApp(String title, String description, String location, String type, LocalDateTime start, LocalDateTime end, int customerId, int userId, int contactId) throws SQLException {
+        return book(new Appointment(-1, title, description, location, type, start, end, customerId, userId, contactId));
+    }
+
+    /**
+     * rebookApp function updates an appointment only if the customer has no other appointment overlapping it,
+     * locking the customer's row the same way as bookApp.
+     *
+     * @param appId id of the appointment to be updated
+     * @param title title of appointment to be updated
+     * @param description description of appointment to be updated
+     * @param location location of appointment to be updated
+     * @param type type of appointment to be updated
+     * @param start start time of appointment to be updated
+     * @param end end time of appointment to be updated
+     * @param customerId customer id of appointment to be updated
+     * @param userId user id associated with the appointment to be updated
+     * @param contactId contact id associated with the appointment to be updated
+     * @return the appointment id, or the overlapping appointment if nothing was updated
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static BookingResult rebookApp(int appId, String title, String description, String location, String type, LocalDateTime start, LocalDateTime end, int customerId, int userId, int contactId) throws SQLException {
+        return book(new Appointment(appId, title, description, location, type, start, end, customerId, userId, contactId));
+    }
+
+    /**
+     * book runs the locked overlap check and the insert, or the update when the appointment already has an id.
+     *
+     * @param app appointment to be inserted or updated
+     * @return the appointment id, or the overlapping appointment if nothing was written
+     * @throws SQLException exception in case sql commands return an error
+     */
+    private static BookingResult book(Appointment app) throws SQLException {
+        boolean adding = app.getAppId() < 0;
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                // Taking the customer's row lock before reading, so the overlap check sees every booking committed before it
+                try (PreparedStatement lockCustomer = connection.prepareStatement("SELECT Customer_ID FROM CUSTOMERS WHERE Customer_ID = ? FOR UPDATE")) {
+                    lockCustomer.setInt(1, app.getCustomerId());
+                    lockCustomer.executeQuery().close();
+                }
+
+                Appointment overlapping = findOverlapping(connection, app.getCustomerId(), app.getStart(), app.getEnd(), app.getAppId());
+                if (overlapping != null) {
+                    connection.rollback();
+                    return BookingResult.conflict(List.of(overlapping));
+                }
+
+                int appId = adding ? insertRow(connection, app) : updateRow(connection, app) > 0 ? app.getAppId() : -1;
+                connection.commit();
+
+                if (appId > 0) {
+                    fireSaved(app, appId);
+                }
+                return BookingResult.booked(appId);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * insertRow inserts an appointment on the given connection.
+     *
+     * @param connection connection to insert on
+     * @param app appointment to be inserted; its id is ignored
+     * @return generated appointment id, or -1 if nothing was inserted
+     * @throws SQLException exception in case sql commands return an error
+     */
+    private static int insertRow(Connection connection, Appointment app) throws SQLException {
+        String sqlCommand = "INSERT INTO APPOINTMENTS (Title, Description, Location, Type, Start, End, Customer_ID, User_ID, Contact_ID, Last_Update) VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NOW())";
+        try (PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand, Statement.RETURN_GENERATED_KEYS)) {
+            bindApp(preparedCommand, app);
+
+            if (preparedCommand.executeUpdate() == 0) {
+                return -1;
+            }
+            ResultSet generatedKeys = preparedCommand.getGeneratedKeys();
+            if (!generatedKeys.next()) {
+                return -1;
+            }
+            return generatedKeys.getInt(1);
+        }
+    }
+
+    /**
+     * updateRow updates an appointment on the given connection.
+     *
+     * @param connection connection to update on
+     * @param app appointment to be updated
+     * @return int of how many changes took place
+     * @throws SQLException exception in case sql commands return an error
+     */
+    private static int updateRow(Connection connection, Appointment app) throws SQLException {
+        String sqlCommand = "UPDATE APPOINTMENTS SET Title = ?, Description = ?, Location = ?, Type = ?, Start = ?, End = ?, Customer_ID = ?, User_ID = ?, Contact_ID = ?, Last_Update = NOW() WHERE Appointment_ID = ?";
+        try (PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            bindApp(preparedCommand, app);
+            preparedCommand.setInt(10, app.getAppId());
+            return preparedCommand.executeUpdate();
+        }
+    }
+
+    /**
+     * fireSaved lets the listeners know an appointment was inserted or updated.
+     *
+     * @param app appointment that was written
+     * @param appId id of the appointment in the database
+     */
+    private static void fireSaved(Appointment app, int appId) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Appointment saved = app.getAppId() == appId ? app : new Appointment(appId, app.getTitle(), app.getDescription(), app.getLocation(),
+                app.getType(), app.getStart(), app.getEnd(), app.getCustomerId(), app.getUserId(), app.getContactId());
+        for (AppointmentChangeListener listener : listeners) {
+            listener.appointmentSaved(saved);
+        }
+    }
+
+    /**
+     * insertApps function adds many appointments with JDBC batching, in chunks of schedule.batchSize rows (default 500).
+     * The appointment ids of the given objects are ignored.
+     *
+     * @param apps appointments to be inserted
+     * @return the id the database gave each appointment, and the error of each appointment that could not be inserted
+     * @throws SQLException exception in case no connection can be borrowed
+     */
+    public static BatchResult insertApps(List<Appointment> apps) throws SQLException {
+        return insertApps(apps, BatchWriter.defaultChunkSize());
+    }
+
+    /**
+     * insertApps function adds many appointments with JDBC batching. Each chunk is one round trip and one transaction;
+     * if a chunk fails, its appointments are inserted one at a time so only the failing ones are left out.
+     *
+     * @param apps appointments to be inserted
+     * @param chunkSize number of appointments per chunk
+     * @return the id the database gave each appointment, and the error of each appointment that could not be inserted
+     * @throws SQLException exception in case no connection can be borrowed
+     */
+    public static BatchResult insertApps(List<Appointment> apps, int chunkSize) throws SQLException {
+        String sqlCommand = "INSERT INTO APPOINTMENTS (Title, Description, Location, Type, Start, End, Customer_ID, User_ID, Contact_ID, Last_Update) VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NOW())";
+        return BatchWriter.write(sqlCommand, apps, chunkSize, true, Appointment::getAppId, AppointmentsQuery::bindApp, (app, appId) -> {
+            // Letting listeners know about the new appointment, with the id the database gave it
+            if (!listeners.isEmpty()) {
+                Appointment inserted = new Appointment(appId, app.getTitle(), app.getDescription(), app.getLocation(), app.getType(), app.getStart(), app.getEnd(), app.getCustomerId(), app.getUserId(), app.getContactId());
+                for (AppointmentChangeListener listener : listeners) {
+                    listener.appointmentSaved(inserted);
+                }
+            }
+        });
+    }
+
+    /**
+     * updateApps function updates many appointments, found by their ids, with JDBC batching in chunks of
+     * schedule.batchSize rows (default 500).
+     *
+     * @param apps appointments to be updated
+     * @return the error of each appointment that could not be updated
+     * @throws SQLException exception in case no connection can be borrowed
+     */
+    public static BatchResult updateApps(List<Appointment> apps) throws SQLException {
+        return updateApps(apps, BatchWriter.defaultChunkSize());
+    }
+
+    /**
+     * updateApps function updates many appointments, found by their ids, with JDBC batching. An appointment whose id is
+     * not in the database is reported as an error.
+     *
+     * @param apps appointments to be updated
+     * @param chunkSize number of appointments per chunk
+     * @return the error of each appointment that could not be updated
+     * @throws SQLException exception in case no connection can be borrowed
+     */
+    public static BatchResult updateApps(List<Appointment> apps, int chunkSize) throws SQLException {
+        String sqlCommand = "UPDATE APPOINTMENTS SET Title = ?, Description = ?, Location = ?, Type = ?, Start = ?, End = ?, Customer_ID = ?, User_ID = ?, Contact_ID = ?, Last_Update = NOW() WHERE Appointment_ID = ?";
+        return BatchWriter.write(sqlCommand, apps, chunkSize, false, Appointment::getAppId, (preparedCommand, app) -> {
+            bindApp(preparedCommand, app);
+            preparedCommand.setInt(10, app.getAppId());
+        }, (app, appId) -> {
+            for (AppointmentChangeListener listener : listeners) {
+                listener.appointmentSaved(app);
+            }
+        });
+    }
+
+    /**
+     * bindApp sets the first nine parameters of an insert or update to the values of an appointment.
+     *
+     * @param preparedCommand insert or update statement
+     * @param app appointment to take the values from
+     * @throws SQLException exception in case sql commands return an error
+     */
+    private static void bindApp(PreparedStatement preparedCommand, Appointment app) throws SQLException {
+        preparedCommand.setString(1, app.getTitle());
+        preparedCommand.setString(2, app.getDescription());
+        preparedCommand.setString(3, app.getLocation());
+        preparedCommand.setString(4, app.getType());
+        preparedCommand.setTimestamp(5, Timestamp.valueOf(app.getStart()));
+        preparedCommand.setTimestamp(6, Timestamp.valueOf(app.getEnd()));
+        preparedCommand.setInt(7, app.getCustomerId());
+        preparedCommand.setInt(8, app.getUserId());
+        preparedCommand.setInt(9, app.getContactId());
     }
 
     /**
      * deleteApp function deletes the appointment with the inputted id.
+     * The id is recorded in DELETED_APPOINTMENTS in the same transaction, so other clients find the delete with
+     * selectAppIdsDeletedSince.
      *
      * @param appId inputted appointment id
      * @return int of how many changes took place
      * @throws SQLException exception in case sql commands return an error
      */
     public static int deleteApp(int appId) throws SQLException {
+        String recordCommand = "INSERT INTO DELETED_APPOINTMENTS (Appointment_ID, Last_Update) SELECT Appointment_ID, NOW() FROM APPOINTMENTS WHERE Appointment_ID = ?";
         String sqlCommand = "DELETE FROM APPOINTMENTS WHERE Appointment_ID = ?";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        preparedCommand.setInt(1, appId);
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement recordDelete = connection.prepareStatement(recordCommand);
+                 PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+                recordDelete.setInt(1, appId);
+                recordDelete.executeUpdate();
+                preparedCommand.setInt(1, appId);
+
+                int numChanged = preparedCommand.executeUpdate();
+                connection.commit();
 
-        int numChanged = preparedCommand.executeUpdate();
-        return numChanged;
+                if (numChanged > 0) {
+                    for (AppointmentChangeListener listener : listeners) {
+                        listener.appointmentDeleted(appId);
+                    }
+                }
+                return numChanged;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
     }
 
     /**
@@ -97,30 +389,155 @@ public abstract class AppointmentsQuery {
      */
     public static ObservableList<Appointment> selectApps() throws SQLException {
         String sqlCommand = "SELECT * FROM APPOINTMENTS";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        ResultSet resultSet = preparedCommand.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            ObservableList<Appointment> currentApps = FXCollections.observableArrayList();
+
+            while (resultSet.next()) {
+                currentApps.add(readApp(resultSet));
+            }
+            return currentApps;
+        }
+    }
+
+    /**
+     * selectAppointmentRows returns all appointments together with their contact, read in one JOIN query.
+     *
+     * @return observable list of appointment rows
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<AppointmentRow> selectAppointmentRows() throws SQLException {
+        String sqlCommand = "SELECT a.*, c.Contact_Name, c.Email FROM APPOINTMENTS a JOIN CONTACTS c ON a.Contact_ID = c.Contact_ID";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            ObservableList<AppointmentRow> currentRows = FXCollections.observableArrayList();
+
+            while (resultSet.next()) {
+                currentRows.add(readAppRow(resultSet));
+            }
+            return currentRows;
+        }
+    }
+
+    /**
+     * selectAppointmentRowsBetween returns all appointments starting within the given time range together with their
+     * contact, read in one JOIN query.
+     *
+     * @param start beginning of the range (inclusive)
+     * @param end end of the range (exclusive)
+     * @return observable list of appointment rows sorted by start
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<AppointmentRow> selectAppointmentRowsBetween(LocalDateTime start, LocalDateTime end) throws SQLException {
+        String sqlCommand = "SELECT a.*, c.Contact_Name, c.Email FROM APPOINTMENTS a JOIN CONTACTS c ON a.Contact_ID = c.Contact_ID WHERE a.Start >= ? AND a.Start < ? ORDER BY a.Start";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setTimestamp(1, Timestamp.valueOf(start));
+            preparedCommand.setTimestamp(2, Timestamp.valueOf(end));
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            ObservableList<AppointmentRow> currentRows = FXCollections.observableArrayList();
+
+            while (resultSet.next()) {
+                currentRows.add(readAppRow(resultSet));
+            }
+            return currentRows;
+        }
+    }
+
+    /**
+     * selectAppsLastUpdate returns the latest Last_Update value of all appointments, used as the watermark of a full load.
+     * It is read before the appointments themselves, so nothing written in between is missed by the next pull.
+     *
+     * @return latest Last_Update value, or the start of the epoch if there is none
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static Timestamp selectAppsLastUpdate() throws SQLException {
+        String sqlCommand = "SELECT MAX(Last_Update) FROM APPOINTMENTS";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            Timestamp lastUpdate = resultSet.next() ? resultSet.getTimestamp(1) : null;
+            return lastUpdate != null ? lastUpdate : new Timestamp(0);
+        }
+    }
+
+    /**
+     * selectAppointmentRowsChangedSince returns the appointments updated at or after the given watermark together with
+     * their contact. Rows updated in the same second as the watermark are read again, since the column only keeps
+     * whole seconds; applying them twice does not change anything.
+     *
+     * @param since watermark of the previous load
+     * @return changed appointment rows and the new watermark
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ChangeSet<AppointmentRow> selectAppointmentRowsChangedSince(Timestamp since) throws SQLException {
+        String sqlCommand = "SELECT a.*, c.Contact_Name, c.Email FROM APPOINTMENTS a JOIN CONTACTS c ON a.Contact_ID = c.Contact_ID WHERE a.Last_Update >= ? ORDER BY a.Last_Update";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setTimestamp(1, since);
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            List<AppointmentRow> changedRows = new ArrayList<>();
+            Timestamp watermark = since;
+
+            while (resultSet.next()) {
+                changedRows.add(readAppRow(resultSet));
+                watermark = resultSet.getTimestamp("Last_Update");
+            }
+            return new ChangeSet<>(changedRows, watermark);
+        }
+    }
+
+    /**
+     * selectAppsDeletedLastUpdate returns the latest Last_Update value of the deleted appointments, used as the
+     * watermark of the deletes when all appointments are loaded. Like selectAppsLastUpdate, it is read before the
+     * appointments themselves.
+     *
+     * @return latest Last_Update value, or the start of the epoch if there is none
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static Timestamp selectAppsDeletedLastUpdate() throws SQLException {
+        String sqlCommand = "SELECT MAX(Last_Update) FROM DELETED_APPOINTMENTS";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            ResultSet resultSet = preparedCommand.executeQuery();
 
-        ObservableList<Appointment> currentApps = FXCollections.observableArrayList();
+            Timestamp lastUpdate = resultSet.next() ? resultSet.getTimestamp(1) : null;
+            return lastUpdate != null ? lastUpdate : new Timestamp(0);
+        }
+    }
 
-        while (resultSet.next()) {
-            int appId = resultSet.getInt("Appointment_ID");
-            String title = resultSet.getString("Title");
-            String description = resultSet.getString("Description");
-            String location = resultSet.getString("Location");
-            String type = resultSet.getString("Type");
-            Timestamp start = resultSet.getTimestamp("Start");
-            Timestamp end = resultSet.getTimestamp("End");
-            int customerId = resultSet.getInt("Customer_ID");
-            int userId = resultSet.getInt("User_ID");
-            int contactId = resultSet.getInt("Contact_ID");
+    /**
+     * selectAppIdsDeletedSince returns the ids of the appointments deleted at or after the given watermark, by this
+     * client or others. As with selectAppointmentRowsChangedSince, deletes in the same second as the watermark are
+     * read again; dropping an appointment twice does not change anything.
+     *
+     * @param since watermark of the previous load
+     * @return ids of the deleted appointments and the new watermark
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ChangeSet<Integer> selectAppIdsDeletedSince(Timestamp since) throws SQLException {
+        String sqlCommand = "SELECT Appointment_ID, Last_Update FROM DELETED_APPOINTMENTS WHERE Last_Update >= ? ORDER BY Last_Update";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setTimestamp(1, since);
+            ResultSet resultSet = preparedCommand.executeQuery();
 
-            LocalDateTime localStart = start.toLocalDateTime();
-            LocalDateTime localEnd = end.toLocalDateTime();
+            List<Integer> deletedIds = new ArrayList<>();
+            Timestamp watermark = since;
 
-            Appointment currentApp = new Appointment(appId, title, description, location, type, localStart, localEnd, customerId, userId, contactId);
-            currentApps.add(currentApp);
+            while (resultSet.next()) {
+                deletedIds.add(resultSet.getInt("Appointment_ID"));
+                watermark = resultSet.getTimestamp("Last_Update");
+            }
+            return new ChangeSet<>(deletedIds, watermark);
         }
-        return currentApps;
     }
 
     /**
@@ -132,27 +549,339 @@ public abstract class AppointmentsQuery {
      */
     public static Appointment selectApp(int appId) throws SQLException {
         String sqlCommand = "SELECT * FROM APPOINTMENTS WHERE Appointment_ID = ?";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        preparedCommand.setInt(1, appId);
-        ResultSet resultSet = preparedCommand.executeQuery();
-
-        while (resultSet.next()) {
-            String title = resultSet.getString("Title");
-            String description = resultSet.getString("Description");
-            String location = resultSet.getString("Location");
-            String type = resultSet.getString("Type");
-            Timestamp start = resultSet.getTimestamp("Start");
-            Timestamp end = resultSet.getTimestamp("End");
-            int customerId = resultSet.getInt("Customer_ID");
-            int userId = resultSet.getInt("User_ID");
-            int contactId = resultSet.getInt("Contact_ID");
-
-            LocalDateTime localStart = start.toLocalDateTime();
-            LocalDateTime localEnd = end.toLocalDateTime();
-
-            Appointment chosenApp = new Appointment(appId, title, description, location, type, localStart, localEnd, customerId, userId, contactId);
-            return chosenApp;
-        }
-        return null;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setInt(1, appId);
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            while (resultSet.next()) {
+                String title = resultSet.getString("Title");
+                String description = resultSet.getString("Description");
+                String location = resultSet.getString("Location");
+                String type = resultSet.getString("Type");
+                Timestamp start = resultSet.getTimestamp("Start");
+                Timestamp end = resultSet.getTimestamp("End");
+                int customerId = resultSet.getInt("Customer_ID");
+                int userId = resultSet.getInt("User_ID");
+                int contactId = resultSet.getInt("Contact_ID");
+
+                LocalDateTime localStart = start.toLocalDateTime();
+                LocalDateTime localEnd = end.toLocalDateTime();
+
+                Appointment chosenApp = new Appointment(appId, title, description, location, type, localStart, localEnd, customerId, userId, contactId);
+                return chosenApp;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * selectAppsBetween returns all appointments starting within the given time range.
+     * The range includes its start and excludes its end, so consecutive ranges never share an appointment.
+     * The filter runs in the database and uses the index on Start.
+     *
+     * @param start beginning of the range (inclusive)
+     * @param end end of the range (exclusive)
+     * @return observable list of appointments sorted by start
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<Appointment> selectAppsBetween(LocalDateTime start, LocalDateTime end) throws SQLException {
+        String sqlCommand = "SELECT * FROM APPOINTMENTS WHERE Start >= ? AND Start < ? ORDER BY Start";
+        return selectAppsInRange(sqlCommand, null, start, end);
+    }
+
+    /**
+     * selectAppsByContactBetween returns all appointments of a contact starting within the given time range.
+     *
+     * @param contactId contact id of the appointments
+     * @param start beginning of the range (inclusive)
+     * @param end end of the range (exclusive)
+     * @return observable list of appointments sorted by start
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<Appointment> selectAppsByContactBetween(int contactId, LocalDateTime start, LocalDateTime end) throws SQLException {
+        String sqlCommand = "SELECT * FROM APPOINTMENTS WHERE Contact_ID = ? AND Start >= ? AND Start < ? ORDER BY Start";
+        return selectAppsInRange(sqlCommand, contactId, start, end);
+    }
+
+    /**
+     * selectAppsByContactPage returns one page of a contact's appointments, ordered by start and then by id.
+     * The page is read with the (Contact_ID, Start) index, so only the rows of the page and those before it are read.
+     *
+     * @param contactId contact id of the appointments
+     * @param offset number of appointments before the page
+     * @param limit number of appointments on the page
+     * @return observable list of appointments sorted by start
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<Appointment> selectAppsByContactPage(int contactId, int offset, int limit) throws SQLException {
+        String sqlCommand = "SELECT * FROM APPOINTMENTS WHERE Contact_ID = ? ORDER BY Start, Appointment_ID LIMIT ? OFFSET ?";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setInt(1, contactId);
+            preparedCommand.setInt(2, limit);
+            preparedCommand.setInt(3, offset);
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            ObservableList<Appointment> currentApps = FXCollections.observableArrayList();
+
+            while (resultSet.next()) {
+                currentApps.add(readApp(resultSet));
+            }
+            return currentApps;
+        }
+    }
+
+    /**
+     * countAppsByContactBefore counts a contact's appointments starting before the given time.
+     *
+     * @param contactId contact id of the appointments
+     * @param before time to count the appointments before (exclusive), or null to count all of them
+     * @return number of appointments
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static int countAppsByContactBefore(int contactId, LocalDateTime before) throws SQLException {
+        String sqlCommand = before == null ? "SELECT COUNT(*) FROM APPOINTMENTS WHERE Contact_ID = ?"
+                : "SELECT COUNT(*) FROM APPOINTMENTS WHERE Contact_ID = ? AND Start < ?";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setInt(1, contactId);
+            if (before != null) {
+                preparedCommand.setTimestamp(2, Timestamp.valueOf(before));
+            }
+            ResultSet resultSet = preparedCommand.executeQuery();
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    /**
+     * selectAppsByUserBetween returns all appointments of a user starting within the given time range.
+     *
+     * @param userId user id of the appointments
+     * @param start beginning of the range (inclusive)
+     * @param end end of the range (exclusive)
+     * @return observable list of appointments sorted by start
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<Appointment> selectAppsByUserBetween(int userId, LocalDateTime start, LocalDateTime end) throws SQLException {
+        String sqlCommand = "SELECT * FROM APPOINTMENTS WHERE User_ID = ? AND Start >= ? AND Start < ? ORDER BY Start";
+        return selectAppsInRange(sqlCommand, userId, start, end);
+    }
+
+    /**
+     * selectAppsByUserOverlapping returns all appointments of a user overlapping the given time range, including
+     * appointments already in progress at its beginning and appointments starting or ending exactly at its ends.
+     *
+     * @param userId user id of the appointments
+     * @param start beginning of the range
+     * @param end end of the range
+     * @return observable list of appointments sorted by start
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<Appointment> selectAppsByUserOverlapping(int userId, LocalDateTime start, LocalDateTime end) throws SQLException {
+        String sqlCommand = "SELECT * FROM APPOINTMENTS WHERE User_ID = ? AND End > ? AND Start <= ? ORDER BY Start";
+        return selectAppsInRange(sqlCommand, userId, start, end);
+    }
+
+    /**
+     * selectAppsByCustomerBetween returns all appointments of a customer starting within the given time range.
+     *
+     * @param customerId customer id of the appointments
+     * @param start beginning of the range (inclusive)
+     * @param end end of the range (exclusive)
+     * @return observable list of appointments sorted by start
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<Appointment> selectAppsByCustomerBetween(int customerId, LocalDateTime start, LocalDateTime end) throws SQLException {
+        String sqlCommand = "SELECT * FROM APPOINTMENTS WHERE Customer_ID = ? AND Start >= ? AND Start < ? ORDER BY Start";
+        return selectAppsInRange(sqlCommand, customerId, start, end);
+    }
+
+    /**
+     * findOverlapping returns an appointment of the customer that overlaps the given time range, if there is one.
+     * Two appointments overlap when each one starts before the other one ends, which covers appointments starting
+     * inside the range, ending inside the range and enveloping the range.
+     * The check runs as one query on the customer and start index and stops at the first overlap found.
+     *
+     * @param customerId customer id to check the appointments of
+     * @param start start of the new or updated appointment
+     * @param end end of the new or updated appointment
+     * @param excludeAppId id of the appointment being updated, which cannot overlap itself, or -1 when adding
+     * @return an overlapping appointment, or null if there is none
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static Appointment findOverlapping(int customerId, LocalDateTime start, LocalDateTime end, int excludeAppId) throws SQLException {
+        try (Connection connection = JDBC.getConnection()) {
+            return findOverlapping(connection, customerId, start, end, excludeAppId);
+        }
+    }
+
+    /**
+     * findOverlapping runs the overlap check on the given connection, so it can be part of a transaction.
+     *
+     * @param connection connection to query on
+     * @param customerId customer id to check the appointments of
+     * @param start start of the new or updated appointment
+     * @param end end of the new or updated appointment
+     * @param excludeAppId id of the appointment being updated, or -1 when adding
+     * @return an overlapping appointment, or null if there is none
+     * @throws SQLException exception in case sql commands return an error
+     */
+    private static Appointment findOverlapping(Connection connection, int customerId, LocalDateTime start, LocalDateTime end, int excludeAppId) throws SQLException {
+        String sqlCommand = "SELECT * FROM APPOINTMENTS WHERE Customer_ID = ? AND Start < ? AND End > ? AND Appointment_ID <> ? LIMIT 1";
+        try (PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setInt(1, customerId);
+            preparedCommand.setTimestamp(2, Timestamp.valueOf(end));
+            preparedCommand.setTimestamp(3, Timestamp.valueOf(start));
+            preparedCommand.setInt(4, excludeAppId);
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            if (resultSet.next()) {
+                return readApp(resultSet);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * countByTypeAndMonth counts the appointments of each type starting in each month of each year, in one GROUP BY query.
+     * Months are taken from the stored start times, which are the same local times readApp returns.
+     *
+     * @return list of counts, one per year, month and type with at least one appointment
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static List<TypeMonthCount> countByTypeAndMonth() throws SQLException {
+        String sqlCommand = "SELECT YEAR(Start) AS Start_Year, MONTH(Start) AS Start_Month, Type, COUNT(*) AS Appointments " +
+                "FROM APPOINTMENTS GROUP BY YEAR(Start), MONTH(Start), Type";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            List<TypeMonthCount> counts = new ArrayList<>();
+
+            while (resultSet.next()) {
+                counts.add(new TypeMonthCount(resultSet.getInt("Start_Year"), resultSet.getInt("Start_Month"),
+                        resultSet.getString("Type"), resultSet.getInt("Appointments")));
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * totalsByCustomer totals a metric over each customer's appointments starting within a range, in one GROUP BY query.
+     * Customers without appointments in the range are left out.
+     *
+     * @param metric the total to compute
+     * @param start beginning of the range (inclusive)
+     * @param end end of the range (exclusive)
+     * @return list of totals, one per customer, in no particular order
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static List<CustomerTotal> totalsByCustomer(CustomerMetric metric, LocalDateTime start, LocalDateTime end) throws SQLException {
+        String sqlCommand = "SELECT Customer_ID, " + metric.getAggregate() + " AS Total FROM APPOINTMENTS " +
+                "WHERE Start >= ? AND Start < ? GROUP BY Customer_ID";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setTimestamp(1, Timestamp.valueOf(start));
+            preparedCommand.setTimestamp(2, Timestamp.valueOf(end));
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            List<CustomerTotal> totals = new ArrayList<>();
+
+            while (resultSet.next()) {
+                totals.add(new CustomerTotal(resultSet.getInt("Customer_ID"), resultSet.getLong("Total")));
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * countOverlappingPairs counts the pairs of appointments of the same customer that overlap each other,
+     * which the overlap check is meant to prevent. It is used to find double bookings after concurrent writes.
+     *
+     * @return number of overlapping pairs
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static int countOverlappingPairs() throws SQLException {
+        String sqlCommand = "SELECT COUNT(*) FROM APPOINTMENTS a JOIN APPOINTMENTS b ON a.Customer_ID = b.Customer_ID " +
+                "AND a.Appointment_ID < b.Appointment_ID AND a.Start < b.End AND b.Start < a.End";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            ResultSet resultSet = preparedCommand.executeQuery();
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    /**
+     * selectAppsInRange runs one of the range queries above.
+     * The optional id is bound first, followed by the start and end of the range.
+     *
+     * @param sqlCommand range query to run
+     * @param id contact, user or customer id to bind first, or null if the query has none
+     * @param start beginning of the range (inclusive)
+     * @param end end of the range (exclusive)
+     * @return observable list of appointments
+     * @throws SQLException exception in case sql commands return an error
+     */
+    private static ObservableList<Appointment> selectAppsInRange(String sqlCommand, Integer id, LocalDateTime start, LocalDateTime end) throws SQLException {
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            int index = 1;
+            if (id != null) {
+                preparedCommand.setInt(index++, id);
+            }
+            preparedCommand.setTimestamp(index++, Timestamp.valueOf(start));
+            preparedCommand.setTimestamp(index, Timestamp.valueOf(end));
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            ObservableList<Appointment> currentApps = FXCollections.observableArrayList();
+
+            while (resultSet.next()) {
+                currentApps.add(readApp(resultSet));
+            }
+            return currentApps;
+        }
+    }
+
+    /**
+     * readApp creates an appointment from the current row of a result set over the APPOINTMENTS table.
+     *
+     * @param resultSet result set positioned on an appointment row
+     * @return an appointment
+     * @throws SQLException exception in case sql commands return an error
+     */
+    static Appointment readApp(ResultSet resultSet) throws SQLException {
+        int appId = resultSet.getInt("Appointment_ID");
+        String title = resultSet.getString("Title");
+        String description = resultSet.getString("Description");
+        String location = resultSet.getString("Location");
+        String type = resultSet.getString("Type");
+        Timestamp start = resultSet.getTimestamp("Start");
+        Timestamp end = resultSet.getTimestamp("End");
+        int customerId = resultSet.getInt("Customer_ID");
+        int userId = resultSet.getInt("User_ID");
+        int contactId = resultSet.getInt("Contact_ID");
+
+        LocalDateTime localStart = start.toLocalDateTime();
+        LocalDateTime localEnd = end.toLocalDateTime();
+
+        return new Appointment(appId, title, description, location, type, localStart, localEnd, customerId, userId, contactId);
+    }
+
+    /**
+     * readAppRow creates an appointment row from the current row of a result set over APPOINTMENTS joined with CONTACTS.
+     *
+     * @param resultSet result set positioned on an appointment row
+     * @return an appointment row
+     * @throws SQLException exception in case sql commands return an error
+     */
+    static AppointmentRow readAppRow(ResultSet resultSet) throws SQLException {
+        Appointment app = readApp(resultSet);
+        String contactName = resultSet.getString("Contact_Name");
+        String contactEmail = resultSet.getString("Email");
+
+        return new AppointmentRow(app.getAppId(), app.getTitle(), app.getDescription(), app.getLocation(), app.getType(), app.getStart(), app.getEnd(), app.getCustomerId(), app.getUserId(), app.getContactId(), contactName, contactEmail);
     }
 }
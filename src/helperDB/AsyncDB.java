@@ -0,0 +1,123 @@
+package helperDB;
+
+import javafx.application.Platform;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * The AsyncDB class runs query functions off the JavaFX application thread, so a slow database does not freeze the window.
+ * Calls run on virtual threads when the Java runtime supports them (Java 21 and later) and on a pool of daemon threads
+ * otherwise. How many run against the database at once is limited by the connection pool.
+ * Results are handed back on the JavaFX application thread.
+ */
+public abstract class AsyncDB {
+    /**
+     * Executor running the database calls.
+     */
+    private static final ExecutorService executor = createExecutor();
+
+    /**
+     * The createExecutor function creates a virtual thread executor if the runtime has one, and a daemon thread pool otherwise.
+     * The virtual thread executor is looked up by reflection, since the project is compiled for Java 17.
+     *
+     * @return executor for database calls
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "database-call");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * The supplyAsync function runs a database call in the background.
+     * Cancelling the returned future before the call has started means it never runs; cancelling it while it runs
+     * interrupts the thread and discards the result.
+     *
+     * @param query the database call
+     * @param <T> type of the result
+     * @return future completed with the result, or exceptionally with the SQLException thrown
+     */
+    public static <T> CompletableFuture<T> supplyAsync(SqlSupplier<T> query) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            if (result.isDone()) {
+                return; // Cancelled before it started
+            }
+            try {
+                result.complete(query.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * The load function runs a database call in the background and passes its result to onResult on the JavaFX
+     * application thread. If the call fails, onError receives the exception on the JavaFX application thread instead.
+     *
+     * @param query the database call
+     * @param onResult receives the result on the JavaFX application thread
+     * @param onError receives the exception on the JavaFX application thread
+     * @param <T> type of the result
+     * @return future of the database call, which can be cancelled
+     */
+    public static <T> CompletableFuture<T> load(SqlSupplier<T> query, Consumer<T> onResult, Consumer<Throwable> onError) {
+        CompletableFuture<T> future = supplyAsync(query);
+        future.whenComplete((value, error) -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            Platform.runLater(() -> {
+                if (error != null) {
+                    onError.accept(unwrap(error));
+                } else {
+                    onResult.accept(value);
+                }
+            });
+        });
+        return future;
+    }
+
+    /**
+     * The unwrap function returns the exception thrown by the database call itself.
+     *
+     * @param error exception a future completed with
+     * @return the underlying exception
+     */
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * The isCancellation function checks whether a future failed only because it was cancelled.
+     *
+     * @param error exception a future completed with
+     * @return true if the future was cancelled
+     */
+    public static boolean isCancellation(Throwable error) {
+        return unwrap(error) instanceof CancellationException;
+    }
+}
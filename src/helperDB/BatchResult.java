@@ -0,0 +1,133 @@
+package helperDB;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The batch result class holds the outcome of a bulk insert or update, row by row.
+ * Rows are referred to by their position in the list that was written.
+ */
+public class BatchResult {
+    /**
+     * Id of each written row, or -1 for rows that failed.
+     */
+    private final int[] keys;
+    /**
+     * Whether each row was written.
+     */
+    private final boolean[] written;
+    /**
+     * Errors of the rows that failed, in row order.
+     */
+    private final List<RowError> errors = new ArrayList<>();
+    /**
+     * Number of rows written.
+     */
+    private int writtenCount;
+
+    /**
+     * Constructor for the BatchResult class.
+     *
+     * @param rowCount number of rows to be written
+     */
+    BatchResult(int rowCount) {
+        this.keys = new int[rowCount];
+        this.written = new boolean[rowCount];
+        Arrays.fill(keys, -1);
+    }
+
+    /**
+     * The written function records a row that was committed.
+     *
+     * @param index position of the row
+     * @param key id of the row
+     */
+    void written(int index, int key) {
+        keys[index] = key;
+        written[index] = true;
+        writtenCount++;
+    }
+
+    /**
+     * The failed function records a row that could not be written.
+     *
+     * @param index position of the row
+     * @param error the error the database returned for the row
+     */
+    void failed(int index, SQLException error) {
+        errors.add(new RowError(index, error));
+    }
+
+    /**
+     * The getKey function returns the id of a written row. For inserts this is the id the database gave it.
+     *
+     * @param index position of the row
+     * @return id of the row, or -1 if it was not written
+     */
+    public int getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * The isWritten function returns whether a row was committed.
+     *
+     * @param index position of the row
+     * @return true if the row was written
+     */
+    public boolean isWritten(int index) {
+        return written[index];
+    }
+
+    public int getWrittenCount() {
+        return writtenCount;
+    }
+
+    public int getFailedCount() {
+        return errors.size();
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * The row error class holds a row that could not be written and why.
+     */
+    public static class RowError {
+        /**
+         * Position of the row.
+         */
+        private final int index;
+        /**
+         * The error the database returned for the row.
+         */
+        private final SQLException error;
+
+        /**
+         * Constructor for the RowError class.
+         *
+         * @param index position of the row
+         * @param error the error the database returned for the row
+         */
+        RowError(int index, SQLException error) {
+            this.index = index;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public SQLException getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return "Row " + index + ": " + error.getMessage();
+        }
+    }
+}
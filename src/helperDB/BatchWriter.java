@@ -0,0 +1,170 @@
+package helperDB;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * The batch writer class runs one insert or update statement for many rows using JDBC batching.
+ * The rows are sent in chunks, each chunk in its own transaction, all on one borrowed connection.
+ * If a chunk fails, it is rolled back and written again row by row, so the rows that are fine are still committed
+ * and each failing row is reported with its own error. A lost connection stops the write and fails the remaining rows.
+ * The chunk size is set with the system property schedule.batchSize (default 500).
+ */
+abstract class BatchWriter {
+    /**
+     * System property setting the number of rows per chunk.
+     */
+    static final String chunkSizeProperty = "schedule.batchSize";
+
+    /**
+     * Sets the parameters of the statement for one row.
+     *
+     * @param <T> type of the rows
+     */
+    interface RowBinder<T> {
+        void bind(PreparedStatement preparedCommand, T row) throws SQLException;
+    }
+
+    /**
+     * Told about each row once its chunk was committed.
+     *
+     * @param <T> type of the rows
+     */
+    interface RowCommitted<T> {
+        void committed(T row, int key);
+    }
+
+    /**
+     * The defaultChunkSize function returns the chunk size set with schedule.batchSize.
+     *
+     * @return number of rows per chunk
+     */
+    static int defaultChunkSize() {
+        return Integer.getInteger(chunkSizeProperty, 500);
+    }
+
+    /**
+     * The write function writes all rows and returns the outcome of each one.
+     *
+     * @param sqlCommand insert or update statement
+     * @param rows rows to write
+     * @param chunkSize number of rows per chunk and transaction
+     * @param generatedKeys true to read the generated id of each inserted row
+     * @param keyOf function returning the id of a row, used for updates
+     * @param binder sets the statement parameters for a row
+     * @param committed told about each committed row
+     * @param <T> type of the rows
+     * @return outcome of each row
+     * @throws SQLException exception in case no connection can be borrowed
+     */
+    static <T> BatchResult write(String sqlCommand, List<T> rows, int chunkSize, boolean generatedKeys, ToIntFunction<T> keyOf,
+                                 RowBinder<T> binder, RowCommitted<T> committed) throws SQLException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        BatchResult result = new BatchResult(rows.size());
+        if (rows.isEmpty()) {
+            return result;
+        }
+
+        int keysFlag = generatedKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand, keysFlag)) {
+            connection.setAutoCommit(false);
+            int from = 0;
+            try {
+                for (; from < rows.size(); from += chunkSize) {
+                    int to = Math.min(from + chunkSize, rows.size());
+                    List<int[]> written = writeChunk(connection, preparedCommand, rows, from, to, generatedKeys, keyOf, binder, result);
+                    for (int[] row : written) {
+                        result.written(row[0], row[1]);
+                        committed.committed(rows.get(row[0]), row[1]);
+                    }
+                }
+            } catch (SQLException e) {
+                // Connection lost, so the current chunk and everything after it was not written
+                for (int i = from; i < rows.size(); i++) {
+                    result.failed(i, e);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The writeChunk function writes rows from (inclusive) to to (exclusive) in one transaction.
+     * Row errors are added to the result once the chunk is committed; only connection errors are thrown.
+     *
+     * @return position and id of each committed row
+     */
+    private static <T> List<int[]> writeChunk(Connection connection, PreparedStatement preparedCommand, List<T> rows, int from, int to, boolean generatedKeys,
+                                              ToIntFunction<T> keyOf, RowBinder<T> binder, BatchResult result) throws SQLException {
+        List<int[]> written = new ArrayList<>();
+        try {
+            for (int i = from; i < to; i++) {
+                binder.bind(preparedCommand, rows.get(i));
+                preparedCommand.addBatch();
+            }
+            int[] counts = preparedCommand.executeBatch();
+            ResultSet keys = generatedKeys ? preparedCommand.getGeneratedKeys() : null;
+            for (int i = from; i < to; i++) {
+                if (counts[i - from] == 0) {
+                    throw new SQLException("Row " + i + " matched no row in the database");
+                }
+                int key = keys != null && keys.next() ? keys.getInt(1) : keyOf.applyAsInt(rows.get(i));
+                written.add(new int[] {i, key});
+            }
+            connection.commit();
+            return written;
+        } catch (SQLException e) {
+            if (isConnectionError(e)) {
+                throw e;
+            }
+            connection.rollback();
+            preparedCommand.clearBatch();
+        }
+
+        // Writing the chunk again one row at a time, to find out which rows fail
+        written.clear();
+        List<BatchResult.RowError> failed = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            try {
+                binder.bind(preparedCommand, rows.get(i));
+                if (preparedCommand.executeUpdate() == 0) {
+                    failed.add(new BatchResult.RowError(i, new SQLException("Row " + i + " matched no row in the database")));
+                    continue;
+                }
+                int key = keyOf.applyAsInt(rows.get(i));
+                if (generatedKeys) {
+                    ResultSet keys = preparedCommand.getGeneratedKeys();
+                    key = keys.next() ? keys.getInt(1) : key;
+                }
+                written.add(new int[] {i, key});
+            } catch (SQLException e) {
+                if (isConnectionError(e)) {
+                    connection.rollback();
+                    throw e;
+                }
+                failed.add(new BatchResult.RowError(i, e));
+            }
+        }
+        connection.commit();
+        for (BatchResult.RowError rowError : failed) {
+            result.failed(rowError.getIndex(), rowError.getError());
+        }
+        return written;
+    }
+
+    /**
+     * The isConnectionError function returns whether an error means the connection itself is unusable.
+     */
+    private static boolean isConnectionError(SQLException e) {
+        return e.getSQLState() != null && e.getSQLState().startsWith("08");
+    }
+}
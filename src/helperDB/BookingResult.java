@@ -0,0 +1,62 @@
+package helperDB;
+
+import model.Appointment;
+
+import java.util.List;
+
+/**
+ * The booking result class holds the outcome of an add or update that is only written when it does not overlap
+ * another appointment of the customer.
+ */
+public class BookingResult {
+    /**
+     * Id of the written appointment, or -1 if nothing was written.
+     */
+    private final int appId;
+    /**
+     * Overlapping appointments that stopped the write, empty if it was written.
+     */
+    private final List<Appointment> conflicts;
+
+    private BookingResult(int appId, List<Appointment> conflicts) {
+        this.appId = appId;
+        this.conflicts = conflicts;
+    }
+
+    /**
+     * The booked function returns the result of an appointment that was checked and written.
+     *
+     * @param appId id of the appointment, or -1 if the database did not write it
+     * @return booking result without conflicts
+     */
+    public static BookingResult booked(int appId) {
+        return new BookingResult(appId, List.of());
+    }
+
+    /**
+     * The conflict function returns the result of an appointment that was not written because it overlaps.
+     *
+     * @param conflicts the overlapping appointments
+     * @return booking result with the conflicts
+     */
+    public static BookingResult conflict(List<Appointment> conflicts) {
+        return new BookingResult(-1, conflicts);
+    }
+
+    public int getAppId() {
+        return appId;
+    }
+
+    public List<Appointment> getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * The isBooked function returns whether the appointment was written.
+     *
+     * @return true if there were no conflicts and the database wrote the appointment
+     */
+    public boolean isBooked() {
+        return conflicts.isEmpty() && appId > 0;
+    }
+}
@@ -0,0 +1,43 @@
+package helperDB;
+
+/**
+ * The cascade delete result class holds how many rows a cascading customer delete removed.
+ */
+public class CascadeDeleteResult {
+    /**
+     * Number of appointments removed.
+     */
+    private final int appointmentsDeleted;
+    /**
+     * Number of customers removed.
+     */
+    private final int customersDeleted;
+
+    /**
+     * Constructor for the CascadeDeleteResult class.
+     *
+     * @param appointmentsDeleted number of appointments removed
+     * @param customersDeleted number of customers removed
+     */
+    public CascadeDeleteResult(int appointmentsDeleted, int customersDeleted) {
+        this.appointmentsDeleted = appointmentsDeleted;
+        this.customersDeleted = customersDeleted;
+    }
+
+    public int getAppointmentsDeleted() {
+        return appointmentsDeleted;
+    }
+
+    public int getCustomersDeleted() {
+        return customersDeleted;
+    }
+
+    /**
+     * The getRowsDeleted function returns the total number of rows removed.
+     *
+     * @return number of appointments and customers removed
+     */
+    public int getRowsDeleted() {
+        return appointmentsDeleted + customersDeleted;
+    }
+}
@@ -0,0 +1,41 @@
+package helperDB;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * The change set class holds rows read from the database together with the watermark they were read at.
+ * The watermark is the latest Last_Update value known when the rows were read, so a later query for rows updated
+ * at or after it returns everything that changed since.
+ *
+ * @param <T> type of the rows
+ */
+public class ChangeSet<T> {
+    /**
+     * Rows read.
+     */
+    private final List<T> rows;
+    /**
+     * Latest Last_Update value covered by the rows.
+     */
+    private final Timestamp watermark;
+
+    /**
+     * Constructor for the ChangeSet class.
+     *
+     * @param rows rows read
+     * @param watermark latest Last_Update value covered by the rows
+     */
+    public ChangeSet(List<T> rows, Timestamp watermark) {
+        this.rows = rows;
+        this.watermark = watermark;
+    }
+
+    public List<T> getRows() {
+        return rows;
+    }
+
+    public Timestamp getWatermark() {
+        return watermark;
+    }
+}
@@ -0,0 +1,443 @@
+package helperDB;
+
+import helperMetrics.QueryMetrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The connection pool class keeps a bounded set of database connections that the query classes borrow and return.
+ * Connections are validated when borrowed, idle connections above the minimum size are evicted, connections held
+ * for too long are reported as leaks, and broken connections are replaced by new ones.
+ * Each connection keeps its own statement cache, so prepared statements are reused across borrows, and the prepared
+ * statements it hands out report their runs to QueryMetrics.
+ */
+public class ConnectionPool {
+    /**
+     * Database url attribute.
+     */
+    private final String jdbcUrl;
+    /**
+     * Database username attribute.
+     */
+    private final String userName;
+    /**
+     * Database password attribute.
+     */
+    private final String password;
+    /**
+     * Number of connections kept open even when idle.
+     */
+    private final int minSize;
+    /**
+     * Maximum number of connections open at the same time.
+     */
+    private final int maxSize;
+    /**
+     * How long a borrower waits for a free connection before giving up, in milliseconds.
+     */
+    private final long borrowTimeoutMillis;
+    /**
+     * How long a connection above the minimum size may stay idle before it is closed, in milliseconds.
+     */
+    private final long idleTimeoutMillis;
+    /**
+     * How long a connection may stay borrowed before it is reported as leaked, in milliseconds.
+     */
+    private final long leakThresholdMillis;
+    /**
+     * Number of prepared statements cached per connection.
+     */
+    private final int statementCacheSize;
+    /**
+     * Connections that were returned within this many milliseconds are not validated again on borrow.
+     */
+    private static final long recentlyUsedMillis = 500;
+    /**
+     * Idle connections, most recently returned first.
+     */
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    /**
+     * Connections currently lent out.
+     */
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    /**
+     * One permit per connection that may still be lent out, so at most maxSize are borrowed at once.
+     */
+    private final Semaphore permits;
+    /**
+     * Background thread for eviction, leak detection and keeping the minimum size.
+     */
+    private final ScheduledExecutorService housekeeper;
+    /**
+     * Set once the pool has been shut down.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor for the ConnectionPool class. Opens the minimum number of connections straight away.
+     *
+     * @param jdbcUrl database url
+     * @param userName database username
+     * @param password database password
+     * @param minSize number of connections kept open even when idle
+     * @param maxSize maximum number of connections open at the same time
+     * @param borrowTimeoutMillis how long a borrower waits for a free connection
+     * @param idleTimeoutMillis how long a connection above the minimum size may stay idle
+     * @param leakThresholdMillis how long a connection may stay borrowed before it is reported as leaked
+     * @param statementCacheSize number of prepared statements cached per connection
+     */
+    public ConnectionPool(String jdbcUrl, String userName, String password, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long leakThresholdMillis, int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min " + minSize + ", max " + maxSize);
+        }
+        this.jdbcUrl = jdbcUrl;
+        this.userName = userName;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        fillToMinimum();
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeeping, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The borrow function hands out a connection from the pool, opening a new one if none are idle.
+     * Idle connections are validated first and replaced if the database no longer answers on them.
+     * Closing the returned connection gives it back to the pool.
+     *
+     * @return a pooled connection
+     * @throws SQLException exception in case no connection is available or a new one cannot be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed", "08003");
+        }
+
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection", "08001");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", "08001", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isUsable(pooled)) {
+                    break;
+                }
+                pooled.closePhysical();
+            }
+            if (pooled == null) {
+                pooled = open();
+            }
+
+            pooled.lend();
+            borrowed.add(pooled);
+            return pooled.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * The giveBack function returns a borrowed connection to the pool.
+     * Broken connections and connections returned after the pool was closed are closed instead.
+     *
+     * @param pooled the connection being returned
+     */
+    private void giveBack(PooledConnection pooled) {
+        if (!borrowed.remove(pooled)) {
+            return;
+        }
+
+        try {
+            if (!pooled.broken && !closed) {
+                // Leaving the connection the way the next borrower expects it
+                if (!pooled.physical.getAutoCommit()) {
+                    pooled.physical.rollback();
+                    pooled.physical.setAutoCommit(true);
+                }
+                pooled.physical.clearWarnings();
+            }
+        } catch (SQLException e) {
+            pooled.broken = true;
+        }
+
+        if (pooled.broken || closed) {
+            pooled.closePhysical();
+        } else {
+            pooled.lastReturned = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        }
+        permits.release();
+    }
+
+    /**
+     * The isUsable function checks an idle connection before it is handed out.
+     *
+     * @param pooled the idle connection
+     * @return true if the connection can be lent out
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastReturned < recentlyUsedMillis) {
+            return true; // Just used successfully, skipping the extra round trip
+        }
+        try {
+            return pooled.physical.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The open function opens a new physical connection.
+     *
+     * @return the new connection wrapped for the pool
+     * @throws SQLException exception in case the database cannot be reached
+     */
+    private PooledConnection open() throws SQLException {
+        return new PooledConnection(DriverManager.getConnection(jdbcUrl, userName, password));
+    }
+
+    /**
+     * The fillToMinimum function opens connections until the minimum number is idle or borrowed.
+     * This is also how the pool reconnects after the database was unreachable.
+     */
+    private void fillToMinimum() {
+        while (!closed && idle.size() + borrowed.size() < minSize) {
+            try {
+                PooledConnection pooled = open();
+                pooled.lastReturned = System.currentTimeMillis();
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                System.out.println("Error:" + e.getMessage());
+                break;
+            }
+        }
+    }
+
+    /**
+     * The housekeeping function runs in the background. It closes connections that have been idle for too long,
+     * reports connections that have been borrowed for too long and reopens connections up to the minimum size.
+     */
+    private void housekeeping() {
+        long now = System.currentTimeMillis();
+
+        // Evicting idle connections above the minimum, oldest first
+        PooledConnection oldest;
+        while (idle.size() + borrowed.size() > minSize && (oldest = idle.peekLast()) != null
+                && now - oldest.lastReturned > idleTimeoutMillis) {
+            if (idle.removeLastOccurrence(oldest)) {
+                oldest.closePhysical();
+            }
+        }
+
+        // Reporting each leaked connection once, with the place it was borrowed from
+        for (PooledConnection pooled : borrowed) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                pooled.leakReported = true;
+                System.out.println("Possible connection leak: connection borrowed " + (now - pooled.borrowedAt) + " ms ago by");
+                pooled.borrowedBy.printStackTrace(System.out);
+            }
+        }
+
+        fillToMinimum();
+    }
+
+    /**
+     * The close function shuts the pool down. Idle connections are closed now and borrowed connections
+     * are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    /**
+     * The getIdleCount function returns the number of idle connections.
+     *
+     * @return number of idle connections
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * The getBorrowedCount function returns the number of connections currently lent out.
+     *
+     * @return number of borrowed connections
+     */
+    public int getBorrowedCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * The getMaxSize function returns the maximum number of connections of the pool.
+     *
+     * @return maximum pool size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * A physical connection owned by the pool. Borrowers only ever see its proxy, whose close method returns the
+     * connection to the pool instead of closing it.
+     */
+    private class PooledConnection implements InvocationHandler {
+        /**
+         * The real database connection.
+         */
+        private final Connection physical;
+        /**
+         * The connection handed out to borrowers.
+         */
+        private final Connection proxy;
+        /**
+         * Prepared statements of this connection, keyed by SQL text.
+         */
+        private final StatementCache statementCache;
+        /**
+         * Time the connection was last returned.
+         */
+        private volatile long lastReturned;
+        /**
+         * Time the connection was last borrowed.
+         */
+        private volatile long borrowedAt;
+        /**
+         * Where the connection was last borrowed from, for leak reports.
+         */
+        private volatile Throwable borrowedBy;
+        /**
+         * Whether the current loan has already been reported as a leak.
+         */
+        private volatile boolean leakReported;
+        /**
+         * Whether the connection is currently lent out.
+         */
+        private volatile boolean lent;
+        /**
+         * Set when the database reported a connection failure, so the connection is replaced instead of reused.
+         */
+        private volatile boolean broken;
+
+        /**
+         * Constructor for the PooledConnection class.
+         *
+         * @param physical the real database connection
+         */
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statementCache = new StatementCache(physical, statementCacheSize);
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, this);
+        }
+
+        /**
+         * The lend function records a new loan of the connection.
+         */
+        private void lend() {
+            borrowedAt = System.currentTimeMillis();
+            borrowedBy = new Throwable("Connection borrowed here");
+            leakReported = false;
+            lent = true;
+        }
+
+        /**
+         * The closePhysical function closes the real database connection, ignoring errors.
+         */
+        private void closePhysical() {
+            try {
+                statementCache.closeAll();
+                physical.close();
+            } catch (SQLException e) {
+                //
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (lent) {
+                        lent = false;
+                        giveBack(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return !lent || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled " + physical;
+                default:
+                    break;
+            }
+
+            if (!lent) {
+                throw new SQLException("Connection has already been returned to the pool", "08003");
+            }
+
+            try {
+                if (method.getName().equals("prepareStatement")) {
+                    Class<?>[] types = method.getParameterTypes();
+                    PreparedStatement prepared = null;
+                    if (types.length == 1) {
+                        prepared = statementCache.prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+                    } else if (types.length == 2 && types[1] == int.class) {
+                        prepared = statementCache.prepare((String) args[0], (Integer) args[1]);
+                    }
+                    if (prepared != null) {
+                        return QueryMetrics.isEnabled() ? TimedStatement.wrap(prepared, (String) args[0]) : prepared;
+                    }
+                }
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                // SQL state class 08 means the connection itself failed
+                if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null && sqlException.getSQLState().startsWith("08")) {
+                    broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+}
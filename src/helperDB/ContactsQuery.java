@@ -4,6 +4,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.Contact;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -21,20 +22,22 @@ public abstract class ContactsQuery {
      */
     public static ObservableList<Contact> selectContacts() throws SQLException {
         String sqlCommand = "SELECT * FROM CONTACTS";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        ResultSet resultSet = preparedCommand.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            ResultSet resultSet = preparedCommand.executeQuery();
 
-        ObservableList<Contact> currentContacts = FXCollections.observableArrayList();
+            ObservableList<Contact> currentContacts = FXCollections.observableArrayList();
 
-        while (resultSet.next()) {
-            int contactId = resultSet.getInt("Contact_ID");
-            String name = resultSet.getString("Contact_Name");
-            String email = resultSet.getString("Email");
+            while (resultSet.next()) {
+                int contactId = resultSet.getInt("Contact_ID");
+                String name = resultSet.getString("Contact_Name");
+                String email = resultSet.getString("Email");
 
-            Contact currentContact = new Contact(contactId, name, email);
-            currentContacts.add(currentContact);
+                Contact currentContact = new Contact(contactId, name, email);
+                currentContacts.add(currentContact);
+            }
+            return currentContacts;
         }
-        return currentContacts;
     }
 
     /**
@@ -47,16 +50,18 @@ public abstract class ContactsQuery {
     public static Contact selectContact(int contactId) throws SQLException {
 
         String sqlCommand = "SELECT * FROM CONTACTS WHERE Contact_ID = ?";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        preparedCommand.setInt(1, contactId);
-        ResultSet resultSet = preparedCommand.executeQuery();
-
-        while (resultSet.next()) {
-            String name = resultSet.getString("Contact_Name");
-            String email = resultSet.getString("Email");
-            Contact currentContact = new Contact(contactId, name, email);
-            return currentContact;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setInt(1, contactId);
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            while (resultSet.next()) {
+                String name = resultSet.getString("Contact_Name");
+                String email = resultSet.getString("Email");
+                Contact currentContact = new Contact(contactId, name, email);
+                return currentContact;
+            }
+            return null;
         }
-        return null;
     }
 }
@@ -4,6 +4,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.Country;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -21,19 +22,21 @@ public abstract class CountriesQuery {
      */
     public static ObservableList<Country> selectCountries() throws SQLException {
         String sqlCommand = "SELECT * FROM COUNTRIES";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        ResultSet resultSet = preparedCommand.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            ResultSet resultSet = preparedCommand.executeQuery();
 
-        ObservableList<Country> currentCountries = FXCollections.observableArrayList();
+            ObservableList<Country> currentCountries = FXCollections.observableArrayList();
 
-        while (resultSet.next()) {
-            int countryId = resultSet.getInt("Country_ID");
-            String country = resultSet.getString("Country");
+            while (resultSet.next()) {
+                int countryId = resultSet.getInt("Country_ID");
+                String country = resultSet.getString("Country");
 
-            Country currentCountry = new Country(countryId, country);
-            currentCountries.add(currentCountry);
+                Country currentCountry = new Country(countryId, country);
+                currentCountries.add(currentCountry);
+            }
+            return currentCountries;
         }
-        return currentCountries;
     }
 
     /**
@@ -46,14 +49,16 @@ public abstract class CountriesQuery {
     public static Country selectCountry(int countryId) throws SQLException {
 
         String sqlCommand = "SELECT * FROM COUNTRIES WHERE Country_ID = ?";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        preparedCommand.setInt(1, countryId);
-        ResultSet resultSet = preparedCommand.executeQuery();
-        while (resultSet.next()) {
-            String country = resultSet.getString("Country");
-            Country currentCountry = new Country(countryId, country);
-            return currentCountry;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setInt(1, countryId);
+            ResultSet resultSet = preparedCommand.executeQuery();
+            while (resultSet.next()) {
+                String country = resultSet.getString("Country");
+                Country currentCountry = new Country(countryId, country);
+                return currentCountry;
+            }
+            return null;
         }
-        return null;
     }
 }
@@ -0,0 +1,33 @@
+package helperDB;
+
+/**
+ * The customer metric enum lists the totals customers can be ranked by in the customers of the month report,
+ * with the SQL aggregate that computes each total over a customer's appointments.
+ */
+public enum CustomerMetric {
+    /**
+     * Total appointment length in minutes.
+     */
+    MINUTES("SUM(TIMESTAMPDIFF(MINUTE, Start, End))"),
+    /**
+     * Number of appointments.
+     */
+    APPOINTMENTS("COUNT(*)"),
+    /**
+     * Number of different appointment types.
+     */
+    TYPES("COUNT(DISTINCT Type)");
+
+    /**
+     * SQL aggregate over the APPOINTMENTS rows of one customer.
+     */
+    private final String aggregate;
+
+    CustomerMetric(String aggregate) {
+        this.aggregate = aggregate;
+    }
+
+    public String getAggregate() {
+        return aggregate;
+    }
+}
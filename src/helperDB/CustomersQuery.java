@@ -3,10 +3,16 @@ package helperDB;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.Customer;
+import model.CustomerRow;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The customer query class contains all helper functions for accessing the SQL database for customers.
@@ -25,16 +31,37 @@ public abstract class CustomersQuery {
      * @throws SQLException exception in case sql commands return an error
      */
     public static int insertCustomer(String name, String address, String postalCode, String phone, int divisionId) throws SQLException {
-        String sqlCommand = "INSERT INTO CUSTOMERS (Customer_Name, Address, Postal_Code, Phone, Division_ID) VALUES(?, ?, ?, ?, ?)";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        preparedCommand.setString(1, name);
-        preparedCommand.setString(2, address);
-        preparedCommand.setString(3, postalCode);
-        preparedCommand.setString(4, phone);
-        preparedCommand.setInt(5, divisionId);
+        return insertCustomerReturningId(name, address, postalCode, phone, divisionId) > 0 ? 1 : 0;
+    }
 
-        int numChanged = preparedCommand.executeUpdate();
-        return numChanged;
+    /**
+     * The insertCustomerReturningId function adds a customer to the customer table and returns the id the database gave it,
+     * so callers can show the new customer without reading the table again.
+     *
+     * @param name name of customer to be inserted
+     * @param address address of customer to be inserted
+     * @param postalCode postal code of customer to be inserted
+     * @param phone phone number of customer to be inserted
+     * @param divisionId division id associated with the customer to be inserted
+     * @return generated customer id, or -1 if nothing was inserted
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static int insertCustomerReturningId(String name, String address, String postalCode, String phone, int divisionId) throws SQLException {
+        String sqlCommand = "INSERT INTO CUSTOMERS (Customer_Name, Address, Postal_Code, Phone, Division_ID, Last_Update) VALUES(?, ?, ?, ?, ?, NOW())";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand, Statement.RETURN_GENERATED_KEYS)) {
+            preparedCommand.setString(1, name);
+            preparedCommand.setString(2, address);
+            preparedCommand.setString(3, postalCode);
+            preparedCommand.setString(4, phone);
+            preparedCommand.setInt(5, divisionId);
+
+            if (preparedCommand.executeUpdate() == 0) {
+                return -1;
+            }
+            ResultSet generatedKeys = preparedCommand.getGeneratedKeys();
+            return generatedKeys.next() ? generatedKeys.getInt(1) : -1;
+        }
     }
 
     /**
@@ -50,17 +77,89 @@ public abstract class CustomersQuery {
      * @throws SQLException exception in case sql commands return an error
      */
     public static int updateCustomer(int customerId, String name, String address, String postalCode, String phone, int divisionId) throws SQLException {
-        String sqlCommand = "UPDATE CUSTOMERS SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?, Division_ID = ? WHERE Customer_ID = ?";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        preparedCommand.setString(1, name);
-        preparedCommand.setString(2, address);
-        preparedCommand.setString(3, postalCode);
-        preparedCommand.setString(4, phone);
-        preparedCommand.setInt(5, divisionId);
-        preparedCommand.setInt(6, customerId);
+        String sqlCommand = "UPDATE CUSTOMERS SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?, Division_ID = ?, Last_Update = NOW() WHERE Customer_ID = ?";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setString(1, name);
+            preparedCommand.setString(2, address);
+            preparedCommand.setString(3, postalCode);
+            preparedCommand.setString(4, phone);
+            preparedCommand.setInt(5, divisionId);
+            preparedCommand.setInt(6, customerId);
+
+            int numChanged = preparedCommand.executeUpdate();
+            return numChanged;
+        }
+    }
+
+    /**
+     * The insertCustomers function adds many customers with JDBC batching, in chunks of schedule.batchSize rows (default 500).
+     * The customer ids of the given objects are ignored.
+     *
+     * @param customers customers to be inserted
+     * @return the id the database gave each customer, and the error of each customer that could not be inserted
+     * @throws SQLException exception in case no connection can be borrowed
+     */
+    public static BatchResult insertCustomers(List<Customer> customers) throws SQLException {
+        return insertCustomers(customers, BatchWriter.defaultChunkSize());
+    }
+
+    /**
+     * The insertCustomers function adds many customers with JDBC batching. Each chunk is one round trip and one transaction;
+     * if a chunk fails, its customers are inserted one at a time so only the failing ones are left out.
+     *
+     * @param customers customers to be inserted
+     * @param chunkSize number of customers per chunk
+     * @return the id the database gave each customer, and the error of each customer that could not be inserted
+     * @throws SQLException exception in case no connection can be borrowed
+     */
+    public static BatchResult insertCustomers(List<Customer> customers, int chunkSize) throws SQLException {
+        String sqlCommand = "INSERT INTO CUSTOMERS (Customer_Name, Address, Postal_Code, Phone, Division_ID, Last_Update) VALUES(?, ?, ?, ?, ?, NOW())";
+        return BatchWriter.write(sqlCommand, customers, chunkSize, true, Customer::getId, CustomersQuery::bindCustomer, (customer, customerId) -> {});
+    }
 
-        int numChanged = preparedCommand.executeUpdate();
-        return numChanged;
+    /**
+     * The updateCustomers function updates many customers, found by their ids, with JDBC batching in chunks of
+     * schedule.batchSize rows (default 500).
+     *
+     * @param customers customers to be updated
+     * @return the error of each customer that could not be updated
+     * @throws SQLException exception in case no connection can be borrowed
+     */
+    public static BatchResult updateCustomers(List<Customer> customers) throws SQLException {
+        return updateCustomers(customers, BatchWriter.defaultChunkSize());
+    }
+
+    /**
+     * The updateCustomers function updates many customers, found by their ids, with JDBC batching.
+     * A customer whose id is not in the database is reported as an error.
+     *
+     * @param customers customers to be updated
+     * @param chunkSize number of customers per chunk
+     * @return the error of each customer that could not be updated
+     * @throws SQLException exception in case no connection can be borrowed
+     */
+    public static BatchResult updateCustomers(List<Customer> customers, int chunkSize) throws SQLException {
+        String sqlCommand = "UPDATE CUSTOMERS SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?, Division_ID = ?, Last_Update = NOW() WHERE Customer_ID = ?";
+        return BatchWriter.write(sqlCommand, customers, chunkSize, false, Customer::getId, (preparedCommand, customer) -> {
+            bindCustomer(preparedCommand, customer);
+            preparedCommand.setInt(6, customer.getId());
+        }, (customer, customerId) -> {});
+    }
+
+    /**
+     * The bindCustomer function sets the first five parameters of an insert or update to the values of a customer.
+     *
+     * @param preparedCommand insert or update statement
+     * @param customer customer to take the values from
+     * @throws SQLException exception in case sql commands return an error
+     */
+    private static void bindCustomer(PreparedStatement preparedCommand, Customer customer) throws SQLException {
+        preparedCommand.setString(1, customer.getName());
+        preparedCommand.setString(2, customer.getAddress());
+        preparedCommand.setString(3, customer.getPostalCode());
+        preparedCommand.setString(4, customer.getPhone());
+        preparedCommand.setInt(5, customer.getDivisionId());
     }
 
     /**
@@ -72,11 +171,88 @@ public abstract class CustomersQuery {
      */
     public static int deleteCustomer(int customerId) throws SQLException {
         String sqlCommand = "DELETE FROM CUSTOMERS WHERE Customer_ID = ?";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        preparedCommand.setInt(1, customerId);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setInt(1, customerId);
+
+            int numChanged = preparedCommand.executeUpdate();
+            return numChanged;
+        }
+    }
 
-        int numChanged = preparedCommand.executeUpdate();
-        return numChanged;
+    /**
+     * The deleteCustomerCascade function deletes the customer with the inputted id together with all of its appointments.
+     * The appointments are removed with one statement and both deletes run in the same transaction,
+     * so either everything is deleted or nothing is.
+     *
+     * @param customerId inputted customer id
+     * @return how many appointments and customers were deleted
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static CascadeDeleteResult deleteCustomerCascade(int customerId) throws SQLException {
+        return deleteCustomersCascade(List.of(customerId));
+    }
+
+    /**
+     * The deleteCustomersCascade function deletes all customers with the inputted ids together with all of their appointments.
+     * Each delete is sent as one batch and everything runs in a single transaction. The deleted appointments are
+     * recorded in DELETED_APPOINTMENTS first, so other clients find them with AppointmentsQuery.selectAppIdsDeletedSince.
+     *
+     * @param customerIds inputted customer ids
+     * @return how many appointments and customers were deleted
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static CascadeDeleteResult deleteCustomersCascade(List<Integer> customerIds) throws SQLException {
+        if (customerIds.isEmpty()) {
+            return new CascadeDeleteResult(0, 0);
+        }
+
+        String recordCommand = "INSERT INTO DELETED_APPOINTMENTS (Appointment_ID, Last_Update) SELECT Appointment_ID, NOW() FROM APPOINTMENTS WHERE Customer_ID = ?";
+        String appointmentsCommand = "DELETE FROM APPOINTMENTS WHERE Customer_ID = ?";
+        String customersCommand = "DELETE FROM CUSTOMERS WHERE Customer_ID = ?";
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement recordDeletes = connection.prepareStatement(recordCommand);
+                 PreparedStatement deleteAppointments = connection.prepareStatement(appointmentsCommand);
+                 PreparedStatement deleteCustomers = connection.prepareStatement(customersCommand)) {
+                for (int customerId : customerIds) {
+                    recordDeletes.setInt(1, customerId);
+                    recordDeletes.addBatch();
+                    deleteAppointments.setInt(1, customerId);
+                    deleteAppointments.addBatch();
+                    deleteCustomers.setInt(1, customerId);
+                    deleteCustomers.addBatch();
+                }
+
+                // Appointments first, since they reference the customers
+                recordDeletes.executeBatch();
+                int appointmentsDeleted = sumCounts(deleteAppointments.executeBatch());
+                int customersDeleted = sumCounts(deleteCustomers.executeBatch());
+                connection.commit();
+
+                AppointmentsQuery.fireCustomerAppointmentsDeleted(customerIds);
+                return new CascadeDeleteResult(appointmentsDeleted, customersDeleted);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * The sumCounts function adds up the update counts of a batch. Rows the driver did not count are left out.
+     *
+     * @param counts update counts returned by executeBatch
+     * @return total number of rows changed
+     */
+    static int sumCounts(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                total += count;
+            }
+        }
+        return total;
     }
 
     /**
@@ -87,23 +263,118 @@ public abstract class CustomersQuery {
      */
     public static ObservableList<Customer> selectCustomers() throws SQLException {
         String sqlCommand = "SELECT * FROM CUSTOMERS";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        ResultSet resultSet = preparedCommand.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            ObservableList<Customer> currentCustomers = FXCollections.observableArrayList();
+
+            while (resultSet.next()) {
+                int customerId = resultSet.getInt("Customer_ID");
+                String name = resultSet.getString("Customer_Name");
+                String postalCode = resultSet.getString("Postal_Code");
+                String address = resultSet.getString("Address");
+                String phone = resultSet.getString("Phone");
+                int divisionId = resultSet.getInt("Division_ID");
+
+                Customer currentCustomer = new Customer(customerId, name, address, postalCode, phone, divisionId);
+                currentCustomers.add(currentCustomer);
+            }
+            return currentCustomers;
+        }
+    }
 
-        ObservableList<Customer> currentCustomers = FXCollections.observableArrayList();
+    /**
+     * The selectCustomerRows function returns all customers together with their division and country,
+     * read in one JOIN query.
+     *
+     * @return observable list of customer rows
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<CustomerRow> selectCustomerRows() throws SQLException {
+        String sqlCommand = "SELECT cu.*, d.Division, d.Country_ID, co.Country FROM CUSTOMERS cu " +
+                "JOIN FIRST_LEVEL_DIVISIONS d ON cu.Division_ID = d.Division_ID " +
+                "JOIN COUNTRIES co ON d.Country_ID = co.Country_ID";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            ResultSet resultSet = preparedCommand.executeQuery();
 
-        while (resultSet.next()) {
-            int customerId = resultSet.getInt("Customer_ID");
-            String name = resultSet.getString("Customer_Name");
-            String postalCode = resultSet.getString("Postal_Code");
-            String address = resultSet.getString("Address");
-            String phone = resultSet.getString("Phone");
-            int divisionId = resultSet.getInt("Division_ID");
+            ObservableList<CustomerRow> currentRows = FXCollections.observableArrayList();
 
-            Customer currentCustomer = new Customer(customerId, name, address, postalCode, phone, divisionId);
-            currentCustomers.add(currentCustomer);
+            while (resultSet.next()) {
+                currentRows.add(readCustomerRow(resultSet));
+            }
+            return currentRows;
         }
-        return currentCustomers;
+    }
+
+    /**
+     * The selectCustomersLastUpdate function returns the latest Last_Update value of all customers,
+     * used as the watermark of a full load. It is read before the customers themselves.
+     *
+     * @return latest Last_Update value, or the start of the epoch if there is none
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static Timestamp selectCustomersLastUpdate() throws SQLException {
+        String sqlCommand = "SELECT MAX(Last_Update) FROM CUSTOMERS";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            Timestamp lastUpdate = resultSet.next() ? resultSet.getTimestamp(1) : null;
+            return lastUpdate != null ? lastUpdate : new Timestamp(0);
+        }
+    }
+
+    /**
+     * The selectCustomerRowsChangedSince function returns the customers updated at or after the given watermark
+     * together with their division and country.
+     *
+     * @param since watermark of the previous load
+     * @return changed customer rows and the new watermark
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ChangeSet<CustomerRow> selectCustomerRowsChangedSince(Timestamp since) throws SQLException {
+        String sqlCommand = "SELECT cu.*, d.Division, d.Country_ID, co.Country FROM CUSTOMERS cu " +
+                "JOIN FIRST_LEVEL_DIVISIONS d ON cu.Division_ID = d.Division_ID " +
+                "JOIN COUNTRIES co ON d.Country_ID = co.Country_ID " +
+                "WHERE cu.Last_Update >= ? ORDER BY cu.Last_Update";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setTimestamp(1, since);
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            List<CustomerRow> changedRows = new ArrayList<>();
+            Timestamp watermark = since;
+
+            while (resultSet.next()) {
+                changedRows.add(readCustomerRow(resultSet));
+                watermark = resultSet.getTimestamp("Last_Update");
+            }
+            return new ChangeSet<>(changedRows, watermark);
+        }
+    }
+
+    /**
+     * The readCustomerRow function creates a customer row from the current row of a result set over CUSTOMERS joined
+     * with FIRST_LEVEL_DIVISIONS and COUNTRIES.
+     *
+     * @param resultSet result set positioned on a customer row
+     * @return a customer row
+     * @throws SQLException exception in case sql commands return an error
+     */
+    static CustomerRow readCustomerRow(ResultSet resultSet) throws SQLException {
+        int customerId = resultSet.getInt("Customer_ID");
+        String name = resultSet.getString("Customer_Name");
+        String address = resultSet.getString("Address");
+        String postalCode = resultSet.getString("Postal_Code");
+        String phone = resultSet.getString("Phone");
+        int divisionId = resultSet.getInt("Division_ID");
+        String division = resultSet.getString("Division");
+        int countryId = resultSet.getInt("Country_ID");
+        String country = resultSet.getString("Country");
+
+        return new CustomerRow(customerId, name, address, postalCode, phone, divisionId, division, countryId, country);
     }
 
     /**
@@ -115,20 +386,22 @@ public abstract class CustomersQuery {
      */
     public static Customer selectCustomer(int customerId) throws SQLException {
         String sqlCommand = "SELECT * FROM CUSTOMERS WHERE Customer_ID = ?";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        preparedCommand.setInt(1, customerId);
-        ResultSet resultSet = preparedCommand.executeQuery();
-
-        while (resultSet.next()) {
-            String name = resultSet.getString("Customer_Name");
-            String address = resultSet.getString("Address");
-            String postalCode = resultSet.getString("Postal_Code");
-            String phone = resultSet.getString("Phone");
-            int divisionId = resultSet.getInt("Division_ID");
-
-            Customer chosenCustomer = new Customer(customerId, name, address, postalCode, phone, divisionId);
-            return chosenCustomer;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setInt(1, customerId);
+            ResultSet resultSet = preparedCommand.executeQuery();
+
+            while (resultSet.next()) {
+                String name = resultSet.getString("Customer_Name");
+                String address = resultSet.getString("Address");
+                String postalCode = resultSet.getString("Postal_Code");
+                String phone = resultSet.getString("Phone");
+                int divisionId = resultSet.getInt("Division_ID");
+
+                Customer chosenCustomer = new Customer(customerId, name, address, postalCode, phone, divisionId);
+                return chosenCustomer;
+            }
+            return null;
         }
-        return null;
     }
 }
@@ -0,0 +1,340 @@
+package helperDB;
+
+import helperSchedule.DisjointIntervals;
+import model.Appointment;
+import model.Contact;
+import model.Customer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The data generator class fills an empty client_schedule database with synthetic data at a requested scale,
+ * so the program and its benchmarks can run without the real data.
+ * The data only depends on the arguments and the system time zone: the same seed, sizes and first day always give
+ * the same rows in the same time zone. Times are stored in local system time like the rest of the program, so the
+ * office hours are converted to it and the stored times differ between time zones.
+ * It writes the countries and divisions of the sample database, contacts, the users test and admin followed by
+ * more users, customers and appointments. Appointments follow the program's rules: they lie within the office
+ * hours, 8:00 to 22:00 America/New_York, and a customer's appointments never overlap. Most appointments are on
+ * weekdays around mid-morning and early afternoon, half an hour and an hour are the most common lengths, and
+ * a few customers book far more than the rest.
+ * It can be run with: java helperDB.DataGenerator customers appointments [seed] [first day, yyyy-MM-dd] [days]
+ */
+public abstract class DataGenerator {
+    /**
+     * System property setting the seed used when the embedded database is filled at startup.
+     */
+    public static final String seedProperty = "schedule.db.seed";
+    /**
+     * System property setting the number of customers written when the embedded database is filled at startup.
+     */
+    public static final String customersProperty = "schedule.db.customers";
+    /**
+     * System property setting the number of appointments written when the embedded database is filled at startup.
+     */
+    public static final String appointmentsProperty = "schedule.db.appointments";
+    /**
+     * Time zone of the office hours.
+     */
+    private static final ZoneId office = ZoneId.of("America/New_York");
+    /**
+     * Number of 15 minute slots in the office hours.
+     */
+    private static final int slotsPerDay = 14 * 4;
+    /**
+     * Appointment lengths in minutes, and how often each is picked out of 100.
+     */
+    private static final int[] lengths = {15, 30, 45, 60, 90, 120};
+    private static final int[] lengthWeights = {10, 35, 15, 25, 10, 5};
+    /**
+     * Number of appointments built before they are written.
+     */
+    private static final int appointmentsPerWrite = 5000;
+
+    private static final String[] countries = {"U.S", "UK", "Canada"};
+    private static final String[][] divisions = {
+            {"Alabama", "Alaska", "Arizona", "Arkansas", "California", "Colorado", "Connecticut", "Delaware", "District of Columbia",
+                    "Florida", "Georgia", "Hawaii", "Idaho", "Illinois", "Indiana", "Iowa", "Kansas", "Kentucky", "Louisiana", "Maine",
+                    "Maryland", "Massachusetts", "Michigan", "Minnesota", "Mississippi", "Missouri", "Montana", "Nebraska", "Nevada",
+                    "New Hampshire", "New Jersey", "New Mexico", "New York", "North Carolina", "North Dakota", "Ohio", "Oklahoma",
+                    "Oregon", "Pennsylvania", "Rhode Island", "South Carolina", "South Dakota", "Tennessee", "Texas", "Utah", "Vermont",
+                    "Virginia", "Washington", "West Virginia", "Wisconsin", "Wyoming"},
+            {"England", "Wales", "Scotland", "Northern Ireland"},
+            {"Alberta", "British Columbia", "Manitoba", "New Brunswick", "Newfoundland and Labrador", "Northwest Territories",
+                    "Nova Scotia", "Nunavut", "Ontario", "Prince Edward Island", "Quebec", "Saskatchewan", "Yukon"}};
+    private static final String[] firstNames = {"Anika", "Daniel", "Li", "Maria", "James", "Priya", "Omar", "Sofia", "Lucas", "Amara",
+            "Noah", "Yuki", "Elena", "Mateo", "Grace", "Hassan", "Chloe", "Ivan", "Zara", "Samuel"};
+    private static final String[] lastNames = {"Costa", "Garcia", "Lee", "Smith", "Nguyen", "Patel", "Okafor", "Rossi", "Kim", "Schmidt",
+            "Brown", "Tanaka", "Silva", "Cohen", "Martin", "Ali", "Dubois", "Novak", "Walker", "Jensen"};
+    private static final String[] streets = {"Main Street", "Oak Avenue", "Maple Drive", "Park Road", "High Street", "Cedar Lane",
+            "Elm Street", "King Street", "Lake Road", "Hill Crescent"};
+    private static final String[] types = {"Planning Session", "De-Briefing", "Follow-up", "Consultation", "Onboarding"};
+    private static final String[] titles = {"Quarterly review", "Project kickoff", "Contract renewal", "Status update", "Product demo",
+            "Budget planning", "Support call", "Training"};
+    private static final String[] descriptions = {"Review open items", "Agree on next steps", "Walk through the proposal",
+            "Answer questions", "Check progress", "Plan the next quarter"};
+    private static final String[] locations = {"Phoenix, Arizona", "White Plains, New York", "Montreal, Canada", "London, England", "Online"};
+
+    /**
+     * The seedIfEmpty function fills the database when it has no countries yet, with the sizes and seed set by the
+     * schedule.db.customers (default 100), schedule.db.appointments (default 1000) and schedule.db.seed (default 1)
+     * properties. The appointments start 90 days before today and span 180 days.
+     *
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static void seedIfEmpty() throws SQLException {
+        if (count("COUNTRIES") > 0) {
+            return;
+        }
+        generate(Integer.getInteger(customersProperty, 100), Integer.getInteger(appointmentsProperty, 1000), Long.getLong(seedProperty, 1),
+                LocalDate.now().minusDays(90), 180);
+    }
+
+    /**
+     * The generate function fills an empty database.
+     * Appointments that cannot be placed without overlapping the customer's other appointments after a number of
+     * tries are left out, so a very dense schedule can have fewer appointments than asked for.
+     *
+     * @param customers number of customers
+     * @param appointments number of appointments
+     * @param seed random seed
+     * @param from first day of the appointments
+     * @param days number of days the appointments are spread over
+     * @return number of appointments written
+     * @throws SQLException exception in case sql commands return an error or the database is not empty
+     */
+    public static int generate(int customers, int appointments, long seed, LocalDate from, int days) throws SQLException {
+        if (count("COUNTRIES") > 0 || count("USERS") > 0) {
+            throw new SQLException("The database already has data; the generator only fills an empty database");
+        }
+        Random random = new Random(seed);
+
+        // Countries and their divisions
+        int[] countryIds = insert("INSERT INTO COUNTRIES (Country, Last_Update) VALUES(?, NOW())", List.of(countries),
+                (preparedCommand, country) -> preparedCommand.setString(1, country));
+        List<Integer> divisionCountries = new ArrayList<>();
+        List<String> divisionNames = new ArrayList<>();
+        for (int i = 0; i < countries.length; i++) {
+            for (String division : divisions[i]) {
+                divisionCountries.add(i);
+                divisionNames.add(division);
+            }
+        }
+        List<Integer> divisionPositions = new ArrayList<>();
+        for (int i = 0; i < divisionNames.size(); i++) {
+            divisionPositions.add(i);
+        }
+        int[] divisionIds = insert("INSERT INTO FIRST_LEVEL_DIVISIONS (Division, Country_ID, Last_Update) VALUES(?, ?, NOW())", divisionPositions,
+                (preparedCommand, position) -> {
+                    preparedCommand.setString(1, divisionNames.get(position));
+                    preparedCommand.setInt(2, countryIds[divisionCountries.get(position)]);
+                });
+
+        // Contacts, starting with the three of the sample database
+        List<Contact> contactRows = new ArrayList<>(List.of(new Contact(0, "Anika Costa", "acoste@company.com"),
+                new Contact(0, "Daniel Garcia", "dgarcia@company.com"), new Contact(0, "Li Lee", "llee@company.com")));
+        for (int i = contactRows.size(); i < Math.max(3, customers / 100); i++) {
+            String first = pick(random, firstNames);
+            String last = pick(random, lastNames);
+            contactRows.add(new Contact(0, first + " " + last, (first.charAt(0) + last).toLowerCase() + i + "@company.com"));
+        }
+        int[] contactIds = insert("INSERT INTO CONTACTS (Contact_Name, Email) VALUES(?, ?)", contactRows, (preparedCommand, contact) -> {
+            preparedCommand.setString(1, contact.getName());
+            preparedCommand.setString(2, contact.getEmail());
+        });
+
+        // Users, starting with the two of the sample database
+        List<String> userNames = new ArrayList<>(List.of("test", "admin"));
+        for (int i = userNames.size(); i < Math.max(2, customers / 250); i++) {
+            userNames.add("user" + (i + 1));
+        }
+        int[] userIds = insert("INSERT INTO USERS (User_Name, Password, Last_Update) VALUES(?, ?, NOW())", userNames, (preparedCommand, userName) -> {
+            preparedCommand.setString(1, userName);
+            preparedCommand.setString(2, userName.startsWith("user") ? "password" : userName);
+        });
+
+        // Customers, spread over the divisions
+        List<Customer> customerRows = new ArrayList<>(customers);
+        for (int i = 0; i < customers; i++) {
+            int division = random.nextInt(divisionIds.length);
+            int country = divisionCountries.get(division);
+            customerRows.add(new Customer(0, pick(random, firstNames) + " " + pick(random, lastNames),
+                    (1 + random.nextInt(9999)) + " " + pick(random, streets) + ", " + divisionNames.get(division),
+                    postalCode(random, country), phone(random, country), divisionIds[division]));
+        }
+        BatchResult customerResult = CustomersQuery.insertCustomers(customerRows);
+        failOnErrors(customerResult);
+        int[] customerIds = new int[customers];
+        for (int i = 0; i < customers; i++) {
+            customerIds[i] = customerResult.getKey(i);
+        }
+
+        // Appointments, written a block at a time so memory does not grow with their number
+        DisjointIntervals[] booked = new DisjointIntervals[customers];
+        List<Appointment> block = new ArrayList<>(appointmentsPerWrite);
+        int written = 0;
+        for (int i = 0; i < appointments && customers > 0; i++) {
+            Appointment appointment = appointment(random, from, days, customerIds, booked, contactIds, userIds);
+            if (appointment != null) {
+                block.add(appointment);
+            }
+            if (block.size() == appointmentsPerWrite || i == appointments - 1) {
+                BatchResult appointmentResult = AppointmentsQuery.insertApps(block);
+                failOnErrors(appointmentResult);
+                written += appointmentResult.getWrittenCount();
+                block.clear();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * The main function fills the database configured in JDBC from the command line.
+     *
+     * @param args number of customers and appointments, and optionally the seed, first day and number of days
+     * @throws Exception exception in case the database cannot be filled
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: DataGenerator customers appointments [seed] [first day, yyyy-MM-dd] [days]");
+            return;
+        }
+        int customers = Integer.parseInt(args[0]);
+        int appointments = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        LocalDate from = args.length > 3 ? LocalDate.parse(args[3]) : LocalDate.now().minusDays(90);
+        int days = args.length > 4 ? Integer.parseInt(args[4]) : 180;
+
+        JDBC.makeConnection();
+        try {
+            long startedAt = System.currentTimeMillis();
+            int written = generate(customers, appointments, seed, from, days);
+            System.out.println("Generated " + customers + " customers and " + written + " appointments in " + (System.currentTimeMillis() - startedAt) + " ms");
+        } finally {
+            JDBC.closeConnection();
+        }
+    }
+
+    /**
+     * The appointment function places one appointment, or returns null if no free time was found for the customer.
+     */
+    private static Appointment appointment(Random random, LocalDate from, int days, int[] customerIds, DisjointIntervals[] booked,
+                                           int[] contactIds, int[] userIds) {
+        // Squaring the uniform number favours the first customers, so a few customers book far more than the rest
+        int customer = (int) (customerIds.length * Math.pow(random.nextDouble(), 2));
+        if (booked[customer] == null) {
+            booked[customer] = new DisjointIntervals();
+        }
+
+        for (int attempt = 0; attempt < 20; attempt++) {
+            LocalDate day = from.plusDays(random.nextInt(days));
+            // Four out of five weekend days are drawn again
+            while ((day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) && random.nextInt(5) != 0) {
+                day = from.plusDays(random.nextInt(days));
+            }
+            int slot = startSlot(random);
+            int minutes = Math.min(length(random), (slotsPerDay - slot) * 15);
+
+            LocalDateTime officeStart = day.atTime(8, 0).plusMinutes(slot * 15L);
+            LocalDateTime start = officeStart.atZone(office).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            LocalDateTime end = start.plusMinutes(minutes);
+            if (booked[customer].add(start.toEpochSecond(ZoneOffset.UTC), end.toEpochSecond(ZoneOffset.UTC))) {
+                return new Appointment(0, pick(random, titles), pick(random, descriptions), pick(random, locations), pick(random, types),
+                        start, end, customerIds[customer], userIds[random.nextInt(userIds.length)], contactIds[random.nextInt(contactIds.length)]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The startSlot function picks the 15 minute slot an appointment starts in, counted from 8:00 office time.
+     * Four out of five start around 10:30 or 14:00, the rest anywhere in the office hours.
+     */
+    private static int startSlot(Random random) {
+        if (random.nextInt(5) == 0) {
+            return random.nextInt(slotsPerDay);
+        }
+        double hour = (random.nextBoolean() ? 10.5 : 14) + random.nextGaussian() * 1.5;
+        int slot = (int) Math.round((hour - 8) * 4);
+        return Math.max(0, Math.min(slotsPerDay - 1, slot));
+    }
+
+    /**
+     * The length function picks the length of an appointment in minutes.
+     */
+    private static int length(Random random) {
+        int drawn = random.nextInt(100);
+        for (int i = 0; i < lengths.length; i++) {
+            drawn -= lengthWeights[i];
+            if (drawn < 0) {
+                return lengths[i];
+            }
+        }
+        return lengths[0];
+    }
+
+    private static String postalCode(Random random, int country) {
+        return switch (country) {
+            case 0 -> String.format("%05d", random.nextInt(100000));
+            case 1 -> "" + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26)) + (1 + random.nextInt(9)) + " "
+                    + random.nextInt(10) + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26));
+            default -> "" + (char) ('A' + random.nextInt(26)) + random.nextInt(10) + (char) ('A' + random.nextInt(26)) + " "
+                    + random.nextInt(10) + (char) ('A' + random.nextInt(26)) + random.nextInt(10);
+        };
+    }
+
+    private static String phone(Random random, int country) {
+        String prefix = country == 1 ? "020-" : (200 + random.nextInt(800)) + "-";
+        return prefix + (100 + random.nextInt(900)) + "-" + String.format("%04d", random.nextInt(10000));
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * The insert function inserts rows and returns their generated ids in order.
+     */
+    private static <T> int[] insert(String sqlCommand, List<T> rows, BatchWriter.RowBinder<T> binder) throws SQLException {
+        BatchResult result = BatchWriter.write(sqlCommand, rows, BatchWriter.defaultChunkSize(), true, row -> -1, binder, (row, key) -> {});
+        failOnErrors(result);
+        int[] keys = new int[rows.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = result.getKey(i);
+        }
+        return keys;
+    }
+
+    /**
+     * The failOnErrors function throws the first row error of a batch, since generated data should always be valid.
+     */
+    private static void failOnErrors(BatchResult result) throws SQLException {
+        if (result.getFailedCount() > 0) {
+            throw result.getErrors().get(0).getError();
+        }
+    }
+
+    /**
+     * The count function returns the number of rows in a table.
+     */
+    private static int count(String table) throws SQLException {
+        String sqlCommand = "SELECT COUNT(*) FROM " + table;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand);
+             ResultSet resultSet = preparedCommand.executeQuery()) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.Division;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -21,20 +22,22 @@ public abstract class DivisionsQuery {
      */
     public static ObservableList<Division> selectDivisions() throws SQLException {
         String sqlCommand = "SELECT * FROM FIRST_LEVEL_DIVISIONS";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        ResultSet resultSet = preparedCommand.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            ResultSet resultSet = preparedCommand.executeQuery();
 
-        ObservableList<Division> currentDivisions = FXCollections.observableArrayList();
+            ObservableList<Division> currentDivisions = FXCollections.observableArrayList();
 
-        while (resultSet.next()) {
-            int divisionId = resultSet.getInt("Division_ID");
-            String country = resultSet.getString("Division");
-            int countryId = resultSet.getInt("Country_ID");
+            while (resultSet.next()) {
+                int divisionId = resultSet.getInt("Division_ID");
+                String country = resultSet.getString("Division");
+                int countryId = resultSet.getInt("Country_ID");
 
-            Division currentDivision = new Division(divisionId, country, countryId);
-            currentDivisions.add(currentDivision);
+                Division currentDivision = new Division(divisionId, country, countryId);
+                currentDivisions.add(currentDivision);
+            }
+            return currentDivisions;
         }
-        return currentDivisions;
     }
 
     /**
@@ -47,15 +50,17 @@ public abstract class DivisionsQuery {
     public static Division selectDivision(int divisionId) throws SQLException {
 
         String sqlCommand = "SELECT * FROM FIRST_LEVEL_DIVISIONS WHERE Division_ID = ?";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        preparedCommand.setInt(1, divisionId);
-        ResultSet resultSet = preparedCommand.executeQuery();
-        while (resultSet.next()) {
-            String division = resultSet.getString("Division");
-            int countryId = resultSet.getInt("Country_ID");
-            Division currentDivision = new Division(divisionId, division, countryId);
-            return currentDivision;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setInt(1, divisionId);
+            ResultSet resultSet = preparedCommand.executeQuery();
+            while (resultSet.next()) {
+                String division = resultSet.getString("Division");
+                int countryId = resultSet.getInt("Country_ID");
+                Division currentDivision = new Division(divisionId, division, countryId);
+                return currentDivision;
+            }
+            return null;
         }
-        return null;
     }
 }
@@ -0,0 +1,172 @@
+package helperDB;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The export query class contains the queries used to export tables and reports.
+ * Each query streams its rows from a forward-only result set into a row sink, so no list of rows is built and
+ * memory use stays the same however large the table is.
+ */
+public abstract class ExportQuery {
+    /**
+     * Rows fetched per round trip by drivers that fetch in batches.
+     */
+    private static final int fetchSize = 1000;
+
+    /**
+     * streamAppointments streams all appointments with their user and contact names, in the columns CsvImport reads.
+     *
+     * @param sink receives the rows
+     * @return number of rows streamed
+     * @throws SQLException exception in case sql commands return an error
+     * @throws IOException exception in case the sink cannot write
+     */
+    public static long streamAppointments(RowSink sink) throws SQLException, IOException {
+        String sqlCommand = "SELECT a.Appointment_ID, a.Title, a.Description, a.Location, a.Type, a.Start, a.End, a.Customer_ID, " +
+                "u.User_Name AS User, c.Contact_Name AS Contact FROM APPOINTMENTS a " +
+                "JOIN USERS u ON a.User_ID = u.User_ID JOIN CONTACTS c ON a.Contact_ID = c.Contact_ID ORDER BY a.Appointment_ID";
+        return stream(sqlCommand, sink);
+    }
+
+    /**
+     * streamCustomers streams all customers with their division and country names, in the columns CsvImport reads.
+     *
+     * @param sink receives the rows
+     * @return number of rows streamed
+     * @throws SQLException exception in case sql commands return an error
+     * @throws IOException exception in case the sink cannot write
+     */
+    public static long streamCustomers(RowSink sink) throws SQLException, IOException {
+        String sqlCommand = "SELECT cu.Customer_ID, cu.Customer_Name, cu.Address, cu.Postal_Code, cu.Phone, d.Division, co.Country FROM CUSTOMERS cu " +
+                "JOIN FIRST_LEVEL_DIVISIONS d ON cu.Division_ID = d.Division_ID " +
+                "JOIN COUNTRIES co ON d.Country_ID = co.Country_ID ORDER BY cu.Customer_ID";
+        return stream(sqlCommand, sink);
+    }
+
+    /**
+     * streamTypeMonthCounts streams the appointments by type and month report: the number of appointments of each
+     * type in each month of the year, counted over all years like the report screen does.
+     *
+     * @param sink receives the rows
+     * @return number of rows streamed
+     * @throws SQLException exception in case sql commands return an error
+     * @throws IOException exception in case the sink cannot write
+     */
+    public static long streamTypeMonthCounts(RowSink sink) throws SQLException, IOException {
+        String sqlCommand = "SELECT MONTH(Start) AS Month_Number, Type, COUNT(*) AS Appointments FROM APPOINTMENTS GROUP BY MONTH(Start), Type ORDER BY Month_Number, Type";
+        return stream(sqlCommand, sink);
+    }
+
+    /**
+     * streamContactSchedules streams the contact schedule report: every appointment, grouped by contact and ordered by start.
+     *
+     * @param sink receives the rows
+     * @return number of rows streamed
+     * @throws SQLException exception in case sql commands return an error
+     * @throws IOException exception in case the sink cannot write
+     */
+    public static long streamContactSchedules(RowSink sink) throws SQLException, IOException {
+        String sqlCommand = "SELECT c.Contact_ID, c.Contact_Name AS Contact, a.Appointment_ID, a.Title, a.Type, a.Description, a.Start, a.End, a.Customer_ID " +
+                "FROM APPOINTMENTS a JOIN CONTACTS c ON a.Contact_ID = c.Contact_ID ORDER BY c.Contact_ID, a.Start";
+        return stream(sqlCommand, sink);
+    }
+
+    /**
+     * streamCustomerMinutes streams the customers of the month report for a time range: every customer with
+     * appointments starting in the range and their total appointment minutes, most minutes first.
+     *
+     * @param start beginning of the range (inclusive)
+     * @param end end of the range (exclusive)
+     * @param sink receives the rows
+     * @return number of rows streamed
+     * @throws SQLException exception in case sql commands return an error
+     * @throws IOException exception in case the sink cannot write
+     */
+    public static long streamCustomerMinutes(LocalDateTime start, LocalDateTime end, RowSink sink) throws SQLException, IOException {
+        String sqlCommand = "SELECT Customer_ID, SUM(TIMESTAMPDIFF(MINUTE, Start, End)) AS Minutes FROM APPOINTMENTS " +
+                "WHERE Start >= ? AND Start < ? GROUP BY Customer_ID ORDER BY Minutes DESC, Customer_ID";
+        return stream(sqlCommand, sink, Timestamp.valueOf(start), Timestamp.valueOf(end));
+    }
+
+    /**
+     * streamAnalyticsRows streams the columns of every appointment the historical analytics use, with the division
+     * and country of its customer, in no particular order.
+     *
+     * @param sink receives the rows
+     * @return number of rows streamed
+     * @throws SQLException exception in case sql commands return an error
+     * @throws IOException exception in case the sink cannot write
+     */
+    public static long streamAnalyticsRows(RowSink sink) throws SQLException, IOException {
+        String sqlCommand = "SELECT a.Start, a.End, a.Type, a.Customer_ID, a.Contact_ID, cu.Division_ID, d.Country_ID FROM APPOINTMENTS a " +
+                "JOIN CUSTOMERS cu ON a.Customer_ID = cu.Customer_ID JOIN FIRST_LEVEL_DIVISIONS d ON cu.Division_ID = d.Division_ID";
+        return stream(sqlCommand, sink);
+    }
+
+    /**
+     * streamReportRows streams the columns of every appointment the report materializations total, in no particular
+     * order.
+     *
+     * @param sink receives the rows
+     * @return number of rows streamed
+     * @throws SQLException exception in case sql commands return an error
+     * @throws IOException exception in case the sink cannot write
+     */
+    public static long streamReportRows(RowSink sink) throws SQLException, IOException {
+        String sqlCommand = "SELECT Appointment_ID, Type, Start, End, Customer_ID, Contact_ID FROM APPOINTMENTS";
+        return stream(sqlCommand, sink);
+    }
+
+    /**
+     * stream runs a query and hands every row to the sink as it is read.
+     * MySQL only streams rows when the fetch size is Integer.MIN_VALUE; other drivers fetch fetchSize rows at a time.
+     * The statement is prepared with an explicit result set type, so it is not taken from the statement cache and its
+     * fetch size does not carry over to other queries.
+     *
+     * @param sqlCommand query to run
+     * @param sink receives the rows
+     * @param parameters values bound to the query parameters in order
+     * @return number of rows streamed
+     * @throws SQLException exception in case sql commands return an error
+     * @throws IOException exception in case the sink cannot write
+     */
+    private static long stream(String sqlCommand, RowSink sink, Object... parameters) throws SQLException, IOException {
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            boolean isMySql = connection.getMetaData().getURL().startsWith("jdbc:mysql:");
+            preparedCommand.setFetchSize(isMySql ? Integer.MIN_VALUE : fetchSize);
+            for (int i = 0; i < parameters.length; i++) {
+                preparedCommand.setObject(i + 1, parameters[i]);
+            }
+
+            try (ResultSet resultSet = preparedCommand.executeQuery()) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                List<String> columns = new ArrayList<>();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    columns.add(metaData.getColumnLabel(i));
+                }
+                sink.start(columns);
+
+                Object[] values = new Object[columns.size()];
+                long rows = 0;
+                while (resultSet.next()) {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = resultSet.getObject(i + 1);
+                    }
+                    sink.row(values);
+                    rows++;
+                }
+                return rows;
+            }
+        }
+    }
+}
@@ -1,65 +1,134 @@
 package helperDB;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 /**
  * The JDBC class handles all database connections and information.
+ * Connections are handed out by a connection pool, so every query borrows its own connection and
+ * closing that connection returns it to the pool. Each pooled connection caches its prepared statements
+ * (see StatementCache), so closing a statement also only returns it for reuse.
+ * The database is chosen with the system property schedule.db.profile: mysql (the default) connects to the
+ * client_schedule MySQL database, and h2 uses an embedded in-memory H2 database in MySQL mode, which is created
+ * from sql/schema.sql, so the program runs without a MySQL server. Main fills it with DataGenerator.
+ * The properties schedule.db.url, schedule.db.user and schedule.db.password replace the profile's settings,
+ * for example to use an H2 database file, and schedule.db.poolSize sets the most connections open at once.
  */
 public class JDBC {
  private static final String protocol = "jdbc";
      private static final String vendor = ":mysql:";
          private static final String location = "//localhost/";
              private static final String databaseName = "client_schedule";
-                 private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER"; // LOCAL
+                 private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER&rewriteBatchedStatements=true"; // LOCAL; batches are sent as multi-row statements
         private static final String driver = "com.mysql.cj.jdbc.Driver"; // Driver reference
+        private static final String h2Url = "jdbc:h2:mem:" + databaseName + ";MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=START,END,USER"; // Column names that are H2 keywords
+        private static final String h2Driver = "org.h2.Driver"; // Driver reference for the h2 profile
+        public static final String profileProperty = "schedule.db.profile"; // mysql or h2
+        public static final String urlProperty = "schedule.db.url"; // Replaces the profile's url
+        public static final String userProperty = "schedule.db.user"; // Replaces the profile's username
+        public static final String passwordProperty = "schedule.db.password"; // Replaces the profile's password
         private static final String userName = "sqlUser"; // Username
         private static String password = "Passw0rd!"; // Password
-        public static Connection connection = null;  // Connection Interface
-        private static PreparedStatement preparedStatement;
+        private static final int minPoolSize = 2; // Connections kept open while idle
+        private static final int maxPoolSize = 10; // Connections open at most, unless set with poolSizeProperty
+        public static final String poolSizeProperty = "schedule.db.poolSize"; // Replaces maxPoolSize
+        private static final long borrowTimeoutMillis = 10_000; // Wait for a free connection
+        private static final long idleTimeoutMillis = 5 * 60_000; // Close surplus idle connections after
+        private static final long leakThresholdMillis = 60_000; // Report connections held longer than
+        private static final int statementCacheSize = 50; // Prepared statements cached per connection
+        private static volatile ConnectionPool pool = null; // Connection pool
 
          public static void makeConnection() {
 
           try {
-              Class.forName(driver); // Locate Driver
+              boolean embedded = isEmbedded();
+              Class.forName(embedded ? h2Driver : driver); // Locate Driver
               //password = Details.getPassword(); // Assign password
-              connection = DriverManager.getConnection(jdbcUrl, userName, password); // reference Connection object
+              String url = System.getProperty(urlProperty, embedded ? h2Url : jdbcUrl);
+              String user = System.getProperty(userProperty, embedded ? "sa" : userName);
+              String pass = System.getProperty(passwordProperty, embedded ? "" : password);
+              pool = new ConnectionPool(url, user, pass, minPoolSize, Math.max(minPoolSize, Integer.getInteger(poolSizeProperty, maxPoolSize)), borrowTimeoutMillis, idleTimeoutMillis, leakThresholdMillis, statementCacheSize);
+              if (embedded) {
+                  createSchemaIfMissing();
+              }
               System.out.println("Connection successful!");
           }
-                  catch(ClassNotFoundException e) {
-                      System.out.println("Error:" + e.getMessage());
-                  }
-                  catch(SQLException e) {
+                  catch(ClassNotFoundException | SQLException | IOException e) {
                       System.out.println("Error:" + e.getMessage());
                   }
           }
 
-            public static Connection getConnection() {
-                return connection;
+            /**
+             * The isEmbedded function returns whether the h2 profile is used.
+             *
+             * @return true if schedule.db.profile is h2
+             */
+            public static boolean isEmbedded() {
+                return "h2".equalsIgnoreCase(System.getProperty(profileProperty, "mysql"));
             }
-             public static void closeConnection() {
-                 try {
-                     connection.close();
-                     System.out.println("Connection closed!");
-                 } catch (SQLException e) {
-                     System.out.println(e.getMessage());
-                 }
-             }
 
-       public static void makePreparedStatement(String sqlStatement, Connection conn) throws SQLException {
-           if (conn != null)
-               preparedStatement = conn.prepareStatement(sqlStatement);
-           else
-               System.out.println("Prepared Statement Creation Failed!");
-       }
-       public static PreparedStatement getPreparedStatement() throws SQLException {
-           if (preparedStatement != null)
-               return preparedStatement;
-           else System.out.println("Null reference to Prepared Statement");
-           return null;
-       }
+            /**
+             * The createSchemaIfMissing function creates the tables and indexes of sql/schema.sql unless the
+             * APPOINTMENTS table already exists.
+             *
+             * @throws SQLException exception in case sql commands return an error
+             * @throws IOException exception in case the schema cannot be read
+             */
+            public static void createSchemaIfMissing() throws SQLException, IOException {
+                String schema;
+                try (InputStream input = JDBC.class.getResourceAsStream("sql/schema.sql")) {
+                    if (input == null) {
+                        throw new IOException("sql/schema.sql is not on the classpath");
+                    }
+                    schema = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+                }
+
+                try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
+                    try (ResultSet tables = connection.getMetaData().getTables(null, null, "APPOINTMENTS", null)) {
+                        if (tables.next()) {
+                            return;
+                        }
+                    }
+                    // Statements end with a semicolon; comment lines are left out
+                    for (String sqlCommand : schema.replaceAll("(?m)^--.*$", "").split(";")) {
+                        if (!sqlCommand.isBlank()) {
+                            statement.execute(sqlCommand);
+                        }
+                    }
+                }
+            }
 
+            /**
+             * The getConnection function borrows a connection from the pool.
+             * It must be closed after use, which returns it to the pool.
+             *
+             * @return a pooled connection
+             * @throws SQLException exception in case no connection can be borrowed
+             */
+            public static Connection getConnection() throws SQLException {
+                if (pool == null) {
+                    throw new SQLException("No connection pool, makeConnection was not called", "08003");
+                }
+                return pool.borrow();
+            }
 
+            /**
+             * The getPool function returns the connection pool, for example to monitor its usage.
+             *
+             * @return the connection pool
+             */
+            public static ConnectionPool getPool() {
+                return pool;
+            }
 
-}
\ No newline at end of file
+             public static void closeConnection() {
+                 if (pool != null) {
+                     pool.close();
+                     System.out.println("Connection closed!");
+                 }
+             }
+}
@@ -0,0 +1,77 @@
+package helperDB;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * The latest request class runs background database calls for one view, of which only the newest result matters.
+ * Submitting a new call cancels the previous one, and a result that arrives after a newer call was submitted is
+ * dropped. For example, flipping quickly from the week view to the month view never shows the week's appointments
+ * after the month's.
+ * It must be used from the JavaFX application thread.
+ *
+ * @param <T> type of the result
+ */
+public class LatestRequest<T> {
+    /**
+     * The call currently running, if any.
+     */
+    private CompletableFuture<T> current;
+    /**
+     * Number of calls submitted so far, used to tell the newest one apart.
+     */
+    private long generation = 0;
+
+    /**
+     * The submit function cancels the previous call and runs a new one in the background.
+     * onResult or onError is called on the JavaFX application thread, unless a newer call was submitted meanwhile.
+     *
+     * @param query the database call
+     * @param onResult receives the result on the JavaFX application thread
+     * @param onError receives the exception on the JavaFX application thread
+     */
+    public void submit(SqlSupplier<T> query, Consumer<T> onResult, Consumer<Throwable> onError) {
+        cancel();
+        long submitted = generation;
+        current = AsyncDB.supplyAsync(query);
+        CompletableFuture<T> future = current;
+        future.whenComplete((value, error) -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            Platform.runLater(() -> {
+                if (submitted != generation) {
+                    return; // Superseded by a newer call
+                }
+                current = null;
+                if (error != null) {
+                    onError.accept(AsyncDB.unwrap(error));
+                } else {
+                    onResult.accept(value);
+                }
+            });
+        });
+    }
+
+    /**
+     * The cancel function cancels the call currently running, if any, and drops any result still on its way.
+     */
+    public void cancel() {
+        generation++;
+        if (current != null) {
+            current.cancel(true);
+            current = null;
+        }
+    }
+
+    /**
+     * The isRunning function checks whether a call is still waiting for its result.
+     *
+     * @return true if a call is running
+     */
+    public boolean isRunning() {
+        return current != null;
+    }
+}
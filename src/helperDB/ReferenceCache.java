@@ -0,0 +1,348 @@
+package helperDB;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.Contact;
+import model.Country;
+import model.Division;
+import model.User;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The reference cache class keeps the contacts, countries, divisions and users in memory, since they almost never change.
+ * Each table is read completely on first use (or by warm) and then looked up by id in a hash map, with divisions also
+ * grouped by country. A table is read again once its time to live has passed or after it was invalidated.
+ * An id that is not in the cached table is read on its own and remembered, so rows added since the last load are found.
+ * The time to live is set in seconds with the system property schedule.referenceCacheTtlSeconds (default 600).
+ */
+public abstract class ReferenceCache {
+    /**
+     * System property setting the time to live of a cached table, in seconds.
+     */
+    public static final String ttlProperty = "schedule.referenceCacheTtlSeconds";
+    /**
+     * Time to live of a cached table, in milliseconds.
+     */
+    private static final long ttlMillis = Long.getLong(ttlProperty, 600) * 1000;
+    /**
+     * Number of lookups answered from memory.
+     */
+    private static final AtomicLong hits = new AtomicLong();
+    /**
+     * Number of lookups that needed the database.
+     */
+    private static final AtomicLong misses = new AtomicLong();
+    /**
+     * Cached contacts.
+     */
+    private static final Table<Contact> contacts = new Table<>(ContactsQuery::selectContacts, ContactsQuery::selectContact, Contact::getId, null);
+    /**
+     * Cached countries.
+     */
+    private static final Table<Country> countries = new Table<>(CountriesQuery::selectCountries, CountriesQuery::selectCountry, Country::getCountryId, null);
+    /**
+     * Cached divisions, also grouped by country.
+     */
+    private static final Table<Division> divisions = new Table<>(DivisionsQuery::selectDivisions, DivisionsQuery::selectDivision, Division::getDivisionId, Division::getCountryId);
+    /**
+     * Cached users.
+     */
+    private static final Table<User> users = new Table<>(UsersQuery::selectUsers, UsersQuery::selectUser, User::getId, null);
+
+    /**
+     * The warm function reads all four tables, so the first lookups on each screen are already answered from memory.
+     *
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static void warm() throws SQLException {
+        contacts.snapshot();
+        countries.snapshot();
+        divisions.snapshot();
+        users.snapshot();
+    }
+
+    /**
+     * The getContact function returns the contact with the given id.
+     *
+     * @param contactId contact id
+     * @return a contact, or null if there is none with that id
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static Contact getContact(int contactId) throws SQLException {
+        return contacts.get(contactId);
+    }
+
+    /**
+     * The getCountry function returns the country with the given id.
+     *
+     * @param countryId country id
+     * @return a country, or null if there is none with that id
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static Country getCountry(int countryId) throws SQLException {
+        return countries.get(countryId);
+    }
+
+    /**
+     * The getDivision function returns the division with the given id.
+     *
+     * @param divisionId division id
+     * @return a division, or null if there is none with that id
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static Division getDivision(int divisionId) throws SQLException {
+        return divisions.get(divisionId);
+    }
+
+    /**
+     * The getUser function returns the user with the given id.
+     *
+     * @param userId user id
+     * @return a user, or null if there is none with that id
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static User getUser(int userId) throws SQLException {
+        return users.get(userId);
+    }
+
+    /**
+     * The getContacts function returns all contacts.
+     *
+     * @return a new observable list of contacts
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<Contact> getContacts() throws SQLException {
+        return FXCollections.observableArrayList(contacts.all());
+    }
+
+    /**
+     * The getCountries function returns all countries.
+     *
+     * @return a new observable list of countries
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<Country> getCountries() throws SQLException {
+        return FXCollections.observableArrayList(countries.all());
+    }
+
+    /**
+     * The getDivisions function returns all divisions.
+     *
+     * @return a new observable list of divisions
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<Division> getDivisions() throws SQLException {
+        return FXCollections.observableArrayList(divisions.all());
+    }
+
+    /**
+     * The getDivisionsOfCountry function returns the divisions of the given country.
+     *
+     * @param countryId country id
+     * @return a new observable list of divisions
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<Division> getDivisionsOfCountry(int countryId) throws SQLException {
+        return FXCollections.observableArrayList(divisions.group(countryId));
+    }
+
+    /**
+     * The getUsers function returns all users.
+     *
+     * @return a new observable list of users
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ObservableList<User> getUsers() throws SQLException {
+        return FXCollections.observableArrayList(users.all());
+    }
+
+    /**
+     * The invalidateContacts function makes the next contact lookup read the contacts again.
+     */
+    public static void invalidateContacts() {
+        contacts.invalidate();
+    }
+
+    /**
+     * The invalidateCountries function makes the next country lookup read the countries again.
+     */
+    public static void invalidateCountries() {
+        countries.invalidate();
+    }
+
+    /**
+     * The invalidateDivisions function makes the next division lookup read the divisions again.
+     */
+    public static void invalidateDivisions() {
+        divisions.invalidate();
+    }
+
+    /**
+     * The invalidateUsers function makes the next user lookup read the users again.
+     */
+    public static void invalidateUsers() {
+        users.invalidate();
+    }
+
+    /**
+     * The invalidateAll function makes the next lookup in every table read that table again.
+     */
+    public static void invalidateAll() {
+        invalidateContacts();
+        invalidateCountries();
+        invalidateDivisions();
+        invalidateUsers();
+    }
+
+    /**
+     * The getHitCount function returns how many lookups were answered from memory.
+     *
+     * @return number of cache hits
+     */
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * The getMissCount function returns how many lookups needed the database.
+     *
+     * @return number of cache misses
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * The getHitRate function returns the share of lookups answered from memory, from 0 to 1.
+     *
+     * @return cache hit rate
+     */
+    public static double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    /**
+     * Database call reading one row by id.
+     *
+     * @param <T> type of the row
+     */
+    private interface SqlLookup<T> {
+        T get(int id) throws SQLException;
+    }
+
+    /**
+     * One cached table. Lookups read an immutable snapshot, which is replaced as a whole when the table is read again.
+     *
+     * @param <T> type of the rows
+     */
+    private static class Table<T> {
+        private final SqlSupplier<? extends List<T>> loadAll;
+        private final SqlLookup<T> loadOne;
+        private final Function<T, Integer> idOf;
+        private final Function<T, Integer> groupOf;
+        private volatile Snapshot<T> snapshot;
+        /**
+         * Rows read one at a time because they were missing from the snapshot.
+         */
+        private final Map<Integer, T> added = new ConcurrentHashMap<>();
+
+        private Table(SqlSupplier<? extends List<T>> loadAll, SqlLookup<T> loadOne, Function<T, Integer> idOf, Function<T, Integer> groupOf) {
+            this.loadAll = loadAll;
+            this.loadOne = loadOne;
+            this.idOf = idOf;
+            this.groupOf = groupOf;
+        }
+
+        /**
+         * The snapshot function returns the current snapshot, reading the table first if it is missing or expired.
+         */
+        private Snapshot<T> snapshot() throws SQLException {
+            Snapshot<T> current = snapshot;
+            if (current != null && System.currentTimeMillis() - current.loadedAt < ttlMillis) {
+                return current;
+            }
+            synchronized (this) {
+                current = snapshot;
+                if (current == null || System.currentTimeMillis() - current.loadedAt >= ttlMillis) {
+                    misses.incrementAndGet();
+                    current = new Snapshot<>(loadAll.get(), idOf, groupOf);
+                    added.clear();
+                    snapshot = current;
+                }
+            }
+            return current;
+        }
+
+        private T get(int id) throws SQLException {
+            Snapshot<T> current = snapshot();
+            T row = current.byId.get(id);
+            if (row == null) {
+                row = added.get(id);
+            }
+            if (row != null) {
+                hits.incrementAndGet();
+                return row;
+            }
+
+            misses.incrementAndGet();
+            row = loadOne.get(id);
+            if (row != null) {
+                added.put(id, row);
+            }
+            return row;
+        }
+
+        private List<T> all() throws SQLException {
+            Snapshot<T> current = snapshot();
+            hits.incrementAndGet();
+            return current.all;
+        }
+
+        private List<T> group(int groupId) throws SQLException {
+            Snapshot<T> current = snapshot();
+            hits.incrementAndGet();
+            return current.byGroup.getOrDefault(groupId, Collections.emptyList());
+        }
+
+        private void invalidate() {
+            snapshot = null;
+        }
+    }
+
+    /**
+     * The rows of a table as read at one point in time, by id and by group.
+     *
+     * @param <T> type of the rows
+     */
+    private static class Snapshot<T> {
+        private final List<T> all;
+        private final Map<Integer, T> byId;
+        private final Map<Integer, List<T>> byGroup;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Snapshot(List<T> rows, Function<T, Integer> idOf, Function<T, Integer> groupOf) {
+            this.all = Collections.unmodifiableList(new ArrayList<>(rows));
+            Map<Integer, T> ids = new HashMap<>();
+            Map<Integer, List<T>> groups = new LinkedHashMap<>();
+            for (T row : rows) {
+                ids.put(idOf.apply(row), row);
+                if (groupOf != null) {
+                    groups.computeIfAbsent(groupOf.apply(row), id -> new ArrayList<>()).add(row);
+                }
+            }
+            this.byId = ids;
+            this.byGroup = groups;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package helperDB;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The row sink interface receives the rows of a streamed query one at a time, for example to write them to a file.
+ */
+public interface RowSink {
+    /**
+     * The start function is called once with the column names before the first row.
+     *
+     * @param columns names of the columns
+     * @throws IOException exception in case the output cannot be written
+     */
+    void start(List<String> columns) throws IOException;
+
+    /**
+     * The row function is called for every row. The array is reused for the next row, so it must not be kept.
+     *
+     * @param values values of the row, in column order
+     * @throws IOException exception in case the output cannot be written
+     */
+    void row(Object[] values) throws IOException;
+}
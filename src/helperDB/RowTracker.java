@@ -0,0 +1,204 @@
+package helperDB;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.util.Duration;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * The row tracker class keeps the rows shown in a table up to date without reading the whole table again.
+ * A write made on this screen is applied to the existing list as the single inserted, updated or deleted row,
+ * and rows changed by other clients are pulled with a query for rows updated since the tracker's watermark.
+ * Rows outside the current view (for example another week) are left out, and rows are kept in the view's order.
+ * Because the list is changed in place, the table keeps its scroll position.
+ * Rows deleted by other clients have no Last_Update to find them by and stay until the next full reload.
+ * The tracker must only be used on the JavaFX application thread.
+ *
+ * @param <T> type of the rows
+ */
+public class RowTracker<T> {
+    /**
+     * System property setting how often screens pull changes made by other clients, in seconds.
+     */
+    public static final String refreshProperty = "schedule.refreshSeconds";
+    /**
+     * Function returning the id of a row.
+     */
+    private final ToIntFunction<T> idOf;
+    /**
+     * Function returning the values shown for a row, used to skip rows that did not change.
+     */
+    private final Function<T, List<Object>> contentOf;
+    /**
+     * The rows shown in the table.
+     */
+    private ObservableList<T> rows = FXCollections.observableArrayList();
+    /**
+     * Condition a row has to meet to be shown.
+     */
+    private Predicate<T> inView = row -> true;
+    /**
+     * Order of the rows, or null if new rows are added at the end.
+     */
+    private Comparator<T> order;
+    /**
+     * Latest Last_Update value applied, or null before the first load.
+     */
+    private Timestamp watermark;
+
+    /**
+     * Constructor for the RowTracker class.
+     *
+     * @param idOf function returning the id of a row
+     * @param contentOf function returning the values shown for a row
+     */
+    public RowTracker(ToIntFunction<T> idOf, Function<T, List<Object>> contentOf) {
+        this.idOf = idOf;
+        this.contentOf = contentOf;
+    }
+
+    /**
+     * The reset function replaces all rows after a full load, for example when the view changes.
+     *
+     * @param loaded rows read and their watermark
+     * @param inView condition a row has to meet to be shown
+     * @param order order of the rows, or null if new rows are added at the end
+     */
+    public void reset(ChangeSet<T> loaded, Predicate<T> inView, Comparator<T> order) {
+        this.rows = FXCollections.observableArrayList(loaded.getRows());
+        this.inView = inView;
+        this.order = order;
+        this.watermark = loaded.getWatermark();
+    }
+
+    public ObservableList<T> getRows() {
+        return rows;
+    }
+
+    public Timestamp getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * The find function returns the shown row with the given id.
+     *
+     * @param id row id
+     * @return the row, or null if it is not shown
+     */
+    public T find(int id) {
+        int index = indexOf(id);
+        return index < 0 ? null : rows.get(index);
+    }
+
+    /**
+     * The saved function applies an inserted or updated row. It is added, replaced, moved or removed depending on
+     * whether it is in the view, and nothing happens if the shown row already has the same values.
+     *
+     * @param row the row as it is now stored
+     * @return true if the shown rows changed
+     */
+    public boolean saved(T row) {
+        int index = indexOf(idOf.applyAsInt(row));
+        if (!inView.test(row)) {
+            if (index >= 0) {
+                rows.remove(index);
+                return true;
+            }
+            return false;
+        }
+
+        if (index >= 0) {
+            if (contentOf.apply(rows.get(index)).equals(contentOf.apply(row))) {
+                return false;
+            }
+            if (order == null || isInPlace(index, row)) {
+                rows.set(index, row);
+                return true;
+            }
+            rows.remove(index);
+        }
+
+        if (order == null) {
+            rows.add(row);
+        } else {
+            int position = Collections.binarySearch(rows, row, order);
+            rows.add(position < 0 ? -position - 1 : position, row);
+        }
+        return true;
+    }
+
+    /**
+     * The deleted function removes the row with the given id.
+     *
+     * @param id id of the deleted row
+     * @return true if the row was shown
+     */
+    public boolean deleted(int id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return false;
+        }
+        rows.remove(index);
+        return true;
+    }
+
+    /**
+     * The apply function applies rows pulled from the database and moves the watermark forward.
+     *
+     * @param changes rows updated since the watermark, and the new watermark
+     * @return true if the shown rows changed
+     */
+    public boolean apply(ChangeSet<T> changes) {
+        boolean changed = false;
+        for (T row : changes.getRows()) {
+            changed |= saved(row);
+        }
+        if (watermark == null || changes.getWatermark().after(watermark)) {
+            watermark = changes.getWatermark();
+        }
+        return changed;
+    }
+
+    /**
+     * The startPolling function runs the given pull every schedule.refreshSeconds seconds (default 30)
+     * on the JavaFX application thread, until the returned timeline is stopped.
+     *
+     * @param pull function pulling changes made by other clients
+     * @return the running timeline
+     */
+    public static Timeline startPolling(Runnable pull) {
+        Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(Integer.getInteger(refreshProperty, 30)), event -> pull.run()));
+        timeline.setCycleCount(Timeline.INDEFINITE);
+        timeline.play();
+        return timeline;
+    }
+
+    /**
+     * The indexOf function returns the position of the row with the given id, or -1.
+     */
+    private int indexOf(int id) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (idOf.applyAsInt(rows.get(i)) == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The isInPlace function returns whether the row can replace the one at the given position without breaking the order.
+     */
+    private boolean isInPlace(int index, T row) {
+        return (index == 0 || order.compare(rows.get(index - 1), row) <= 0)
+                && (index == rows.size() - 1 || order.compare(row, rows.get(index + 1)) <= 0);
+    }
+}
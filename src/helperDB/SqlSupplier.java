@@ -0,0 +1,18 @@
+package helperDB;
+
+import java.sql.SQLException;
+
+/**
+ * The sql supplier interface is a database call that returns a result, used to run query functions in the background.
+ *
+ * @param <T> type of the result
+ */
+public interface SqlSupplier<T> {
+    /**
+     * Runs the database call.
+     *
+     * @return the result of the call
+     * @throws SQLException exception in case sql commands return an error
+     */
+    T get() throws SQLException;
+}
@@ -0,0 +1,255 @@
+package helperDB;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The statement cache class keeps the prepared statements of one pooled connection, keyed by their SQL text.
+ * The least recently used statement is closed once the cache is full.
+ * Closing a cached statement only clears its parameters and closes its result set, so the next query with the
+ * same SQL text reuses it without another parse on the server.
+ */
+public class StatementCache {
+    /**
+     * Number of prepared statements reused from a cache, over all connections.
+     */
+    private static final AtomicLong hits = new AtomicLong();
+    /**
+     * Number of prepared statements that had to be created, over all connections.
+     */
+    private static final AtomicLong misses = new AtomicLong();
+    /**
+     * Number of prepared statements closed because a cache was full, over all connections.
+     */
+    private static final AtomicLong evictions = new AtomicLong();
+    /**
+     * The real connection the statements belong to.
+     */
+    private final Connection physical;
+    /**
+     * Cached statements in least recently used order.
+     */
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    /**
+     * Constructor for the StatementCache class.
+     *
+     * @param physical the real connection the statements belong to
+     * @param capacity maximum number of statements kept open
+     */
+    public StatementCache(Connection physical, int capacity) {
+        this.physical = physical;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                evictions.incrementAndGet();
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * The prepare function returns a prepared statement for the given SQL text, reusing a cached one when possible.
+     * If the cached statement is still open from an earlier call, a separate uncached statement is returned instead.
+     *
+     * @param sqlCommand the SQL text
+     * @param autoGeneratedKeys either Statement.RETURN_GENERATED_KEYS or Statement.NO_GENERATED_KEYS
+     * @return a prepared statement whose close method returns it to the cache
+     * @throws SQLException exception in case the statement cannot be prepared
+     */
+    public PreparedStatement prepare(String sqlCommand, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sqlCommand : "N:" + sqlCommand;
+
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            hits.incrementAndGet();
+            cached.inUse = true;
+            return cached.proxy;
+        }
+
+        misses.incrementAndGet();
+        PreparedStatement created = physical.prepareStatement(sqlCommand, autoGeneratedKeys);
+        if (cached != null) {
+            return created; // Same SQL already in use on this connection, so this one is not cached
+        }
+
+        cached = new CachedStatement(created);
+        cached.inUse = true;
+        statements.put(key, cached);
+        return cached.proxy;
+    }
+
+    /**
+     * The closeAll function closes every cached statement. It is called before the connection itself is closed.
+     */
+    public void closeAll() {
+        for (CachedStatement cached : new ArrayList<>(statements.values())) {
+            cached.evict();
+        }
+        statements.clear();
+    }
+
+    /**
+     * The getHitCount function returns how many prepared statements were reused from a cache.
+     *
+     * @return number of cache hits
+     */
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * The getMissCount function returns how many prepared statements had to be created.
+     *
+     * @return number of cache misses
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * The getEvictionCount function returns how many prepared statements were closed because a cache was full.
+     *
+     * @return number of evictions
+     */
+    public static long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * The getHitRate function returns the share of prepared statements that were reused, from 0 to 1.
+     *
+     * @return cache hit rate
+     */
+    public static double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    /**
+     * A prepared statement kept by the cache. Callers get its proxy, whose close method hands it back to the cache.
+     */
+    private static class CachedStatement implements InvocationHandler {
+        /**
+         * The real prepared statement.
+         */
+        private final PreparedStatement physical;
+        /**
+         * The statement handed out to callers.
+         */
+        private final PreparedStatement proxy;
+        /**
+         * Result set opened by the current caller, closed when the statement is handed back.
+         */
+        private ResultSet openResultSet;
+        /**
+         * Whether a caller currently holds the statement.
+         */
+        private boolean inUse;
+        /**
+         * Whether the statement was removed from the cache and must be closed once it is handed back.
+         */
+        private boolean evicted;
+
+        /**
+         * Constructor for the CachedStatement class.
+         *
+         * @param physical the real prepared statement
+         */
+        private CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class}, this);
+        }
+
+        /**
+         * The evict function closes the statement now, or once the current caller hands it back.
+         */
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closePhysical();
+            }
+        }
+
+        /**
+         * The release function makes the statement ready for the next caller.
+         */
+        private void release() {
+            try {
+                if (openResultSet != null) {
+                    openResultSet.close();
+                }
+                physical.clearParameters();
+                physical.clearBatch();
+            } catch (SQLException e) {
+                evicted = true; // Not reusable, closing it below
+            }
+            openResultSet = null;
+            inUse = false;
+            if (evicted) {
+                closePhysical();
+            }
+        }
+
+        /**
+         * The closePhysical function closes the real statement, ignoring errors.
+         */
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                //
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUse) {
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return !inUse || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached " + physical;
+                default:
+                    break;
+            }
+
+            if (!inUse) {
+                throw new SQLException("Statement has already been closed");
+            }
+
+            try {
+                Object result = method.invoke(physical, args);
+                if (result instanceof ResultSet resultSet && method.getName().equals("executeQuery")) {
+                    openResultSet = resultSet;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package helperDB;
+
+import helperMetrics.QueryEvent;
+import helperMetrics.QueryMetrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The timed statement class wraps the prepared statements handed out by the connection pool and reports each run
+ * to QueryMetrics and, while a flight recording is running, as a QueryEvent. A query is timed from the call that runs it until its result set or statement is closed, so
+ * reading the rows is included; updates are timed for the call alone.
+ * The query is named after the public function that prepared it, found by walking the stack on every prepare.
+ * Private helpers such as the shared range query or the appointment insert are passed over, so their runs are
+ * counted under the public function that called them, and an SQL text shared by several functions is counted under
+ * each of them.
+ */
+class TimedStatement implements InvocationHandler {
+    /**
+     * Classes that sit between the query functions and the driver, skipped when naming a query.
+     */
+    private static final List<String> skippedPrefixes = List.of("java.", "jdk.", "sun.", "com.sun.", "helperDB.ConnectionPool",
+            "helperDB.StatementCache", "helperDB.TimedStatement", "helperDB.BatchWriter");
+    /**
+     * Walker used to name queries; the hint covers the frames usually skipped plus a few query functions.
+     */
+    private static final StackWalker walker = StackWalker.getInstance(Set.of(StackWalker.Option.RETAIN_CLASS_REFERENCE), 12);
+    /**
+     * Most frames past the skipped classes looked at for a public function.
+     */
+    private static final int callerDepth = 8;
+    /**
+     * Whether each function is public, by class and then by name and descriptor, so reflection runs once per function.
+     */
+    private static final ClassValue<Map<String, Boolean>> publicFunctions = new ClassValue<>() {
+        @Override
+        protected Map<String, Boolean> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final PreparedStatement statement;
+    private final String sqlCommand;
+    private final String name;
+    /**
+     * Bound parameters by position, for the slow query log.
+     */
+    private Object[] parameters = new Object[8];
+    /**
+     * Highest parameter position bound so far.
+     */
+    private int parameterCount;
+    /**
+     * Start of the query whose rows are being read, or 0 if none is.
+     */
+    private long startedAt;
+    private long rows;
+    private QueryEvent event;
+
+    private TimedStatement(PreparedStatement statement, String sqlCommand, String name) {
+        this.statement = statement;
+        this.sqlCommand = sqlCommand;
+        this.name = name;
+    }
+
+    /**
+     * The wrap function returns a statement that records its runs under the name of the calling query function.
+     *
+     * @param statement the statement to wrap
+     * @param sqlCommand SQL text of the statement
+     * @return the wrapped statement
+     */
+    static PreparedStatement wrap(PreparedStatement statement, String sqlCommand) {
+        // The first public function above the skipped classes, or the first function if none of them is public
+        List<StackWalker.StackFrame> callers = callers();
+        StackWalker.StackFrame caller = callers.stream().filter(TimedStatement::isPublic).findFirst()
+                .orElse(callers.isEmpty() ? null : callers.get(0));
+        String name = caller == null ? "unknown" : frameName(caller);
+        TimedStatement timed = new TimedStatement(statement, sqlCommand, name);
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class}, timed);
+    }
+
+    /**
+     * The callers function returns the frames above the classes between the query functions and the driver,
+     * innermost first.
+     */
+    private static List<StackWalker.StackFrame> callers() {
+        return walker.walk(frames -> frames
+                .filter(frame -> !isSkipped(frame.getClassName()))
+                .limit(callerDepth)
+                .toList());
+    }
+
+    /**
+     * The frameName function names a query after a frame's function, for example AppointmentsQuery.findOverlapping.
+     */
+    private static String frameName(StackWalker.StackFrame frame) {
+        String className = frame.getClassName();
+        return className.substring(className.lastIndexOf('.') + 1) + "." + methodName(frame);
+    }
+
+    /**
+     * The isPublic function returns whether a frame runs a public function. A lambda counts as the function it was
+     * written in.
+     */
+    private static boolean isPublic(StackWalker.StackFrame frame) {
+        return publicFunctions.get(frame.getDeclaringClass())
+                .computeIfAbsent(frame.getMethodName() + frame.getDescriptor(), key -> findIsPublic(frame));
+    }
+
+    /**
+     * The findIsPublic function looks up with reflection whether a frame's function is public.
+     */
+    private static boolean findIsPublic(StackWalker.StackFrame frame) {
+        Class<?> declaringClass = frame.getDeclaringClass();
+        if (frame.getMethodName().startsWith("lambda$")) {
+            String enclosing = methodName(frame);
+            return Arrays.stream(declaringClass.getDeclaredMethods())
+                    .anyMatch(method -> method.getName().equals(enclosing) && Modifier.isPublic(method.getModifiers()));
+        }
+        try {
+            Method method = declaringClass.getDeclaredMethod(frame.getMethodName(), frame.getMethodType().parameterArray());
+            return Modifier.isPublic(method.getModifiers());
+        } catch (NoSuchMethodException e) {
+            // Constructors and static initializers are not query functions
+            return false;
+        }
+    }
+
+    /**
+     * The isSkipped function returns whether a class sits between the query functions and the driver.
+     */
+    private static boolean isSkipped(String className) {
+        for (String prefix : skippedPrefixes) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The methodName function returns the name of a frame's method, using the enclosing method's name for lambdas.
+     */
+    private static String methodName(StackWalker.StackFrame frame) {
+        String method = frame.getMethodName();
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', 7);
+            return end > 7 ? method.substring(7, end) : method;
+        }
+        return method;
+    }
+
+    /**
+     * The finish function records the query whose rows were being read.
+     */
+    private void finish() {
+        if (startedAt != 0) {
+            QueryMetrics.record(name, sqlCommand, System.nanoTime() - startedAt, rows, false, Arrays.copyOf(parameters, parameterCount));
+            commit(event, rows, false);
+            startedAt = 0;
+            event = null;
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String methodName = method.getName();
+        switch (methodName) {
+            case "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "execute" -> {
+                finish();
+                QueryEvent runEvent = new QueryEvent();
+                runEvent.begin();
+                long started = System.nanoTime();
+                Object result;
+                try {
+                    result = method.invoke(statement, args);
+                } catch (InvocationTargetException e) {
+                    QueryMetrics.record(name, sqlCommand, System.nanoTime() - started, 0, true, Arrays.copyOf(parameters, parameterCount));
+                    commit(runEvent, 0, true);
+                    throw e.getCause();
+                }
+                if (result instanceof ResultSet resultSet) {
+                    // Timing continues until the rows have been read
+                    startedAt = started;
+                    rows = 0;
+                    event = runEvent;
+                    return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class}, new CountingResultSet(resultSet));
+                }
+                long changed = changedRows(result);
+                QueryMetrics.record(name, sqlCommand, System.nanoTime() - started, changed, false, Arrays.copyOf(parameters, parameterCount));
+                commit(runEvent, changed, false);
+                return result;
+            }
+            case "close" -> finish();
+            case "clearParameters" -> {
+                Arrays.fill(parameters, null);
+                parameterCount = 0;
+            }
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            default -> {
+                if (methodName.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index && index > 0) {
+                    if (index > parameters.length) {
+                        parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+                    }
+                    parameters[index - 1] = methodName.equals("setNull") ? null : args[1];
+                    parameterCount = Math.max(parameterCount, index);
+                }
+            }
+        }
+
+        try {
+            return method.invoke(statement, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * The commit function ends a query event and records it if it is enabled and above its threshold.
+     */
+    private void commit(QueryEvent runEvent, long rowCount, boolean failed) {
+        runEvent.end();
+        if (runEvent.shouldCommit()) {
+            runEvent.query = name;
+            runEvent.sql = sqlCommand;
+            runEvent.rows = rowCount;
+            runEvent.failed = failed;
+            runEvent.commit();
+        }
+    }
+
+    /**
+     * The changedRows function returns the number of rows an update or batch changed.
+     */
+    private static long changedRows(Object result) {
+        if (result instanceof Integer count) {
+            return Math.max(0, count);
+        } else if (result instanceof Long count) {
+            return Math.max(0, count);
+        } else if (result instanceof int[] counts) {
+            return CustomersQuery.sumCounts(counts);
+        }
+        return 0;
+    }
+
+    /**
+     * The counting result set class counts the rows read from a query and ends its timing when it is closed.
+     */
+    private class CountingResultSet implements InvocationHandler {
+        private final ResultSet resultSet;
+
+        private CountingResultSet(ResultSet resultSet) {
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if (methodName.equals("equals")) {
+                return proxy == args[0];
+            } else if (methodName.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (methodName.equals("close")) {
+                finish();
+            }
+
+            try {
+                Object result = method.invoke(resultSet, args);
+                if (methodName.equals("next") && (Boolean) result) {
+                    rows++;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.User;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -21,20 +22,22 @@ public abstract class UsersQuery {
      */
     public static ObservableList<User> selectUsers() throws SQLException {
         String sqlCommand = "SELECT * FROM USERS";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        ResultSet resultSet = preparedCommand.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            ResultSet resultSet = preparedCommand.executeQuery();
 
-        ObservableList<User> currentUsers = FXCollections.observableArrayList();
+            ObservableList<User> currentUsers = FXCollections.observableArrayList();
 
-        while (resultSet.next()) {
-            int userId = resultSet.getInt("User_ID");
-            String name = resultSet.getString("User_Name");
-            String password = resultSet.getString("Password");
+            while (resultSet.next()) {
+                int userId = resultSet.getInt("User_ID");
+                String name = resultSet.getString("User_Name");
+                String password = resultSet.getString("Password");
 
-            User currentUser = new User(userId, name, password);
-            currentUsers.add(currentUser);
+                User currentUser = new User(userId, name, password);
+                currentUsers.add(currentUser);
+            }
+            return currentUsers;
         }
-        return currentUsers;
     }
 
     /**
@@ -46,22 +49,24 @@ public abstract class UsersQuery {
      */
     public static User selectUser(int userId) throws SQLException {
         String sqlCommand = "SELECT * FROM USERS WHERE User_ID = ?";
-        PreparedStatement preparedCommand = JDBC.connection.prepareStatement(sqlCommand);
-        preparedCommand.setInt(1, userId);
-        ResultSet resultSet = preparedCommand.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedCommand = connection.prepareStatement(sqlCommand)) {
+            preparedCommand.setInt(1, userId);
+            ResultSet resultSet = preparedCommand.executeQuery();
 
-        while (resultSet.next()) {
-            String name = resultSet.getString("User_Name");
-            String password = resultSet.getString("Password");
-            String createDate = resultSet.getString("Create_Date");
-            String createdBy = resultSet.getString("Created_By");
-            String lastUpdate = resultSet.getString("Last_Update");
+            while (resultSet.next()) {
+                String name = resultSet.getString("User_Name");
+                String password = resultSet.getString("Password");
+                String createDate = resultSet.getString("Create_Date");
+                String createdBy = resultSet.getString("Created_By");
+                String lastUpdate = resultSet.getString("Last_Update");
 
-            User chosenUser = new User(userId, name, password);
-            return chosenUser;
-        }
+                User chosenUser = new User(userId, name, password);
+                return chosenUser;
+            }
 
-        return null;
+            return null;
+        }
     }
 
 
@@ -0,0 +1,8 @@
+-- Indexes backing the date-range queries in AppointmentsQuery (selectAppsBetween and its variants).
+-- Run once against client_schedule. Each composite index lets the per-contact, per-user and
+-- per-customer range queries seek straight to the id and then scan only the rows inside the range.
+
+CREATE INDEX Appointments_Start ON APPOINTMENTS (Start);
+CREATE INDEX Appointments_Contact_Start ON APPOINTMENTS (Contact_ID, Start);
+CREATE INDEX Appointments_User_Start ON APPOINTMENTS (User_ID, Start);
+CREATE INDEX Appointments_Customer_Start ON APPOINTMENTS (Customer_ID, Start);
@@ -0,0 +1,12 @@
+-- Table of deleted appointments, read by the change pulls in AppointmentsQuery (selectAppIdsDeletedSince).
+-- Run once against client_schedule before running this version, since deleting an appointment writes to it.
+-- A deleted row leaves no Last_Update behind, so every delete records the appointment id here in the same
+-- transaction, and other clients drop the appointment from their in-memory totals on their next pull.
+-- Rows older than the start of the longest-running client can be removed.
+
+CREATE TABLE DELETED_APPOINTMENTS (
+    Appointment_ID INT NOT NULL PRIMARY KEY,
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX Deleted_Appointments_Last_Update ON DELETED_APPOINTMENTS (Last_Update);
@@ -0,0 +1,5 @@
+-- Indexes backing the change pulls in AppointmentsQuery and CustomersQuery (selectAppointmentRowsChangedSince,
+-- selectCustomerRowsChangedSince and the MAX(Last_Update) watermark reads). Run once against client_schedule.
+
+CREATE INDEX Appointments_Last_Update ON APPOINTMENTS (Last_Update);
+CREATE INDEX Customers_Last_Update ON CUSTOMERS (Last_Update);
@@ -0,0 +1,88 @@
+-- Tables of the client_schedule database, with the indexes from appointment-indexes.sql and last-update-indexes.sql
+-- and the table from deleted-appointments.sql.
+-- Runs on MySQL and on H2 in MySQL mode. Run once against an empty database; the H2 profile in JDBC runs it
+-- itself when the tables do not exist yet.
+
+CREATE TABLE COUNTRIES (
+    Country_ID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Country VARCHAR(50),
+    Create_Date DATETIME DEFAULT CURRENT_TIMESTAMP,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Last_Updated_By VARCHAR(50)
+);
+
+CREATE TABLE FIRST_LEVEL_DIVISIONS (
+    Division_ID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Division VARCHAR(50),
+    Create_Date DATETIME DEFAULT CURRENT_TIMESTAMP,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Country_ID INT NOT NULL,
+    CONSTRAINT fk_country_id FOREIGN KEY (Country_ID) REFERENCES COUNTRIES (Country_ID)
+);
+
+CREATE TABLE CUSTOMERS (
+    Customer_ID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Customer_Name VARCHAR(50),
+    Address VARCHAR(100),
+    Postal_Code VARCHAR(50),
+    Phone VARCHAR(50),
+    Create_Date DATETIME DEFAULT CURRENT_TIMESTAMP,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Division_ID INT NOT NULL,
+    CONSTRAINT fk_division_id FOREIGN KEY (Division_ID) REFERENCES FIRST_LEVEL_DIVISIONS (Division_ID)
+);
+
+CREATE TABLE CONTACTS (
+    Contact_ID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Contact_Name VARCHAR(50),
+    Email VARCHAR(50)
+);
+
+CREATE TABLE USERS (
+    User_ID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    User_Name VARCHAR(50) UNIQUE,
+    Password VARCHAR(255),
+    Create_Date DATETIME DEFAULT CURRENT_TIMESTAMP,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Last_Updated_By VARCHAR(50)
+);
+
+CREATE TABLE APPOINTMENTS (
+    Appointment_ID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Title VARCHAR(50),
+    Description VARCHAR(50),
+    Location VARCHAR(50),
+    Type VARCHAR(50),
+    Start DATETIME,
+    End DATETIME,
+    Create_Date DATETIME DEFAULT CURRENT_TIMESTAMP,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Customer_ID INT NOT NULL,
+    User_ID INT NOT NULL,
+    Contact_ID INT NOT NULL,
+    CONSTRAINT fk_customer_id FOREIGN KEY (Customer_ID) REFERENCES CUSTOMERS (Customer_ID),
+    CONSTRAINT fk_user_id FOREIGN KEY (User_ID) REFERENCES USERS (User_ID),
+    CONSTRAINT fk_contact_id FOREIGN KEY (Contact_ID) REFERENCES CONTACTS (Contact_ID)
+);
+
+CREATE INDEX Appointments_Start ON APPOINTMENTS (Start);
+CREATE INDEX Appointments_Contact_Start ON APPOINTMENTS (Contact_ID, Start);
+CREATE INDEX Appointments_User_Start ON APPOINTMENTS (User_ID, Start);
+CREATE INDEX Appointments_Customer_Start ON APPOINTMENTS (Customer_ID, Start);
+CREATE INDEX Appointments_Last_Update ON APPOINTMENTS (Last_Update);
+CREATE INDEX Customers_Last_Update ON CUSTOMERS (Last_Update);
+
+CREATE TABLE DELETED_APPOINTMENTS (
+    Appointment_ID INT NOT NULL PRIMARY KEY,
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX Deleted_Appointments_Last_Update ON DELETED_APPOINTMENTS (Last_Update);
@@ -0,0 +1,419 @@
+package helperIO;
+
+import helperDB.AppointmentsQuery;
+import helperDB.BatchResult;
+import helperDB.CustomersQuery;
+import helperDB.JDBC;
+import helperDB.ReferenceCache;
+import helperSchedule.DisjointIntervals;
+import helperTime.TimeTranslation;
+import model.Appointment;
+import model.Contact;
+import model.Customer;
+import model.Division;
+import model.User;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * The CSV import class loads customers and appointments from CSV files without the user interface.
+ * The file is read one record at a time and validated on the calling thread, while a writer thread inserts the
+ * accepted rows in batches. The two are joined by a queue of a few chunks; when the database falls behind, reading
+ * waits, so memory use does not grow with the size of the file.
+ * Rejected rows are written to a report with their line number and the reason, and progress is reported in rows per second.
+ * It can be run with: java helperIO.CsvImport customers|appointments file.csv [rejected.csv]
+ */
+public abstract class CsvImport {
+    /**
+     * Number of rows inserted per batch.
+     */
+    private static final int chunkSize = 500;
+    /**
+     * Number of chunks waiting for the writer before reading waits.
+     */
+    private static final int queuedChunks = 4;
+    /**
+     * Format of the Start and End columns, in local system time.
+     */
+    private static final DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd['T'][ ]HH:mm[:ss]");
+    /**
+     * Earliest and latest times used to read all existing appointments of a customer.
+     */
+    private static final LocalDateTime firstTime = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime lastTime = LocalDateTime.of(9999, 12, 31, 23, 59);
+
+    /**
+     * The importCustomers function imports customers from a CSV file with the columns
+     * Customer_Name, Address, Postal_Code, Phone and Division (the division name).
+     *
+     * @param csvFile file to import
+     * @param rejectsFile report written with every rejected row
+     * @param progress told about the progress after every batch
+     * @return final counts of the import
+     * @throws IOException exception in case a file cannot be read or written
+     * @throws SQLException exception in case the database cannot be reached
+     */
+    public static ImportStats importCustomers(Path csvFile, Path rejectsFile, Consumer<ImportStats> progress) throws IOException, SQLException {
+        Map<String, Integer> divisionIds = idsByName(ReferenceCache.getDivisions(), Division::getDivision, Division::getDivisionId);
+
+        RowParser<Customer> parser = (columns, record) -> {
+            String name = columns.get(record, "Customer_Name");
+            if (name.isEmpty()) {
+                throw new RowRejected("Customer_Name is empty");
+            }
+            int divisionId = lookUp(divisionIds, columns.get(record, "Division"), "division");
+            return new Customer(0, name, columns.get(record, "Address"), columns.get(record, "Postal_Code"), columns.get(record, "Phone"), divisionId);
+        };
+
+        List<String> required = List.of("Customer_Name", "Address", "Postal_Code", "Phone", "Division");
+        return run(csvFile, rejectsFile, required, parser, rows -> CustomersQuery.insertCustomers(rows, rows.size()), customer -> {}, progress);
+    }
+
+    /**
+     * The importAppointments function imports appointments from a CSV file with the columns
+     * Title, Description, Location, Type, Start, End, Customer_ID, User and Contact (user and contact names).
+     * Start and End are local times written as yyyy-MM-dd HH:mm. Like the appointment form, it rejects appointments
+     * outside business hours and appointments overlapping another appointment of the customer, whether that one is
+     * already in the database or earlier in the file.
+     *
+     * @param csvFile file to import
+     * @param rejectsFile report written with every rejected row
+     * @param progress told about the progress after every batch
+     * @return final counts of the import
+     * @throws IOException exception in case a file cannot be read or written
+     * @throws SQLException exception in case the database cannot be reached
+     */
+    public static ImportStats importAppointments(Path csvFile, Path rejectsFile, Consumer<ImportStats> progress) throws IOException, SQLException {
+        Map<String, Integer> contactIds = idsByName(ReferenceCache.getContacts(), Contact::getName, Contact::getId);
+        Map<String, Integer> userIds = idsByName(ReferenceCache.getUsers(), User::getName, User::getId);
+        // Each customer's appointment times, read from the database when the customer first appears in the file
+        Map<Integer, DisjointIntervals> schedules = new HashMap<>();
+
+        RowParser<Appointment> parser = (columns, record) -> {
+            LocalDateTime start = parseTime(columns.get(record, "Start"), "Start");
+            LocalDateTime end = parseTime(columns.get(record, "End"), "End");
+            if (!start.isBefore(end)) {
+                throw new RowRejected("End is not after Start");
+            }
+            if (!TimeTranslation.isWithinBusinessHours(start, end)) {
+                throw new RowRejected("Outside business hours (8:00 to 22:00 America/New_York)");
+            }
+            int customerId;
+            try {
+                customerId = Integer.parseInt(columns.get(record, "Customer_ID"));
+            } catch (NumberFormatException e) {
+                throw new RowRejected("Customer_ID is not a number");
+            }
+            int contactId = lookUp(contactIds, columns.get(record, "Contact"), "contact");
+            int userId = lookUp(userIds, columns.get(record, "User"), "user");
+
+            DisjointIntervals schedule = schedules.get(customerId);
+            if (schedule == null) {
+                schedule = new DisjointIntervals();
+                for (Appointment existing : AppointmentsQuery.selectAppsByCustomerBetween(customerId, firstTime, lastTime)) {
+                    schedule.addMerging(toKey(existing.getStart()), toKey(existing.getEnd()));
+                }
+                synchronized (schedules) {
+                    schedules.put(customerId, schedule);
+                }
+            }
+            synchronized (schedule) {
+                if (!schedule.add(toKey(start), toKey(end))) {
+                    throw new RowRejected("Overlaps another appointment of customer " + customerId);
+                }
+            }
+            return new Appointment(0, columns.get(record, "Title"), columns.get(record, "Description"), columns.get(record, "Location"),
+                    columns.get(record, "Type"), start, end, customerId, userId, contactId);
+        };
+
+        // An appointment the database refused no longer blocks its time for later rows
+        Consumer<Appointment> writeFailed = app -> {
+            DisjointIntervals schedule;
+            synchronized (schedules) {
+                schedule = schedules.get(app.getCustomerId());
+            }
+            synchronized (schedule) {
+                schedule.remove(toKey(app.getStart()), toKey(app.getEnd()));
+            }
+        };
+
+        List<String> required = List.of("Title", "Description", "Location", "Type", "Start", "End", "Customer_ID", "User", "Contact");
+        return run(csvFile, rejectsFile, required, parser, rows -> AppointmentsQuery.insertApps(rows, rows.size()), writeFailed, progress);
+    }
+
+    /**
+     * The main function imports one file from the command line, printing the progress.
+     *
+     * @param args customers or appointments, the CSV file, and optionally the rejected rows report
+     * @throws Exception exception in case the import fails
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || !(args[0].equals("customers") || args[0].equals("appointments"))) {
+            System.out.println("Usage: CsvImport customers|appointments file.csv [rejected.csv]");
+            return;
+        }
+        Path csvFile = Path.of(args[1]);
+        Path rejectsFile = args.length > 2 ? Path.of(args[2]) : csvFile.resolveSibling(csvFile.getFileName() + ".rejected.csv");
+
+        JDBC.makeConnection();
+        try {
+            ImportStats stats = args[0].equals("customers")
+                    ? importCustomers(csvFile, rejectsFile, System.out::println)
+                    : importAppointments(csvFile, rejectsFile, System.out::println);
+            System.out.println("Import finished: " + stats + ". Rejected rows are listed in " + rejectsFile);
+        } finally {
+            JDBC.closeConnection();
+        }
+    }
+
+    /**
+     * The run function reads, validates and writes one file.
+     */
+    private static <T> ImportStats run(Path csvFile, Path rejectsFile, List<String> required, RowParser<T> parser, ChunkWriter<T> chunkWriter,
+                                       Consumer<T> writeFailed, Consumer<ImportStats> progress) throws IOException, SQLException {
+        long startedAt = System.currentTimeMillis();
+        AtomicLong read = new AtomicLong();
+        AtomicLong imported = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(csvFile, StandardCharsets.UTF_8));
+             CsvWriter rejects = new CsvWriter(Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8))) {
+            List<String> header = reader.readRecord();
+            if (header == null) {
+                throw new IOException(csvFile + " is empty");
+            }
+            Columns columns = new Columns(header);
+            for (String column : required) {
+                if (!columns.has(column)) {
+                    throw new IOException(csvFile + " has no " + column + " column");
+                }
+            }
+            List<String> rejectsHeader = new ArrayList<>(List.of("Line", "Reason"));
+            rejectsHeader.addAll(header);
+            rejects.writeRecord(rejectsHeader);
+
+            BlockingQueue<Chunk<T>> queue = new ArrayBlockingQueue<>(queuedChunks);
+            Chunk<T> endOfFile = new Chunk<>();
+            AtomicReference<SQLException> writeError = new AtomicReference<>();
+
+            // Writer thread inserting the queued chunks; after an error it keeps taking chunks so reading never waits forever
+            Thread writer = new Thread(() -> {
+                try {
+                    for (Chunk<T> chunk = queue.take(); chunk != endOfFile; chunk = queue.take()) {
+                        if (writeError.get() != null) {
+                            continue;
+                        }
+                        try {
+                            BatchResult result = chunkWriter.write(chunk.rows);
+                            for (BatchResult.RowError rowError : result.getErrors()) {
+                                int index = rowError.getIndex();
+                                writeFailed.accept(chunk.rows.get(index));
+                                reject(rejects, chunk.lines.get(index), rowError.getError().getMessage(), chunk.records.get(index));
+                            }
+                            imported.addAndGet(result.getWrittenCount());
+                            rejected.addAndGet(result.getFailedCount());
+                            progress.accept(new ImportStats(read.get(), imported.get(), rejected.get(), System.currentTimeMillis() - startedAt));
+                        } catch (SQLException e) {
+                            writeError.set(e);
+                        } catch (IOException | RuntimeException e) {
+                            writeError.set(new SQLException("Import stopped: " + e.getMessage(), e));
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "csv-import-writer");
+            writer.setDaemon(true);
+            writer.start();
+
+            try {
+                Chunk<T> chunk = new Chunk<>();
+                List<String> record;
+                while (writeError.get() == null && (record = reader.readRecord()) != null) {
+                    if (record.size() == 1 && record.get(0).isBlank()) {
+                        continue; // Empty line
+                    }
+                    read.incrementAndGet();
+                    try {
+                        chunk.add(parser.parse(columns, record), reader.getRecordLine(), record);
+                    } catch (RowRejected e) {
+                        reject(rejects, reader.getRecordLine(), e.getMessage(), record);
+                        rejected.incrementAndGet();
+                    }
+                    if (chunk.rows.size() == chunkSize) {
+                        queue.put(chunk); // Waits while the writer is behind
+                        chunk = new Chunk<>();
+                    }
+                }
+                if (!chunk.rows.isEmpty()) {
+                    queue.put(chunk);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Import interrupted", e);
+            } finally {
+                try {
+                    queue.put(endOfFile);
+                    writer.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (writeError.get() != null) {
+                throw writeError.get();
+            }
+        }
+
+        ImportStats stats = new ImportStats(read.get(), imported.get(), rejected.get(), System.currentTimeMillis() - startedAt);
+        progress.accept(stats);
+        return stats;
+    }
+
+    /**
+     * The reject function adds a row to the rejected rows report.
+     */
+    private static void reject(CsvWriter rejects, long line, String reason, List<String> record) throws IOException {
+        List<String> row = new ArrayList<>(List.of(String.valueOf(line), reason));
+        row.addAll(record);
+        synchronized (rejects) {
+            rejects.writeRecord(row);
+        }
+    }
+
+    /**
+     * The idsByName function maps lower case names to ids. Names used more than once map to null,
+     * so rows using them are rejected instead of picking one at random.
+     */
+    private static <T> Map<String, Integer> idsByName(List<T> items, Function<T, String> nameOf, ToIntFunction<T> idOf) {
+        Map<String, Integer> ids = new HashMap<>();
+        for (T item : items) {
+            String name = nameOf.apply(item).trim().toLowerCase(Locale.ROOT);
+            ids.put(name, ids.containsKey(name) ? null : idOf.applyAsInt(item));
+        }
+        return ids;
+    }
+
+    /**
+     * The lookUp function returns the id of a name, rejecting the row if the name is unknown or used more than once.
+     */
+    private static int lookUp(Map<String, Integer> ids, String name, String kind) throws RowRejected {
+        String key = name.toLowerCase(Locale.ROOT);
+        if (!ids.containsKey(key)) {
+            throw new RowRejected("Unknown " + kind + " '" + name + "'");
+        }
+        Integer id = ids.get(key);
+        if (id == null) {
+            throw new RowRejected("More than one " + kind + " is called '" + name + "'");
+        }
+        return id;
+    }
+
+    /**
+     * The parseTime function reads a Start or End value.
+     */
+    private static LocalDateTime parseTime(String value, String column) throws RowRejected {
+        try {
+            return LocalDateTime.parse(value, timeFormat);
+        } catch (DateTimeParseException e) {
+            throw new RowRejected(column + " '" + value + "' is not a time like 2024-05-31 09:30");
+        }
+    }
+
+    /**
+     * The toKey function turns a date and time into the number the schedules are ordered by.
+     */
+    private static long toKey(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Turns one record into a row to insert, or rejects it.
+     *
+     * @param <T> type of the rows
+     */
+    private interface RowParser<T> {
+        T parse(Columns columns, List<String> record) throws RowRejected, SQLException;
+    }
+
+    /**
+     * Inserts one chunk of rows.
+     *
+     * @param <T> type of the rows
+     */
+    private interface ChunkWriter<T> {
+        BatchResult write(List<T> rows) throws SQLException;
+    }
+
+    /**
+     * Thrown by a row parser for a row that fails validation.
+     */
+    private static class RowRejected extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private RowRejected(String reason) {
+            super(reason);
+        }
+    }
+
+    /**
+     * The columns of a file, found by name in its header regardless of case.
+     */
+    private static class Columns {
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        private Columns(List<String> header) {
+            for (int i = 0; i < header.size(); i++) {
+                indexes.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        private boolean has(String column) {
+            return indexes.containsKey(column.toLowerCase(Locale.ROOT));
+        }
+
+        /**
+         * The get function returns the trimmed value of a column, or an empty string if the record is too short.
+         */
+        private String get(List<String> record, String column) {
+            int index = indexes.get(column.toLowerCase(Locale.ROOT));
+            return index < record.size() ? record.get(index).trim() : "";
+        }
+    }
+
+    /**
+     * Rows waiting to be inserted together, with the line and record each came from for the rejected rows report.
+     *
+     * @param <T> type of the rows
+     */
+    private static class Chunk<T> {
+        private final List<T> rows = new ArrayList<>(chunkSize);
+        private final List<Long> lines = new ArrayList<>(chunkSize);
+        private final List<List<String>> records = new ArrayList<>(chunkSize);
+
+        private void add(T row, long line, List<String> record) {
+            rows.add(row);
+            lines.add(line);
+            records.add(record);
+        }
+    }
+}
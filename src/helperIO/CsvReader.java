@@ -0,0 +1,149 @@
+package helperIO;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CSV reader class reads comma separated records one at a time, so a file of any size can be read without
+ * holding more than the current record in memory.
+ * Fields may be quoted with double quotes, in which case they can contain commas, line breaks and doubled quotes.
+ * Both \n and \r\n line endings are accepted and a leading byte order mark is skipped.
+ */
+public class CsvReader implements Closeable {
+    /**
+     * Longest field accepted, so a missing closing quote cannot read the rest of the file into one field.
+     */
+    private static final int maxFieldLength = 1 << 20;
+    /**
+     * The reader the records are read from.
+     */
+    private final Reader reader;
+    /**
+     * Characters read ahead from the reader.
+     */
+    private final char[] buffer = new char[8192];
+    /**
+     * Position of the next character in the buffer.
+     */
+    private int position;
+    /**
+     * Number of characters in the buffer.
+     */
+    private int limit;
+    /**
+     * Line the reader is currently on, starting at 1.
+     */
+    private long lineNumber = 1;
+    /**
+     * Line the last record started on.
+     */
+    private long recordLine;
+    /**
+     * Whether the first character has been read yet.
+     */
+    private boolean started;
+
+    /**
+     * Constructor for the CsvReader class.
+     *
+     * @param reader the reader the records are read from
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * The readRecord function reads the next record.
+     *
+     * @return the fields of the record, or null at the end of the file
+     * @throws IOException exception in case the file cannot be read or a quote is never closed
+     */
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        if (!started) {
+            started = true;
+            if (c == 0xFEFF) {
+                c = read();
+            }
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = lineNumber;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (field.length() > maxFieldLength) {
+                throw new IOException("Field longer than " + maxFieldLength + " characters in record starting on line " + recordLine);
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Quote not closed in record starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next != '"') {
+                        // Closing quote, the character after it is handled as unquoted
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                    field.append('"');
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                if (c == '\n') {
+                    lineNumber++;
+                }
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * The getRecordLine function returns the line the last record read started on.
+     *
+     * @return line number, starting at 1
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    /**
+     * The read function returns the next character, or -1 at the end of the file.
+     */
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,85 @@
+package helperIO;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The CSV writer class writes comma separated records. Fields containing commas, quotes or line breaks are quoted,
+ * and null fields are written as empty fields.
+ */
+public class CsvWriter implements Closeable, Flushable {
+    /**
+     * The writer the records are written to.
+     */
+    private final Writer writer;
+
+    /**
+     * Constructor for the CsvWriter class.
+     *
+     * @param writer the writer the records are written to
+     */
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * The writeRecord function writes one record followed by a line break.
+     *
+     * @param fields fields of the record
+     * @throws IOException exception in case the file cannot be written
+     */
+    public void writeRecord(List<String> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(fields.get(i));
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * The writeRecord function writes one record followed by a line break.
+     *
+     * @param fields fields of the record
+     * @throws IOException exception in case the file cannot be written
+     */
+    public void writeRecord(String... fields) throws IOException {
+        writeRecord(Arrays.asList(fields));
+    }
+
+    /**
+     * The writeField function writes one field, quoting it if needed.
+     */
+    private void writeField(String field) throws IOException {
+        if (field == null) {
+            return;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < field.length() && !needsQuotes; i++) {
+            char c = field.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,359 @@
+package helperIO;
+
+import helperDB.ExportQuery;
+import helperDB.JDBC;
+import helperDB.ReferenceCache;
+import helperDB.RowSink;
+import helperReports.AppointmentSnapshot;
+import helperReports.HistoricalAnalytics;
+import helperReports.HistoricalReport;
+import model.Contact;
+import model.ContactWeek;
+import model.Country;
+import model.Division;
+import model.RegionMinutes;
+import model.TypeMonthCount;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The export class writes the appointment and customer tables and the three reports to CSV or JSON Lines files.
+ * Rows go straight from the query's result set to the file channel, one at a time, so memory use stays flat
+ * however many rows are exported.
+ * The format follows the file name: .csv or .jsonl, with .gz added to compress the file, for example appointments.jsonl.gz.
+ * Times are written in local system time in the format CsvImport reads, so an exported CSV file can be imported again.
+ * It can be run with: java helperIO.Export appointments|customers|type-month|contact-schedule|customers-of-month file
+ * or, for the historical reports, java helperIO.Export historical directory [.csv|.jsonl[.gz]]
+ */
+public abstract class Export {
+    /**
+     * Format of times in the exported files.
+     */
+    private static final DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    /**
+     * Size of the buffer between the rows and the file, in bytes.
+     */
+    private static final int bufferSize = 64 * 1024;
+
+    /**
+     * The exportAppointments function exports all appointments.
+     *
+     * @param file file to write, its name ending in .csv or .jsonl and optionally .gz
+     * @return number of rows exported
+     * @throws IOException exception in case the file cannot be written
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static long exportAppointments(Path file) throws IOException, SQLException {
+        try (FileSink sink = open(file)) {
+            return ExportQuery.streamAppointments(sink);
+        }
+    }
+
+    /**
+     * The exportCustomers function exports all customers.
+     *
+     * @param file file to write, its name ending in .csv or .jsonl and optionally .gz
+     * @return number of rows exported
+     * @throws IOException exception in case the file cannot be written
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static long exportCustomers(Path file) throws IOException, SQLException {
+        try (FileSink sink = open(file)) {
+            return ExportQuery.streamCustomers(sink);
+        }
+    }
+
+    /**
+     * The exportTypeMonthReport function exports the number of appointments by type and month.
+     *
+     * @param file file to write, its name ending in .csv or .jsonl and optionally .gz
+     * @return number of rows exported
+     * @throws IOException exception in case the file cannot be written
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static long exportTypeMonthReport(Path file) throws IOException, SQLException {
+        try (FileSink sink = open(file)) {
+            return ExportQuery.streamTypeMonthCounts(sink);
+        }
+    }
+
+    /**
+     * The exportContactScheduleReport function exports the schedule of every contact.
+     *
+     * @param file file to write, its name ending in .csv or .jsonl and optionally .gz
+     * @return number of rows exported
+     * @throws IOException exception in case the file cannot be written
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static long exportContactScheduleReport(Path file) throws IOException, SQLException {
+        try (FileSink sink = open(file)) {
+            return ExportQuery.streamContactSchedules(sink);
+        }
+    }
+
+    /**
+     * The exportCustomersOfMonthReport function exports the appointment minutes of every customer in a month,
+     * most minutes first. The report screen shows the first three rows for the current month.
+     *
+     * @param month any day of the month to export
+     * @param file file to write, its name ending in .csv or .jsonl and optionally .gz
+     * @return number of rows exported
+     * @throws IOException exception in case the file cannot be written
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static long exportCustomersOfMonthReport(LocalDate month, Path file) throws IOException, SQLException {
+        LocalDateTime start = month.withDayOfMonth(1).atStartOfDay();
+        try (FileSink sink = open(file)) {
+            return ExportQuery.streamCustomerMinutes(start, start.plusMonths(1), sink);
+        }
+    }
+
+    /**
+     * The exportHistoricalReports function computes the historical reports from one snapshot of all appointments and
+     * exports each to its own file in a directory: contact-weeks, division-minutes, country-minutes and type-months.
+     *
+     * @param directory directory to write the files to
+     * @param extension file name ending, such as .csv or .jsonl.gz
+     * @return number of rows exported over all files
+     * @throws IOException exception in case the files cannot be written
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static long exportHistoricalReports(Path directory, String extension) throws IOException, SQLException {
+        HistoricalReport report = HistoricalAnalytics.compute(AppointmentSnapshot.load());
+        long rows = 0;
+
+        try (FileSink sink = open(directory.resolve("contact-weeks" + extension))) {
+            sink.start(List.of("Contact_ID", "Contact", "Week_Start", "Minutes", "Utilization"));
+            for (ContactWeek i : report.getContactWeeks()) {
+                Contact contact = ReferenceCache.getContact(i.getContactId());
+                sink.row(new Object[]{i.getContactId(), contact == null ? null : contact.getName(), i.getWeekStart(), i.getMinutes(), i.getUtilization()});
+                rows++;
+            }
+        }
+        try (FileSink sink = open(directory.resolve("division-minutes" + extension))) {
+            sink.start(List.of("Division_ID", "Division", "Country_ID", "Customers", "Minutes", "Minutes_Per_Customer"));
+            for (RegionMinutes i : report.getDivisionMinutes()) {
+                Division division = ReferenceCache.getDivision(i.getRegionId());
+                sink.row(new Object[]{i.getRegionId(), division == null ? null : division.getDivision(), division == null ? null : division.getCountryId(),
+                        i.getCustomers(), i.getMinutes(), i.getMinutesPerCustomer()});
+                rows++;
+            }
+        }
+        try (FileSink sink = open(directory.resolve("country-minutes" + extension))) {
+            sink.start(List.of("Country_ID", "Country", "Customers", "Minutes", "Minutes_Per_Customer"));
+            for (RegionMinutes i : report.getCountryMinutes()) {
+                Country country = ReferenceCache.getCountry(i.getRegionId());
+                sink.row(new Object[]{i.getRegionId(), country == null ? null : country.getCountry(), i.getCustomers(), i.getMinutes(), i.getMinutesPerCustomer()});
+                rows++;
+            }
+        }
+        try (FileSink sink = open(directory.resolve("type-months" + extension))) {
+            sink.start(List.of("Year", "Month", "Type", "Appointments"));
+            for (TypeMonthCount i : report.getTypeMonthCounts()) {
+                sink.row(new Object[]{i.getYear(), i.getMonth(), i.getType(), i.getCount()});
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * The main function exports one table or report from the command line.
+     *
+     * @param args what to export and the file to write
+     * @throws Exception exception in case the export fails
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> exports = List.of("appointments", "customers", "type-month", "contact-schedule", "customers-of-month", "historical");
+        if (args.length < 2 || !exports.contains(args[0])) {
+            System.out.println("Usage: Export appointments|customers|type-month|contact-schedule|customers-of-month file.csv|file.jsonl[.gz]");
+            System.out.println("       Export historical directory [.csv|.jsonl[.gz]]");
+            return;
+        }
+        Path file = Path.of(args[1]);
+
+        JDBC.makeConnection();
+        try {
+            long startedAt = System.currentTimeMillis();
+            long rows = switch (args[0]) {
+                case "appointments" -> exportAppointments(file);
+                case "customers" -> exportCustomers(file);
+                case "type-month" -> exportTypeMonthReport(file);
+                case "contact-schedule" -> exportContactScheduleReport(file);
+                case "historical" -> exportHistoricalReports(file, args.length > 2 ? args[2] : ".csv");
+                default -> exportCustomersOfMonthReport(LocalDate.now(), file);
+            };
+            System.out.println("Exported " + rows + " rows to " + file + " in " + (System.currentTimeMillis() - startedAt) + " ms");
+        } finally {
+            JDBC.closeConnection();
+        }
+    }
+
+    /**
+     * The open function opens the file and picks the sink for its format.
+     */
+    private static FileSink open(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) {
+            name = name.substring(0, name.length() - 3);
+        }
+        if (!name.endsWith(".csv") && !name.endsWith(".jsonl")) {
+            throw new IllegalArgumentException("Export file must end in .csv or .jsonl, optionally followed by .gz: " + file);
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        OutputStream output = Channels.newOutputStream(channel);
+        if (gzip) {
+            output = new GZIPOutputStream(output, bufferSize);
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), bufferSize);
+        return name.endsWith(".csv") ? new CsvSink(writer) : new JsonLinesSink(writer);
+    }
+
+    /**
+     * The format function turns a value into the text written to the file. Times are written in timeFormat.
+     */
+    private static String format(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timeFormat.format(timestamp.toLocalDateTime());
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return timeFormat.format(dateTime);
+        }
+        return value.toString();
+    }
+
+    /**
+     * The file sink class is a row sink that writes to a file and is closed when the export ends.
+     */
+    private abstract static class FileSink implements RowSink, AutoCloseable {
+        protected final Writer writer;
+
+        FileSink(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * The CSV sink class writes a header record followed by one record per row.
+     */
+    private static class CsvSink extends FileSink {
+        private final CsvWriter csv;
+        private final List<String> fields = new ArrayList<>();
+
+        CsvSink(Writer writer) {
+            super(writer);
+            csv = new CsvWriter(writer);
+        }
+
+        @Override
+        public void start(List<String> columns) throws IOException {
+            csv.writeRecord(columns);
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            fields.clear();
+            for (Object value : values) {
+                fields.add(format(value));
+            }
+            csv.writeRecord(fields);
+        }
+    }
+
+    /**
+     * The JSON Lines sink class writes one JSON object per line, keyed by column name.
+     * Numbers and booleans are written as JSON values, everything else as strings.
+     */
+    private static class JsonLinesSink extends FileSink {
+        private String[] keys;
+
+        JsonLinesSink(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void start(List<String> columns) {
+            // The quoted keys are the same on every line, so they are built once
+            keys = new String[columns.size()];
+            for (int i = 0; i < keys.length; i++) {
+                StringBuilder key = new StringBuilder();
+                appendString(key, columns.get(i));
+                keys[i] = key.append(':').toString();
+            }
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            StringBuilder line = new StringBuilder(128);
+            line.append('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append(keys[i]);
+                Object value = values[i];
+                if (value == null) {
+                    line.append("null");
+                } else if (value instanceof Number || value instanceof Boolean) {
+                    line.append(value);
+                } else {
+                    appendString(line, format(value));
+                }
+            }
+            line.append("}\n");
+            writer.write(line.toString());
+        }
+
+        /**
+         * The appendString function appends a quoted JSON string, escaping quotes, backslashes and control characters.
+         */
+        private static void appendString(StringBuilder line, String text) {
+            line.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '"' -> line.append("\\\"");
+                    case '\\' -> line.append("\\\\");
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    case '\t' -> line.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            line.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            line.append(c);
+                        }
+                    }
+                }
+            }
+            line.append('"');
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package helperIO;
+
+/**
+ * The import stats class holds the progress of a CSV import at one point in time.
+ */
+public class ImportStats {
+    /**
+     * Number of data rows read from the file.
+     */
+    private final long rowsRead;
+    /**
+     * Number of rows written to the database.
+     */
+    private final long rowsImported;
+    /**
+     * Number of rows rejected by validation or by the database.
+     */
+    private final long rowsRejected;
+    /**
+     * Time since the import started, in milliseconds.
+     */
+    private final long elapsedMillis;
+
+    /**
+     * Constructor for the ImportStats class.
+     *
+     * @param rowsRead number of data rows read from the file
+     * @param rowsImported number of rows written to the database
+     * @param rowsRejected number of rows rejected
+     * @param elapsedMillis time since the import started, in milliseconds
+     */
+    public ImportStats(long rowsRead, long rowsImported, long rowsRejected, long elapsedMillis) {
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.rowsRejected = rowsRejected;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * The getRowsPerSecond function returns how many rows were imported or rejected per second.
+     *
+     * @return rows finished per second
+     */
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? 0 : (rowsImported + rowsRejected) * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows read, %d imported, %d rejected, %.0f rows/s", rowsRead, rowsImported, rowsRejected, getRowsPerSecond());
+    }
+}
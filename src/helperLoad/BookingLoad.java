@@ -0,0 +1,348 @@
+package helperLoad;
+
+import helperDB.AppointmentsQuery;
+import helperDB.CustomersQuery;
+import helperDB.DataGenerator;
+import helperDB.JDBC;
+import helperDB.ReferenceCache;
+import helperMetrics.LatencyHistogram;
+import helperReports.ReportMaterializations;
+import helperDB.BookingResult;
+import helperSchedule.BookingService;
+import model.Customer;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The booking load class simulates many schedulers saving appointments at the same time, without the user interface.
+ * Each simulated user runs on its own thread with its own connection and repeats the workflow of the appointment
+ * page's execute button: an add or update first checks the customer for overlapping appointments and only writes if
+ * there are none, and a delete removes one of the user's earlier bookings.
+ * The bookings go to a small set of customers over a few days, so users compete for the same times.
+ * Adds and updates go through BookingService, or with safe=false through the old separate check and write.
+ * It reports throughput, latency percentiles per operation, how often the overlap check turned a booking down,
+ * and how many double bookings got past the check because two users checked before either wrote.
+ * With reports=true the report materializations are kept up to date during the run and checked against the
+ * database at the end.
+ * It can be run with: java helperLoad.BookingLoad [users=20] [seconds=30] [mix=add:70,update:20,delete:10]
+ * [customers=20] [days=5] [seed=1] [think=0] [safe=true] [cleanup=true] [reports=false]
+ */
+public abstract class BookingLoad {
+    /**
+     * Time zone of the office hours.
+     */
+    private static final ZoneId office = ZoneId.of("America/New_York");
+    /**
+     * Appointment lengths in minutes.
+     */
+    private static final int[] lengths = {15, 30, 45, 60, 90, 120};
+    private static final String[] operations = {"add", "update", "delete"};
+
+    /**
+     * The main function runs the load and prints the report.
+     *
+     * @param args settings as name=value pairs
+     * @throws Exception exception in case the load cannot run
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new HashMap<>(Map.of("users", "20", "seconds", "30", "mix", "add:70,update:20,delete:10",
+                "customers", "20", "days", "5", "seed", "1", "think", "0", "safe", "true", "cleanup", "true", "reports", "false"));
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 0 || !settings.containsKey(arg.substring(0, equals))) {
+                System.out.println("Usage: BookingLoad [users=20] [seconds=30] [mix=add:70,update:20,delete:10] [customers=20] [days=5] [seed=1] [think=0] [safe=true] [cleanup=true] [reports=false]");
+                return;
+            }
+            settings.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        int users = Integer.parseInt(settings.get("users"));
+        int seconds = Integer.parseInt(settings.get("seconds"));
+        int[] mix = parseMix(settings.get("mix"));
+
+        // Every user gets a connection without waiting for another user to return one
+        if (System.getProperty(JDBC.poolSizeProperty) == null) {
+            System.setProperty(JDBC.poolSizeProperty, String.valueOf(users + 2));
+        }
+        JDBC.makeConnection();
+        try {
+            if (JDBC.isEmbedded()) {
+                DataGenerator.seedIfEmpty();
+            }
+            List<Customer> customers = CustomersQuery.selectCustomers();
+            int[] customerIds = new int[Math.min(Integer.parseInt(settings.get("customers")), customers.size())];
+            for (int i = 0; i < customerIds.length; i++) {
+                customerIds[i] = customers.get(i).getId();
+            }
+            int contactId = ReferenceCache.getContacts().get(0).getId();
+            int userId = ReferenceCache.getUsers().get(0).getId();
+
+            boolean safe = Boolean.parseBoolean(settings.get("safe"));
+            System.out.printf("Booking load: %d users for %d s, mix add %d%% update %d%% delete %d%%, %d customers over %s days, %s%n",
+                    users, seconds, mix[0], mix[1], mix[2], customerIds.length, settings.get("days"),
+                    !safe ? "separate check and write" : BookingService.isLocalOnly() ? "in-process booking locks" : "database booking locks");
+            boolean reports = Boolean.parseBoolean(settings.get("reports"));
+            if (reports) {
+                ReportMaterializations.getInstance();
+            }
+            Run run = new Run(customerIds, contactId, userId, mix, Integer.parseInt(settings.get("days")), Long.parseLong(settings.get("think")), safe);
+            int overlapsBefore = AppointmentsQuery.countOverlappingPairs();
+            run.start(users, Long.parseLong(settings.get("seed")), seconds * 1000L);
+            int overlapsAfter = AppointmentsQuery.countOverlappingPairs();
+            run.report(overlapsBefore, overlapsAfter);
+
+            if (Boolean.parseBoolean(settings.get("cleanup"))) {
+                run.cleanUp();
+            }
+            if (reports) {
+                List<String> differences = ReportMaterializations.getInstance().verify();
+                System.out.println("Report materializations: " + (differences.isEmpty() ? "match the database" : differences.size() + " totals differ from the database"));
+                differences.stream().limit(10).forEach(difference -> System.out.println("  " + difference));
+            }
+        } finally {
+            JDBC.closeConnection();
+        }
+    }
+
+    /**
+     * The parseMix function reads the share of adds, updates and deletes, for example add:70,update:20,delete:10.
+     */
+    private static int[] parseMix(String text) {
+        int[] mix = new int[operations.length];
+        for (String part : text.split(",")) {
+            String[] nameAndShare = part.split(":");
+            int operation = List.of(operations).indexOf(nameAndShare[0].trim());
+            if (operation < 0 || nameAndShare.length != 2) {
+                throw new IllegalArgumentException("Unknown mix entry: " + part);
+            }
+            mix[operation] = Integer.parseInt(nameAndShare[1].trim());
+        }
+        if (mix[0] + mix[1] + mix[2] <= 0) {
+            throw new IllegalArgumentException("The mix must have at least one operation");
+        }
+        return mix;
+    }
+
+    /**
+     * The run class holds the settings and results of one load run.
+     */
+    private static class Run {
+        private final int[] customerIds;
+        private final int contactId;
+        private final int userId;
+        private final int[] mix;
+        private final int days;
+        private final long thinkMillis;
+        private final boolean safe;
+        private final LocalDate firstDay = LocalDate.now().plusDays(1);
+
+        private final LatencyHistogram[] latencies = {new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+        private final LatencyHistogram allLatencies = new LatencyHistogram();
+        private final LongAdder[] conflicts = {new LongAdder(), new LongAdder(), new LongAdder()};
+        private final LongAdder errors = new LongAdder();
+        private final AtomicReference<SQLException> firstError = new AtomicReference<>();
+        /**
+         * Appointments booked by each user and still in the database, as id and customer id pairs.
+         */
+        private final List<List<int[]>> booked = new ArrayList<>();
+        private long elapsedMillis;
+
+        Run(int[] customerIds, int contactId, int userId, int[] mix, int days, long thinkMillis, boolean safe) {
+            this.customerIds = customerIds;
+            this.contactId = contactId;
+            this.userId = userId;
+            this.mix = mix;
+            this.days = days;
+            this.thinkMillis = thinkMillis;
+            this.safe = safe;
+        }
+
+        /**
+         * The start function runs the users until the time is up and waits for them to finish.
+         */
+        void start(int users, long seed, long durationMillis) throws InterruptedException {
+            CountDownLatch ready = new CountDownLatch(users);
+            CountDownLatch go = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                List<int[]> own = new ArrayList<>();
+                booked.add(own);
+                Random random = new Random(seed + i);
+                Thread thread = new Thread(() -> {
+                    ready.countDown();
+                    try {
+                        go.await();
+                        long deadline = System.currentTimeMillis() + durationMillis;
+                        while (System.currentTimeMillis() < deadline) {
+                            step(random, own);
+                            if (thinkMillis > 0) {
+                                Thread.sleep(thinkMillis);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "Booking user " + (i + 1));
+                threads.add(thread);
+                thread.start();
+            }
+
+            ready.await();
+            long startedAt = System.currentTimeMillis();
+            go.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            elapsedMillis = System.currentTimeMillis() - startedAt;
+        }
+
+        /**
+         * The step function runs one add, update or delete, picked by the mix.
+         * Updates and deletes work on the user's own bookings, so a user without bookings adds instead.
+         */
+        private void step(Random random, List<int[]> own) {
+            int drawn = random.nextInt(mix[0] + mix[1] + mix[2]);
+            int operation = drawn < mix[0] ? 0 : drawn < mix[0] + mix[1] ? 1 : 2;
+            if (own.isEmpty()) {
+                operation = 0;
+            }
+
+            long startedAt = System.nanoTime();
+            try {
+                boolean conflict = switch (operation) {
+                    case 0 -> add(random, own);
+                    case 1 -> update(random, own);
+                    default -> delete(random, own);
+                };
+                if (conflict) {
+                    conflicts[operation].increment();
+                }
+            } catch (SQLException e) {
+                errors.increment();
+                firstError.compareAndSet(null, e);
+            }
+            long nanos = System.nanoTime() - startedAt;
+            latencies[operation].record(nanos);
+            allLatencies.record(nanos);
+        }
+
+        /**
+         * The add function checks for an overlap and inserts the appointment if there is none, like the Add button.
+         *
+         * @return true if the overlap check turned the booking down
+         */
+        private boolean add(Random random, List<int[]> own) throws SQLException {
+            int customerId = customerIds[random.nextInt(customerIds.length)];
+            LocalDateTime[] times = times(random);
+            if (safe) {
+                BookingResult booking = BookingService.book("Load test", "Booked by the load test", "Online", "Load",
+                        times[0], times[1], customerId, userId, contactId);
+                if (booking.isBooked()) {
+                    own.add(new int[] {booking.getAppId(), customerId});
+                }
+                return !booking.getConflicts().isEmpty();
+            }
+            if (!BookingService.findConflicts(customerId, times[0], times[1], -1).isEmpty()) {
+                return true;
+            }
+            int appId = AppointmentsQuery.insertAppReturningId("Load test", "Booked by the load test", "Online", "Load",
+                    times[0], times[1], customerId, userId, contactId);
+            own.add(new int[] {appId, customerId});
+            return false;
+        }
+
+        /**
+         * The update function moves one of the user's bookings to a new time if it does not overlap, like the Update button.
+         *
+         * @return true if the overlap check turned the change down
+         */
+        private boolean update(Random random, List<int[]> own) throws SQLException {
+            int[] appointment = own.get(random.nextInt(own.size()));
+            LocalDateTime[] times = times(random);
+            if (safe) {
+                return !BookingService.reschedule(appointment[0], "Load test", "Moved by the load test", "Online", "Load",
+                        times[0], times[1], appointment[1], userId, contactId).getConflicts().isEmpty();
+            }
+            if (!BookingService.findConflicts(appointment[1], times[0], times[1], appointment[0]).isEmpty()) {
+                return true;
+            }
+            AppointmentsQuery.updateApp(appointment[0], "Load test", "Moved by the load test", "Online", "Load",
+                    times[0], times[1], appointment[1], userId, contactId);
+            return false;
+        }
+
+        /**
+         * The delete function deletes one of the user's bookings, like the Delete button.
+         *
+         * @return false, since deletes are never turned down
+         */
+        private boolean delete(Random random, List<int[]> own) throws SQLException {
+            int[] appointment = own.remove(random.nextInt(own.size()));
+            AppointmentsQuery.deleteApp(appointment[0]);
+            return false;
+        }
+
+        /**
+         * The times function picks the start and end of a booking within the office hours, in local system time.
+         */
+        private LocalDateTime[] times(Random random) {
+            int slot = random.nextInt(14 * 4);
+            int minutes = Math.min(lengths[random.nextInt(lengths.length)], (14 * 4 - slot) * 15);
+            LocalDateTime officeStart = firstDay.plusDays(random.nextInt(days)).atTime(8, 0).plusMinutes(slot * 15L);
+            LocalDateTime start = officeStart.atZone(office).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            return new LocalDateTime[] {start, start.plusMinutes(minutes)};
+        }
+
+        /**
+         * The report function prints the results of the run.
+         */
+        void report(int overlapsBefore, int overlapsAfter) {
+            long total = allLatencies.getCount();
+            System.out.printf("Operations: %d in %.1f s (%.1f/s), errors: %d%n", total, elapsedMillis / 1000.0, total * 1000.0 / Math.max(1, elapsedMillis), errors.sum());
+            System.out.printf("%-8s %9s %10s %10s %10s %10s %10s %10s%n", "", "count", "mean ms", "p50 ms", "p99 ms", "p999 ms", "max ms", "conflicts");
+            for (int i = 0; i < operations.length; i++) {
+                printLine(operations[i], latencies[i], conflicts[i].sum());
+            }
+            printLine("all", allLatencies, conflicts[0].sum() + conflicts[1].sum());
+
+            long checked = latencies[0].getCount() + latencies[1].getCount();
+            System.out.printf("Conflict rate: %.2f%% of adds and updates were turned down by the overlap check%n",
+                    checked == 0 ? 0 : (conflicts[0].sum() + conflicts[1].sum()) * 100.0 / checked);
+            System.out.printf("Double bookings: %d overlapping pairs got past the overlap check (%d before the run, %d after)%n",
+                    overlapsAfter - overlapsBefore, overlapsBefore, overlapsAfter);
+            if (firstError.get() != null) {
+                System.out.println("First error: " + firstError.get().getMessage());
+            }
+        }
+
+        private static void printLine(String name, LatencyHistogram histogram, long conflicts) {
+            System.out.printf("%-8s %9d %10.3f %10.3f %10.3f %10.3f %10.3f %10d%n", name, histogram.getCount(), histogram.getMeanMicros() / 1000,
+                    histogram.getPercentileMicros(50) / 1000.0, histogram.getPercentileMicros(99) / 1000.0,
+                    histogram.getPercentileMicros(99.9) / 1000.0, histogram.getMaxMicros() / 1000.0, conflicts);
+        }
+
+        /**
+         * The cleanUp function deletes the appointments the run booked.
+         */
+        void cleanUp() throws SQLException {
+            int deleted = 0;
+            for (List<int[]> own : booked) {
+                for (int[] appointment : own) {
+                    AppointmentsQuery.deleteApp(appointment[0]);
+                    deleted++;
+                }
+            }
+            System.out.println("Deleted the " + deleted + " appointments booked by the run");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package helperMetrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The controller init event class is a Java Flight Recorder event covering the initialize function of a controller.
+ * Data the controller loads in the background is recorded by query and report events instead.
+ */
+@Name("schedule.ControllerInitialize")
+@Label("Controller Initialize")
+@Category({"Schedule", "Views"})
+@Description("Initialize function of a screen controller")
+public class ControllerInitEvent extends jdk.jfr.Event {
+    @Label("Screen")
+    public String screen;
+
+    /**
+     * The start function creates the event for a screen and starts its timing.
+     *
+     * @param screen name of the screen being initialized
+     * @return the started event, to be ended with commit
+     */
+    public static ControllerInitEvent start(String screen) {
+        ControllerInitEvent event = new ControllerInitEvent();
+        event.screen = screen;
+        event.begin();
+        return event;
+    }
+}
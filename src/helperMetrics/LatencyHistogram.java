@@ -0,0 +1,126 @@
+package helperMetrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latency histogram class counts durations in buckets of microseconds, so percentiles can be read without
+ * keeping every sample. Durations below 64 microseconds have their own bucket; above that each power of two is
+ * split into 32 buckets, so a percentile is at most about 3% above the true value.
+ * Recording is lock free and can be done from any number of threads.
+ */
+public class LatencyHistogram {
+    /**
+     * Buckets per power of two above the exact range.
+     */
+    private static final int subBuckets = 32;
+    /**
+     * Durations below this many microseconds are counted exactly.
+     */
+    private static final int exactLimit = 2 * subBuckets;
+    /**
+     * Number of buckets, enough for durations of about 2^40 microseconds (12 days).
+     */
+    private static final int bucketCount = exactLimit + (40 - 6) * subBuckets;
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucketCount);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * The record function counts one duration.
+     *
+     * @param nanos duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucketOf(micros));
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * The getCount function returns the number of durations recorded.
+     *
+     * @return number of durations
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * The getMeanMicros function returns the mean duration.
+     *
+     * @return mean duration in microseconds, or 0 if nothing was recorded
+     */
+    public double getMeanMicros() {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : (double) totalMicros.sum() / recorded;
+    }
+
+    /**
+     * The getMaxMicros function returns the longest duration recorded.
+     *
+     * @return longest duration in microseconds
+     */
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * The getPercentileMicros function returns the duration that the given share of the recorded durations do not exceed,
+     * as the upper end of its bucket.
+     *
+     * @param percentile percentile from 0 to 100, for example 99.9
+     * @return duration in microseconds, or 0 if nothing was recorded
+     */
+    public long getPercentileMicros(double percentile) {
+        long recorded = 0;
+        long[] snapshot = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            snapshot[i] = counts.get(i);
+            recorded += snapshot[i];
+        }
+        if (recorded == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long seen = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    /**
+     * The bucketOf function returns the bucket a duration is counted in.
+     */
+    private static int bucketOf(long micros) {
+        if (micros < exactLimit) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - 5;
+        int bucket = exactLimit + (exponent - 6) * subBuckets + (int) ((micros >> shift) - subBuckets);
+        return Math.min(bucket, bucketCount - 1);
+    }
+
+    /**
+     * The upperBoundOf function returns the longest duration counted in a bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < exactLimit) {
+            return bucket;
+        }
+        int exponent = 6 + (bucket - exactLimit) / subBuckets;
+        long mantissa = subBuckets + (bucket - exactLimit) % subBuckets;
+        return ((mantissa + 1) << (exponent - 5)) - 1;
+    }
+}
@@ -0,0 +1,28 @@
+package helperMetrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The query event class is a Java Flight Recorder event covering one run of a prepared statement, from running it
+ * until its rows have been read. It is recorded together with QueryMetrics, so it is not recorded when
+ * schedule.metrics is set to false.
+ */
+@Name("schedule.Query")
+@Label("Query")
+@Category({"Schedule", "Database"})
+@Description("Run of a prepared statement, including reading its rows")
+public class QueryEvent extends jdk.jfr.Event {
+    @Label("Query")
+    @Description("Function that prepared the statement")
+    public String query;
+    @Label("SQL")
+    public String sql;
+    @Label("Rows")
+    @Description("Rows read or changed")
+    public long rows;
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,241 @@
+package helperMetrics;
+
+import helperIO.CsvWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The query metrics class keeps latency, row and error counts for every query, by its SQL text and the name of the
+ * query function that prepared it (for example AppointmentsQuery.selectApps).
+ * The pooled connections record every prepared statement they run, so the query classes need no changes.
+ * Queries slower than schedule.metrics.slowMillis (default 500) are printed with their SQL and parameters.
+ * With schedule.metrics.file set, a snapshot is written to that file every schedule.metrics.exportSeconds
+ * seconds (default 60). Recording is switched off with schedule.metrics=false.
+ */
+public abstract class QueryMetrics {
+    /**
+     * System property that switches recording off when set to false.
+     */
+    public static final String enabledProperty = "schedule.metrics";
+    /**
+     * System property with the duration in milliseconds from which queries are logged.
+     */
+    public static final String slowMillisProperty = "schedule.metrics.slowMillis";
+    /**
+     * System property with the file snapshots are written to.
+     */
+    public static final String fileProperty = "schedule.metrics.file";
+    /**
+     * System property with the number of seconds between snapshots.
+     */
+    public static final String exportSecondsProperty = "schedule.metrics.exportSeconds";
+
+    private static final boolean enabled = !"false".equalsIgnoreCase(System.getProperty(enabledProperty));
+    private static final long slowNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong(slowMillisProperty, 500));
+    /**
+     * Counts by query function name and then by SQL text, so functions sharing an SQL text are counted apart.
+     */
+    private static final Map<String, Map<String, QueryStats>> stats = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService exporter;
+
+    /**
+     * The isEnabled function returns whether queries are being recorded.
+     *
+     * @return false if schedule.metrics is set to false
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The record function counts one run of a query and logs it if it was slow.
+     *
+     * @param name name of the function that prepared the query
+     * @param sqlCommand SQL text of the query
+     * @param nanos time from running the query until its statement or result set was closed
+     * @param rows rows read or changed
+     * @param failed whether the query ended with an error
+     * @param parameters bound parameters, logged for slow queries
+     */
+    public static void record(String name, String sqlCommand, long nanos, long rows, boolean failed, Object[] parameters) {
+        Map<String, QueryStats> named = stats.get(name);
+        if (named == null) {
+            named = stats.computeIfAbsent(name, key -> new ConcurrentHashMap<>());
+        }
+        QueryStats queryStats = named.get(sqlCommand);
+        if (queryStats == null) {
+            queryStats = named.computeIfAbsent(sqlCommand, key -> new QueryStats(name, key));
+        }
+        queryStats.latency.record(nanos);
+        queryStats.rows.add(rows);
+        if (failed) {
+            queryStats.errors.increment();
+        }
+
+        if (nanos >= slowNanos) {
+            // Parameters of queries on passwords are not logged
+            String shown = sqlCommand.contains("Password") ? "[hidden]" : Arrays.toString(parameters);
+            System.out.println("Slow query " + name + ": " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms, " + rows + " rows"
+                    + (failed ? ", failed" : "") + "\n    " + sqlCommand + "\n    " + shown);
+        }
+    }
+
+    /**
+     * The getStats function returns the counts of every query recorded so far, slowest total time first.
+     *
+     * @return list of query counts
+     */
+    public static List<QueryStats> getStats() {
+        List<QueryStats> snapshot = new ArrayList<>();
+        for (Map<String, QueryStats> named : stats.values()) {
+            snapshot.addAll(named.values());
+        }
+        snapshot.sort(Comparator.comparingDouble((QueryStats queryStats) -> queryStats.getCount() * queryStats.getLatency().getMeanMicros()).reversed());
+        return snapshot;
+    }
+
+    /**
+     * The getStats function returns the counts of the queries prepared by one function.
+     *
+     * @param name name of the function that prepared the queries, for example AppointmentsQuery.selectApps
+     * @return query counts, empty if no such query has run
+     */
+    public static List<QueryStats> getStats(String name) {
+        List<QueryStats> matching = new ArrayList<>(stats.getOrDefault(name, Map.of()).values());
+        matching.sort(Comparator.comparingDouble((QueryStats queryStats) -> queryStats.getCount() * queryStats.getLatency().getMeanMicros()).reversed());
+        return matching;
+    }
+
+    /**
+     * The reset function forgets every query recorded so far.
+     */
+    public static void reset() {
+        stats.clear();
+    }
+
+    /**
+     * The startExport function writes a snapshot to schedule.metrics.file every schedule.metrics.exportSeconds seconds.
+     * It does nothing if no file is set or the export is already running.
+     */
+    public static synchronized void startExport() {
+        String file = System.getProperty(fileProperty);
+        if (file == null || exporter != null || !enabled) {
+            return;
+        }
+        long seconds = Math.max(1, Long.getLong(exportSecondsProperty, 60));
+        exporter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "Query metrics export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        exporter.scheduleAtFixedRate(() -> {
+            try {
+                export(Path.of(file));
+            } catch (IOException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * The stopExport function stops the periodic export and writes a last snapshot.
+     */
+    public static synchronized void stopExport() {
+        if (exporter == null) {
+            return;
+        }
+        exporter.shutdownNow();
+        exporter = null;
+        try {
+            export(Path.of(System.getProperty(fileProperty)));
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * The export function writes the counts of every query to a CSV file, replacing the file in one step so readers
+     * never see half a snapshot. Times are in milliseconds.
+     *
+     * @param file the file to write
+     * @throws IOException exception in case the file cannot be written
+     */
+    public static void export(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8);
+             CsvWriter csv = new CsvWriter(writer)) {
+            csv.writeRecord("Query", "Calls", "Errors", "Rows", "Mean", "P50", "P99", "P999", "Max", "SQL");
+            for (QueryStats queryStats : getStats()) {
+                LatencyHistogram latency = queryStats.getLatency();
+                csv.writeRecord(queryStats.getName(), String.valueOf(queryStats.getCount()), String.valueOf(queryStats.getErrorCount()),
+                        String.valueOf(queryStats.getRowCount()), millis(latency.getMeanMicros()), millis(latency.getPercentileMicros(50)),
+                        millis(latency.getPercentileMicros(99)), millis(latency.getPercentileMicros(99.9)), millis(latency.getMaxMicros()),
+                        queryStats.getSql());
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String millis(double micros) {
+        return String.format("%.3f", micros / 1000);
+    }
+
+    /**
+     * The query stats class holds the counts of one query.
+     */
+    public static class QueryStats {
+        private final String name;
+        private final String sql;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private QueryStats(String name, String sql) {
+            this.name = name;
+            this.sql = sql;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getCount() {
+            return latency.getCount();
+        }
+
+        public long getRowCount() {
+            return rows.sum();
+        }
+
+        public long getErrorCount() {
+            return errors.sum();
+        }
+    }
+}
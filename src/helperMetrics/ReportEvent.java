@@ -0,0 +1,52 @@
+package helperMetrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The report event class is a Java Flight Recorder event covering one report calculation over appointments that
+ * were already read.
+ */
+@Name("schedule.Report")
+@Label("Report")
+@Category({"Schedule", "Reports"})
+@Description("Calculation of a report from appointments in memory")
+public class ReportEvent extends jdk.jfr.Event {
+    @Label("Report")
+    public String report;
+    @Label("Input Rows")
+    @Description("Appointments the report went through")
+    public long inputRows;
+    @Label("Result Rows")
+    public long resultRows;
+
+    /**
+     * The start function creates the event for a report and starts its timing.
+     *
+     * @param report name of the report
+     * @param inputRows number of appointments the report goes through
+     * @return the started event, to be ended with finish
+     */
+    public static ReportEvent start(String report, long inputRows) {
+        ReportEvent event = new ReportEvent();
+        event.report = report;
+        event.inputRows = inputRows;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * The finish function ends the timing and records the event if it is enabled and above its threshold.
+     *
+     * @param resultRows number of rows in the result
+     */
+    public void finish(long resultRows) {
+        end();
+        if (shouldCommit()) {
+            this.resultRows = resultRows;
+            commit();
+        }
+    }
+}
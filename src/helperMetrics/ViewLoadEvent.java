@@ -0,0 +1,22 @@
+package helperMetrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The view load event class is a Java Flight Recorder event covering the loading of one FXML view, including the
+ * initialize function of its controller.
+ */
+@Name("schedule.ViewLoad")
+@Label("View Load")
+@Category({"Schedule", "Views"})
+@Description("Loading of an FXML view and its controller")
+public class ViewLoadEvent extends jdk.jfr.Event {
+    @Label("Screen")
+    public String screen;
+    @Label("Nodes")
+    @Description("Number of nodes in the loaded scene graph")
+    public int nodes;
+}
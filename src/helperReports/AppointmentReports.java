@@ -0,0 +1,135 @@
+package helperReports;
+
+import helperMetrics.ReportEvent;
+import model.Appointment;
+import model.Customer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The appointment reports class holds the report logic of the reports and main pages over lists of appointments
+ * already read, so it can be used and measured without the user interface or the database.
+ */
+public abstract class AppointmentReports {
+    /**
+     * The countOfTypeInMonth function counts the appointments of a type (ignoring case) starting in a month of any year.
+     *
+     * @param appointments appointments to count
+     * @param type appointment type to count
+     * @param month month number from 1 to 12
+     * @return number of matching appointments
+     */
+    public static int countOfTypeInMonth(List<? extends Appointment> appointments, String type, int month) {
+        ReportEvent event = ReportEvent.start("Type in month", appointments.size());
+        int count = 0;
+
+        for (Appointment i : appointments) {
+            if ((month == i.getStart().getMonth().getValue()) && (i.getType().equalsIgnoreCase(type))) {
+                count += 1;
+            }
+        }
+        event.finish(1);
+        return count;
+    }
+
+    /**
+     * The topCustomersOfMonth function finds the three customers with the most appointment minutes starting in a
+     * month of any year. Places without a customer with appointment time are left as null.
+     *
+     * @param appointments all appointments
+     * @param customers all customers
+     * @param month month to total the appointment minutes of
+     * @return array of the first, second and third place customers
+     */
+    public static Customer[] topCustomersOfMonth(List<? extends Appointment> appointments, List<Customer> customers, Month month) {
+        ReportEvent event = ReportEvent.start("Top customers of month", appointments.size());
+        ArrayList<Appointment> monthAppointments = new ArrayList<>();
+
+        // Checking if any appointments are within the month
+        for (Appointment i : appointments) {
+            if (i.getStart().getMonth() == month) {
+                monthAppointments.add(i);
+            }
+        }
+
+        // Creating a new hashmap and array to contain results
+        Map<Customer, Integer> monthTimes = new HashMap<>();
+        Customer[] topThreeCustomers = {null, null, null};
+
+        // Filling the monthTimes with all customers and total time scheduled in appointments
+        for (Customer i : customers) {
+            int duration = 0;
+            for (Appointment j : monthAppointments) {
+                if (i.getId() == j.getCustomerId()) {
+                    duration += Duration.between(j.getStart(), j.getEnd()).getSeconds()/60; // Minutes taken per appointment
+                }
+            }
+
+            monthTimes.put(i, duration);
+        }
+
+        // If there exist appointments within given month and if there are enough customers, then the maximum appointment
+        // duration is found for first, second and third place. Otherwise, it is left as "null".
+        if (!monthAppointments.isEmpty()) {
+            try {
+                for (int place = 0; place < topThreeCustomers.length; place++) {
+                    if (Collections.max(monthTimes.values()) != 0) {
+                        topThreeCustomers[place] = Collections.max(monthTimes.entrySet(), Map.Entry.comparingByValue()).getKey();
+                        monthTimes.remove(topThreeCustomers[place]);
+                    }
+                }
+            } catch (NoSuchElementException e) {
+                // Fewer than three customers
+            }
+        }
+
+        event.finish(topThreeCustomers.length - Collections.frequency(Arrays.asList(topThreeCustomers), null));
+        return topThreeCustomers;
+    }
+
+    /**
+     * The upcomingAppointments function returns a user's appointments that overlap a time range,
+     * including appointments starting or ending exactly at its ends.
+     *
+     * @param appointments all appointments
+     * @param userId user id to return the appointments of
+     * @param from start of the range
+     * @param to end of the range
+     * @return the user's appointments overlapping the range, in the given order
+     */
+    public static List<Appointment> upcomingAppointments(List<? extends Appointment> appointments, int userId, LocalDateTime from, LocalDateTime to) {
+        ReportEvent event = ReportEvent.start("Upcoming appointments", appointments.size());
+        List<Appointment> upcoming = new ArrayList<>();
+
+        for (Appointment i : appointments) {
+            // Taking time for each appointment start and end
+            LocalDateTime S2 = i.getStart();
+            LocalDateTime E2 = i.getEnd();
+
+            // Making sure to only check appointments for the given user
+            if (userId == i.getUserId()) {
+                if ((S2.isAfter(from) || S2.isEqual(from)) && S2.isBefore(to)) {
+                    // Appointment starting within the range
+                    upcoming.add(i);
+                } else if (E2.isAfter(from) && (E2.isBefore(to) || E2.isEqual(to))) {
+                    // Appointment ending within the range
+                    upcoming.add(i);
+                } else if ((S2.isBefore(from) || (S2.isEqual(from))) && (E2.isAfter(to) || E2.isEqual(to))) {
+                    // Appointment enveloping the entire range
+                    upcoming.add(i);
+                }
+            }
+        }
+        event.finish(upcoming.size());
+        return upcoming;
+    }
+}
@@ -0,0 +1,282 @@
+package helperReports;
+
+import helperDB.ExportQuery;
+import helperDB.RowSink;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The appointment snapshot class holds the appointments the historical analytics read in a compact form: one int
+ * array per column instead of an object per appointment, about 20 bytes an appointment, so years of appointments fit
+ * in memory. Contacts, customers and types are stored as positions in small tables of ids and names.
+ * The appointments are grouped by the month they start in, so each month is one range of positions and the analytics
+ * can split the work by time.
+ * Times are local system time. A snapshot does not change once built; later writes need a new snapshot.
+ */
+public class AppointmentSnapshot {
+    /**
+     * First month, as year * 12 + month - 1.
+     */
+    final int firstMonth;
+    /**
+     * Position of the first appointment of each month, plus the number of appointments at the end.
+     */
+    final int[] monthStarts;
+    /**
+     * Start of each appointment, in minutes since 1970-01-01 00:00 local time.
+     */
+    final int[] starts;
+    /**
+     * Length of each appointment, in minutes.
+     */
+    final int[] minutes;
+    /**
+     * Position of each appointment's contact in contactIds.
+     */
+    final int[] contacts;
+    /**
+     * Position of each appointment's customer in customerIds.
+     */
+    final int[] customers;
+    /**
+     * Position of each appointment's type in typeNames, or -1 if it has none.
+     */
+    final int[] types;
+    /**
+     * Contact ids, in the order first seen.
+     */
+    final int[] contactIds;
+    /**
+     * Customer ids, in the order first seen.
+     */
+    final int[] customerIds;
+    /**
+     * Division id of each customer.
+     */
+    final int[] customerDivisionIds;
+    /**
+     * Country id of each customer.
+     */
+    final int[] customerCountryIds;
+    /**
+     * Type names, told apart ignoring case, in the first spelling seen.
+     */
+    final String[] typeNames;
+
+    private AppointmentSnapshot(Builder builder, int firstMonth, int[] monthStarts, int[] starts, int[] minutes, int[] contacts, int[] customers, int[] types) {
+        this.firstMonth = firstMonth;
+        this.monthStarts = monthStarts;
+        this.starts = starts;
+        this.minutes = minutes;
+        this.contacts = contacts;
+        this.customers = customers;
+        this.types = types;
+        this.contactIds = Arrays.copyOf(builder.contactIds, builder.contactIndex.size());
+        this.customerIds = Arrays.copyOf(builder.customerIds, builder.customerIndex.size());
+        this.customerDivisionIds = Arrays.copyOf(builder.customerDivisionIds, builder.customerIndex.size());
+        this.customerCountryIds = Arrays.copyOf(builder.customerCountryIds, builder.customerIndex.size());
+        this.typeNames = builder.typeNames.toArray(new String[0]);
+    }
+
+    /**
+     * The load function reads every appointment from the database into a snapshot, streaming the rows so only the
+     * compact columns are kept.
+     *
+     * @return the snapshot
+     * @throws SQLException exception in case sql commands return an error
+     * @throws IOException exception in case the rows cannot be read
+     */
+    public static AppointmentSnapshot load() throws SQLException, IOException {
+        Builder builder = new Builder();
+        ExportQuery.streamAnalyticsRows(new RowSink() {
+            @Override
+            public void start(List<String> columns) {
+            }
+
+            @Override
+            public void row(Object[] values) {
+                builder.add(toLocalDateTime(values[0]), toLocalDateTime(values[1]), (String) values[2],
+                        ((Number) values[3]).intValue(), ((Number) values[4]).intValue(), ((Number) values[5]).intValue(), ((Number) values[6]).intValue());
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * The size function returns the number of appointments in the snapshot.
+     *
+     * @return number of appointments
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * The getFirstMonth function returns the month of the earliest appointment.
+     *
+     * @return the first month, the current month if the snapshot is empty
+     */
+    public YearMonth getFirstMonth() {
+        return YearMonth.of(Math.floorDiv(firstMonth, 12), Math.floorMod(firstMonth, 12) + 1);
+    }
+
+    /**
+     * The getMonthCount function returns the number of months from the earliest appointment to the latest.
+     *
+     * @return number of months, 0 if the snapshot is empty
+     */
+    public int getMonthCount() {
+        return monthStarts.length - 1;
+    }
+
+    /**
+     * The toLocalDateTime function reads a time column, which drivers return as a Timestamp or a LocalDateTime.
+     */
+    static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    /**
+     * The builder class collects appointments in any order and groups them by month when the snapshot is built.
+     * Until then it holds its own copy of the columns, so building takes about twice the memory of the snapshot.
+     */
+    public static class Builder {
+        private int size;
+        private int[] months = new int[1024];
+        private int[] starts = new int[1024];
+        private int[] minutes = new int[1024];
+        private int[] contacts = new int[1024];
+        private int[] customers = new int[1024];
+        private int[] types = new int[1024];
+        private final Map<Integer, Integer> contactIndex = new HashMap<>();
+        private int[] contactIds = new int[16];
+        private final Map<Integer, Integer> customerIndex = new HashMap<>();
+        private int[] customerIds = new int[256];
+        private int[] customerDivisionIds = new int[256];
+        private int[] customerCountryIds = new int[256];
+        private final Map<String, Integer> typeIndex = new HashMap<>();
+        private final List<String> typeNames = new ArrayList<>();
+
+        /**
+         * The add function adds one appointment.
+         *
+         * @param start appointment start in local system time
+         * @param end appointment end in local system time
+         * @param type appointment type, may be null
+         * @param customerId customer id
+         * @param contactId contact id
+         * @param divisionId division id of the customer
+         * @param countryId country id of the customer's division
+         * @return this builder
+         */
+        public Builder add(LocalDateTime start, LocalDateTime end, String type, int customerId, int contactId, int divisionId, int countryId) {
+            if (size == starts.length) {
+                int capacity = size * 2;
+                months = Arrays.copyOf(months, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                minutes = Arrays.copyOf(minutes, capacity);
+                contacts = Arrays.copyOf(contacts, capacity);
+                customers = Arrays.copyOf(customers, capacity);
+                types = Arrays.copyOf(types, capacity);
+            }
+            months[size] = start.getYear() * 12 + start.getMonthValue() - 1;
+            starts[size] = (int) (start.toEpochSecond(ZoneOffset.UTC) / 60);
+            minutes[size] = (int) Duration.between(start, end).toMinutes();
+
+            Integer contact = contactIndex.get(contactId);
+            if (contact == null) {
+                contact = contactIndex.size();
+                contactIndex.put(contactId, contact);
+                if (contact == contactIds.length) {
+                    contactIds = Arrays.copyOf(contactIds, contact * 2);
+                }
+                contactIds[contact] = contactId;
+            }
+            contacts[size] = contact;
+
+            Integer customer = customerIndex.get(customerId);
+            if (customer == null) {
+                customer = customerIndex.size();
+                customerIndex.put(customerId, customer);
+                if (customer == customerIds.length) {
+                    customerIds = Arrays.copyOf(customerIds, customer * 2);
+                    customerDivisionIds = Arrays.copyOf(customerDivisionIds, customer * 2);
+                    customerCountryIds = Arrays.copyOf(customerCountryIds, customer * 2);
+                }
+                customerIds[customer] = customerId;
+                customerDivisionIds[customer] = divisionId;
+                customerCountryIds[customer] = countryId;
+            }
+            customers[size] = customer;
+
+            if (type == null) {
+                types[size] = -1;
+            } else {
+                Integer typePosition = typeIndex.get(type.toLowerCase(Locale.ROOT));
+                if (typePosition == null) {
+                    typePosition = typeNames.size();
+                    typeIndex.put(type.toLowerCase(Locale.ROOT), typePosition);
+                    typeNames.add(type);
+                }
+                types[size] = typePosition;
+            }
+            size++;
+            return this;
+        }
+
+        /**
+         * The build function groups the appointments by month with a counting sort and returns the snapshot.
+         * Appointments keep the order they were added in within a month.
+         *
+         * @return the snapshot
+         */
+        public AppointmentSnapshot build() {
+            if (size == 0) {
+                YearMonth now = YearMonth.now();
+                return new AppointmentSnapshot(this, now.getYear() * 12 + now.getMonthValue() - 1, new int[1], new int[0], new int[0], new int[0], new int[0], new int[0]);
+            }
+            int firstMonth = Integer.MAX_VALUE;
+            int lastMonth = Integer.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                firstMonth = Math.min(firstMonth, months[i]);
+                lastMonth = Math.max(lastMonth, months[i]);
+            }
+
+            int[] monthStarts = new int[lastMonth - firstMonth + 2];
+            for (int i = 0; i < size; i++) {
+                monthStarts[months[i] - firstMonth + 1]++;
+            }
+            for (int month = 1; month < monthStarts.length; month++) {
+                monthStarts[month] += monthStarts[month - 1];
+            }
+
+            int[] next = Arrays.copyOf(monthStarts, monthStarts.length - 1);
+            int[] sortedStarts = new int[size];
+            int[] sortedMinutes = new int[size];
+            int[] sortedContacts = new int[size];
+            int[] sortedCustomers = new int[size];
+            int[] sortedTypes = new int[size];
+            for (int i = 0; i < size; i++) {
+                int position = next[months[i] - firstMonth]++;
+                sortedStarts[position] = starts[i];
+                sortedMinutes[position] = minutes[i];
+                sortedContacts[position] = contacts[i];
+                sortedCustomers[position] = customers[i];
+                sortedTypes[position] = types[i];
+            }
+            return new AppointmentSnapshot(this, firstMonth, monthStarts, sortedStarts, sortedMinutes, sortedContacts, sortedCustomers, sortedTypes);
+        }
+    }
+}
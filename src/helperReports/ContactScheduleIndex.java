@@ -0,0 +1,392 @@
+package helperReports;
+
+import helperDB.AppointmentChangeListener;
+import helperDB.AppointmentsQuery;
+import helperDB.ChangeSet;
+import model.Appointment;
+import model.AppointmentRow;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The contact schedule index class keeps the appointments of the contacts viewed last in memory, sorted by start, so
+ * the contact schedule report can switch back to a contact, find a time range with a binary search and page through
+ * the contact's history without the database. A contact's appointments are read with the (Contact_ID, Start) index
+ * the first time the contact is viewed, and only the schedule.contactIndex.contacts contacts viewed last are kept.
+ * The cached contacts are kept in sync through AppointmentsQuery's change listeners, and with pullChanges for
+ * appointments other clients wrote or deleted.
+ */
+public class ContactScheduleIndex implements AppointmentChangeListener {
+    /**
+     * System property setting how many contacts are kept in memory.
+     */
+    public static final String contactsProperty = "schedule.contactIndex.contacts";
+    /**
+     * Order of each contact's appointments: by start, then by id.
+     */
+    private static final Comparator<Appointment> order = Comparator.comparing(Appointment::getStart).thenComparingInt(Appointment::getAppId);
+    /**
+     * The shared index, created on first use.
+     */
+    private static volatile ContactScheduleIndex instance;
+    /**
+     * Most contacts kept in memory.
+     */
+    private final int capacity = Math.max(1, Integer.getInteger(contactsProperty, 10));
+    /**
+     * Appointments of each cached contact id, sorted by order, with the contact viewed longest ago first.
+     */
+    private final LinkedHashMap<Integer, List<Appointment>> contactSchedules = new LinkedHashMap<>();
+    /**
+     * Appointments of the cached contacts by id, used to find the old position on update and delete.
+     */
+    private final Map<Integer, Appointment> appointments = new HashMap<>();
+    /**
+     * Contacts being read, with what was written through the change listener meanwhile.
+     */
+    private final List<ContactLoad> loads = new ArrayList<>();
+    /**
+     * Latest Last_Update value pulled from the database.
+     */
+    private Timestamp watermark;
+    /**
+     * Latest Last_Update value pulled from DELETED_APPOINTMENTS.
+     */
+    private Timestamp deletedWatermark;
+
+    /**
+     * The getInstance function returns the shared index, registering it as a change listener on first use.
+     *
+     * @return the shared contact schedule index
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ContactScheduleIndex getInstance() throws SQLException {
+        ContactScheduleIndex index = instance;
+        if (index == null) {
+            synchronized (ContactScheduleIndex.class) {
+                index = instance;
+                if (index == null) {
+                    index = new ContactScheduleIndex();
+                    // Registering before taking the watermarks, so no write between the two is missed
+                    AppointmentsQuery.addChangeListener(index);
+                    try {
+                        index.watermark = AppointmentsQuery.selectAppsLastUpdate();
+                        index.deletedWatermark = AppointmentsQuery.selectAppsDeletedLastUpdate();
+                    } catch (SQLException e) {
+                        AppointmentsQuery.removeChangeListener(index);
+                        throw e;
+                    }
+                    instance = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * The pullChanges function adds, moves and removes the appointments of the cached contacts that other clients
+     * wrote or deleted since the last pull.
+     *
+     * @return number of appointments and deletes read
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public int pullChanges() throws SQLException {
+        Timestamp since;
+        Timestamp deletedSince;
+        synchronized (this) {
+            since = watermark;
+            deletedSince = deletedWatermark;
+        }
+        // Reading the deletes first, so an appointment in the changes was not deleted before them
+        ChangeSet<Integer> deletes = AppointmentsQuery.selectAppIdsDeletedSince(deletedSince);
+        ChangeSet<AppointmentRow> changes = AppointmentsQuery.selectAppointmentRowsChangedSince(since);
+        synchronized (this) {
+            for (int appId : deletes.getRows()) {
+                appointmentDeleted(appId);
+            }
+            for (AppointmentRow i : changes.getRows()) {
+                appointmentSaved(i);
+            }
+            if (changes.getWatermark().after(watermark)) {
+                watermark = changes.getWatermark();
+            }
+            if (deletes.getWatermark().after(deletedWatermark)) {
+                deletedWatermark = deletes.getWatermark();
+            }
+        }
+        return deletes.getRows().size() + changes.getRows().size();
+    }
+
+    /**
+     * The page function returns one page of a contact's appointments.
+     *
+     * @param contactId contact id
+     * @param page number of the page, starting at 0; pages past the last return the last page
+     * @param pageSize number of appointments on a page
+     * @return the page
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public SchedulePage page(int contactId, int page, int pageSize) throws SQLException {
+        List<Appointment> schedule = schedule(contactId);
+        synchronized (this) {
+            int lastPage = Math.max(0, (schedule.size() - 1) / pageSize);
+            int shown = Math.max(0, Math.min(page, lastPage));
+            int from = shown * pageSize;
+            return new SchedulePage(new ArrayList<>(schedule.subList(from, Math.min(schedule.size(), from + pageSize))), shown, pageSize, schedule.size());
+        }
+    }
+
+    /**
+     * The pageOf function returns the number of the page holding a contact's first appointment starting at or after
+     * a time, or the last page if there is none.
+     *
+     * @param contactId contact id
+     * @param time time to find the page of
+     * @param pageSize number of appointments on a page
+     * @return number of the page, starting at 0
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public int pageOf(int contactId, LocalDateTime time, int pageSize) throws SQLException {
+        List<Appointment> schedule = schedule(contactId);
+        synchronized (this) {
+            int position = Math.min(firstAtOrAfter(schedule, time), Math.max(0, schedule.size() - 1));
+            return position / pageSize;
+        }
+    }
+
+    /**
+     * The between function returns a contact's appointments starting within a time range.
+     *
+     * @param contactId contact id
+     * @param start beginning of the range (inclusive)
+     * @param end end of the range (exclusive)
+     * @return list of appointments sorted by start
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public List<Appointment> between(int contactId, LocalDateTime start, LocalDateTime end) throws SQLException {
+        List<Appointment> schedule = schedule(contactId);
+        synchronized (this) {
+            int from = firstAtOrAfter(schedule, start);
+            int to = Math.max(from, firstAtOrAfter(schedule, end));
+            return new ArrayList<>(schedule.subList(from, to));
+        }
+    }
+
+    /**
+     * The size function returns the number of appointments in the index.
+     *
+     * @return number of appointments of the cached contacts
+     */
+    public synchronized int size() {
+        return appointments.size();
+    }
+
+    /**
+     * The appointmentSaved function adds a new appointment to the index, or moves an updated one.
+     *
+     * @param appointment the appointment as it is now stored
+     */
+    @Override
+    public synchronized void appointmentSaved(Appointment appointment) {
+        for (ContactLoad i : loads) {
+            i.appIds.add(appointment.getAppId());
+        }
+        add(appointment);
+    }
+
+    /**
+     * The appointmentDeleted function removes a deleted appointment from the index.
+     *
+     * @param appId id of the deleted appointment
+     */
+    @Override
+    public synchronized void appointmentDeleted(int appId) {
+        for (ContactLoad i : loads) {
+            i.appIds.add(appId);
+        }
+        Appointment previous = appointments.remove(appId);
+        if (previous != null) {
+            removeFromSchedule(previous);
+        }
+    }
+
+    /**
+     * The customerAppointmentsDeleted function removes all appointments of a customer from the index.
+     *
+     * @param customerId id of the customer whose appointments were deleted
+     */
+    @Override
+    public synchronized void customerAppointmentsDeleted(int customerId) {
+        for (ContactLoad i : loads) {
+            i.customerIds.add(customerId);
+        }
+        appointments.values().removeIf(i -> {
+            boolean isCustomers = i.getCustomerId() == customerId;
+            if (isCustomers) {
+                removeFromSchedule(i);
+            }
+            return isCustomers;
+        });
+    }
+
+    /**
+     * The schedule function returns a contact's schedule, reading it from the database if the contact is not cached.
+     * The contact is cached empty before it is read, so the change listener keeps it up to date during the read;
+     * appointments written meanwhile are then kept as the listener left them.
+     * The list is only read while holding the index's lock.
+     */
+    private List<Appointment> schedule(int contactId) throws SQLException {
+        ContactLoad load = new ContactLoad(contactId);
+        synchronized (this) {
+            List<Appointment> schedule = contactSchedules.remove(contactId);
+            if (schedule != null) {
+                // Putting the contact back at the end, as the one viewed last
+                contactSchedules.put(contactId, schedule);
+                if (!isLoading(contactId)) {
+                    return schedule;
+                }
+            } else {
+                contactSchedules.put(contactId, new ArrayList<>());
+            }
+            loads.add(load);
+        }
+        try {
+            List<Appointment> loaded = AppointmentsQuery.selectAppsByContactPage(contactId, 0, Integer.MAX_VALUE);
+            synchronized (this) {
+                for (Appointment i : loaded) {
+                    if (!load.appIds.contains(i.getAppId()) && !load.customerIds.contains(i.getCustomerId())) {
+                        add(i);
+                    }
+                }
+                List<Appointment> schedule = contactSchedules.getOrDefault(contactId, Collections.emptyList());
+                loads.remove(load);
+                evict(contactId);
+                return schedule;
+            }
+        } catch (SQLException e) {
+            synchronized (this) {
+                loads.remove(load);
+                if (!isLoading(contactId)) {
+                    drop(contactId);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The isLoading function returns whether a contact is being read.
+     */
+    private boolean isLoading(int contactId) {
+        for (ContactLoad i : loads) {
+            if (i.contactId == contactId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The evict function drops the contacts viewed longest ago until no more than capacity are cached, keeping the
+     * given contact and those being read.
+     */
+    private void evict(int keptContactId) {
+        List<Integer> evicted = new ArrayList<>();
+        int cached = contactSchedules.size();
+        for (int contactId : contactSchedules.keySet()) {
+            if (cached - evicted.size() <= capacity) {
+                break;
+            }
+            if (contactId != keptContactId && !isLoading(contactId)) {
+                evicted.add(contactId);
+            }
+        }
+        for (int contactId : evicted) {
+            drop(contactId);
+        }
+    }
+
+    /**
+     * The drop function removes a contact and its appointments from the index.
+     */
+    private void drop(int contactId) {
+        List<Appointment> schedule = contactSchedules.remove(contactId);
+        if (schedule != null) {
+            for (Appointment i : schedule) {
+                appointments.remove(i.getAppId());
+            }
+        }
+    }
+
+    /**
+     * The add function puts an appointment at its place in its contact's schedule, replacing an older version.
+     * Appointments of contacts that are not cached are only taken out of the schedule they were in.
+     */
+    private void add(Appointment appointment) {
+        Appointment previous = appointments.remove(appointment.getAppId());
+        if (previous != null) {
+            removeFromSchedule(previous);
+        }
+        List<Appointment> schedule = contactSchedules.get(appointment.getContactId());
+        if (schedule != null) {
+            appointments.put(appointment.getAppId(), appointment);
+            int position = Collections.binarySearch(schedule, appointment, order);
+            schedule.add(position < 0 ? -position - 1 : position, appointment);
+        }
+    }
+
+    /**
+     * The removeFromSchedule function removes an appointment from its contact's schedule.
+     */
+    private void removeFromSchedule(Appointment appointment) {
+        List<Appointment> schedule = contactSchedules.get(appointment.getContactId());
+        if (schedule != null) {
+            int position = Collections.binarySearch(schedule, appointment, order);
+            if (position >= 0) {
+                schedule.remove(position);
+            }
+        }
+    }
+
+    /**
+     * The firstAtOrAfter function returns the position of the first appointment starting at or after a time.
+     */
+    private static int firstAtOrAfter(List<Appointment> schedule, LocalDateTime time) {
+        int low = 0;
+        int high = schedule.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (schedule.get(middle).getStart().isBefore(time)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The contact load class holds what the change listener wrote while a contact is read, which the read must not
+     * overwrite.
+     */
+    private static class ContactLoad {
+        private final int contactId;
+        private final Set<Integer> appIds = new HashSet<>();
+        private final Set<Integer> customerIds = new HashSet<>();
+
+        private ContactLoad(int contactId) {
+            this.contactId = contactId;
+        }
+    }
+}
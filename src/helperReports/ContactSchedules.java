@@ -0,0 +1,100 @@
+package helperReports;
+
+import helperDB.AppointmentsQuery;
+import helperMetrics.ReportEvent;
+import model.Appointment;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The contact schedules class serves the contact schedule report: a contact's appointments within a time range,
+ * or one page of the contact's history at a time.
+ * The appointments are taken from the in-memory ContactScheduleIndex, which reads a contact's appointments the
+ * first time the contact is viewed, so switching back to a contact does not read the database.
+ * With schedule.contactIndex=false every page is read from the database instead, with queries that use the
+ * (Contact_ID, Start) index.
+ */
+public abstract class ContactSchedules {
+    /**
+     * System property that switches the in-memory index off when set to false.
+     */
+    public static final String indexProperty = "schedule.contactIndex";
+
+    /**
+     * The isIndexed function returns whether the in-memory index is used.
+     *
+     * @return false if schedule.contactIndex is set to false
+     */
+    public static boolean isIndexed() {
+        return !"false".equalsIgnoreCase(System.getProperty(indexProperty));
+    }
+
+    /**
+     * The between function returns a contact's appointments starting within a time range.
+     *
+     * @param contactId contact id
+     * @param start beginning of the range (inclusive)
+     * @param end end of the range (exclusive)
+     * @return list of appointments sorted by start
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static List<Appointment> between(int contactId, LocalDateTime start, LocalDateTime end) throws SQLException {
+        if (isIndexed()) {
+            return ContactScheduleIndex.getInstance().between(contactId, start, end);
+        }
+        return AppointmentsQuery.selectAppsByContactBetween(contactId, start, end);
+    }
+
+    /**
+     * The page function returns one page of a contact's appointments, ordered by start.
+     *
+     * @param contactId contact id
+     * @param page number of the page, starting at 0; pages past the last return the last page
+     * @param pageSize number of appointments on a page
+     * @return the page
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static SchedulePage page(int contactId, int page, int pageSize) throws SQLException {
+        if (isIndexed()) {
+            ContactScheduleIndex index = ContactScheduleIndex.getInstance();
+            ReportEvent event = ReportEvent.start("Contact schedule", index.size());
+            SchedulePage schedulePage = index.page(contactId, page, pageSize);
+            event.finish(schedulePage.getAppointments().size());
+            return schedulePage;
+        }
+        int total = AppointmentsQuery.countAppsByContactBefore(contactId, null);
+        int shown = Math.max(0, Math.min(page, (Math.max(total, 1) - 1) / pageSize));
+        return new SchedulePage(AppointmentsQuery.selectAppsByContactPage(contactId, shown * pageSize, pageSize), shown, pageSize, total);
+    }
+
+    /**
+     * The upcomingPage function returns the page of a contact's schedule holding the first appointment starting at
+     * or after a time, so the report opens at the upcoming appointments with the history on the pages before.
+     *
+     * @param contactId contact id
+     * @param time time to open the schedule at, usually now
+     * @param pageSize number of appointments on a page
+     * @return the page
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static SchedulePage upcomingPage(int contactId, LocalDateTime time, int pageSize) throws SQLException {
+        if (isIndexed()) {
+            return page(contactId, ContactScheduleIndex.getInstance().pageOf(contactId, time, pageSize), pageSize);
+        }
+        return page(contactId, AppointmentsQuery.countAppsByContactBefore(contactId, time) / pageSize, pageSize);
+    }
+
+    /**
+     * The pullChanges function brings the index up to date with appointments other clients wrote or deleted.
+     * It does nothing when the index is switched off.
+     *
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static void pullChanges() throws SQLException {
+        if (isIndexed()) {
+            ContactScheduleIndex.getInstance().pullChanges();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package helperReports;
+
+import helperMetrics.ReportEvent;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The historical analytics class computes the reports over years of appointments from an appointment snapshot, on
+ * several threads: the minutes of every contact in every week, the minutes of every customer, from which the totals
+ * of divisions and countries are made, and the number of appointments of every type in every month.
+ * The snapshot's months are split with fork/join into ranges of about the same number of appointments. Each range is
+ * totalled by one task in a single pass over the columns, and the partial totals of neighbouring ranges are added
+ * together on the way back up. All three reports come out of the same pass.
+ * The number of threads is set with the system property schedule.analytics.parallelism, and defaults to the number
+ * of processors.
+ */
+public abstract class HistoricalAnalytics {
+    /**
+     * System property setting the number of threads the analytics run on.
+     */
+    public static final String parallelismProperty = "schedule.analytics.parallelism";
+    /**
+     * Fewest appointments a task totals without splitting its months further.
+     */
+    private static final int minimumTaskRows = 20_000;
+    /**
+     * Minutes in a day.
+     */
+    private static final int dayMinutes = 24 * 60;
+
+    /**
+     * The compute function computes the reports on the number of threads set by schedule.analytics.parallelism.
+     *
+     * @param snapshot the appointments
+     * @return the reports
+     */
+    public static HistoricalReport compute(AppointmentSnapshot snapshot) {
+        return compute(snapshot, Integer.getInteger(parallelismProperty, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * The compute function computes the reports on a number of threads.
+     *
+     * @param snapshot the appointments
+     * @param parallelism number of threads, 1 to compute on one thread
+     * @return the reports
+     */
+    public static HistoricalReport compute(AppointmentSnapshot snapshot, int parallelism) {
+        ReportEvent event = ReportEvent.start("Historical analytics", snapshot.size());
+        int firstWeek = weekOf(snapshot.getFirstMonth().atDay(1).toEpochDay());
+        int lastWeek = weekOf(snapshot.getFirstMonth().plusMonths(snapshot.getMonthCount()).atDay(1).toEpochDay() - 1);
+        int weekCount = Math.max(0, lastWeek - firstWeek + 1);
+        // Several tasks per thread, so a thread that finishes early can take over work from the others
+        int taskRows = Math.max(minimumTaskRows, snapshot.size() / (Math.max(1, parallelism) * 4));
+
+        Totals totals;
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            totals = pool.invoke(new MonthsTask(snapshot, 0, snapshot.getMonthCount(), firstWeek, weekCount, taskRows));
+        } finally {
+            pool.shutdown();
+        }
+
+        HistoricalReport report = new HistoricalReport(snapshot, firstWeek, weekCount, totals.contactWeekMinutes, totals.customerMinutes,
+                totals.customerAppointments, totals.typeMonthCounts);
+        // Every total is one result, whether or not a report row is made from it
+        event.finish(totals.contactWeekMinutes.length + totals.customerMinutes.length + totals.typeMonthCounts.length);
+        return report;
+    }
+
+    /**
+     * The weekOf function returns the number of the week, starting on Monday, that an epoch day falls in.
+     * 1970-01-01 was a Thursday, so the week of day 0 starts on day -3.
+     *
+     * @param epochDay days since 1970-01-01
+     * @return weeks since the week of 1970-01-01
+     */
+    static int weekOf(long epochDay) {
+        return (int) Math.floorDiv(epochDay + 3, 7);
+    }
+
+    /**
+     * The totals class holds the totals of a range of months, in arrays indexed by the snapshot's positions.
+     */
+    private static class Totals {
+        /**
+         * Minutes by contact and week, at contact * weekCount + week.
+         */
+        private final long[] contactWeekMinutes;
+        /**
+         * Minutes by customer.
+         */
+        private final long[] customerMinutes;
+        /**
+         * Appointments by customer.
+         */
+        private final int[] customerAppointments;
+        /**
+         * Appointments by type and month, at type * monthCount + month.
+         */
+        private final int[] typeMonthCounts;
+
+        private Totals(AppointmentSnapshot snapshot, int weekCount) {
+            contactWeekMinutes = new long[snapshot.contactIds.length * weekCount];
+            customerMinutes = new long[snapshot.customerIds.length];
+            customerAppointments = new int[snapshot.customerIds.length];
+            typeMonthCounts = new int[snapshot.typeNames.length * snapshot.getMonthCount()];
+        }
+
+        /**
+         * The add function adds the totals of another range of months to these.
+         */
+        private Totals add(Totals other) {
+            for (int i = 0; i < contactWeekMinutes.length; i++) {
+                contactWeekMinutes[i] += other.contactWeekMinutes[i];
+            }
+            for (int i = 0; i < customerMinutes.length; i++) {
+                customerMinutes[i] += other.customerMinutes[i];
+                customerAppointments[i] += other.customerAppointments[i];
+            }
+            for (int i = 0; i < typeMonthCounts.length; i++) {
+                typeMonthCounts[i] += other.typeMonthCounts[i];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * The months task totals a range of the snapshot's months, splitting it in two while it holds more than taskRows
+     * appointments and more than one month.
+     */
+    private static class MonthsTask extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+
+        private final AppointmentSnapshot snapshot;
+        private final int fromMonth;
+        private final int toMonth;
+        private final int firstWeek;
+        private final int weekCount;
+        private final int taskRows;
+
+        private MonthsTask(AppointmentSnapshot snapshot, int fromMonth, int toMonth, int firstWeek, int weekCount, int taskRows) {
+            this.snapshot = snapshot;
+            this.fromMonth = fromMonth;
+            this.toMonth = toMonth;
+            this.firstWeek = firstWeek;
+            this.weekCount = weekCount;
+            this.taskRows = taskRows;
+        }
+
+        @Override
+        protected Totals compute() {
+            int[] monthStarts = snapshot.monthStarts;
+            int rows = monthStarts[toMonth] - monthStarts[fromMonth];
+            if (toMonth - fromMonth <= 1 || rows <= taskRows) {
+                return total();
+            }
+
+            // Splitting at the month boundary closest to half of the appointments, keeping a month on each side
+            int middle = fromMonth + 1;
+            int half = monthStarts[fromMonth] + rows / 2;
+            while (middle < toMonth - 1 && monthStarts[middle + 1] <= half) {
+                middle++;
+            }
+            MonthsTask earlier = new MonthsTask(snapshot, fromMonth, middle, firstWeek, weekCount, taskRows);
+            MonthsTask later = new MonthsTask(snapshot, middle, toMonth, firstWeek, weekCount, taskRows);
+            earlier.fork();
+            Totals laterTotals = later.compute();
+            return earlier.join().add(laterTotals);
+        }
+
+        /**
+         * The total function totals the range in one pass over the columns.
+         */
+        private Totals total() {
+            Totals totals = new Totals(snapshot, weekCount);
+            int monthCount = snapshot.getMonthCount();
+            int[] starts = snapshot.starts;
+            int[] minutes = snapshot.minutes;
+            int[] contacts = snapshot.contacts;
+            int[] customers = snapshot.customers;
+            int[] types = snapshot.types;
+            for (int month = fromMonth; month < toMonth; month++) {
+                for (int i = snapshot.monthStarts[month]; i < snapshot.monthStarts[month + 1]; i++) {
+                    int week = weekOf(Math.floorDiv(starts[i], dayMinutes)) - firstWeek;
+                    totals.contactWeekMinutes[contacts[i] * weekCount + week] += minutes[i];
+                    totals.customerMinutes[customers[i]] += minutes[i];
+                    totals.customerAppointments[customers[i]]++;
+                    if (types[i] >= 0) {
+                        totals.typeMonthCounts[types[i] * monthCount + month]++;
+                    }
+                }
+            }
+            return totals;
+        }
+    }
+}
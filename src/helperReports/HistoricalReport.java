@@ -0,0 +1,134 @@
+package helperReports;
+
+import model.ContactWeek;
+import model.RegionMinutes;
+import model.TypeMonthCount;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The historical report class holds the totals computed by HistoricalAnalytics and turns them into the rows of the
+ * three historical reports. Rows are only made for weeks, regions and months with appointments.
+ */
+public class HistoricalReport {
+    private final AppointmentSnapshot snapshot;
+    /**
+     * Number of the first week, counted as in HistoricalAnalytics.weekOf.
+     */
+    private final int firstWeek;
+    private final int weekCount;
+    private final long[] contactWeekMinutes;
+    private final long[] customerMinutes;
+    private final int[] customerAppointments;
+    private final int[] typeMonthCounts;
+
+    /**
+     * Constructor for the HistoricalReport class.
+     *
+     * @param snapshot the appointments the totals were computed from
+     * @param firstWeek number of the first week
+     * @param weekCount number of weeks
+     * @param contactWeekMinutes minutes by contact and week, at contact * weekCount + week
+     * @param customerMinutes minutes by customer
+     * @param customerAppointments appointments by customer
+     * @param typeMonthCounts appointments by type and month, at type * monthCount + month
+     */
+    HistoricalReport(AppointmentSnapshot snapshot, int firstWeek, int weekCount, long[] contactWeekMinutes, long[] customerMinutes,
+                     int[] customerAppointments, int[] typeMonthCounts) {
+        this.snapshot = snapshot;
+        this.firstWeek = firstWeek;
+        this.weekCount = weekCount;
+        this.contactWeekMinutes = contactWeekMinutes;
+        this.customerMinutes = customerMinutes;
+        this.customerAppointments = customerAppointments;
+        this.typeMonthCounts = typeMonthCounts;
+    }
+
+    /**
+     * The getContactWeeks function returns the minutes and utilization of every contact in every week with
+     * appointments.
+     *
+     * @return contact weeks, by contact id and then by week
+     */
+    public List<ContactWeek> getContactWeeks() {
+        Map<Integer, Integer> contactsById = new TreeMap<>();
+        for (int contact = 0; contact < snapshot.contactIds.length; contact++) {
+            contactsById.put(snapshot.contactIds[contact], contact);
+        }
+        List<ContactWeek> contactWeeks = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> contact : contactsById.entrySet()) {
+            for (int week = 0; week < weekCount; week++) {
+                long minutes = contactWeekMinutes[contact.getValue() * weekCount + week];
+                if (minutes != 0) {
+                    LocalDate weekStart = LocalDate.ofEpochDay((firstWeek + week) * 7L - 3);
+                    contactWeeks.add(new ContactWeek(contact.getKey(), weekStart, minutes));
+                }
+            }
+        }
+        return contactWeeks;
+    }
+
+    /**
+     * The getDivisionMinutes function returns the appointment minutes and customers of every division.
+     *
+     * @return division totals, by division id
+     */
+    public List<RegionMinutes> getDivisionMinutes() {
+        return regionMinutes(snapshot.customerDivisionIds);
+    }
+
+    /**
+     * The getCountryMinutes function returns the appointment minutes and customers of every country.
+     *
+     * @return country totals, by country id
+     */
+    public List<RegionMinutes> getCountryMinutes() {
+        return regionMinutes(snapshot.customerCountryIds);
+    }
+
+    /**
+     * The getTypeMonthCounts function returns the number of appointments of every type in every month, which shows
+     * how the mix of types changed over the years.
+     *
+     * @return counts by year, month and type
+     */
+    public List<TypeMonthCount> getTypeMonthCounts() {
+        List<TypeMonthCount> counts = new ArrayList<>();
+        int monthCount = snapshot.getMonthCount();
+        for (int month = 0; month < monthCount; month++) {
+            YearMonth yearMonth = snapshot.getFirstMonth().plusMonths(month);
+            for (int type = 0; type < snapshot.typeNames.length; type++) {
+                int count = typeMonthCounts[type * monthCount + month];
+                if (count != 0) {
+                    counts.add(new TypeMonthCount(yearMonth.getYear(), yearMonth.getMonthValue(), snapshot.typeNames[type], count));
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * The regionMinutes function adds up the customer totals by the region each customer is in.
+     */
+    private List<RegionMinutes> regionMinutes(int[] customerRegionIds) {
+        Map<Integer, long[]> regions = new TreeMap<>();
+        for (int customer = 0; customer < customerRegionIds.length; customer++) {
+            if (customerAppointments[customer] == 0) {
+                continue;
+            }
+            long[] region = regions.computeIfAbsent(customerRegionIds[customer], id -> new long[2]);
+            region[0]++;
+            region[1] += customerMinutes[customer];
+        }
+        List<RegionMinutes> regionMinutes = new ArrayList<>(regions.size());
+        for (Map.Entry<Integer, long[]> region : regions.entrySet()) {
+            regionMinutes.add(new RegionMinutes(region.getKey(), (int) region.getValue()[0], region.getValue()[1]));
+        }
+        return regionMinutes;
+    }
+}
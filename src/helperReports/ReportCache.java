@@ -0,0 +1,97 @@
+package helperReports;
+
+import helperDB.AppointmentChangeListener;
+import helperDB.AppointmentsQuery;
+import model.Appointment;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The report cache class keeps the appointments by type and month counts in memory, read with one GROUP BY query
+ * on first use. The counts are dropped whenever an appointment is written through AppointmentsQuery and read again
+ * on the next use. Writes by other clients are picked up once the time to live has passed, set in seconds with the
+ * system property schedule.reportCacheTtlSeconds (default 60).
+ */
+public abstract class ReportCache {
+    /**
+     * System property setting the time to live of the cached counts, in seconds.
+     */
+    public static final String ttlProperty = "schedule.reportCacheTtlSeconds";
+    /**
+     * Time to live of the cached counts, in milliseconds.
+     */
+    private static final long ttlMillis = Long.getLong(ttlProperty, 60) * 1000;
+    /**
+     * Number of times the counts were dropped, used to notice a write made while the counts were being read.
+     */
+    private static final AtomicLong invalidations = new AtomicLong();
+    /**
+     * The cached counts, or null if they need to be read.
+     */
+    private static final AtomicReference<TypeMonthCounts> typeMonthCounts = new AtomicReference<>();
+    /**
+     * Time the cached counts were read, in milliseconds.
+     */
+    private static volatile long loadedAt;
+
+    static {
+        AppointmentsQuery.addChangeListener(new AppointmentChangeListener() {
+            @Override
+            public void appointmentSaved(Appointment appointment) {
+                invalidate();
+            }
+
+            @Override
+            public void appointmentDeleted(int appId) {
+                invalidate();
+            }
+
+            @Override
+            public void customerAppointmentsDeleted(int customerId) {
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * The getTypeMonthCounts function returns the number of appointments of every type in every month,
+     * taken from the report materializations when they are enabled, otherwise read from the database if they are
+     * missing or expired.
+     *
+     * @return the counts
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static TypeMonthCounts getTypeMonthCounts() throws SQLException {
+        if (ReportMaterializations.isEnabled()) {
+            return ReportMaterializations.getInstance().getTypeMonthCounts();
+        }
+        TypeMonthCounts counts = typeMonthCounts.get();
+        if (counts != null && System.currentTimeMillis() - loadedAt < ttlMillis) {
+            return counts;
+        }
+        synchronized (ReportCache.class) {
+            counts = typeMonthCounts.get();
+            if (counts == null || System.currentTimeMillis() - loadedAt >= ttlMillis) {
+                long seen = invalidations.get();
+                counts = TypeMonthCounts.fromCounts(AppointmentsQuery.countByTypeAndMonth());
+                loadedAt = System.currentTimeMillis();
+                typeMonthCounts.set(counts);
+                // Counts read while an appointment was written may miss it, so they are returned once but not kept
+                if (invalidations.get() != seen) {
+                    typeMonthCounts.compareAndSet(counts, null);
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * The invalidate function makes the next use read the counts again.
+     */
+    public static void invalidate() {
+        invalidations.incrementAndGet();
+        typeMonthCounts.set(null);
+    }
+}
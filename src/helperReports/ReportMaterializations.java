@@ -0,0 +1,490 @@
+package helperReports;
+
+import helperDB.AppointmentChangeListener;
+import helperDB.AppointmentsQuery;
+import helperDB.ChangeSet;
+import helperDB.ExportQuery;
+import helperDB.RowSink;
+import model.Appointment;
+import model.AppointmentRow;
+import model.CustomerTotal;
+import model.TypeMonthCount;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The report materializations class keeps the totals behind the three reports in memory: appointments by type and
+ * month, appointment minutes per customer per month, and appointments per contact. They are read once with a full
+ * rebuild, which streams the appointments without keeping them, and then updated for each appointment written,
+ * through AppointmentsQuery's change listeners, so the reports page reads these totals instead of the appointments.
+ * pullChanges applies the appointments other clients wrote and the ones they deleted, which are found in
+ * DELETED_APPOINTMENTS, so the totals never need to be read again.
+ * Applying a change twice gives the same totals, since each appointment's share is taken out before it is added
+ * again. A rebuild reads without holding the lock, so the change listeners are not held up meanwhile; the appointments
+ * they change during the read are taken from the current totals when the rebuilt ones replace them.
+ * The materializations are switched off with schedule.reportMaterializations=false, in which case the reports query
+ * the database.
+ */
+public class ReportMaterializations implements AppointmentChangeListener {
+    /**
+     * System property that switches the materializations off when set to false.
+     */
+    public static final String enabledProperty = "schedule.reportMaterializations";
+    /**
+     * The shared materializations, created on first use.
+     */
+    private static volatile ReportMaterializations instance;
+    /**
+     * The current totals.
+     */
+    private Totals totals = new Totals();
+    /**
+     * Latest Last_Update value read from the database.
+     */
+    private Timestamp watermark = new Timestamp(0);
+    /**
+     * Latest Last_Update value read from DELETED_APPOINTMENTS.
+     */
+    private Timestamp deletedWatermark = new Timestamp(0);
+    /**
+     * Type and month counts made from the totals, or null if the totals changed since.
+     */
+    private TypeMonthCounts typeMonthCounts;
+    /**
+     * Changes made through the change listeners while a rebuild reads, one per running rebuild.
+     */
+    private final List<Changes> changedWhileRebuilding = new ArrayList<>();
+
+    /**
+     * The isEnabled function returns whether the reports use the materializations.
+     *
+     * @return false if schedule.reportMaterializations is set to false
+     */
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(enabledProperty));
+    }
+
+    /**
+     * The getInstance function returns the shared materializations, registering them as a change listener and
+     * building them on first use.
+     *
+     * @return the shared report materializations
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ReportMaterializations getInstance() throws SQLException {
+        ReportMaterializations materializations = instance;
+        if (materializations == null) {
+            synchronized (ReportMaterializations.class) {
+                materializations = instance;
+                if (materializations == null) {
+                    materializations = new ReportMaterializations();
+                    // Registering before building, so no write between the two is missed
+                    AppointmentsQuery.addChangeListener(materializations);
+                    try {
+                        materializations.rebuild();
+                    } catch (SQLException e) {
+                        AppointmentsQuery.removeChangeListener(materializations);
+                        throw e;
+                    }
+                    instance = materializations;
+                }
+            }
+        }
+        return materializations;
+    }
+
+    /**
+     * The rebuild function replaces all totals with totals read from every appointment in the database.
+     * It runs once when the materializations are created; after that pullChanges keeps them up to date.
+     *
+     * @return number of appointments read
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public int rebuild() throws SQLException {
+        Changes changes = new Changes();
+        synchronized (this) {
+            changedWhileRebuilding.add(changes);
+        }
+        try {
+            // Taking the watermarks first, so pullChanges reads anything written during the rebuild again
+            Timestamp loadedAt = AppointmentsQuery.selectAppsLastUpdate();
+            Timestamp deletedAt = AppointmentsQuery.selectAppsDeletedLastUpdate();
+            Totals rebuilt = readTotals();
+            synchronized (this) {
+                // The current totals already hold these changes, whether the read saw them or not
+                for (int customerId : changes.customerIds) {
+                    rebuilt.removeCustomer(customerId);
+                }
+                for (int appId : changes.appIds) {
+                    rebuilt.remove(appId);
+                    Share current = totals.shares.get(appId);
+                    if (current != null) {
+                        rebuilt.add(current);
+                    }
+                }
+                totals = rebuilt;
+                watermark = loadedAt;
+                deletedWatermark = deletedAt;
+                typeMonthCounts = null;
+                return rebuilt.shares.size();
+            }
+        } finally {
+            synchronized (this) {
+                changedWhileRebuilding.remove(changes);
+            }
+        }
+    }
+
+    /**
+     * The verify function compares the totals with totals read from every appointment in the database.
+     * Appointments written by other clients and not pulled yet show up as differences.
+     *
+     * @return a description of every total that differs, empty if all totals match
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public List<String> verify() throws SQLException {
+        Totals expected = readTotals();
+
+        Map<String, Long> kept;
+        synchronized (this) {
+            kept = totals.flatten();
+        }
+        Map<String, Long> counted = expected.flatten();
+        List<String> differences = new ArrayList<>();
+        TreeSet<String> names = new TreeSet<>(kept.keySet());
+        names.addAll(counted.keySet());
+        for (String name : names) {
+            long keptValue = kept.getOrDefault(name, 0L);
+            long countedValue = counted.getOrDefault(name, 0L);
+            if (keptValue != countedValue) {
+                differences.add(name + ": " + keptValue + " kept, " + countedValue + " in the database");
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * The pullChanges function adds, moves and takes out the appointments other clients wrote or deleted since the
+     * last rebuild or pull.
+     *
+     * @return number of appointments and deletes read
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public int pullChanges() throws SQLException {
+        Timestamp since;
+        Timestamp deletedSince;
+        synchronized (this) {
+            since = watermark;
+            deletedSince = deletedWatermark;
+        }
+        // Reading the deletes first, so an appointment in the changes was not deleted before them
+        ChangeSet<Integer> deletes = AppointmentsQuery.selectAppIdsDeletedSince(deletedSince);
+        ChangeSet<AppointmentRow> changes = AppointmentsQuery.selectAppointmentRowsChangedSince(since);
+        synchronized (this) {
+            for (int appId : deletes.getRows()) {
+                appointmentDeleted(appId);
+            }
+            for (AppointmentRow i : changes.getRows()) {
+                appointmentSaved(i);
+            }
+            if (changes.getWatermark().after(watermark)) {
+                watermark = changes.getWatermark();
+            }
+            if (deletes.getWatermark().after(deletedWatermark)) {
+                deletedWatermark = deletes.getWatermark();
+            }
+        }
+        return deletes.getRows().size() + changes.getRows().size();
+    }
+
+    /**
+     * The getTypeMonthCounts function returns the number of appointments of every type in every month.
+     *
+     * @return the counts, made again only after the totals changed
+     */
+    public synchronized TypeMonthCounts getTypeMonthCounts() {
+        if (typeMonthCounts == null) {
+            List<TypeMonthCount> rows = new ArrayList<>();
+            for (Map.Entry<String, Map<Integer, int[]>> type : totals.typeMonths.entrySet()) {
+                String spelling = totals.typeSpellings.get(type.getKey());
+                for (Map.Entry<Integer, int[]> month : type.getValue().entrySet()) {
+                    YearMonth yearMonth = toYearMonth(month.getKey());
+                    rows.add(new TypeMonthCount(yearMonth.getYear(), yearMonth.getMonthValue(), spelling, month.getValue()[0]));
+                }
+            }
+            typeMonthCounts = TypeMonthCounts.fromCounts(rows);
+        }
+        return typeMonthCounts;
+    }
+
+    /**
+     * The topCustomers function ranks the customers by the minutes of their appointments starting in a month.
+     *
+     * @param month the month to rank
+     * @param places number of places
+     * @return at most places customer totals, best first
+     */
+    public synchronized List<CustomerTotal> topCustomers(YearMonth month, int places) {
+        Map<Integer, long[]> customers = totals.customerMonths.getOrDefault(toKey(month), Map.of());
+        List<CustomerTotal> minutes = new ArrayList<>(customers.size());
+        for (Map.Entry<Integer, long[]> customer : customers.entrySet()) {
+            minutes.add(new CustomerTotal(customer.getKey(), customer.getValue()[0]));
+        }
+        return TopCustomers.select(minutes, places);
+    }
+
+    /**
+     * The getContactCount function returns the number of appointments of a contact.
+     *
+     * @param contactId contact id
+     * @return number of appointments
+     */
+    public synchronized int getContactCount(int contactId) {
+        int[] count = totals.contactCounts.get(contactId);
+        return count == null ? 0 : count[0];
+    }
+
+    /**
+     * The size function returns the number of appointments counted.
+     *
+     * @return number of appointments
+     */
+    public synchronized int size() {
+        return totals.shares.size();
+    }
+
+    /**
+     * The appointmentSaved function adds a new appointment to the totals, or moves an updated one.
+     *
+     * @param appointment the appointment as it is now stored
+     */
+    @Override
+    public synchronized void appointmentSaved(Appointment appointment) {
+        for (Changes i : changedWhileRebuilding) {
+            i.appIds.add(appointment.getAppId());
+        }
+        totals.remove(appointment.getAppId());
+        totals.add(new Share(appointment));
+        typeMonthCounts = null;
+    }
+
+    /**
+     * The appointmentDeleted function takes a deleted appointment out of the totals.
+     *
+     * @param appId id of the deleted appointment
+     */
+    @Override
+    public synchronized void appointmentDeleted(int appId) {
+        for (Changes i : changedWhileRebuilding) {
+            i.appIds.add(appId);
+        }
+        totals.remove(appId);
+        typeMonthCounts = null;
+    }
+
+    /**
+     * The customerAppointmentsDeleted function takes all appointments of a customer out of the totals.
+     *
+     * @param customerId id of the customer whose appointments were deleted
+     */
+    @Override
+    public synchronized void customerAppointmentsDeleted(int customerId) {
+        for (Changes i : changedWhileRebuilding) {
+            i.customerIds.add(customerId);
+        }
+        totals.removeCustomer(customerId);
+        typeMonthCounts = null;
+    }
+
+    /**
+     * The readTotals function totals every appointment in the database, streaming the rows so no appointments are
+     * kept but their shares.
+     */
+    private static Totals readTotals() throws SQLException {
+        Totals read = new Totals();
+        try {
+            ExportQuery.streamReportRows(new RowSink() {
+                @Override
+                public void start(List<String> columns) {
+                }
+
+                @Override
+                public void row(Object[] values) {
+                    read.add(new Share(((Number) values[0]).intValue(), (String) values[1], AppointmentSnapshot.toLocalDateTime(values[2]),
+                            AppointmentSnapshot.toLocalDateTime(values[3]), ((Number) values[4]).intValue(), ((Number) values[5]).intValue()));
+                }
+            });
+        } catch (IOException e) {
+            // The sink writes nowhere, so this is only reached if the driver reports a read as one
+            throw new SQLException("Reading the appointments stopped: " + e.getMessage(), e);
+        }
+        return read;
+    }
+
+    /**
+     * The toKey function turns a month into the number the totals are kept by.
+     */
+    private static int toKey(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    /**
+     * The toYearMonth function turns the number the totals are kept by back into a month.
+     */
+    private static YearMonth toYearMonth(int key) {
+        return YearMonth.of(Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1);
+    }
+
+    /**
+     * The share class holds what one appointment adds to the totals, so it can be taken out again after it
+     * was updated or deleted.
+     */
+    private static class Share {
+        private final int appId;
+        private final String type;
+        private final String spelling;
+        private final int month;
+        private final int customerId;
+        private final int contactId;
+        private final long minutes;
+
+        private Share(Appointment appointment) {
+            this(appointment.getAppId(), appointment.getType(), appointment.getStart(), appointment.getEnd(), appointment.getCustomerId(), appointment.getContactId());
+        }
+
+        private Share(int appId, String type, LocalDateTime start, LocalDateTime end, int customerId, int contactId) {
+            this.appId = appId;
+            this.type = type == null ? null : type.toLowerCase(Locale.ROOT);
+            this.spelling = type;
+            this.month = toKey(YearMonth.from(start));
+            this.customerId = customerId;
+            this.contactId = contactId;
+            this.minutes = Duration.between(start, end).toMinutes();
+        }
+    }
+
+    /**
+     * The changes class holds the appointments and customers written through the change listeners during a rebuild.
+     */
+    private static class Changes {
+        private final Set<Integer> appIds = new HashSet<>();
+        private final Set<Integer> customerIds = new HashSet<>();
+    }
+
+    /**
+     * The totals class holds the three totals and the share of each appointment in them.
+     * Totals that drop to zero are removed, so totals made incrementally and by a rebuild look the same.
+     */
+    private static class Totals {
+        /**
+         * Share of each appointment, by id.
+         */
+        private final Map<Integer, Share> shares = new HashMap<>();
+        /**
+         * Appointments by lower case type and month.
+         */
+        private final Map<String, Map<Integer, int[]>> typeMonths = new HashMap<>();
+        /**
+         * First spelling seen of each lower case type.
+         */
+        private final Map<String, String> typeSpellings = new HashMap<>();
+        /**
+         * Minutes and appointments by month and customer id.
+         */
+        private final Map<Integer, Map<Integer, long[]>> customerMonths = new HashMap<>();
+        /**
+         * Appointments by contact id.
+         */
+        private final Map<Integer, int[]> contactCounts = new HashMap<>();
+
+        private void add(Share share) {
+            shares.put(share.appId, share);
+            if (share.type != null) {
+                typeSpellings.putIfAbsent(share.type, share.spelling);
+                typeMonths.computeIfAbsent(share.type, type -> new HashMap<>()).computeIfAbsent(share.month, month -> new int[1])[0]++;
+            }
+            long[] customer = customerMonths.computeIfAbsent(share.month, month -> new HashMap<>()).computeIfAbsent(share.customerId, id -> new long[2]);
+            customer[0] += share.minutes;
+            customer[1]++;
+            contactCounts.computeIfAbsent(share.contactId, id -> new int[1])[0]++;
+        }
+
+        private void remove(int appId) {
+            Share share = shares.remove(appId);
+            if (share == null) {
+                return;
+            }
+            if (share.type != null) {
+                Map<Integer, int[]> months = typeMonths.get(share.type);
+                if (--months.get(share.month)[0] == 0) {
+                    months.remove(share.month);
+                    if (months.isEmpty()) {
+                        typeMonths.remove(share.type);
+                        typeSpellings.remove(share.type);
+                    }
+                }
+            }
+            Map<Integer, long[]> customers = customerMonths.get(share.month);
+            long[] customer = customers.get(share.customerId);
+            customer[0] -= share.minutes;
+            if (--customer[1] == 0) {
+                customers.remove(share.customerId);
+                if (customers.isEmpty()) {
+                    customerMonths.remove(share.month);
+                }
+            }
+            if (--contactCounts.get(share.contactId)[0] == 0) {
+                contactCounts.remove(share.contactId);
+            }
+        }
+
+        private void removeCustomer(int customerId) {
+            List<Integer> appIds = new ArrayList<>();
+            for (Share share : shares.values()) {
+                if (share.customerId == customerId) {
+                    appIds.add(share.appId);
+                }
+            }
+            for (int appId : appIds) {
+                remove(appId);
+            }
+        }
+
+        /**
+         * The flatten function lists every total under a readable name, for comparing two sets of totals.
+         */
+        private Map<String, Long> flatten() {
+            Map<String, Long> flat = new TreeMap<>();
+            for (Map.Entry<String, Map<Integer, int[]>> type : typeMonths.entrySet()) {
+                for (Map.Entry<Integer, int[]> month : type.getValue().entrySet()) {
+                    flat.put("Type " + type.getKey() + " in " + toYearMonth(month.getKey()), (long) month.getValue()[0]);
+                }
+            }
+            for (Map.Entry<Integer, Map<Integer, long[]>> month : customerMonths.entrySet()) {
+                for (Map.Entry<Integer, long[]> customer : month.getValue().entrySet()) {
+                    String name = "Customer " + customer.getKey() + " in " + toYearMonth(month.getKey());
+                    flat.put(name + " minutes", customer.getValue()[0]);
+                    flat.put(name + " appointments", customer.getValue()[1]);
+                }
+            }
+            for (Map.Entry<Integer, int[]> contact : contactCounts.entrySet()) {
+                flat.put("Contact " + contact.getKey() + " appointments", (long) contact.getValue()[0]);
+            }
+            return flat;
+        }
+    }
+}
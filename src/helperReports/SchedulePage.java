@@ -0,0 +1,76 @@
+package helperReports;
+
+import model.Appointment;
+
+import java.util.List;
+
+/**
+ * The schedule page class holds one page of a contact's appointments in the contact schedule report,
+ * together with where the page lies in the contact's whole schedule.
+ */
+public class SchedulePage {
+    /**
+     * Appointments on the page, ordered by start.
+     */
+    private final List<Appointment> appointments;
+    /**
+     * Number of the page, starting at 0.
+     */
+    private final int page;
+    /**
+     * Number of appointments on a full page.
+     */
+    private final int pageSize;
+    /**
+     * Number of appointments the contact has on all pages.
+     */
+    private final int total;
+
+    /**
+     * Constructor for the SchedulePage class.
+     *
+     * @param appointments appointments on the page, ordered by start
+     * @param page number of the page, starting at 0
+     * @param pageSize number of appointments on a full page
+     * @param total number of appointments on all pages
+     */
+    public SchedulePage(List<Appointment> appointments, int page, int pageSize, int total) {
+        this.appointments = appointments;
+        this.page = page;
+        this.pageSize = pageSize;
+        this.total = total;
+    }
+
+    public List<Appointment> getAppointments() {
+        return appointments;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * The getPageCount function returns the number of pages, which is at least 1 so an empty schedule has an empty page.
+     *
+     * @return number of pages
+     */
+    public int getPageCount() {
+        return Math.max(1, (total + pageSize - 1) / pageSize);
+    }
+
+    public boolean hasPrevious() {
+        return page > 0;
+    }
+
+    public boolean hasNext() {
+        return page < getPageCount() - 1;
+    }
+}
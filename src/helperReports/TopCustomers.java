@@ -0,0 +1,124 @@
+package helperReports;
+
+import helperDB.AppointmentsQuery;
+import helperDB.CustomerMetric;
+import helperMetrics.ReportEvent;
+import model.Appointment;
+import model.CustomerTotal;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The top customers class ranks customers by a total over their appointments starting within a range: minutes
+ * scheduled, number of appointments or number of different types. The totals are computed by the database in one
+ * GROUP BY query, or in one pass over appointments already read, and the first places are picked with a heap
+ * holding at most as many customers as places asked for, so no list of all customers is sorted.
+ * Customers with a total of 0 do not get a place. Equal totals are ranked by customer id, lowest first.
+ */
+public abstract class TopCustomers {
+    /**
+     * Order from the best place to the worst.
+     */
+    private static final Comparator<CustomerTotal> ranking = Comparator.comparingLong(CustomerTotal::getTotal).reversed()
+            .thenComparingInt(CustomerTotal::getCustomerId);
+
+    /**
+     * The top function ranks the customers with the totals computed by the database.
+     *
+     * @param metric the total customers are ranked by
+     * @param start beginning of the range (inclusive)
+     * @param end end of the range (exclusive)
+     * @param places number of places
+     * @return at most places customer totals, best first
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static List<CustomerTotal> top(CustomerMetric metric, LocalDateTime start, LocalDateTime end, int places) throws SQLException {
+        List<CustomerTotal> totals = AppointmentsQuery.totalsByCustomer(metric, start, end);
+        ReportEvent event = ReportEvent.start("Top customers", totals.size());
+        List<CustomerTotal> top = select(totals, places);
+        event.finish(top.size());
+        return top;
+    }
+
+    /**
+     * The top function ranks the customers in one pass over appointments already read.
+     * Types are told apart ignoring case.
+     *
+     * @param appointments all appointments
+     * @param metric the total customers are ranked by
+     * @param start beginning of the range (inclusive)
+     * @param end end of the range (exclusive)
+     * @param places number of places
+     * @return at most places customer totals, best first
+     */
+    public static List<CustomerTotal> top(List<? extends Appointment> appointments, CustomerMetric metric, LocalDateTime start, LocalDateTime end, int places) {
+        ReportEvent event = ReportEvent.start("Top customers", appointments.size());
+        Map<Integer, long[]> totals = new HashMap<>();
+        Map<Integer, Set<String>> types = new HashMap<>();
+
+        for (Appointment i : appointments) {
+            if (i.getStart().isBefore(start) || !i.getStart().isBefore(end)) {
+                continue;
+            }
+            long[] total = totals.computeIfAbsent(i.getCustomerId(), id -> new long[1]);
+            switch (metric) {
+                case MINUTES -> total[0] += Duration.between(i.getStart(), i.getEnd()).toMinutes();
+                case APPOINTMENTS -> total[0]++;
+                case TYPES -> {
+                    if (i.getType() != null && types.computeIfAbsent(i.getCustomerId(), id -> new HashSet<>()).add(i.getType().toLowerCase(Locale.ROOT))) {
+                        total[0]++;
+                    }
+                }
+            }
+        }
+
+        List<CustomerTotal> customerTotals = new ArrayList<>(totals.size());
+        for (Map.Entry<Integer, long[]> total : totals.entrySet()) {
+            customerTotals.add(new CustomerTotal(total.getKey(), total.getValue()[0]));
+        }
+        List<CustomerTotal> top = select(customerTotals, places);
+        event.finish(top.size());
+        return top;
+    }
+
+    /**
+     * The select function picks the best places out of the totals with a heap of at most places totals, whose head is
+     * the worst of the places found so far.
+     *
+     * @param totals customer totals in any order
+     * @param places number of places
+     * @return at most places customer totals, best first
+     */
+    static List<CustomerTotal> select(List<CustomerTotal> totals, int places) {
+        if (places <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<CustomerTotal> heap = new PriorityQueue<>(places + 1, ranking.reversed());
+        for (CustomerTotal total : totals) {
+            if (total.getTotal() <= 0) {
+                continue;
+            }
+            if (heap.size() < places) {
+                heap.add(total);
+            } else if (ranking.compare(total, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(total);
+            }
+        }
+
+        List<CustomerTotal> top = new ArrayList<>(heap);
+        top.sort(ranking);
+        return top;
+    }
+}
@@ -0,0 +1,212 @@
+package helperReports;
+
+import helperMetrics.ReportEvent;
+import model.Appointment;
+import model.TypeMonthCount;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The type month counts class holds the number of appointments of every type in every month of every year with
+ * appointments, so a search on the reports page is an array lookup instead of a pass over all appointments.
+ * Types are matched ignoring case, as the search always has; each type is shown with the first spelling found.
+ * The counts are built once from a GROUP BY query (see ReportCache) or from appointments already read, and never change.
+ */
+public class TypeMonthCounts {
+    /**
+     * Types in alphabetical order, ignoring case.
+     */
+    private final List<String> types;
+    /**
+     * Position of each type in types, by its lower case spelling.
+     */
+    private final Map<String, Integer> typeIndex = new HashMap<>();
+    /**
+     * First year with appointments, or 0 if there are none.
+     */
+    private final int firstYear;
+    /**
+     * Number of years from the first to the last year with appointments.
+     */
+    private final int yearCount;
+    /**
+     * Counts by year, month and type, at ((year - firstYear) * 12 + month - 1) * types + type.
+     */
+    private final int[] counts;
+    /**
+     * Counts by month of any year and type, at (month - 1) * types + type.
+     */
+    private final int[] monthCounts;
+    /**
+     * Number of appointments counted.
+     */
+    private final int total;
+
+    /**
+     * Constructor for the TypeMonthCounts class. Rows without a type are left out.
+     *
+     * @param rows counts by year, month and type, in any order; the same cell may appear more than once
+     */
+    private TypeMonthCounts(List<TypeMonthCount> rows) {
+        // Collecting the types and the range of years first, so the arrays can be sized
+        Map<String, String> spellings = new HashMap<>();
+        int minYear = Integer.MAX_VALUE;
+        int maxYear = Integer.MIN_VALUE;
+        for (TypeMonthCount row : rows) {
+            if (row.getType() != null) {
+                spellings.putIfAbsent(key(row.getType()), row.getType());
+                minYear = Math.min(minYear, row.getYear());
+                maxYear = Math.max(maxYear, row.getYear());
+            }
+        }
+
+        List<String> sorted = new ArrayList<>(spellings.values());
+        sorted.sort(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < sorted.size(); i++) {
+            typeIndex.put(key(sorted.get(i)), i);
+        }
+        types = List.copyOf(sorted);
+        firstYear = spellings.isEmpty() ? 0 : minYear;
+        yearCount = spellings.isEmpty() ? 0 : maxYear - minYear + 1;
+
+        counts = new int[yearCount * 12 * types.size()];
+        monthCounts = new int[12 * types.size()];
+        int sum = 0;
+        for (TypeMonthCount row : rows) {
+            if (row.getType() != null) {
+                int type = typeIndex.get(key(row.getType()));
+                counts[((row.getYear() - firstYear) * 12 + row.getMonth() - 1) * types.size() + type] += row.getCount();
+                monthCounts[(row.getMonth() - 1) * types.size() + type] += row.getCount();
+                sum += row.getCount();
+            }
+        }
+        total = sum;
+    }
+
+    /**
+     * The fromCounts function builds the counts from the rows of AppointmentsQuery.countByTypeAndMonth.
+     *
+     * @param rows counts by year, month and type
+     * @return the counts
+     */
+    public static TypeMonthCounts fromCounts(List<TypeMonthCount> rows) {
+        ReportEvent event = ReportEvent.start("Type and month counts", rows.size());
+        TypeMonthCounts typeMonthCounts = new TypeMonthCounts(rows);
+        event.finish(typeMonthCounts.counts.length);
+        return typeMonthCounts;
+    }
+
+    /**
+     * The fromAppointments function builds the counts in one pass over appointments already read.
+     *
+     * @param appointments appointments to count
+     * @return the counts
+     */
+    public static TypeMonthCounts fromAppointments(List<? extends Appointment> appointments) {
+        ReportEvent event = ReportEvent.start("Type and month counts", appointments.size());
+
+        // Counting by type first and then by year and month, so each appointment adds to an existing cell
+        Map<String, Map<Integer, int[]>> cells = new HashMap<>();
+        for (Appointment i : appointments) {
+            if (i.getType() == null) {
+                continue;
+            }
+            Map<Integer, int[]> typeCells = cells.get(i.getType());
+            if (typeCells == null) {
+                typeCells = cells.computeIfAbsent(i.getType(), type -> new HashMap<>());
+            }
+            int yearMonth = i.getStart().getYear() * 12 + i.getStart().getMonthValue() - 1;
+            typeCells.computeIfAbsent(yearMonth, cell -> new int[1])[0]++;
+        }
+
+        List<TypeMonthCount> rows = new ArrayList<>();
+        for (Map.Entry<String, Map<Integer, int[]>> type : cells.entrySet()) {
+            for (Map.Entry<Integer, int[]> cell : type.getValue().entrySet()) {
+                int yearMonth = cell.getKey();
+                rows.add(new TypeMonthCount(Math.floorDiv(yearMonth, 12), Math.floorMod(yearMonth, 12) + 1, type.getKey(), cell.getValue()[0]));
+            }
+        }
+        TypeMonthCounts typeMonthCounts = new TypeMonthCounts(rows);
+        event.finish(typeMonthCounts.counts.length);
+        return typeMonthCounts;
+    }
+
+    /**
+     * The count function returns the number of appointments of a type (ignoring case) starting in a month of any year.
+     *
+     * @param type appointment type
+     * @param month month number from 1 to 12
+     * @return number of matching appointments, 0 for an unknown type or month
+     */
+    public int count(String type, int month) {
+        Integer index = type == null ? null : typeIndex.get(key(type));
+        if (index == null || month < 1 || month > 12) {
+            return 0;
+        }
+        return monthCounts[(month - 1) * types.size() + index];
+    }
+
+    /**
+     * The count function returns the number of appointments of a type (ignoring case) starting in a month of a year.
+     *
+     * @param type appointment type
+     * @param yearMonth year and month
+     * @return number of matching appointments, 0 for an unknown type or a year without appointments
+     */
+    public int count(String type, YearMonth yearMonth) {
+        Integer index = type == null ? null : typeIndex.get(key(type));
+        int year = yearMonth.getYear() - firstYear;
+        if (index == null || year < 0 || year >= yearCount) {
+            return 0;
+        }
+        return counts[(year * 12 + yearMonth.getMonthValue() - 1) * types.size() + index];
+    }
+
+    /**
+     * The getTypes function returns the appointment types, without duplicates.
+     *
+     * @return unmodifiable list of types in alphabetical order
+     */
+    public List<String> getTypes() {
+        return types;
+    }
+
+    /**
+     * The getFirstYear function returns the first year with appointments.
+     *
+     * @return first year, or 0 if there are no appointments
+     */
+    public int getFirstYear() {
+        return firstYear;
+    }
+
+    /**
+     * The getLastYear function returns the last year with appointments.
+     *
+     * @return last year, or -1 if there are no appointments
+     */
+    public int getLastYear() {
+        return firstYear + yearCount - 1;
+    }
+
+    /**
+     * The getTotal function returns the number of appointments counted.
+     *
+     * @return number of appointments with a type
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * The key function returns the spelling types are matched by.
+     */
+    private static String key(String type) {
+        return type.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,144 @@
+package helperSchedule;
+
+import helperDB.AppointmentsQuery;
+import helperDB.BookingResult;
+import model.Appointment;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The booking service class adds and updates appointments so that the overlap check and the write cannot be
+ * interleaved with another booking for the same customer.
+ * Within this process, bookings take one of a fixed set of locks picked by customer id, so bookings for the same
+ * customer take turns while bookings for most other customers run at the same time.
+ * Across processes, the check and the write run in one transaction holding the customer's row lock
+ * (see AppointmentsQuery.bookApp). A single server process can skip the database lock with
+ * schedule.booking.lock=local, in which case the check uses the conflict index when it is switched on.
+ */
+public abstract class BookingService {
+    /**
+     * System property choosing how bookings are protected: database (default) or local.
+     */
+    public static final String lockProperty = "schedule.booking.lock";
+    /**
+     * System property with the number of in-process locks (default 64).
+     */
+    public static final String stripesProperty = "schedule.booking.stripes";
+
+    /**
+     * Locks shared by the customers whose ids fall into the same stripe.
+     */
+    private static final ReentrantLock[] stripes = new ReentrantLock[Math.max(1, Integer.getInteger(stripesProperty, 64))];
+
+    static {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * The isLocalOnly function returns whether bookings are only protected within this process.
+     *
+     * @return true if schedule.booking.lock is set to local
+     */
+    public static boolean isLocalOnly() {
+        return "local".equalsIgnoreCase(System.getProperty(lockProperty));
+    }
+
+    /**
+     * The book function adds an appointment if the customer has no appointment overlapping it.
+     *
+     * @param title title of appointment to be inserted
+     * @param description description of appointment to be inserted
+     * @param location location of appointment to be inserted
+     * @param type type of appointment to be inserted
+     * @param start start time of appointment to be inserted
+     * @param end end time of appointment to be inserted
+     * @param customerId customer id of appointment to be inserted
+     * @param userId user id associated with the appointment to be inserted
+     * @param contactId contact id associated with the appointment to be inserted
+     * @return the generated appointment id, or the overlapping appointments if nothing was inserted
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static BookingResult book(String title, String description, String location, String type, LocalDateTime start, LocalDateTime end, int customerId, int userId, int contactId) throws SQLException {
+        ReentrantLock lock = lockFor(customerId);
+        lock.lock();
+        try {
+            if (!isLocalOnly()) {
+                return AppointmentsQuery.bookApp(title, description, location, type, start, end, customerId, userId, contactId);
+            }
+            List<Appointment> conflicts = findConflicts(customerId, start, end, -1);
+            if (!conflicts.isEmpty()) {
+                return BookingResult.conflict(conflicts);
+            }
+            return BookingResult.booked(AppointmentsQuery.insertAppReturningId(title, description, location, type, start, end, customerId, userId, contactId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The reschedule function updates an appointment if the customer has no other appointment overlapping it.
+     * Only the new customer is locked, since moving an appointment away cannot cause an overlap.
+     *
+     * @param appId id of the appointment to be updated
+     * @param title title of appointment to be updated
+     * @param description description of appointment to be updated
+     * @param location location of appointment to be updated
+     * @param type type of appointment to be updated
+     * @param start start time of appointment to be updated
+     * @param end end time of appointment to be updated
+     * @param customerId customer id of appointment to be updated
+     * @param userId user id associated with the appointment to be updated
+     * @param contactId contact id associated with the appointment to be updated
+     * @return the appointment id, or the overlapping appointments if nothing was updated
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static BookingResult reschedule(int appId, String title, String description, String location, String type, LocalDateTime start, LocalDateTime end, int customerId, int userId, int contactId) throws SQLException {
+        ReentrantLock lock = lockFor(customerId);
+        lock.lock();
+        try {
+            if (!isLocalOnly()) {
+                return AppointmentsQuery.rebookApp(appId, title, description, location, type, start, end, customerId, userId, contactId);
+            }
+            List<Appointment> conflicts = findConflicts(customerId, start, end, appId);
+            if (!conflicts.isEmpty()) {
+                return BookingResult.conflict(conflicts);
+            }
+            int numChanged = AppointmentsQuery.updateApp(appId, title, description, location, type, start, end, customerId, userId, contactId);
+            return BookingResult.booked(numChanged > 0 ? appId : -1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The findConflicts function returns the customer's appointments that overlap the given times, without locking.
+     * With the in-memory conflict index switched on, all overlapping appointments are returned from the index.
+     * Otherwise the database is asked for the first overlapping appointment.
+     *
+     * @param customerId customer id of the appointment being added or updated
+     * @param start start of the appointment being added or updated
+     * @param end end of the appointment being added or updated
+     * @param excludeAppId id of the appointment being updated, or -1 when adding
+     * @return list of overlapping appointments, empty if there are none
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static List<Appointment> findConflicts(int customerId, LocalDateTime start, LocalDateTime end, int excludeAppId) throws SQLException {
+        if (ConflictIndex.isEnabled()) {
+            return ConflictIndex.getInstance().findConflicts(customerId, start, end, excludeAppId);
+        }
+        Appointment overlapping = AppointmentsQuery.findOverlapping(customerId, start, end, excludeAppId);
+        return overlapping == null ? List.of() : List.of(overlapping);
+    }
+
+    /**
+     * The lockFor function returns the lock of a customer. Consecutive ids get different locks.
+     */
+    private static ReentrantLock lockFor(int customerId) {
+        return stripes[Math.floorMod(customerId, stripes.length)];
+    }
+}
@@ -0,0 +1,221 @@
+package helperSchedule;
+
+import helperDB.AppointmentChangeListener;
+import helperDB.AppointmentsQuery;
+import model.Appointment;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The conflict index class keeps every customer's appointments in memory in an interval tree, so overlap checks
+ * do not need the database. It loads all appointments once and is then kept in sync through AppointmentsQuery's
+ * change listeners on insert, update and delete.
+ * The index is meant for server or heavy desktop use and is switched on with the system property
+ * schedule.conflictIndex=true; otherwise overlaps are checked with AppointmentsQuery.findOverlapping.
+ */
+public class ConflictIndex implements AppointmentChangeListener {
+    /**
+     * System property that switches the index on.
+     */
+    public static final String enabledProperty = "schedule.conflictIndex";
+    /**
+     * The shared index, created on first use.
+     */
+    private static volatile ConflictIndex instance;
+    /**
+     * Interval tree of appointments per customer id.
+     */
+    private final Map<Integer, IntervalTree<Appointment>> customerTrees = new ConcurrentHashMap<>();
+    /**
+     * Appointments by id, used to find the old interval on update and delete.
+     */
+    private final Map<Integer, Appointment> appointments = new ConcurrentHashMap<>();
+    /**
+     * Ids written through the change listener while the initial load was running, which the load must not overwrite.
+     */
+    private Set<Integer> changedWhileLoading = new HashSet<>();
+
+    /**
+     * The isEnabled function returns whether the index has been switched on for this process.
+     *
+     * @return true if schedule.conflictIndex is set to true
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(enabledProperty);
+    }
+
+    /**
+     * The getInstance function returns the shared index, loading all appointments and registering it as a change
+     * listener on first use.
+     *
+     * @return the shared conflict index
+     * @throws SQLException exception in case sql commands return an error
+     */
+    public static ConflictIndex getInstance() throws SQLException {
+        ConflictIndex index = instance;
+        if (index == null) {
+            synchronized (ConflictIndex.class) {
+                index = instance;
+                if (index == null) {
+                    index = new ConflictIndex();
+                    // Registering before loading, so no write between the two is missed
+                    AppointmentsQuery.addChangeListener(index);
+                    try {
+                        index.load(AppointmentsQuery.selectApps());
+                    } catch (SQLException e) {
+                        AppointmentsQuery.removeChangeListener(index);
+                        throw e;
+                    }
+                    instance = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * The load function adds the appointments read at startup, skipping any that changed since they were read.
+     *
+     * @param loaded all appointments in the database
+     */
+    private synchronized void load(List<Appointment> loaded) {
+        for (Appointment i : loaded) {
+            if (!changedWhileLoading.contains(i.getAppId())) {
+                appointmentSaved(i);
+            }
+        }
+        changedWhileLoading = null;
+    }
+
+    /**
+     * The findConflicts function returns the customer's appointments that overlap the given time range,
+     * ordered by start.
+     *
+     * @param customerId customer id to check the appointments of
+     * @param start start of the range
+     * @param end end of the range
+     * @param excludeAppId id of the appointment being updated, or -1 when adding
+     * @return list of overlapping appointments, empty if there are none
+     */
+    public List<Appointment> findConflicts(int customerId, LocalDateTime start, LocalDateTime end, int excludeAppId) {
+        return findConflicts(customerId, start, end, excludeAppId, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The hasConflict function returns whether any of the customer's appointments overlap the given time range.
+     * It stops at the first overlap found.
+     *
+     * @param customerId customer id to check the appointments of
+     * @param start start of the range
+     * @param end end of the range
+     * @param excludeAppId id of the appointment being updated, or -1 when adding
+     * @return true if there is an overlap
+     */
+    public boolean hasConflict(int customerId, LocalDateTime start, LocalDateTime end, int excludeAppId) {
+        return !findConflicts(customerId, start, end, excludeAppId, 1).isEmpty();
+    }
+
+    /**
+     * The findConflicts function returns at most limit overlapping appointments.
+     */
+    private List<Appointment> findConflicts(int customerId, LocalDateTime start, LocalDateTime end, int excludeAppId, int limit) {
+        IntervalTree<Appointment> tree = customerTrees.get(customerId);
+        if (tree == null) {
+            return List.of();
+        }
+        synchronized (tree) {
+            return tree.overlapping(toKey(start), toKey(end), excludeAppId, limit);
+        }
+    }
+
+    /**
+     * The size function returns the number of appointments in the index.
+     *
+     * @return number of indexed appointments
+     */
+    public int size() {
+        return appointments.size();
+    }
+
+    /**
+     * The appointmentSaved function adds a new appointment to the index, or moves an updated one.
+     *
+     * @param appointment the appointment as it is now stored
+     */
+    @Override
+    public synchronized void appointmentSaved(Appointment appointment) {
+        if (changedWhileLoading != null) {
+            changedWhileLoading.add(appointment.getAppId());
+        }
+        Appointment previous = appointments.put(appointment.getAppId(), appointment);
+        if (previous != null) {
+            removeFromTree(previous);
+        }
+        IntervalTree<Appointment> tree = customerTrees.computeIfAbsent(appointment.getCustomerId(), id -> new IntervalTree<>());
+        synchronized (tree) {
+            tree.insert(toKey(appointment.getStart()), toKey(appointment.getEnd()), appointment.getAppId(), appointment);
+        }
+    }
+
+    /**
+     * The appointmentDeleted function removes a deleted appointment from the index.
+     *
+     * @param appId id of the deleted appointment
+     */
+    @Override
+    public synchronized void appointmentDeleted(int appId) {
+        if (changedWhileLoading != null) {
+            changedWhileLoading.add(appId);
+        }
+        Appointment previous = appointments.remove(appId);
+        if (previous != null) {
+            removeFromTree(previous);
+        }
+    }
+
+    /**
+     * The customerAppointmentsDeleted function removes all appointments of a customer from the index.
+     *
+     * @param customerId id of the customer whose appointments were deleted
+     */
+    @Override
+    public synchronized void customerAppointmentsDeleted(int customerId) {
+        IntervalTree<Appointment> tree = customerTrees.remove(customerId);
+        if (tree == null) {
+            return;
+        }
+        appointments.values().removeIf(i -> {
+            boolean isCustomers = i.getCustomerId() == customerId;
+            if (isCustomers && changedWhileLoading != null) {
+                changedWhileLoading.add(i.getAppId());
+            }
+            return isCustomers;
+        });
+    }
+
+    /**
+     * The removeFromTree function removes an appointment from its customer's tree.
+     */
+    private void removeFromTree(Appointment appointment) {
+        IntervalTree<Appointment> tree = customerTrees.get(appointment.getCustomerId());
+        if (tree != null) {
+            synchronized (tree) {
+                tree.remove(toKey(appointment.getStart()), appointment.getAppId());
+            }
+        }
+    }
+
+    /**
+     * The toKey function turns a date and time into the number the trees are ordered by.
+     */
+    private static long toKey(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+}
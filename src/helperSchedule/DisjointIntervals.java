@@ -0,0 +1,131 @@
+package helperSchedule;
+
+import java.util.Arrays;
+
+/**
+ * The disjoint intervals class stores non-overlapping half-open intervals [start, end) in two sorted arrays of longs.
+ * Because no two intervals overlap, sorting by start also sorts by end, so an overlap check is one binary search.
+ * It takes 16 bytes per interval, which keeps a schedule of millions of appointments small, and is used where only
+ * the times matter, such as validating an import. The class is not thread safe; callers synchronize on it.
+ */
+public class DisjointIntervals {
+    /**
+     * Interval starts in ascending order.
+     */
+    private long[] starts = new long[4];
+    /**
+     * Interval ends, in the same order as the starts.
+     */
+    private long[] ends = new long[4];
+    /**
+     * Number of intervals stored.
+     */
+    private int size;
+
+    /**
+     * The overlaps function returns whether any stored interval overlaps [start, end).
+     *
+     * @param start start of the interval (inclusive)
+     * @param end end of the interval (exclusive)
+     * @return true if there is an overlap
+     */
+    public boolean overlaps(long start, long end) {
+        // Only the last interval starting before the end can reach past the start, since it ends last
+        int last = lastStartingBefore(end);
+        return last >= 0 && ends[last] > start;
+    }
+
+    /**
+     * The add function stores [start, end) unless it overlaps a stored interval.
+     *
+     * @param start start of the interval (inclusive)
+     * @param end end of the interval (exclusive)
+     * @return true if the interval was added, false if it overlaps
+     */
+    public boolean add(long start, long end) {
+        int last = lastStartingBefore(end);
+        if (last >= 0 && ends[last] > start) {
+            return false;
+        }
+        insertAt(last + 1, start, end);
+        return true;
+    }
+
+    /**
+     * The addMerging function stores [start, end), merging it with every stored interval it overlaps.
+     * It is used for existing appointments, which may already overlap each other.
+     *
+     * @param start start of the interval (inclusive)
+     * @param end end of the interval (exclusive)
+     */
+    public void addMerging(long start, long end) {
+        int last = lastStartingBefore(end);
+        while (last >= 0 && ends[last] > start) {
+            start = Math.min(start, starts[last]);
+            end = Math.max(end, ends[last]);
+            removeAt(last);
+            last = lastStartingBefore(end);
+        }
+        insertAt(last + 1, start, end);
+    }
+
+    /**
+     * The remove function removes the interval [start, end) if it is stored exactly.
+     *
+     * @param start start of the interval
+     * @param end end of the interval
+     * @return true if the interval was removed
+     */
+    public boolean remove(long start, long end) {
+        int index = Arrays.binarySearch(starts, 0, size, start);
+        if (index < 0 || ends[index] != end) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * The size function returns the number of intervals stored.
+     *
+     * @return number of intervals
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The lastStartingBefore function returns the position of the last interval starting before the given time, or -1.
+     */
+    private int lastStartingBefore(long time) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    private void insertAt(int index, long start, long end) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        System.arraycopy(starts, index, starts, index + 1, size - index);
+        System.arraycopy(ends, index, ends, index + 1, size - index);
+        starts[index] = start;
+        ends[index] = end;
+        size++;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+        System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+        size--;
+    }
+}
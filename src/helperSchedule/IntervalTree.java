@@ -0,0 +1,223 @@
+package helperSchedule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The interval tree class stores half-open time intervals [start, end) with a value attached to each.
+ * It is a balanced (AVL) binary search tree ordered by start and id, where every node also knows the latest end
+ * within its subtree. This lets an overlap query skip every subtree that ends before the queried range, so finding
+ * the k overlapping intervals takes O(log n + k) instead of a scan over all n intervals.
+ * The class is not thread safe; callers synchronize on the tree.
+ *
+ * @param <T> type of value stored with each interval
+ */
+public class IntervalTree<T> {
+    /**
+     * Root node of the tree.
+     */
+    private Node<T> root;
+    /**
+     * Number of intervals stored.
+     */
+    private int size;
+
+    /**
+     * The insert function adds an interval. Ids must be unique within the tree.
+     *
+     * @param start start of the interval (inclusive)
+     * @param end end of the interval (exclusive)
+     * @param id unique id of the interval, used to tell intervals with the same start apart
+     * @param value value stored with the interval
+     */
+    public void insert(long start, long end, int id, T value) {
+        root = insert(root, new Node<>(start, end, id, value));
+        size++;
+    }
+
+    /**
+     * The remove function removes the interval with the given start and id.
+     *
+     * @param start start of the interval
+     * @param id id of the interval
+     * @return true if the interval was found and removed
+     */
+    public boolean remove(long start, int id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+    /**
+     * The overlapping function returns the values of all intervals overlapping [start, end), ordered by start.
+     * Two intervals overlap when each one starts before the other one ends.
+     *
+     * @param start start of the queried range (inclusive)
+     * @param end end of the queried range (exclusive)
+     * @param excludeId id of an interval to leave out, or -1
+     * @param limit maximum number of values returned
+     * @return list of overlapping values
+     */
+    public List<T> overlapping(long start, long end, int excludeId, int limit) {
+        List<T> found = new ArrayList<>();
+        collect(root, start, end, excludeId, limit, found);
+        return found;
+    }
+
+    /**
+     * The size function returns the number of intervals stored.
+     *
+     * @return number of intervals
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The collect function walks only the subtrees that can contain overlapping intervals.
+     */
+    private static <T> void collect(Node<T> node, long start, long end, int excludeId, int limit, List<T> found) {
+        while (node != null && found.size() < limit && node.maxEnd > start) {
+            if (node.left != null && node.left.maxEnd > start) {
+                collect(node.left, start, end, excludeId, limit, found);
+                if (found.size() >= limit) {
+                    return;
+                }
+            }
+            if (node.start >= end) {
+                return; // This node and everything to its right start after the range
+            }
+            if (node.end > start && node.id != excludeId) {
+                found.add(node.value);
+            }
+            node = node.right;
+        }
+    }
+
+    /**
+     * The compare function orders intervals by start, then by id.
+     */
+    private static int compare(long startA, int idA, long startB, int idB) {
+        int byStart = Long.compare(startA, startB);
+        return byStart != 0 ? byStart : Integer.compare(idA, idB);
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node.start, node.id) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> remove(Node<T> node, long start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int order = compare(start, id, node.start, node.id);
+        if (order < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (order > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // Replacing the node with the smallest node of its right subtree
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            size++; // Removed again below
+            successor.right = remove(node.right, successor.start, successor.id);
+            successor.left = node.left;
+            return rebalance(successor);
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> rebalance(Node<T> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * The update function recomputes the height and latest end of a node from its children.
+     */
+    private static void update(Node<?> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    /**
+     * A node of the tree, holding one interval.
+     */
+    private static class Node<T> {
+        private final long start;
+        private final long end;
+        private final int id;
+        private final T value;
+        private long maxEnd;
+        private int height = 1;
+        private Node<T> left;
+        private Node<T> right;
+
+        private Node(long start, long end, int id, T value) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+}
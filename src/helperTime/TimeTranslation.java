@@ -39,4 +39,24 @@ public class TimeTranslation {
 
         return businessHours;
     }
+
+    /**
+     * The isWithinBusinessHours function checks that an appointment given in local system time starts before it ends
+     * and lies within the office hours, 8:00 to 22:00 America/New_York on one day.
+     * These are the same hours returnBusinessHours offers in the appointment form.
+     *
+     * @param start appointment start in local system time
+     * @param end appointment end in local system time
+     * @return true if the appointment is within business hours
+     */
+    public static boolean isWithinBusinessHours(LocalDateTime start, LocalDateTime end) {
+        ZoneId office = ZoneId.of("America/New_York");
+        ZonedDateTime officeStart = start.atZone(ZoneId.systemDefault()).withZoneSameInstant(office);
+        ZonedDateTime officeEnd = end.atZone(ZoneId.systemDefault()).withZoneSameInstant(office);
+
+        return officeStart.isBefore(officeEnd)
+                && officeStart.toLocalDate().equals(officeEnd.toLocalDate())
+                && !officeStart.toLocalTime().isBefore(LocalTime.of(8, 0))
+                && !officeEnd.toLocalTime().isAfter(LocalTime.of(22, 0));
+    }
 }
@@ -1,8 +1,13 @@
 package main;
 
+import control.Views;
+import helperDB.AsyncDB;
+import helperDB.DataGenerator;
 import helperDB.JDBC;
+import helperDB.ReferenceCache;
+import helperMetrics.QueryMetrics;
+import helperReports.ReportMaterializations;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
@@ -24,10 +29,13 @@ public class Main extends Application {
      */
     @Override
     public void start(Stage primaryStage) throws Exception {
-        Parent root = FXMLLoader.load(getClass().getResource("../view/login-form.fxml"));
+        Parent root = Views.load("login-form").getRoot();
         primaryStage.setTitle("Login Form");
         primaryStage.setScene(new Scene(root, 400, 300));
         primaryStage.show();
+
+        // Loading the other screens in the background while the login page is shown, so they open without a delay
+        Views.preload("main-form", "appointment-form", "customers-form", "reports-form");
     }
 
     /**
@@ -39,6 +47,24 @@ public class Main extends Application {
      */
     public static void main(String[] args) throws SQLException, IOException {
         JDBC.makeConnection();
+        // Writing query timings to schedule.metrics.file while the program runs, if it is set
+        QueryMetrics.startExport();
+        // The embedded database starts empty, so it is filled with generated customers and appointments
+        if (JDBC.isEmbedded()) {
+            DataGenerator.seedIfEmpty();
+        }
+        // Reading the contacts, countries, divisions and users while the login page is shown; if this fails,
+        // the reference cache reads them on first use instead
+        AsyncDB.supplyAsync(() -> {
+            ReferenceCache.warm();
+            return null;
+        });
+        // Building the report materializations in the background as well, so the reports page does not wait for them
+        if (ReportMaterializations.isEnabled()) {
+            AsyncDB.supplyAsync(ReportMaterializations::getInstance);
+        }
         launch(args);
+        QueryMetrics.stopExport();
+        JDBC.closeConnection();
     }
 }
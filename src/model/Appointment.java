@@ -1,6 +1,6 @@
 package model;
 
-import helperDB.ContactsQuery;
+import helperDB.ReferenceCache;
 
 import java.sql.SQLException;
 import java.time.LocalDateTime;
@@ -158,6 +158,6 @@ public class Appointment {
     }
 
     public Contact getContact() throws SQLException {
-        return ContactsQuery.selectContact(contactId);
+        return ReferenceCache.getContact(contactId);
     }
 }
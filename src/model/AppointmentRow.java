@@ -0,0 +1,66 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * The AppointmentRow class is an appointment loaded together with its contact in one JOIN query.
+ * It is used by the appointments table, so rendering the contact column does not query the database per cell.
+ */
+public class AppointmentRow extends Appointment {
+    /**
+     * Associated contact name attribute.
+     */
+    private String contactName;
+    /**
+     * Associated contact email attribute.
+     */
+    private String contactEmail;
+
+    /**
+     * Constructor for the AppointmentRow class.
+     *
+     * @param appId appointment id
+     * @param title appointment title
+     * @param description appointment description
+     * @param location appointment location
+     * @param type appointment type
+     * @param start appointment start time
+     * @param end appointment end time
+     * @param customerId appointment associated customer id
+     * @param userId appointment associated user id
+     * @param contactId appointment associated contact id
+     * @param contactName appointment associated contact name
+     * @param contactEmail appointment associated contact email
+     */
+    public AppointmentRow(int appId, String title, String description, String location, String type, LocalDateTime start, LocalDateTime end, int customerId, int userId, int contactId, String contactName, String contactEmail) {
+        super(appId, title, description, location, type, start, end, customerId, userId, contactId);
+        this.contactName = contactName;
+        this.contactEmail = contactEmail;
+    }
+
+    public String getContactName() {
+        return contactName;
+    }
+
+    public void setContactName(String contactName) {
+        this.contactName = contactName;
+    }
+
+    public String getContactEmail() {
+        return contactEmail;
+    }
+
+    public void setContactEmail(String contactEmail) {
+        this.contactEmail = contactEmail;
+    }
+
+    /**
+     * The getContact function returns the contact loaded with the appointment, without querying the database.
+     *
+     * @return the associated contact
+     */
+    @Override
+    public Contact getContact() {
+        return new Contact(getContactId(), contactName, contactEmail);
+    }
+}
@@ -0,0 +1,60 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * The ContactWeek class is one row of the contact utilization report: the minutes of appointments a contact has in
+ * one week, and the share of the week's office hours they fill.
+ */
+public class ContactWeek {
+    /**
+     * Minutes of office hours in a week, 8:00 to 22:00 on every day.
+     */
+    public static final long officeMinutesPerWeek = 7 * 14 * 60;
+    /**
+     * Contact id attribute.
+     */
+    private final int contactId;
+    /**
+     * Monday the week starts on.
+     */
+    private final LocalDate weekStart;
+    /**
+     * Minutes of appointments starting in the week.
+     */
+    private final long minutes;
+
+    /**
+     * Constructor for the ContactWeek class.
+     *
+     * @param contactId contact id
+     * @param weekStart Monday the week starts on
+     * @param minutes minutes of appointments starting in the week
+     */
+    public ContactWeek(int contactId, LocalDate weekStart, long minutes) {
+        this.contactId = contactId;
+        this.weekStart = weekStart;
+        this.minutes = minutes;
+    }
+
+    public int getContactId() {
+        return contactId;
+    }
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public long getMinutes() {
+        return minutes;
+    }
+
+    /**
+     * The getUtilization function returns the share of the week's office hours the appointments fill.
+     *
+     * @return minutes divided by the office minutes of a week
+     */
+    public double getUtilization() {
+        return (double) minutes / officeMinutesPerWeek;
+    }
+}
@@ -1,7 +1,6 @@
 package model;
 
-import helperDB.CountriesQuery;
-import helperDB.DivisionsQuery;
+import helperDB.ReferenceCache;
 
 import java.sql.SQLException;
 
@@ -102,12 +101,12 @@ public class Customer {
     }
 
     public Country getCountry() throws SQLException {
-        int countryId = DivisionsQuery.selectDivision(divisionId).getCountryId();
-        return CountriesQuery.selectCountry(countryId);
+        int countryId = ReferenceCache.getDivision(divisionId).getCountryId();
+        return ReferenceCache.getCountry(countryId);
     }
 
     public Division getDivision() throws SQLException {
-        return DivisionsQuery.selectDivision(divisionId);
+        return ReferenceCache.getDivision(divisionId);
     }
 
     @Override
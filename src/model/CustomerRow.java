@@ -0,0 +1,84 @@
+package model;
+
+/**
+ * The CustomerRow class is a customer loaded together with its division and country in one JOIN query.
+ * It is used by the customers table, so rendering the division and country columns does not query the database per cell.
+ */
+public class CustomerRow extends Customer {
+    /**
+     * Associated division name attribute.
+     */
+    private String divisionName;
+    /**
+     * Associated country id attribute.
+     */
+    private int countryId;
+    /**
+     * Associated country name attribute.
+     */
+    private String countryName;
+
+    /**
+     * Constructor for the CustomerRow class.
+     *
+     * @param id customer id
+     * @param name customer name
+     * @param address customer address
+     * @param postalCode customer postal code
+     * @param phone customer phone number
+     * @param divisionId customer associated division id
+     * @param divisionName customer associated division name
+     * @param countryId customer associated country id
+     * @param countryName customer associated country name
+     */
+    public CustomerRow(int id, String name, String address, String postalCode, String phone, int divisionId, String divisionName, int countryId, String countryName) {
+        super(id, name, address, postalCode, phone, divisionId);
+        this.divisionName = divisionName;
+        this.countryId = countryId;
+        this.countryName = countryName;
+    }
+
+    public String getDivisionName() {
+        return divisionName;
+    }
+
+    public void setDivisionName(String divisionName) {
+        this.divisionName = divisionName;
+    }
+
+    public int getCountryId() {
+        return countryId;
+    }
+
+    public void setCountryId(int countryId) {
+        this.countryId = countryId;
+    }
+
+    public String getCountryName() {
+        return countryName;
+    }
+
+    public void setCountryName(String countryName) {
+        this.countryName = countryName;
+    }
+
+    /**
+     * The getCountry function returns the country loaded with the customer, without querying the database.
+     *
+     * @return the associated country
+     */
+    @Override
+    public Country getCountry() {
+        return new Country(countryId, countryName);
+    }
+
+    /**
+     * The getDivision function returns the division loaded with the customer, without querying the database.
+     *
+     * @return the associated division
+     */
+    @Override
+    public Division getDivision() {
+        return new Division(getDivisionId(), divisionName, countryId);
+    }
+}
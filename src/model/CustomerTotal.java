@@ -0,0 +1,35 @@
+package model;
+
+/**
+ * The CustomerTotal class is one row of the customers of the month report: a customer id and the total the
+ * customers are ranked by, such as the minutes of appointments the customer has scheduled.
+ */
+public class CustomerTotal {
+    /**
+     * Customer id attribute.
+     */
+    private final int customerId;
+    /**
+     * Total of the ranking metric.
+     */
+    private final long total;
+
+    /**
+     * Constructor for the CustomerTotal class.
+     *
+     * @param customerId customer id
+     * @param total total of the ranking metric
+     */
+    public CustomerTotal(int customerId, long total) {
+        this.customerId = customerId;
+        this.total = total;
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,54 @@
+package model;
+
+/**
+ * The RegionMinutes class is one row of the minutes per customer report: the appointment minutes of all customers in
+ * a division or country, and how many customers they belong to.
+ */
+public class RegionMinutes {
+    /**
+     * Division or country id attribute.
+     */
+    private final int regionId;
+    /**
+     * Number of customers in the region with appointments.
+     */
+    private final int customers;
+    /**
+     * Minutes of appointments of those customers.
+     */
+    private final long minutes;
+
+    /**
+     * Constructor for the RegionMinutes class.
+     *
+     * @param regionId division or country id
+     * @param customers number of customers in the region with appointments
+     * @param minutes minutes of appointments of those customers
+     */
+    public RegionMinutes(int regionId, int customers, long minutes) {
+        this.regionId = regionId;
+        this.customers = customers;
+        this.minutes = minutes;
+    }
+
+    public int getRegionId() {
+        return regionId;
+    }
+
+    public int getCustomers() {
+        return customers;
+    }
+
+    public long getMinutes() {
+        return minutes;
+    }
+
+    /**
+     * The getMinutesPerCustomer function returns the average appointment minutes of a customer in the region.
+     *
+     * @return minutes divided by customers, 0 if there are no customers
+     */
+    public double getMinutesPerCustomer() {
+        return customers == 0 ? 0 : (double) minutes / customers;
+    }
+}
@@ -0,0 +1,55 @@
+package model;
+
+/**
+ * The TypeMonthCount class is one row of the appointments by type and month report: the number of appointments
+ * of one type starting in one month of one year.
+ */
+public class TypeMonthCount {
+    /**
+     * Year the appointments start in.
+     */
+    private final int year;
+    /**
+     * Month the appointments start in, from 1 to 12.
+     */
+    private final int month;
+    /**
+     * Appointment type.
+     */
+    private final String type;
+    /**
+     * Number of appointments.
+     */
+    private final int count;
+
+    /**
+     * Constructor for the TypeMonthCount class.
+     *
+     * @param year year the appointments start in
+     * @param month month the appointments start in, from 1 to 12
+     * @param type appointment type
+     * @param count number of appointments
+     */
+    public TypeMonthCount(int year, int month, String type, int count) {
+        this.year = year;
+        this.month = month;
+        this.type = type;
+        this.count = count;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}